@@ -0,0 +1,139 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.fabricmc.loom.decompilers.ClassLineNumbers;
+import net.fabricmc.loom.decompilers.cache.CachedData;
+import net.fabricmc.loom.decompilers.cache.CachedFileStoreImpl;
+import net.fabricmc.loom.decompilers.cache.CachedJarProcessor;
+import net.fabricmc.loom.util.FileSystemUtil;
+
+/**
+ * Measures the overhead that the decompile cache adds around the decompiler, with an empty and with a fully populated cache.
+ * The decompiler itself is replaced by writing a small source file for each class.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class CachedJarProcessorBenchmark {
+	private static final CachedFileStoreImpl.CacheRules CACHE_RULES = new CachedFileStoreImpl.CacheRules(50_000, Duration.ofDays(90));
+	private static final String BASE_HASH = "benchmark";
+
+	@Param({"2000", "8000"})
+	public int classes;
+
+	private Path tempDir;
+	private Path inputJar;
+	private Path outputJar;
+	private ClassLineNumbers lineNumbers;
+	private CachedJarProcessor warmProcessor;
+	private CachedJarProcessor coldProcessor;
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		tempDir = Files.createTempDirectory("loom-jmh");
+		inputJar = tempDir.resolve("input.jar");
+		outputJar = tempDir.resolve("output.jar");
+
+		SyntheticData.writeJar(inputJar, SyntheticData.NAMED, classes, SyntheticData.METHODS_PER_CLASS);
+		lineNumbers = SyntheticData.createLineNumbers(SyntheticData.NAMED, classes);
+
+		// Populate the warm cache with a full run
+		warmProcessor = new CachedJarProcessor(new CachedFileStoreImpl<>(tempDir.resolve("warm-cache"), CachedData.SERIALIZER, CACHE_RULES), BASE_HASH);
+		run(warmProcessor);
+	}
+
+	@Setup(Level.Invocation)
+	public void setupInvocation() throws IOException {
+		Files.deleteIfExists(outputJar);
+
+		final Path coldCache = tempDir.resolve("cold-cache");
+		FileUtils.deleteDirectory(coldCache.toFile());
+		coldProcessor = new CachedJarProcessor(new CachedFileStoreImpl<>(coldCache, CachedData.SERIALIZER, CACHE_RULES), BASE_HASH);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		FileUtils.deleteDirectory(tempDir.toFile());
+	}
+
+	@Benchmark
+	public CachedJarProcessor.CacheStats cold() throws IOException {
+		return run(coldProcessor);
+	}
+
+	@Benchmark
+	public CachedJarProcessor.CacheStats warm() throws IOException {
+		return run(warmProcessor);
+	}
+
+	private CachedJarProcessor.CacheStats run(CachedJarProcessor processor) throws IOException {
+		final CachedJarProcessor.WorkRequest workRequest = processor.prepareJob(inputJar);
+
+		if (workRequest.job() instanceof CachedJarProcessor.WorkToDoJob workToDoJob) {
+			writeSources(workToDoJob.outputNameMap(), workToDoJob.output());
+		}
+
+		processor.completeJob(outputJar, workRequest.job(), lineNumbers);
+		Files.delete(outputJar);
+		return workRequest.stats();
+	}
+
+	private static void writeSources(Map<String, String> outputNameMap, Path output) throws IOException {
+		try (FileSystemUtil.Delegate outputFs = FileSystemUtil.getJarFileSystem(output, true)) {
+			for (String sourcesFileName : outputNameMap.keySet()) {
+				final Path path = outputFs.getRoot().resolve(sourcesFileName);
+				final String className = sourcesFileName.substring(0, sourcesFileName.length() - ".java".length());
+				Files.createDirectories(path.getParent());
+				Files.writeString(path, "public class %s {\n\t// %s\n}\n".formatted(className.substring(className.lastIndexOf('/') + 1), "x".repeat(2048)));
+			}
+		}
+	}
+}
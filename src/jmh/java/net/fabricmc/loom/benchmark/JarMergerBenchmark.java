@@ -0,0 +1,89 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.fabricmc.loom.configuration.providers.minecraft.MinecraftJarMerger;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class JarMergerBenchmark {
+	@Param({"2000", "8000"})
+	public int classes;
+
+	private Path tempDir;
+	private Path clientJar;
+	private Path serverJar;
+	private Path mergedJar;
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		tempDir = Files.createTempDirectory("loom-jmh");
+		clientJar = tempDir.resolve("client.jar");
+		serverJar = tempDir.resolve("server.jar");
+		mergedJar = tempDir.resolve("merged.jar");
+
+		// Like Minecraft, the server jar contains most of the client classes, but some of their methods are client only
+		SyntheticData.writeJar(clientJar, SyntheticData.OFFICIAL, classes, SyntheticData.METHODS_PER_CLASS);
+		SyntheticData.writeJar(serverJar, SyntheticData.OFFICIAL, classes * 3 / 5, SyntheticData.METHODS_PER_CLASS - 5);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		FileUtils.deleteDirectory(tempDir.toFile());
+	}
+
+	@Benchmark
+	public Path merge() throws IOException {
+		try (var merger = new MinecraftJarMerger(clientJar.toFile(), serverJar.toFile(), mergedJar.toFile())) {
+			merger.merge();
+		}
+
+		return mergedJar;
+	}
+}
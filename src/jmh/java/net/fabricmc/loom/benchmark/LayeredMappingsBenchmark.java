@@ -0,0 +1,121 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.fabricmc.loom.api.mappings.layered.MappingLayer;
+import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
+import net.fabricmc.loom.configuration.providers.mappings.LayeredMappingSpec;
+import net.fabricmc.loom.configuration.providers.mappings.LayeredMappingsProcessor;
+import net.fabricmc.mappingio.MappingReader;
+import net.fabricmc.mappingio.MappingVisitor;
+import net.fabricmc.mappingio.adapter.MappingNsCompleter;
+import net.fabricmc.mappingio.tree.MemoryMappingTree;
+
+/**
+ * Layers intermediary and named mappings the same way as an intermediary and Yarn layered mapping spec.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class LayeredMappingsBenchmark {
+	@Param({"2000", "8000"})
+	public int classes;
+
+	private Path tempDir;
+	private List<MappingLayer> layers;
+	private LayeredMappingsProcessor processor;
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		tempDir = Files.createTempDirectory("loom-jmh");
+		final Path intermediary = tempDir.resolve("intermediary.tiny");
+		final Path named = tempDir.resolve("named.tiny");
+
+		SyntheticData.writeMappings(intermediary, classes, SyntheticData.OFFICIAL, SyntheticData.INTERMEDIARY);
+		SyntheticData.writeMappings(named, classes, SyntheticData.INTERMEDIARY, SyntheticData.NAMED);
+
+		layers = List.of(new IntermediaryLayer(intermediary), new NamedLayer(named));
+		processor = new LayeredMappingsProcessor(new LayeredMappingSpec(List.of()), false);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		FileUtils.deleteDirectory(tempDir.toFile());
+	}
+
+	@Benchmark
+	public MemoryMappingTree getMappings() throws IOException {
+		return processor.getMappings(layers);
+	}
+
+	private record IntermediaryLayer(Path file) implements MappingLayer {
+		@Override
+		public void visit(MappingVisitor mappingVisitor) throws IOException {
+			MappingReader.read(file, new MappingNsCompleter(mappingVisitor, Map.of(MappingsNamespace.NAMED.toString(), MappingsNamespace.INTERMEDIARY.toString()), true));
+		}
+
+		@Override
+		public MappingsNamespace getSourceNamespace() {
+			return MappingsNamespace.OFFICIAL;
+		}
+	}
+
+	private record NamedLayer(Path file) implements MappingLayer {
+		@Override
+		public void visit(MappingVisitor mappingVisitor) throws IOException {
+			MappingReader.read(file, mappingVisitor);
+		}
+
+		@Override
+		public MappingsNamespace getSourceNamespace() {
+			return MappingsNamespace.INTERMEDIARY;
+		}
+	}
+}
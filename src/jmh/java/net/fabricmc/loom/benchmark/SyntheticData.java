@@ -0,0 +1,219 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.benchmark;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+import net.fabricmc.loom.decompilers.ClassLineNumbers;
+
+/**
+ * Generates jars and mappings shaped like Minecraft's, so that the benchmarks do not depend on any downloaded files.
+ *
+ * <p>Every class has {@value #METHODS_PER_CLASS} methods and {@value #FIELDS_PER_CLASS} fields,
+ * and extends the previous class in chains of ten to give the class hierarchy some depth.
+ */
+public final class SyntheticData {
+	public static final int METHODS_PER_CLASS = 20;
+	public static final int FIELDS_PER_CLASS = 10;
+	public static final int LINES_PER_METHOD = 4;
+	private static final int CHAIN_LENGTH = 10;
+
+	public static final String OFFICIAL = "official";
+	public static final String INTERMEDIARY = "intermediary";
+	public static final String NAMED = "named";
+
+	private SyntheticData() {
+	}
+
+	public static String className(String namespace, int index) {
+		return switch (namespace) {
+		case OFFICIAL -> "c" + index;
+		case INTERMEDIARY -> "net/minecraft/class_" + index;
+		case NAMED -> "net/minecraft/pkg" + (index % 50) + "/Class" + index;
+		default -> throw new IllegalArgumentException(namespace);
+		};
+	}
+
+	public static String methodName(String namespace, int classIndex, int index) {
+		return switch (namespace) {
+		case OFFICIAL -> "m" + index;
+		case INTERMEDIARY -> "method_" + (classIndex * METHODS_PER_CLASS + index);
+		case NAMED -> "doThing" + index;
+		default -> throw new IllegalArgumentException(namespace);
+		};
+	}
+
+	public static String fieldName(String namespace, int classIndex, int index) {
+		return switch (namespace) {
+		case OFFICIAL -> "f" + index;
+		case INTERMEDIARY -> "field_" + (classIndex * FIELDS_PER_CLASS + index);
+		case NAMED -> "value" + index;
+		default -> throw new IllegalArgumentException(namespace);
+		};
+	}
+
+	/**
+	 * Writes a jar of {@code classes} classes named in the given namespace, along with a resource for every fourth class.
+	 *
+	 * @param methods the number of methods in each class, at most {@value #METHODS_PER_CLASS}
+	 */
+	public static void writeJar(Path jar, String namespace, int classes, int methods) throws IOException {
+		try (var zipOutputStream = new ZipOutputStream(Files.newOutputStream(jar))) {
+			for (int i = 0; i < classes; i++) {
+				zipOutputStream.putNextEntry(new ZipEntry(className(namespace, i) + ".class"));
+				zipOutputStream.write(createClass(namespace, i, methods));
+				zipOutputStream.closeEntry();
+
+				if (i % 4 == 0) {
+					zipOutputStream.putNextEntry(new ZipEntry("assets/minecraft/data/file_" + i + ".json"));
+					zipOutputStream.write(("{\"index\": " + i + ", \"padding\": \"" + "x".repeat(1024) + "\"}").getBytes(StandardCharsets.UTF_8));
+					zipOutputStream.closeEntry();
+				}
+			}
+		}
+	}
+
+	private static byte[] createClass(String namespace, int index, int methods) {
+		final String name = className(namespace, index);
+		final String superName = index % CHAIN_LENGTH == 0 ? "java/lang/Object" : className(namespace, index - 1);
+		final var classWriter = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+		classWriter.visit(Opcodes.V17, Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER, name, null, superName, null);
+		classWriter.visitSource(name.substring(name.lastIndexOf('/') + 1) + ".java", null);
+
+		for (int i = 0; i < FIELDS_PER_CLASS; i++) {
+			classWriter.visitField(Opcodes.ACC_PRIVATE, fieldName(namespace, index, i), "I", null, null).visitEnd();
+		}
+
+		final MethodVisitor constructor = classWriter.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+		constructor.visitCode();
+		constructor.visitVarInsn(Opcodes.ALOAD, 0);
+		constructor.visitMethodInsn(Opcodes.INVOKESPECIAL, superName, "<init>", "()V", false);
+		constructor.visitInsn(Opcodes.RETURN);
+		constructor.visitMaxs(0, 0);
+		constructor.visitEnd();
+
+		for (int i = 0; i < methods; i++) {
+			final MethodVisitor method = classWriter.visitMethod(Opcodes.ACC_PUBLIC, methodName(namespace, index, i), "(I)I", null, null);
+			method.visitCode();
+			method.visitVarInsn(Opcodes.ILOAD, 1);
+
+			for (int line = 0; line < LINES_PER_METHOD; line++) {
+				final var label = new Label();
+				method.visitLabel(label);
+				method.visitLineNumber(firstLine(i) + line, label);
+				method.visitVarInsn(Opcodes.ALOAD, 0);
+				method.visitFieldInsn(Opcodes.GETFIELD, name, fieldName(namespace, index, (i + line) % FIELDS_PER_CLASS), "I");
+				method.visitInsn(Opcodes.IADD);
+			}
+
+			method.visitInsn(Opcodes.IRETURN);
+			method.visitMaxs(0, 0);
+			method.visitEnd();
+		}
+
+		classWriter.visitEnd();
+		return classWriter.toByteArray();
+	}
+
+	private static int firstLine(int method) {
+		return 10 + method * (LINES_PER_METHOD + 2);
+	}
+
+	/**
+	 * Writes tiny v2 mappings for {@code classes} classes, with the given namespaces.
+	 */
+	public static void writeMappings(Path file, int classes, String... namespaces) throws IOException {
+		final String fieldDesc = "I";
+		final String methodDesc = "(I)I";
+
+		try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+			writer.write("tiny\t2\t0\t" + String.join("\t", namespaces) + "\n");
+
+			for (int i = 0; i < classes; i++) {
+				final int classIndex = i;
+				writer.write("c\t" + names(namespaces, ns -> className(ns, classIndex)) + "\n");
+
+				for (int j = 0; j < FIELDS_PER_CLASS; j++) {
+					final int fieldIndex = j;
+					writer.write("\tf\t" + fieldDesc + "\t" + names(namespaces, ns -> fieldName(ns, classIndex, fieldIndex)) + "\n");
+				}
+
+				for (int j = 0; j < METHODS_PER_CLASS; j++) {
+					final int methodIndex = j;
+					writer.write("\tm\t" + methodDesc + "\t" + names(namespaces, ns -> methodName(ns, classIndex, methodIndex)) + "\n");
+				}
+			}
+		}
+	}
+
+	private static String names(String[] namespaces, Function<String, String> nameFunction) {
+		final var builder = new StringBuilder();
+
+		for (int i = 0; i < namespaces.length; i++) {
+			if (i > 0) {
+				builder.append('\t');
+			}
+
+			builder.append(nameFunction.apply(namespaces[i]));
+		}
+
+		return builder.toString();
+	}
+
+	/**
+	 * Creates line numbers for a jar written by {@link #writeJar}, that move every line down by ten.
+	 */
+	public static ClassLineNumbers createLineNumbers(String namespace, int classes) {
+		final Map<String, ClassLineNumbers.Entry> entries = new HashMap<>();
+		final int maxLine = firstLine(METHODS_PER_CLASS);
+
+		for (int i = 0; i < classes; i++) {
+			final Map<Integer, Integer> lineMap = new HashMap<>();
+
+			for (int line = 0; line < maxLine; line++) {
+				lineMap.put(line, line + 10);
+			}
+
+			final String name = className(namespace, i);
+			entries.put(name, new ClassLineNumbers.Entry(name, maxLine, maxLine + 10, lineMap));
+		}
+
+		return new ClassLineNumbers(entries);
+	}
+}
@@ -0,0 +1,114 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.configuration.accesswidener;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.fabricmc.accesswidener.AccessWidener;
+import net.fabricmc.accesswidener.AccessWidenerReader;
+import net.fabricmc.loom.benchmark.SyntheticData;
+
+/**
+ * Lives in the same package as {@link AccessWidenerTransformer} as it is not public.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class AccessWidenerTransformerBenchmark {
+	@Param({"2000", "8000"})
+	public int classes;
+
+	/**
+	 * One in how many classes have access widener entries.
+	 */
+	@Param({"1", "10"})
+	public int step;
+
+	private Path tempDir;
+	private Path templateJar;
+	private Path jar;
+	private AccessWidenerTransformer transformer;
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		tempDir = Files.createTempDirectory("loom-jmh");
+		templateJar = tempDir.resolve("template.jar");
+		jar = tempDir.resolve("input.jar");
+
+		SyntheticData.writeJar(templateJar, SyntheticData.NAMED, classes, SyntheticData.METHODS_PER_CLASS);
+
+		final var accessWidener = new AccessWidener();
+		accessWidener.visitHeader(SyntheticData.NAMED);
+
+		for (int i = 0; i < classes; i += step) {
+			final String className = SyntheticData.className(SyntheticData.NAMED, i);
+			accessWidener.visitClass(className, AccessWidenerReader.AccessType.EXTENDABLE, false);
+			accessWidener.visitMethod(className, SyntheticData.methodName(SyntheticData.NAMED, i, 0), "(I)I", AccessWidenerReader.AccessType.EXTENDABLE, false);
+			accessWidener.visitField(className, SyntheticData.fieldName(SyntheticData.NAMED, i, 0), "I", AccessWidenerReader.AccessType.ACCESSIBLE, false);
+			accessWidener.visitField(className, SyntheticData.fieldName(SyntheticData.NAMED, i, 0), "I", AccessWidenerReader.AccessType.MUTABLE, false);
+		}
+
+		transformer = new AccessWidenerTransformer(accessWidener);
+	}
+
+	@Setup(Level.Invocation)
+	public void copyJar() throws IOException {
+		// The access widener is applied in place
+		Files.copy(templateJar, jar, StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		FileUtils.deleteDirectory(tempDir.toFile());
+	}
+
+	@Benchmark
+	public Path apply() {
+		transformer.apply(jar);
+		return jar;
+	}
+}
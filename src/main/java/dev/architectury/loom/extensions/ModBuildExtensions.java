@@ -12,13 +12,13 @@ import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.util.Set;
+import java.util.function.Supplier;
 import java.util.jar.Attributes;
 import java.util.jar.JarFile;
 import java.util.jar.Manifest;
 
 import dev.architectury.at.AccessTransformSet;
 import dev.architectury.at.io.AccessTransformFormats;
-import org.gradle.api.provider.Property;
 import org.gradle.api.provider.SetProperty;
 import org.jetbrains.annotations.Nullable;
 
@@ -27,7 +27,6 @@ import net.fabricmc.loom.util.Constants;
 import net.fabricmc.loom.util.FileSystemUtil;
 import net.fabricmc.loom.util.LfWriter;
 import net.fabricmc.loom.util.aw2at.Aw2At;
-import net.fabricmc.loom.util.service.UnsafeWorkQueueHelper;
 
 public final class ModBuildExtensions {
 	public static Set<String> readMixinConfigsFromManifest(File jarFile) {
@@ -49,7 +48,7 @@ public final class ModBuildExtensions {
 		}
 	}
 
-	public static void convertAwToAt(SetProperty<String> atAccessWidenersProperty, Path outputFile, Property<String> mappingBuildServiceUuid) throws IOException {
+	public static void convertAwToAt(SetProperty<String> atAccessWidenersProperty, Path outputFile, Supplier<MappingsService> mappingsService) throws IOException {
 		if (!atAccessWidenersProperty.isPresent()) {
 			return;
 		}
@@ -84,7 +83,7 @@ public final class ModBuildExtensions {
 				Files.delete(awPath);
 			}
 
-			MappingsService service = UnsafeWorkQueueHelper.get(mappingBuildServiceUuid, MappingsService.class);
+			MappingsService service = mappingsService.get();
 			at = at.remap(service.getMemoryMappingTree(), service.getFromNamespace(), service.getToNamespace());
 
 			try (Writer writer = new LfWriter(Files.newBufferedWriter(atPath))) {
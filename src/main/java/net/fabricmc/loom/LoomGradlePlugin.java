@@ -52,6 +52,7 @@ import net.fabricmc.loom.task.LoomTasks;
 import net.fabricmc.loom.task.RemapTaskConfiguration;
 import net.fabricmc.loom.util.Constants;
 import net.fabricmc.loom.util.LibraryLocationLogger;
+import net.fabricmc.loom.util.telemetry.TelemetryReportService;
 
 public class LoomGradlePlugin implements BootstrappedPlugin {
 	public static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
@@ -97,6 +98,7 @@ public class LoomGradlePlugin implements BootstrappedPlugin {
 		}
 
 		LibraryLocationLogger.logLibraryVersions();
+		TelemetryReportService.setupIfEnabled(project);
 
 		// Apply default plugins
 		project.apply(ImmutableMap.of("plugin", "java-library"));
@@ -29,5 +29,9 @@ import net.fabricmc.loom.util.LazyCloseable;
 import net.fabricmc.tinyremapper.TinyRemapper;
 
 public interface MappingProcessorContext {
+	/**
+	 * Returns a remapper with the Minecraft jars on its classpath, that is shared between all processors.
+	 * It must only be used to map names, and must not be used to remap any inputs.
+	 */
 	LazyCloseable<TinyRemapper> createRemapper(MappingsNamespace from, MappingsNamespace to);
 }
@@ -26,6 +26,7 @@ package net.fabricmc.loom.api.processor;
 
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.Map;
 
 import org.gradle.api.Named;
 import org.jetbrains.annotations.Nullable;
@@ -38,6 +39,19 @@ public interface MinecraftJarProcessor<S extends MinecraftJarProcessor.Spec> ext
 
 	void processJar(Path jar, S spec, ProcessorContext context) throws IOException;
 
+	/**
+	 * Returns the classes that {@link #processJar} modifies with the given spec, allowing the jar to be processed incrementally.
+	 *
+	 * <p>The map is keyed by the internal named class name, with a value that must change whenever the way that class is modified changes.
+	 * Classes that are not in the map must be left untouched by {@link #processJar}, which may be passed a jar containing only some of the classes.
+	 *
+	 * @return a map of class names to values, or {@code null} when the modified classes are not known and the whole jar must be processed
+	 */
+	@Nullable
+	default Map<String, String> getProcessedClasses(S spec, ProcessorContext context) throws IOException {
+		return null;
+	}
+
 	@Nullable
 	default MappingsProcessor<S> processMappings() {
 		return null;
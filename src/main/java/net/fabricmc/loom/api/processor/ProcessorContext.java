@@ -39,6 +39,10 @@ public interface ProcessorContext {
 
 	boolean includesServer();
 
+	/**
+	 * Returns a remapper with the Minecraft jars on its classpath, that is shared between all processors.
+	 * It must only be used to map names, and must not be used to remap any inputs.
+	 */
 	LazyCloseable<TinyRemapper> createRemapper(MappingsNamespace from, MappingsNamespace to);
 
 	MemoryMappingTree getMappings();
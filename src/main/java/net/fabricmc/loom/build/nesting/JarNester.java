@@ -26,26 +26,36 @@ package net.fabricmc.loom.build.nesting;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.Collection;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
 
 import com.google.common.base.Preconditions;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
-import org.gradle.api.UncheckedIOException;
 import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 
 import net.fabricmc.loom.LoomGradlePlugin;
 import net.fabricmc.loom.util.ModPlatform;
-import net.fabricmc.loom.util.Pair;
+import net.fabricmc.loom.util.ZipReprocessorUtil;
 import net.fabricmc.loom.util.ZipUtils;
 import net.fabricmc.loom.util.fmj.FabricModJsonFactory;
 
 public class JarNester {
+	private static final String FORGE_JAR_JAR_METADATA_PATH = "META-INF/jarjar/metadata.json";
+
 	public static void nestJars(Collection<File> jars, File modJar, ModPlatform platform, Logger logger) {
 		if (jars.isEmpty()) {
 			logger.debug("Nothing to nest into " + modJar.getName());
@@ -54,32 +64,38 @@ public class JarNester {
 
 		Preconditions.checkArgument(FabricModJsonFactory.isNestableModJar(modJar, platform), "Cannot nest jars into none mod jar " + modJar.getName());
 
-		try {
-			ZipUtils.add(modJar.toPath(), jars.stream().map(file -> {
-				try {
-					return new Pair<>("META-INF/jars/" + file.getName(), Files.readAllBytes(file.toPath()));
-				} catch (IOException e) {
-					throw new UncheckedIOException(e);
-				}
-			}).collect(Collectors.toList()));
+		// Nested jar path -> file
+		final Map<String, File> nestedJars = new LinkedHashMap<>();
+
+		for (File file : jars) {
+			String nestedJarPath = "META-INF/jars/" + file.getName();
+
+			if (nestedJars.put(nestedJarPath, file) != null) {
+				throw new IllegalStateException("Cannot nest 2 jars at the same path: " + nestedJarPath);
+			}
+
+			if (!platform.isForgeLike()) {
+				Preconditions.checkArgument(FabricModJsonFactory.isNestableModJar(file, platform), "Cannot nest none mod jar: " + file.getName());
+			}
+		}
 
+		try {
 			if (platform.isForgeLike()) {
-				handleForgeJarJar(jars, modJar, logger);
+				byte[] metadata = createForgeJarJarMetadata(nestedJars, modJar, logger).getBytes(StandardCharsets.UTF_8);
+				rewriteModJar(modJar.toPath(), nestedJars, null, null, Map.of(FORGE_JAR_JAR_METADATA_PATH, metadata));
 				return;
 			}
 
-			int count = ZipUtils.transformJson(JsonObject.class, modJar.toPath(), Stream.of(platform == ModPlatform.FABRIC ? new Pair<>("fabric.mod.json", json -> {
-				JsonArray nestedJars = json.getAsJsonArray("jars");
+			final boolean transformed = switch (platform) {
+			case FABRIC -> rewriteModJar(modJar.toPath(), nestedJars, "fabric.mod.json", json -> {
+				JsonArray jsonJars = json.getAsJsonArray("jars");
 
-				if (nestedJars == null || !json.has("jars")) {
-					nestedJars = new JsonArray();
+				if (jsonJars == null || !json.has("jars")) {
+					jsonJars = new JsonArray();
 				}
 
-				for (File file : jars) {
-					String nestedJarPath = "META-INF/jars/" + file.getName();
-					Preconditions.checkArgument(FabricModJsonFactory.isNestableModJar(file, platform), "Cannot nest none mod jar: " + file.getName());
-
-					for (JsonElement nestedJar : nestedJars) {
+				for (String nestedJarPath : nestedJars.keySet()) {
+					for (JsonElement nestedJar : jsonJars) {
 						JsonObject jsonObject = nestedJar.getAsJsonObject();
 
 						if (jsonObject.has("file") && jsonObject.get("file").getAsString().equals(nestedJarPath)) {
@@ -89,15 +105,16 @@ public class JarNester {
 
 					JsonObject jsonObject = new JsonObject();
 					jsonObject.addProperty("file", nestedJarPath);
-					nestedJars.add(jsonObject);
+					jsonJars.add(jsonObject);
 
 					logger.debug("Nested " + nestedJarPath + " into " + modJar.getName());
 				}
 
-				json.add("jars", nestedJars);
+				json.add("jars", jsonJars);
 
 				return json;
-			}) : platform == ModPlatform.QUILT ? new Pair<>("quilt.mod.json", json -> {
+			}, Map.of());
+			case QUILT -> rewriteModJar(modJar.toPath(), nestedJars, "quilt.mod.json", json -> {
 				JsonObject loader;
 
 				if (json.has("quilt_loader")) {
@@ -106,17 +123,14 @@ public class JarNester {
 					json.add("quilt_loader", loader = new JsonObject());
 				}
 
-				JsonArray nestedJars = loader.getAsJsonArray("jars");
+				JsonArray jsonJars = loader.getAsJsonArray("jars");
 
-				if (nestedJars == null || !loader.has("jars")) {
-					nestedJars = new JsonArray();
+				if (jsonJars == null || !loader.has("jars")) {
+					jsonJars = new JsonArray();
 				}
 
-				for (File file : jars) {
-					String nestedJarPath = "META-INF/jars/" + file.getName();
-					Preconditions.checkArgument(FabricModJsonFactory.isNestableModJar(file, platform), "Cannot nest none mod jar: " + file.getName());
-
-					for (JsonElement nestedJar : nestedJars) {
+				for (String nestedJarPath : nestedJars.keySet()) {
+					for (JsonElement nestedJar : jsonJars) {
 						String nestedJarString = nestedJar.getAsString();
 
 						if (nestedJarPath.equals(nestedJarString)) {
@@ -124,22 +138,84 @@ public class JarNester {
 						}
 					}
 
-					nestedJars.add(nestedJarPath);
+					jsonJars.add(nestedJarPath);
 
 					logger.debug("Nested " + nestedJarPath + " into " + modJar.getName());
 				}
 
-				loader.add("jars", nestedJars);
+				loader.add("jars", jsonJars);
 
 				return json;
-			}) : null));
+			}, Map.of());
+			default -> false;
+			};
 
-			Preconditions.checkState(count > 0, "Failed to transform fabric.mod.json");
+			Preconditions.checkState(transformed, "Failed to transform fabric.mod.json");
 		} catch (IOException e) {
 			throw new java.io.UncheckedIOException("Failed to nest jars into " + modJar.getName(), e);
 		}
 	}
 
+	/**
+	 * Rewrites the mod jar in a single pass, streaming the nested jars into it as STORED entries.
+	 * Existing entries at the paths of the nested jars or the extra entries are replaced.
+	 *
+	 * @return whether the mod json was found and transformed, or {@code true} if there was no mod json to transform
+	 */
+	private static boolean rewriteModJar(Path modJar, Map<String, File> nestedJars, @Nullable String modJsonPath, @Nullable ZipUtils.UnsafeUnaryOperator<JsonObject> modJsonTransformer, Map<String, byte[]> extraEntries) throws IOException {
+		final Path tempFile = modJar.resolveSibling(modJar.getFileName() + ".tmp");
+		boolean transformed = modJsonPath == null;
+
+		try {
+			try (var zipFile = new ZipFile(modJar.toFile());
+					var zipOutputStream = new ZipOutputStream(Files.newOutputStream(tempFile))) {
+				for (ZipEntry entry : Collections.list(zipFile.entries())) {
+					final String name = entry.getName();
+
+					if (nestedJars.containsKey(name) || extraEntries.containsKey(name)) {
+						continue;
+					}
+
+					if (name.equals(modJsonPath) && modJsonTransformer != null) {
+						final JsonObject json;
+
+						try (Reader reader = new InputStreamReader(zipFile.getInputStream(entry), StandardCharsets.UTF_8)) {
+							json = LoomGradlePlugin.GSON.fromJson(reader, JsonObject.class);
+						}
+
+						final var newEntry = new ZipEntry(name);
+						newEntry.setTime(entry.getTime());
+						zipOutputStream.putNextEntry(newEntry);
+						zipOutputStream.write(LoomGradlePlugin.GSON.toJson(modJsonTransformer.apply(json)).getBytes(StandardCharsets.UTF_8));
+						zipOutputStream.closeEntry();
+						transformed = true;
+						continue;
+					}
+
+					ZipReprocessorUtil.copyZipEntry(zipOutputStream, zipFile, entry);
+				}
+
+				for (Map.Entry<String, File> nestedJar : nestedJars.entrySet()) {
+					ZipReprocessorUtil.writeStoredEntry(zipOutputStream, new ZipEntry(nestedJar.getKey()), nestedJar.getValue().toPath());
+				}
+
+				for (Map.Entry<String, byte[]> extraEntry : extraEntries.entrySet()) {
+					zipOutputStream.putNextEntry(new ZipEntry(extraEntry.getKey()));
+					zipOutputStream.write(extraEntry.getValue());
+					zipOutputStream.closeEntry();
+				}
+			}
+
+			if (transformed) {
+				Files.move(tempFile, modJar, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			Files.deleteIfExists(tempFile);
+		}
+
+		return transformed;
+	}
+
 	private static @Nullable NestableJarGenerationTask.Metadata readNestedFile(File file, Logger logger) {
 		try {
 			return ZipUtils.unpackGsonNullable(file.toPath(), NestableJarGenerationTask.NESTING_METADATA_PATH, NestableJarGenerationTask.Metadata.class);
@@ -149,11 +225,12 @@ public class JarNester {
 		}
 	}
 
-	private static void handleForgeJarJar(Collection<File> jars, File modJar, Logger logger) throws IOException {
+	private static String createForgeJarJarMetadata(Map<String, File> jars, File modJar, Logger logger) {
 		JsonObject json = new JsonObject();
 		JsonArray nestedJars = new JsonArray();
 
-		for (File file : jars) {
+		for (Map.Entry<String, File> entry : jars.entrySet()) {
+			File file = entry.getValue();
 			NestableJarGenerationTask.Metadata metadata = readNestedFile(file, logger);
 
 			if (metadata == null) {
@@ -161,16 +238,7 @@ public class JarNester {
 				continue;
 			}
 
-			String nestedJarPath = "META-INF/jars/" + file.getName();
-
-			for (JsonElement nestedJar : nestedJars) {
-				JsonObject jsonObject = nestedJar.getAsJsonObject();
-
-				if (jsonObject.has("path") && jsonObject.get("path").getAsString().equals(nestedJarPath)) {
-					throw new IllegalStateException("Cannot nest 2 jars at the same path: " + nestedJarPath);
-				}
-			}
-
+			String nestedJarPath = entry.getKey();
 			JsonObject jsonObject = new JsonObject();
 			JsonObject identifierObject = new JsonObject();
 			JsonObject versionObject = new JsonObject();
@@ -188,6 +256,6 @@ public class JarNester {
 
 		json.add("jars", nestedJars);
 
-		ZipUtils.add(modJar.toPath(), "META-INF/jarjar/metadata.json", LoomGradlePlugin.GSON.toJson(json));
+		return LoomGradlePlugin.GSON.toJson(json);
 	}
 }
@@ -29,7 +29,10 @@ import java.io.IOException;
 import java.io.Serializable;
 import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -66,8 +69,8 @@ import org.slf4j.LoggerFactory;
 import net.fabricmc.loom.LoomGradlePlugin;
 import net.fabricmc.loom.task.AbstractLoomTask;
 import net.fabricmc.loom.util.ModPlatform;
+import net.fabricmc.loom.util.ThreadingUtils;
 import net.fabricmc.loom.util.ZipReprocessorUtil;
-import net.fabricmc.loom.util.ZipUtils;
 import net.fabricmc.loom.util.fmj.FabricModJsonFactory;
 
 public abstract class NestableJarGenerationTask extends AbstractLoomTask {
@@ -117,9 +120,17 @@ public abstract class NestableJarGenerationTask extends AbstractLoomTask {
 			throw new UncheckedIOException(e);
 		}
 
-		getJars().forEach(file -> {
-			File targetFile = getOutputDirectory().file(file.getName()).get().getAsFile();
-			targetFile.delete();
+		// File name -> file, the last jar with a given name wins as the output file is named after it
+		final Map<String, File> jars = new LinkedHashMap<>();
+
+		for (File file : getJars()) {
+			jars.put(file.getName(), file);
+		}
+
+		final File outputDirectory = getOutputDirectory().get().getAsFile();
+
+		ThreadingUtils.run(jars.values(), file -> {
+			File targetFile = new File(outputDirectory, file.getName());
 			String fabricModJson = fabricModJsons.get(file.getName());
 			String nestingMetadata = metadataFiles.get(file.getName());
 
@@ -129,7 +140,7 @@ public abstract class NestableJarGenerationTask extends AbstractLoomTask {
 				Objects.requireNonNull(fabricModJson, "Could not generate fabric.mod.json for included dependency "+file.getName());
 			}
 
-			makeNestableJar(file, targetFile, fabricModJson, nestingMetadata);
+			makeNestableJar(file, targetFile, fabricModJson, nestingMetadata, platform);
 		});
 	}
 
@@ -246,31 +257,28 @@ public abstract class NestableJarGenerationTask extends AbstractLoomTask {
 		return matcher.find();
 	}
 
-	private void makeNestableJar(final File input, final File output, final @Nullable String modJsonFile, final @Nullable String nestingMetadata) {
-		try {
-			FileUtils.copyFile(input, output);
-		} catch (IOException e) {
-			throw new UncheckedIOException("Failed to copy mod file %s".formatted(input), e);
-		}
+	private static void makeNestableJar(final File input, final File output, final @Nullable String modJsonFile, final @Nullable String nestingMetadata, final ModPlatform platform) {
+		final Map<String, byte[]> newEntries = new LinkedHashMap<>();
 
 		if (nestingMetadata != null) {
-			try {
-				ZipUtils.add(output.toPath(), NESTING_METADATA_PATH, nestingMetadata);
-			} catch (IOException e) {
-				throw new UncheckedIOException("Failed to add nesting metadata to " + input, e);
-			}
+			newEntries.put(NESTING_METADATA_PATH, nestingMetadata.getBytes(StandardCharsets.UTF_8));
 		}
 
-		if (modJsonFile == null || FabricModJsonFactory.isModJar(input, getModPlatform().get())) {
-			// Input is a mod, nothing needs to be done.
-			return;
+		if (modJsonFile != null && !FabricModJsonFactory.isModJar(input, platform)) {
+			// TODO: Generate Quilt QMJs natively
+			newEntries.put("fabric.mod.json", modJsonFile.getBytes(StandardCharsets.UTF_8));
 		}
 
 		try {
-			// TODO: Generate Quilt QMJs natively
-			ZipReprocessorUtil.appendZipEntry(output.toPath(), "fabric.mod.json", modJsonFile.getBytes(StandardCharsets.UTF_8));
+			if (newEntries.isEmpty()) {
+				// Input is a mod, nothing needs to be done.
+				Files.copy(input.toPath(), output.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			} else {
+				// Copy the jar and add the new entries in a single pass
+				ZipReprocessorUtil.appendZipEntries(input.toPath(), output.toPath(), newEntries);
+			}
 		} catch (IOException e) {
-			throw new UncheckedIOException("Failed to add dummy mod while including %s".formatted(input), e);
+			throw new UncheckedIOException("Failed to make %s nestable".formatted(input), e);
 		}
 	}
 
@@ -0,0 +1,312 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.build.remap;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import org.jetbrains.annotations.Nullable;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.fabricmc.loom.LoomGradlePlugin;
+import net.fabricmc.loom.task.service.TinyRemapperService;
+import net.fabricmc.loom.util.ZipReprocessorUtil;
+import net.fabricmc.tinyremapper.InputTag;
+import net.fabricmc.tinyremapper.OutputConsumerPath;
+import net.fabricmc.tinyremapper.TinyRemapper;
+
+/**
+ * Reuses the remapped classes from a previous remap of a jar.
+ *
+ * <p>A remapped class only depends on its own bytes, the mappings, the classpath and the structure of the other input classes
+ * (their names, hierarchy, members and annotations, but not their code). While the base key (covering the mappings and classpath)
+ * and the structure of the input classes are unchanged, only the classes whose bytes changed are remapped, the others are copied
+ * from the cache. All input classes are still read by tiny remapper, so the output is identical to a full remap.
+ */
+public final class IncrementalRemapCache {
+	public static final String VERSION = "v1";
+	private static final Logger LOGGER = LoggerFactory.getLogger(IncrementalRemapCache.class);
+	private static final String INDEX_FILE = "index.json";
+	private static final String CLASSES_FILE = "classes.jar";
+	private static final String CLASS_SUFFIX = ".class";
+
+	private final Path directory;
+	private final String baseKey;
+
+	public IncrementalRemapCache(Path directory, String baseKey) {
+		this.directory = directory;
+		this.baseKey = baseKey;
+	}
+
+	/**
+	 * Multi-release jars are not supported, as the versioned classes are remapped differently.
+	 */
+	public static boolean supports(Path inputFile) throws IOException {
+		try (var zipFile = new ZipFile(inputFile.toFile())) {
+			return zipFile.stream().noneMatch(entry -> entry.getName().startsWith("META-INF/versions/"));
+		}
+	}
+
+	/**
+	 * Remaps the input jar to the output jar, and updates the cache.
+	 * The tiny remapper service must not have read any inputs yet.
+	 */
+	public Stats remap(TinyRemapperService tinyRemapperService, Path inputFile, Path outputFile) throws IOException {
+		final Path indexFile = directory.resolve(INDEX_FILE);
+		final Path classesFile = directory.resolve(CLASSES_FILE);
+		final Map<String, String> classHashes = new TreeMap<>();
+		final String structureHash = hashInputClasses(inputFile, classHashes);
+
+		final @Nullable Index previous = readIndex(indexFile, classesFile, structureHash);
+		final Set<String> unchangedClasses = new HashSet<>();
+
+		if (previous != null) {
+			for (Map.Entry<String, String> entry : classHashes.entrySet()) {
+				final @Nullable ClassData classData = previous.classes().get(entry.getKey());
+
+				if (classData != null && classData.hash().equals(entry.getValue())) {
+					unchangedClasses.add(entry.getKey());
+				}
+			}
+		}
+
+		LOGGER.info("Remapping {} of {} classes in {}, reusing the rest from the incremental cache", classHashes.size() - unchangedClasses.size(), classHashes.size(), inputFile.getFileName());
+
+		final Path changedJar = Files.createTempFile("loom-incremental-remap-changed", ".jar");
+		final Path unchangedJar = Files.createTempFile("loom-incremental-remap-unchanged", ".jar");
+		final Map<String, byte[]> remappedClasses = new ConcurrentHashMap<>();
+		final TinyRemapper tinyRemapper;
+
+		try {
+			splitInputClasses(inputFile, unchangedClasses, changedJar, unchangedJar);
+
+			// Read all of the classes as inputs, so the remapper sees the same class hierarchy as a full remap
+			final TinyRemapper inputRemapper = tinyRemapperService.getTinyRemapperForInputs();
+			final InputTag changedTag = inputRemapper.createInputTag();
+			final InputTag unchangedTag = inputRemapper.createInputTag();
+			inputRemapper.readInputsAsync(changedTag, changedJar);
+			inputRemapper.readInputsAsync(unchangedTag, unchangedJar);
+
+			tinyRemapper = tinyRemapperService.getTinyRemapperForRemapping();
+
+			try (OutputConsumerPath outputConsumer = new OutputConsumerPath.Builder(outputFile).build()) {
+				outputConsumer.addNonClassFiles(inputFile);
+
+				// Only the changed classes are remapped
+				tinyRemapper.apply((name, bytes) -> {
+					remappedClasses.put(name, bytes);
+					outputConsumer.accept(name, bytes);
+				}, changedTag);
+
+				if (previous != null && !unchangedClasses.isEmpty()) {
+					try (var cacheZip = new ZipFile(classesFile.toFile())) {
+						for (String className : unchangedClasses) {
+							final ZipEntry entry = cacheZip.getEntry(className + CLASS_SUFFIX);
+
+							try (var inputStream = cacheZip.getInputStream(entry)) {
+								outputConsumer.accept(previous.classes().get(className).outputName(), inputStream.readAllBytes());
+							}
+						}
+					}
+				}
+			}
+		} finally {
+			Files.deleteIfExists(changedJar);
+			Files.deleteIfExists(unchangedJar);
+		}
+
+		writeCache(indexFile, classesFile, structureHash, classHashes, unchangedClasses, previous, remappedClasses, tinyRemapper);
+		return new Stats(unchangedClasses.size(), classHashes.size() - unchangedClasses.size());
+	}
+
+	private void writeCache(Path indexFile, Path classesFile, String structureHash, Map<String, String> classHashes, Set<String> unchangedClasses, @Nullable Index previous, Map<String, byte[]> remappedClasses, TinyRemapper tinyRemapper) throws IOException {
+		final Map<String, ClassData> classes = new HashMap<>();
+		final Path tempClassesFile = classesFile.resolveSibling(CLASSES_FILE + ".tmp");
+
+		Files.createDirectories(directory);
+		// Delete the index first, so the old index is never used with the new classes
+		Files.deleteIfExists(indexFile);
+
+		try (var zipOutputStream = new ZipOutputStream(Files.newOutputStream(tempClassesFile));
+				var cacheZip = previous != null && !unchangedClasses.isEmpty() ? new ZipFile(classesFile.toFile()) : null) {
+			for (Map.Entry<String, String> entry : classHashes.entrySet()) {
+				final String className = entry.getKey();
+				final ZipEntry zipEntry;
+
+				if (cacheZip != null && unchangedClasses.contains(className)) {
+					zipEntry = cacheZip.getEntry(className + CLASS_SUFFIX);
+					ZipReprocessorUtil.copyZipEntry(zipOutputStream, cacheZip, zipEntry);
+					classes.put(className, previous.classes().get(className));
+					continue;
+				}
+
+				final String outputName = tinyRemapper.getEnvironment().getRemapper().map(className);
+				final byte @Nullable [] bytes = remappedClasses.get(outputName);
+
+				if (bytes == null) {
+					// Should not happen, but the class will be remapped again next time
+					LOGGER.debug("No remapped output found for {}", className);
+					continue;
+				}
+
+				zipOutputStream.putNextEntry(new ZipEntry(className + CLASS_SUFFIX));
+				zipOutputStream.write(bytes);
+				zipOutputStream.closeEntry();
+				classes.put(className, new ClassData(entry.getValue(), outputName));
+			}
+		}
+
+		Files.move(tempClassesFile, classesFile, StandardCopyOption.REPLACE_EXISTING);
+
+		try (Writer writer = Files.newBufferedWriter(indexFile, StandardCharsets.UTF_8)) {
+			LoomGradlePlugin.GSON.toJson(new Index(VERSION, baseKey, structureHash, Collections.unmodifiableMap(classes)), writer);
+		}
+	}
+
+	private @Nullable Index readIndex(Path indexFile, Path classesFile, String structureHash) {
+		if (Files.notExists(indexFile) || Files.notExists(classesFile)) {
+			LOGGER.info("No incremental remap cache found in {}", directory);
+			return null;
+		}
+
+		final Index index;
+
+		try (Reader reader = Files.newBufferedReader(indexFile, StandardCharsets.UTF_8)) {
+			index = LoomGradlePlugin.GSON.fromJson(reader, Index.class);
+		} catch (Exception e) {
+			LOGGER.warn("Failed to read incremental remap cache index {}", indexFile, e);
+			return null;
+		}
+
+		if (index == null || !VERSION.equals(index.version()) || index.classes() == null) {
+			return null;
+		}
+
+		if (!baseKey.equals(index.baseKey())) {
+			LOGGER.info("Mappings or classpath changed, not reusing the incremental remap cache");
+			return null;
+		}
+
+		if (!structureHash.equals(index.structureHash())) {
+			LOGGER.info("Class structure changed, not reusing the incremental remap cache");
+			return null;
+		}
+
+		return index;
+	}
+
+	/**
+	 * Hashes each of the input classes, and returns a hash of the structure of all of them.
+	 */
+	private static String hashInputClasses(Path inputFile, Map<String, String> classHashes) throws IOException {
+		final Map<String, byte[]> classStructures = new TreeMap<>();
+
+		try (var zipFile = new ZipFile(inputFile.toFile())) {
+			for (ZipEntry entry : Collections.list(zipFile.entries())) {
+				if (entry.isDirectory() || !entry.getName().endsWith(CLASS_SUFFIX)) {
+					continue;
+				}
+
+				final String className = entry.getName().substring(0, entry.getName().length() - CLASS_SUFFIX.length());
+				final byte[] bytes;
+
+				try (var inputStream = zipFile.getInputStream(entry)) {
+					bytes = inputStream.readAllBytes();
+				}
+
+				classHashes.put(className, Hashing.sha256().hashBytes(bytes).toString());
+				classStructures.put(className, getClassStructure(bytes));
+			}
+		}
+
+		final Hasher hasher = Hashing.sha256().newHasher();
+
+		for (Map.Entry<String, byte[]> entry : classStructures.entrySet()) {
+			hasher.putString(entry.getKey(), StandardCharsets.UTF_8);
+			hasher.putInt(entry.getValue().length);
+			hasher.putBytes(entry.getValue());
+		}
+
+		return hasher.hash().toString();
+	}
+
+	/**
+	 * Returns the class without any method code, which is all that other classes depend on when being remapped.
+	 */
+	private static byte[] getClassStructure(byte[] bytes) {
+		final ClassReader reader = new ClassReader(bytes);
+		final ClassWriter writer = new ClassWriter(0);
+		reader.accept(writer, ClassReader.SKIP_CODE);
+		return writer.toByteArray();
+	}
+
+	private static void splitInputClasses(Path inputFile, Set<String> unchangedClasses, Path changedJar, Path unchangedJar) throws IOException {
+		try (var zipFile = new ZipFile(inputFile.toFile());
+				var changedOutputStream = new ZipOutputStream(Files.newOutputStream(changedJar));
+				var unchangedOutputStream = new ZipOutputStream(Files.newOutputStream(unchangedJar))) {
+			for (ZipEntry entry : Collections.list(zipFile.entries())) {
+				if (entry.isDirectory() || !entry.getName().endsWith(CLASS_SUFFIX)) {
+					continue;
+				}
+
+				final String className = entry.getName().substring(0, entry.getName().length() - CLASS_SUFFIX.length());
+				ZipReprocessorUtil.copyZipEntry(unchangedClasses.contains(className) ? unchangedOutputStream : changedOutputStream, zipFile, entry);
+			}
+		}
+	}
+
+	private record Index(String version, String baseKey, String structureHash, Map<String, ClassData> classes) {
+	}
+
+	private record ClassData(String hash, String outputName) {
+	}
+
+	/**
+	 * @param reused   the number of classes reused from the cache
+	 * @param remapped the number of classes that were remapped
+	 */
+	public record Stats(int reused, int remapped) {
+	}
+}
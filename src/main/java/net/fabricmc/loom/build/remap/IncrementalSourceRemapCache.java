@@ -0,0 +1,374 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.build.remap;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import com.google.common.hash.Hashing;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.fabricmc.loom.LoomGradlePlugin;
+import net.fabricmc.loom.util.DeletingFileVisitor;
+import net.fabricmc.loom.util.ZipReprocessorUtil;
+
+/**
+ * Reuses the remapped source files from a previous remap of a sources jar.
+ *
+ * <p>A remapped source file depends on its own contents, the mappings, the classpath and the other source files it references.
+ * While the base key (covering the mappings and classpath) is unchanged, only the source files that changed are remapped,
+ * along with the source files that reference a type declared in a changed or removed file, directly or through other source files.
+ * The remaining source files are given to the remapper as a source path, so that references to them still resolve.
+ *
+ * <p>References are found by matching the identifiers in each file against the simple names of the types declared in the sources,
+ * which may remap more files than needed, but does not miss a file that names a changed type.
+ * The declared types are found by their declaration keyword, so that a file declaring more than one top level type is handled.
+ */
+public final class IncrementalSourceRemapCache {
+	public static final String VERSION = "v2";
+	private static final Logger LOGGER = LoggerFactory.getLogger(IncrementalSourceRemapCache.class);
+	private static final String INDEX_FILE = "index.json";
+	private static final String SOURCES_FILE = "sources.jar";
+	private static final String JAVA_SUFFIX = ".java";
+	private static final Pattern IDENTIFIER = Pattern.compile("\\p{javaJavaIdentifierStart}\\p{javaJavaIdentifierPart}*");
+	// Also matches nested types and text in comments, which only causes more files to be remapped
+	private static final Pattern TYPE_DECLARATION = Pattern.compile("\\b(?:class|interface|enum|record)\\s+(\\p{javaJavaIdentifierStart}\\p{javaJavaIdentifierPart}*)");
+
+	private final Path directory;
+	private final String baseKey;
+
+	public IncrementalSourceRemapCache(Path directory, String baseKey) {
+		this.directory = directory;
+		this.baseKey = baseKey;
+	}
+
+	/**
+	 * Remaps the java files in the source directory to the output directory, and updates the cache.
+	 * Other files are not copied to the output.
+	 */
+	public Stats remap(Rewriter rewriter, Path sourceDir, Path outputDir) throws Exception {
+		final Path indexFile = directory.resolve(INDEX_FILE);
+		final Path sourcesFile = directory.resolve(SOURCES_FILE);
+		final Map<String, String> fileContents = readSourceFiles(sourceDir);
+		final Map<String, String> fileHashes = new TreeMap<>();
+
+		for (Map.Entry<String, String> entry : fileContents.entrySet()) {
+			fileHashes.put(entry.getKey(), Hashing.sha256().hashString(entry.getValue(), StandardCharsets.UTF_8).toString());
+		}
+
+		final Map<String, Set<String>> fileTypes = new TreeMap<>();
+
+		for (Map.Entry<String, String> entry : fileContents.entrySet()) {
+			fileTypes.put(entry.getKey(), getDeclaredTypes(entry.getKey(), entry.getValue()));
+		}
+
+		final @Nullable Index previous = readIndex(indexFile, sourcesFile);
+		final Set<String> dirtyFiles = previous != null ? findDirtyFiles(fileContents, fileHashes, fileTypes, previous) : fileHashes.keySet();
+		final Set<String> unchangedFiles = new HashSet<>(fileHashes.keySet());
+		unchangedFiles.removeAll(dirtyFiles);
+
+		LOGGER.info("Remapping {} of {} source files, reusing the rest from the incremental cache", dirtyFiles.size(), fileHashes.size());
+
+		if (unchangedFiles.isEmpty()) {
+			rewriter.rewrite(sourceDir, outputDir, null);
+		} else {
+			final Path changedDir = Files.createTempDirectory("loom-incremental-source-remap-changed");
+			final Path unchangedDir = Files.createTempDirectory("loom-incremental-source-remap-unchanged");
+
+			try {
+				for (String name : fileHashes.keySet()) {
+					copyFile(sourceDir.resolve(name), (unchangedFiles.contains(name) ? unchangedDir : changedDir).resolve(name));
+				}
+
+				if (!dirtyFiles.isEmpty()) {
+					rewriter.rewrite(changedDir, outputDir, unchangedDir);
+				}
+
+				try (var cacheZip = new ZipFile(sourcesFile.toFile())) {
+					for (String name : unchangedFiles) {
+						final Path outputPath = outputDir.resolve(name);
+						createParentDirectories(outputPath);
+
+						try (var inputStream = cacheZip.getInputStream(cacheZip.getEntry(name))) {
+							Files.copy(inputStream, outputPath, StandardCopyOption.REPLACE_EXISTING);
+						}
+					}
+				}
+			} finally {
+				Files.walkFileTree(changedDir, new DeletingFileVisitor());
+				Files.walkFileTree(unchangedDir, new DeletingFileVisitor());
+			}
+		}
+
+		writeCache(indexFile, sourcesFile, fileHashes, fileTypes, unchangedFiles, outputDir);
+		return new Stats(unchangedFiles.size(), dirtyFiles.size());
+	}
+
+	/**
+	 * Finds the source files that changed since the previous remap, and the source files that depend on them.
+	 */
+	private static Set<String> findDirtyFiles(Map<String, String> fileContents, Map<String, String> fileHashes, Map<String, Set<String>> fileTypes, Index previous) {
+		final Map<String, String> previousHashes = previous.files();
+		final Set<String> dirtyFiles = new HashSet<>();
+		final Deque<String> dirtyTypes = new ArrayDeque<>();
+
+		for (Map.Entry<String, String> entry : fileHashes.entrySet()) {
+			if (!entry.getValue().equals(previousHashes.get(entry.getKey()))) {
+				dirtyFiles.add(entry.getKey());
+				dirtyTypes.addAll(fileTypes.get(entry.getKey()));
+				// Include the types that are no longer declared in the file
+				dirtyTypes.addAll(previous.getTypes(entry.getKey()));
+			}
+		}
+
+		for (String name : previousHashes.keySet()) {
+			if (!fileHashes.containsKey(name)) {
+				dirtyTypes.addAll(previous.getTypes(name));
+			}
+		}
+
+		if (dirtyTypes.isEmpty()) {
+			return dirtyFiles;
+		}
+
+		final Set<String> typeNames = new HashSet<>();
+		fileTypes.values().forEach(typeNames::addAll);
+		previousHashes.keySet().forEach(name -> typeNames.addAll(previous.getTypes(name)));
+
+		// Type name -> the files that mention it
+		final Map<String, List<String>> references = new HashMap<>();
+
+		for (Map.Entry<String, String> entry : fileContents.entrySet()) {
+			final Matcher matcher = IDENTIFIER.matcher(entry.getValue());
+			final Set<String> referencedTypes = new HashSet<>();
+
+			while (matcher.find()) {
+				final String identifier = matcher.group();
+
+				if (typeNames.contains(identifier) && referencedTypes.add(identifier)) {
+					references.computeIfAbsent(identifier, k -> new ArrayList<>()).add(entry.getKey());
+				}
+			}
+		}
+
+		final Set<String> visitedTypes = new HashSet<>();
+
+		while (!dirtyTypes.isEmpty()) {
+			final String typeName = dirtyTypes.poll();
+
+			if (!visitedTypes.add(typeName)) {
+				continue;
+			}
+
+			for (String name : references.getOrDefault(typeName, List.of())) {
+				if (dirtyFiles.add(name)) {
+					dirtyTypes.addAll(fileTypes.get(name));
+				}
+			}
+		}
+
+		return dirtyFiles;
+	}
+
+	private void writeCache(Path indexFile, Path sourcesFile, Map<String, String> fileHashes, Map<String, Set<String>> fileTypes, Set<String> unchangedFiles, Path outputDir) throws IOException {
+		final Map<String, String> files = new TreeMap<>();
+		final Map<String, List<String>> types = new TreeMap<>();
+		final Path tempSourcesFile = sourcesFile.resolveSibling(SOURCES_FILE + ".tmp");
+
+		Files.createDirectories(directory);
+		// Delete the index first, so the old index is never used with the new sources
+		Files.deleteIfExists(indexFile);
+
+		try (var zipOutputStream = new ZipOutputStream(Files.newOutputStream(tempSourcesFile));
+				var cacheZip = !unchangedFiles.isEmpty() ? new ZipFile(sourcesFile.toFile()) : null) {
+			for (Map.Entry<String, String> entry : fileHashes.entrySet()) {
+				final String name = entry.getKey();
+
+				if (cacheZip != null && unchangedFiles.contains(name)) {
+					ZipReprocessorUtil.copyZipEntry(zipOutputStream, cacheZip, cacheZip.getEntry(name));
+					files.put(name, entry.getValue());
+					types.put(name, List.copyOf(fileTypes.get(name)));
+					continue;
+				}
+
+				final Path outputPath = outputDir.resolve(name);
+
+				if (Files.notExists(outputPath)) {
+					// The file will be remapped again next time
+					LOGGER.debug("No remapped output found for {}", name);
+					continue;
+				}
+
+				zipOutputStream.putNextEntry(new ZipEntry(name));
+				Files.copy(outputPath, zipOutputStream);
+				zipOutputStream.closeEntry();
+				files.put(name, entry.getValue());
+				types.put(name, List.copyOf(fileTypes.get(name)));
+			}
+		}
+
+		Files.move(tempSourcesFile, sourcesFile, StandardCopyOption.REPLACE_EXISTING);
+
+		try (Writer writer = Files.newBufferedWriter(indexFile, StandardCharsets.UTF_8)) {
+			LoomGradlePlugin.GSON.toJson(new Index(VERSION, baseKey, Collections.unmodifiableMap(files), Collections.unmodifiableMap(types)), writer);
+		}
+	}
+
+	private @Nullable Index readIndex(Path indexFile, Path sourcesFile) {
+		if (Files.notExists(indexFile) || Files.notExists(sourcesFile)) {
+			LOGGER.info("No incremental source remap cache found in {}", directory);
+			return null;
+		}
+
+		final Index index;
+
+		try (Reader reader = Files.newBufferedReader(indexFile, StandardCharsets.UTF_8)) {
+			index = LoomGradlePlugin.GSON.fromJson(reader, Index.class);
+		} catch (Exception e) {
+			LOGGER.warn("Failed to read incremental source remap cache index {}", indexFile, e);
+			return null;
+		}
+
+		if (index == null || !VERSION.equals(index.version()) || index.files() == null || index.types() == null) {
+			return null;
+		}
+
+		if (!baseKey.equals(index.baseKey())) {
+			LOGGER.info("Mappings or classpath changed, not reusing the incremental source remap cache");
+			return null;
+		}
+
+		return index;
+	}
+
+	/**
+	 * Reads all of the java files in the source directory.
+	 *
+	 * @return a map of relative file names (eg. {@code net/example/Foo.java}) to their contents
+	 */
+	private static Map<String, String> readSourceFiles(Path sourceDir) throws IOException {
+		final Map<String, String> fileContents = new TreeMap<>();
+
+		try (Stream<Path> walk = Files.walk(sourceDir)) {
+			Iterator<Path> iterator = walk.iterator();
+
+			while (iterator.hasNext()) {
+				final Path path = iterator.next();
+				final String name = sourceDir.relativize(path).toString().replace('\\', '/');
+
+				if (!Files.isRegularFile(path) || !name.endsWith(JAVA_SUFFIX)) {
+					continue;
+				}
+
+				fileContents.put(name, Files.readString(path, StandardCharsets.UTF_8));
+			}
+		}
+
+		return fileContents;
+	}
+
+	// The names of the types declared in a source file, including the type named after the file
+	private static Set<String> getDeclaredTypes(String fileName, String contents) {
+		final Set<String> types = new TreeSet<>();
+		final String name = fileName.substring(fileName.lastIndexOf('/') + 1);
+		types.add(name.substring(0, name.length() - JAVA_SUFFIX.length()));
+
+		final Matcher matcher = TYPE_DECLARATION.matcher(contents);
+
+		while (matcher.find()) {
+			types.add(matcher.group(1));
+		}
+
+		return types;
+	}
+
+	private static void copyFile(Path source, Path target) throws IOException {
+		createParentDirectories(target);
+		Files.copy(source, target);
+	}
+
+	private static void createParentDirectories(Path path) throws IOException {
+		final Path parent = path.getParent();
+
+		if (parent != null) {
+			Files.createDirectories(parent);
+		}
+	}
+
+	/**
+	 * Remaps the java files in a directory.
+	 */
+	@FunctionalInterface
+	public interface Rewriter {
+		/**
+		 * @param input      the directory containing the source files to remap
+		 * @param output     the directory to write the remapped source files to
+		 * @param sourcePath a directory containing the other source files, that are referenced but not remapped, or {@code null}
+		 */
+		void rewrite(Path input, Path output, @Nullable Path sourcePath) throws Exception;
+	}
+
+	/**
+	 * @param files a map of file names to the hash of their contents
+	 * @param types a map of file names to the names of the types that they declare
+	 */
+	private record Index(String version, String baseKey, Map<String, String> files, Map<String, List<String>> types) {
+		List<String> getTypes(String fileName) {
+			return types.getOrDefault(fileName, List.of());
+		}
+	}
+
+	/**
+	 * @param reused   the number of source files reused from the cache
+	 * @param remapped the number of source files that were remapped
+	 */
+	public record Stats(int reused, int remapped) {
+	}
+}
@@ -88,11 +88,14 @@ import net.fabricmc.loom.extension.MixinExtension;
 import net.fabricmc.loom.util.Checksum;
 import net.fabricmc.loom.util.Constants;
 import net.fabricmc.loom.util.ExceptionUtil;
+import net.fabricmc.loom.util.ParsedFileCache;
 import net.fabricmc.loom.util.ProcessUtil;
 import net.fabricmc.loom.util.gradle.GradleUtils;
 import net.fabricmc.loom.util.gradle.SourceSetHelper;
 import net.fabricmc.loom.util.service.ScopedSharedServiceManager;
 import net.fabricmc.loom.util.service.SharedServiceManager;
+import net.fabricmc.loom.util.telemetry.Telemetry;
+import net.fabricmc.loom.util.telemetry.TelemetrySpan;
 
 public abstract class CompileConfiguration implements Runnable {
 	@Inject
@@ -124,12 +127,21 @@ public abstract class CompileConfiguration implements Runnable {
 				extension.setRefreshDeps(true);
 			}
 
-			try {
+			try (TelemetrySpan span = Telemetry.span("setup", getProject())) {
+				final long parsedFileCacheHits = ParsedFileCache.INSTANCE.hits();
+				final long parsedFileCacheMisses = ParsedFileCache.INSTANCE.misses();
+
 				setupMinecraft(configContext);
 
 				LoomDependencyManager dependencyManager = new LoomDependencyManager();
 				extension.setDependencyManager(dependencyManager);
 				dependencyManager.handleDependencies(getProject(), serviceManager);
+
+				// The parsed file cache is shared by the whole daemon, so only count the lookups made while setting up this project
+				final long hits = ParsedFileCache.INSTANCE.hits() - parsedFileCacheHits;
+				final long misses = ParsedFileCache.INSTANCE.misses() - parsedFileCacheMisses;
+				span.cacheHits(hits).cacheMisses(misses);
+				getProject().getLogger().info("Parsed file cache: {} hits, {} misses", hits, misses);
 			} catch (Exception e) {
 				ExceptionUtil.processException(e, getProject());
 				disownLock();
@@ -199,7 +211,11 @@ public abstract class CompileConfiguration implements Runnable {
 		final Project project = configContext.project();
 		final LoomGradleExtension extension = configContext.extension();
 
-		final MinecraftMetadataProvider metadataProvider = MinecraftMetadataProvider.create(configContext);
+		final MinecraftMetadataProvider metadataProvider;
+
+		try (TelemetrySpan span = Telemetry.span("setup.metadata", project)) {
+			metadataProvider = MinecraftMetadataProvider.create(configContext);
+		}
 
 		var jarConfiguration = extension.getMinecraftJarConfiguration().get();
 
@@ -215,33 +231,50 @@ public abstract class CompileConfiguration implements Runnable {
 		}
 
 		extension.setMinecraftProvider(minecraftProvider);
-		minecraftProvider.provide();
+
+		try (TelemetrySpan span = Telemetry.span("setup.minecraft", project)) {
+			minecraftProvider.provide();
+		}
 
 		// Created any layered mapping files.
-		LayeredMappingsFactory.afterEvaluate(configContext);
+		try (TelemetrySpan span = Telemetry.span("setup.layeredMappings", project)) {
+			LayeredMappingsFactory.afterEvaluate(configContext);
+		}
 
 		// This needs to run after MinecraftProvider.initFiles and MinecraftLibraryProvider.provide
 		// but before MinecraftPatchedProvider.provide.
 		setupDependencyProviders(project, extension);
 
 		final DependencyInfo mappingsDep = DependencyInfo.create(getProject(), Configurations.MAPPINGS);
-		final MappingConfiguration mappingConfiguration = MappingConfiguration.create(getProject(), configContext.serviceManager(), mappingsDep, minecraftProvider);
+		final MappingConfiguration mappingConfiguration;
+
+		try (TelemetrySpan span = Telemetry.span("setup.mappings", project)) {
+			mappingConfiguration = MappingConfiguration.create(getProject(), configContext.serviceManager(), mappingsDep, minecraftProvider);
+		}
+
 		extension.setMappingConfiguration(mappingConfiguration);
 
 		if (extension.isForgeLike()) {
 			ForgeLibrariesProvider.provide(mappingConfiguration, project);
-			((ForgeMinecraftProvider) minecraftProvider).getPatchedProvider().provide();
+
+			try (TelemetrySpan span = Telemetry.span("setup.forgePatch", project)) {
+				((ForgeMinecraftProvider) minecraftProvider).getPatchedProvider().provide();
+			}
 		}
 
-		mappingConfiguration.setupPost(project);
-		mappingConfiguration.applyToProject(getProject(), mappingsDep);
+		try (TelemetrySpan span = Telemetry.span("setup.mappingsPost", project)) {
+			mappingConfiguration.setupPost(project);
+			mappingConfiguration.applyToProject(getProject(), mappingsDep);
+		}
 
 		if (extension.isForgeLike()) {
 			extension.setForgeRunsProvider(ForgeRunsProvider.create(project));
 		}
 
 		if (minecraftProvider instanceof ForgeMinecraftProvider patched) {
-			patched.getPatchedProvider().remapJar();
+			try (TelemetrySpan span = Telemetry.span("setup.forgeRemap", project)) {
+				patched.getPatchedProvider().remapJar();
+			}
 		}
 
 		// Provide the remapped mc jars
@@ -259,21 +292,33 @@ public abstract class CompileConfiguration implements Runnable {
 		final var provideContext = new AbstractMappedMinecraftProvider.ProvideContext(true, extension.refreshDeps(), configContext);
 
 		extension.setIntermediaryMinecraftProvider(intermediaryMinecraftProvider);
-		intermediaryMinecraftProvider.provide(provideContext);
+
+		try (TelemetrySpan span = Telemetry.span("setup.intermediaryMinecraft", project)) {
+			intermediaryMinecraftProvider.provide(provideContext);
+		}
 
 		extension.setNamedMinecraftProvider(namedMinecraftProvider);
-		namedMinecraftProvider.provide(provideContext);
+
+		try (TelemetrySpan span = Telemetry.span("setup.namedMinecraft", project)) {
+			namedMinecraftProvider.provide(provideContext);
+		}
 
 		if (extension.isForge()) {
 			final SrgMinecraftProvider<?> srgMinecraftProvider = jarConfiguration.createSrgMinecraftProvider(project);
 			extension.setSrgMinecraftProvider(srgMinecraftProvider);
-			srgMinecraftProvider.provide(provideContext);
+
+			try (TelemetrySpan span = Telemetry.span("setup.srgMinecraft", project)) {
+				srgMinecraftProvider.provide(provideContext);
+			}
 		}
 
 		if (extension.isForgeLike() && extension.getForgeProvider().usesMojangAtRuntime()) {
 			final MojangMappedMinecraftProvider<?> mojangMappedMinecraftProvider = jarConfiguration.createMojangMappedMinecraftProvider(project);
 			extension.setMojangMappedMinecraftProvider(mojangMappedMinecraftProvider);
-			mojangMappedMinecraftProvider.provide(provideContext);
+
+			try (TelemetrySpan span = Telemetry.span("setup.mojangMinecraft", project)) {
+				mojangMappedMinecraftProvider.provide(provideContext);
+			}
 		}
 	}
 
@@ -39,7 +39,6 @@ import java.util.List;
 import javax.inject.Inject;
 
 import com.google.common.hash.Hashing;
-import com.google.common.io.MoreFiles;
 import dev.architectury.at.AccessTransformSet;
 import dev.architectury.at.io.AccessTransformFormats;
 import dev.architectury.loom.util.TempFiles;
@@ -56,6 +55,7 @@ import net.fabricmc.loom.api.processor.ProcessorContext;
 import net.fabricmc.loom.api.processor.SpecContext;
 import net.fabricmc.loom.build.IntermediaryNamespaces;
 import net.fabricmc.loom.configuration.providers.minecraft.MinecraftVersionMeta;
+import net.fabricmc.loom.util.Checksum;
 import net.fabricmc.loom.util.Constants;
 import net.fabricmc.loom.util.DependencyDownloader;
 import net.fabricmc.loom.util.ExceptionUtil;
@@ -85,7 +85,7 @@ public class AccessTransformerJarProcessor implements MinecraftJarProcessor<Acce
 			final String hash;
 
 			try {
-				hash = MoreFiles.asByteSource(atPath).hash(Hashing.sha256()).toString();
+				hash = Checksum.sha256Hex(atPath);
 			} catch (IOException e) {
 				throw new UncheckedIOException("Could not compute AT hash", e);
 			}
@@ -30,8 +30,11 @@ import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import javax.inject.Inject;
 
@@ -39,6 +42,8 @@ import org.gradle.api.file.RegularFileProperty;
 import org.jetbrains.annotations.Nullable;
 
 import net.fabricmc.accesswidener.AccessWidener;
+import net.fabricmc.accesswidener.AccessWidenerReader;
+import net.fabricmc.accesswidener.AccessWidenerVisitor;
 import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
 import net.fabricmc.loom.api.processor.MinecraftJarProcessor;
 import net.fabricmc.loom.api.processor.ProcessorContext;
@@ -129,18 +134,76 @@ public class AccessWidenerJarProcessor implements MinecraftJarProcessor<AccessWi
 
 	@Override
 	public void processJar(Path jar, AccessWidenerJarProcessor.Spec spec, ProcessorContext context) throws IOException {
-		final List<AccessWidenerEntry> accessWideners = spec.accessWidenersForContext(context);
+		final var accessWidener = new AccessWidener();
+		readAccessWideners(accessWidener, spec, context);
 
+		AccessWidenerTransformer transformer = new AccessWidenerTransformer(accessWidener);
+		transformer.apply(jar);
+	}
+
+	@Override
+	public Map<String, String> getProcessedClasses(AccessWidenerJarProcessor.Spec spec, ProcessorContext context) throws IOException {
 		final var accessWidener = new AccessWidener();
+		final var rules = new RuleCollector(accessWidener);
+		readAccessWideners(rules, spec, context);
+
+		// The class access rules are applied to the inner class attributes of every transformed class, so they are part of every value
+		final String classRules = String.join(";", rules.classRules);
+		final Map<String, String> processedClasses = new HashMap<>();
+
+		for (String target : accessWidener.getTargets()) {
+			final String className = target.replace('.', '/');
+			final List<String> memberRules = rules.memberRules.getOrDefault(className, Collections.emptyList());
+			processedClasses.put(className, classRules + "|" + String.join(";", memberRules));
+		}
+
+		return processedClasses;
+	}
+
+	private void readAccessWideners(AccessWidenerVisitor visitor, AccessWidenerJarProcessor.Spec spec, ProcessorContext context) throws IOException {
+		final List<AccessWidenerEntry> accessWideners = spec.accessWidenersForContext(context);
 
 		try (LazyCloseable<TinyRemapper> remapper = context.createRemapper(MappingsNamespace.INTERMEDIARY, MappingsNamespace.NAMED)) {
 			for (AccessWidenerEntry widener : accessWideners) {
-				widener.read(accessWidener, remapper);
+				widener.read(visitor, remapper);
 			}
 		}
+	}
 
-		AccessWidenerTransformer transformer = new AccessWidenerTransformer(accessWidener);
-		transformer.apply(jar);
+	/**
+	 * Records the rules that are read into an {@link AccessWidener}, ignoring whether they are transitive as that does not affect the jar.
+	 */
+	private static final class RuleCollector implements AccessWidenerVisitor {
+		private final AccessWidenerVisitor delegate;
+		private final List<String> classRules = new ArrayList<>();
+		private final Map<String, List<String>> memberRules = new HashMap<>();
+
+		private RuleCollector(AccessWidenerVisitor delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		public void visitHeader(String namespace) {
+			delegate.visitHeader(namespace);
+		}
+
+		@Override
+		public void visitClass(String name, AccessWidenerReader.AccessType access, boolean transitive) {
+			delegate.visitClass(name, access, transitive);
+			classRules.add(name + " " + access);
+		}
+
+		@Override
+		public void visitMethod(String owner, String name, String descriptor, AccessWidenerReader.AccessType access, boolean transitive) {
+			delegate.visitMethod(owner, name, descriptor, access, transitive);
+			memberRules.computeIfAbsent(owner, s -> new ArrayList<>()).add("method " + name + descriptor + " " + access);
+		}
+
+		@Override
+		public void visitField(String owner, String name, String descriptor, AccessWidenerReader.AccessType access, boolean transitive) {
+			delegate.visitField(owner, name, descriptor, access, transitive);
+			memberRules.computeIfAbsent(owner, s -> new ArrayList<>()).add("field " + name + ":" + descriptor + " " + access);
+		}
 	}
 
 	@Override
@@ -32,6 +32,7 @@ import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -108,24 +109,41 @@ public abstract class InterfaceInjectionProcessor implements MinecraftJarProcess
 
 	@Override
 	public void processJar(Path jar, Spec spec, ProcessorContext context) throws IOException {
+		final List<InjectedInterface> remappedInjectedInterfaces = remapInjectedInterfaces(spec, context);
+
+		try {
+			ZipUtils.transform(jar, getTransformers(remappedInjectedInterfaces));
+		} catch (IOException e) {
+			throw new RuntimeException("Failed to apply interface injections to " + jar, e);
+		}
+	}
+
+	@Override
+	public Map<String, String> getProcessedClasses(Spec spec, ProcessorContext context) throws IOException {
+		return remapInjectedInterfaces(spec, context).stream()
+				.collect(Collectors.groupingBy(
+						injectedInterface -> injectedInterface.className().replace('.', '/'),
+						Collectors.mapping(
+								injectedInterface -> injectedInterface.ifaceName() + Objects.requireNonNullElse(injectedInterface.generics(), ""),
+								Collectors.joining(",")
+						)
+				));
+	}
+
+	private List<InjectedInterface> remapInjectedInterfaces(Spec spec, ProcessorContext context) throws IOException {
 		// Remap from intermediary->named
 		final MemoryMappingTree mappings = context.getMappings();
 		final int intermediaryIndex = mappings.getNamespaceId(MappingsNamespace.INTERMEDIARY.toString());
 		final int namedIndex = mappings.getNamespaceId(MappingsNamespace.NAMED.toString());
 
 		try (LazyCloseable<TinyRemapper> tinyRemapper = context.createRemapper(MappingsNamespace.INTERMEDIARY, MappingsNamespace.NAMED)) {
-			final List<InjectedInterface> remappedInjectedInterfaces = spec.injectedInterfaces().stream()
+			return spec.injectedInterfaces().stream()
 					.map(injectedInterface -> remap(
 							injectedInterface,
 							s -> mappings.mapClassName(s, intermediaryIndex, namedIndex),
 							tinyRemapper.get().getEnvironment().getRemapper()
 					))
 					.toList();
-			try {
-				ZipUtils.transform(jar, getTransformers(remappedInjectedInterfaces));
-			} catch (IOException e) {
-				throw new RuntimeException("Failed to apply interface injections to " + jar, e);
-			}
 		}
 	}
 
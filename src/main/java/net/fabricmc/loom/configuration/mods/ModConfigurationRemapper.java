@@ -183,33 +183,39 @@ public class ModConfigurationRemapper {
 		});
 
 		// Round 2: Remapping
-		// Remap all discovered artifacts.
+		// Remap all discovered artifacts in a single session. The same artifact is often
+		// found in multiple configurations for its different usage attributes, it is only remapped once.
+		final boolean refreshDeps = extension.refreshDeps();
+		final Map<Configuration, List<ModDependency>> toRemapBySourceConfig = new LinkedHashMap<>();
+
 		configsToRemap.forEach((sourceConfig, remappedConfig) -> {
-			final List<ModDependency> modDependencies = dependenciesBySourceConfig.get(sourceConfig);
+			final List<ModDependency> toRemap = dependenciesBySourceConfig.get(sourceConfig).stream()
+					.filter(dependency -> refreshDeps || dependency.isCacheInvalid(project, null))
+					.toList();
 
-			if (modDependencies.isEmpty()) {
-				// Nothing else to do
-				return;
+			if (!toRemap.isEmpty()) {
+				toRemapBySourceConfig.put(sourceConfig, toRemap);
 			}
+		});
 
-			final Configuration clientRemappedConfig = clientConfigsToRemap.get(sourceConfig);
-			final boolean refreshDeps = LoomGradleExtension.get(project).refreshDeps();
-			// TODO: With the same artifacts being considered multiple times for their different
-			//   usage attributes, this should probably not process them multiple times even with refreshDeps.
-			final List<ModDependency> toRemap = modDependencies.stream()
-					.filter(dependency -> refreshDeps || dependency.isCacheInvalid(project, null))
+		if (!toRemapBySourceConfig.isEmpty()) {
+			final List<ModDependency> toRemap = toRemapBySourceConfig.values().stream()
+					.flatMap(List::stream)
 					.toList();
 
-			if (!toRemap.isEmpty()) {
-				try {
-					new ModProcessor(project, sourceConfig, serviceManager).processMods(toRemap);
-				} catch (IOException e) {
-					throw new UncheckedIOException("Failed to remap mods", e);
-				}
+			try {
+				new ModProcessor(project, toRemapBySourceConfig.keySet(), serviceManager).processMods(toRemap);
+			} catch (IOException e) {
+				throw new UncheckedIOException("Failed to remap mods", e);
 			}
+		}
+
+		// Round 3: Apply
+		// Add all of the remapped mods onto their target configs.
+		configsToRemap.forEach((sourceConfig, remappedConfig) -> {
+			final Configuration clientRemappedConfig = clientConfigsToRemap.get(sourceConfig);
 
-			// Add all of the remapped mods onto the config
-			for (ModDependency info : modDependencies) {
+			for (ModDependency info : dependenciesBySourceConfig.get(sourceConfig)) {
 				info.applyToProject(project);
 				createConstraints(info.getInputArtifact(), remappedConfig, sourceConfig, dependencies);
 
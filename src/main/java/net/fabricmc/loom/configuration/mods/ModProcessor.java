@@ -31,8 +31,11 @@ import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -40,6 +43,7 @@ import java.util.Set;
 import java.util.jar.Manifest;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 import com.google.common.base.Stopwatch;
 import com.google.gson.JsonObject;
@@ -55,6 +59,7 @@ import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
 import net.fabricmc.loom.build.IntermediaryNamespaces;
 import net.fabricmc.loom.configuration.mods.dependency.ModDependency;
 import net.fabricmc.loom.configuration.providers.mappings.MappingConfiguration;
+import net.fabricmc.loom.configuration.providers.mappings.TinyMappingsService;
 import net.fabricmc.loom.extension.RemapperExtensionHolder;
 import net.fabricmc.loom.util.Constants;
 import net.fabricmc.loom.util.LoggerFilter;
@@ -63,10 +68,13 @@ import net.fabricmc.loom.util.Pair;
 import net.fabricmc.loom.util.TinyRemapperHelper;
 import net.fabricmc.loom.util.ZipUtils;
 import net.fabricmc.loom.util.kotlin.KotlinClasspathService;
-import net.fabricmc.loom.util.kotlin.KotlinRemapperClassloader;
+import net.fabricmc.loom.util.kotlin.KotlinMetadataRemappingSession;
+import net.fabricmc.loom.util.kotlin.KotlinRemapperClassloaderService;
 import net.fabricmc.loom.util.service.SharedServiceManager;
 import net.fabricmc.loom.util.srg.AtClassRemapper;
 import net.fabricmc.loom.util.srg.CoreModClassRemapper;
+import net.fabricmc.loom.util.telemetry.Telemetry;
+import net.fabricmc.loom.util.telemetry.TelemetrySpan;
 import net.fabricmc.mappingio.tree.MemoryMappingTree;
 import net.fabricmc.tinyremapper.InputTag;
 import net.fabricmc.tinyremapper.NonClassCopyMode;
@@ -80,24 +88,54 @@ public class ModProcessor {
 	private static final Pattern COPY_CONFIGURATION_PATTERN = Pattern.compile("^(.+)Copy[0-9]*$");
 
 	private final Project project;
-	private final Configuration sourceConfiguration;
+	private final Collection<Configuration> sourceConfigurations;
 	private final SharedServiceManager serviceManager;
 
-	public ModProcessor(Project project, Configuration sourceConfiguration, SharedServiceManager serviceManager) {
+	public ModProcessor(Project project, Collection<Configuration> sourceConfigurations, SharedServiceManager serviceManager) {
 		this.project = project;
-		this.sourceConfiguration = sourceConfiguration;
+		this.sourceConfigurations = sourceConfigurations;
 		this.serviceManager = serviceManager;
 	}
 
+	/**
+	 * Remaps the given mods, which may come from any of the source configurations, in a single session.
+	 *
+	 * <p>Dependencies that remap to the same artifact are only remapped once.
+	 */
 	public void processMods(List<ModDependency> remapList) throws IOException {
-		try {
-			project.getLogger().lifecycle(":remapping {} mods from {}", remapList.size(), describeConfiguration(sourceConfiguration));
-			remapJars(remapList);
+		final List<RemapInput> inputs = groupInputs(remapList);
+
+		try (TelemetrySpan span = Telemetry.span("mods.remap", project)) {
+			final String description = sourceConfigurations.stream()
+					.map(this::describeConfiguration)
+					.distinct()
+					.collect(Collectors.joining(", "));
+			project.getLogger().lifecycle(":remapping {} mods from {}", inputs.size(), description);
+
+			for (RemapInput input : inputs) {
+				span.bytes(Files.size(input.primary().getInputFile()));
+			}
+
+			remapJars(inputs);
 		} catch (Exception e) {
-			throw new RuntimeException(String.format(Locale.ENGLISH, "Failed to remap %d mods", remapList.size()), e);
+			throw new RuntimeException(String.format(Locale.ENGLISH, "Failed to remap %d mods", inputs.size()), e);
 		}
 	}
 
+	// Groups the dependencies by their remapped output, so that each artifact is only remapped once.
+	// The first dependency of a group is remapped, its output is then copied to the cache of every dependency in the group.
+	private static List<RemapInput> groupInputs(List<ModDependency> remapList) {
+		final Map<Path, RemapInput> inputs = new LinkedHashMap<>();
+
+		for (ModDependency dependency : remapList) {
+			inputs.computeIfAbsent(getRemappedOutput(dependency), output -> new RemapInput(new ArrayList<>()))
+					.dependencies()
+					.add(dependency);
+		}
+
+		return List.copyOf(inputs.values());
+	}
+
 	// Creates a human-readable descriptive string for the configuration.
 	// This consists primarily of the name with any copy suffixes stripped
 	// (they're not informative), and the usage attribute if present.
@@ -162,19 +200,22 @@ public class ModProcessor {
 		}
 	}
 
-	private void remapJars(List<ModDependency> remapList) throws IOException {
+	private void remapJars(List<RemapInput> inputs) throws IOException {
 		final LoomGradleExtension extension = LoomGradleExtension.get(project);
 		final MappingConfiguration mappingConfiguration = extension.getMappingConfiguration();
 		String fromM = IntermediaryNamespaces.runtimeIntermediary(project);
 		Stopwatch stopwatch = Stopwatch.createStarted();
 		Set<String> knownIndyBsms = new HashSet<>(extension.getKnownIndyBsms().get());
 
+		final List<ModDependency> remapList = inputs.stream().map(RemapInput::primary).toList();
+
 		for (ModDependency modDependency : remapList) {
 			knownIndyBsms.addAll(modDependency.getMetadata().knownIdyBsms());
 		}
 
 		MappingOption mappingOption = MappingOption.forPlatform(extension);
-		MemoryMappingTree mappings = mappingConfiguration.getMappingsService(serviceManager, mappingOption).getMappingTree();
+		TinyMappingsService mappingsService = mappingConfiguration.getMappingsService(serviceManager, mappingOption);
+		MemoryMappingTree mappings = mappingsService.getMappingTree();
 		LoggerFilter.replaceSystemOut();
 
 		TinyRemapper.Builder builder = TinyRemapper.newRemapper()
@@ -184,11 +225,11 @@ public class ModProcessor {
 				.extraAnalyzeVisitor(AccessWidenerAnalyzeVisitorProvider.createFromMods(fromM, remapList, extension.getPlatform().get()));
 
 		final KotlinClasspathService kotlinClasspathService = KotlinClasspathService.getOrCreateIfRequired(serviceManager, project);
-		KotlinRemapperClassloader kotlinRemapperClassloader = null;
+		KotlinMetadataRemappingSession kotlinSession = null;
 
 		if (kotlinClasspathService != null) {
-			kotlinRemapperClassloader = KotlinRemapperClassloader.create(kotlinClasspathService);
-			builder.extension(kotlinRemapperClassloader.getTinyRemapperExtension());
+			kotlinSession = KotlinRemapperClassloaderService.get(project).createSession(kotlinClasspathService);
+			builder.extension(kotlinSession);
 		}
 
 		final Set<InputTag> remapMixins = new HashSet<>();
@@ -212,9 +253,15 @@ public class ModProcessor {
 		final Map<ModDependency, OutputConsumerPath> outputConsumerMap = new HashMap<>();
 		final Map<ModDependency, Pair<byte[], String>> accessWidenerMap = new HashMap<>();
 
+		final Set<File> inputFiles = inputs.stream()
+				.flatMap(input -> input.dependencies().stream())
+				.map(info -> info.getInputFile().toFile())
+				.collect(Collectors.toSet());
+		final Set<File> classpathFiles = new HashSet<>();
+
 		for (RemapConfigurationSettings entry : extension.getRemapConfigurations()) {
 			for (File inputFile : entry.getSourceConfiguration().get().getFiles()) {
-				if (remapList.stream().noneMatch(info -> info.getInputFile().toFile().equals(inputFile))) {
+				if (!inputFiles.contains(inputFile) && classpathFiles.add(inputFile)) {
 					project.getLogger().debug("Adding " + inputFile + " onto the remap classpath");
 					remapper.readClassPathAsync(inputFile.toPath());
 				}
@@ -269,15 +316,16 @@ public class ModProcessor {
 			}
 		} finally {
 			remapper.finish();
-
-			if (kotlinRemapperClassloader != null) {
-				kotlinRemapperClassloader.close();
-			}
 		}
 
 		project.getLogger().lifecycle(":remapped {} mods ({} -> {}) in {}", remapList.size(), fromM, toM, stopwatch.stop());
 
-		for (ModDependency dependency : remapList) {
+		if (kotlinSession != null) {
+			project.getLogger().info(":remapped Kotlin metadata of {} classes", kotlinSession.getRemappedClassCount());
+		}
+
+		for (RemapInput input : inputs) {
+			final ModDependency dependency = input.primary();
 			outputConsumerMap.get(dependency).close();
 
 			final Path output = getRemappedOutput(dependency);
@@ -296,13 +344,15 @@ public class ModProcessor {
 					NeoForgeModDependencies.remapAts(output, mappings, fromM, toM);
 				} else {
 					// Forge: only map class names, the rest are mapped srg -> named at runtime
-					AtClassRemapper.remap(project, output, mappings);
+					AtClassRemapper.remap(project, output, mappingsService.getMappingTreeIndex());
 				}
 
-				CoreModClassRemapper.remapJar(project, extension.getPlatform().get(), output, mappings);
+				CoreModClassRemapper.remapJar(project, extension.getPlatform().get(), output, mappingsService.getMappingTreeIndex());
 			}
 
-			dependency.copyToCache(project, output, null);
+			for (ModDependency target : input.dependencies()) {
+				target.copyToCache(project, output, null);
+			}
 		}
 	}
 
@@ -321,4 +371,13 @@ public class ModProcessor {
 			return out.toByteArray();
 		}));
 	}
+
+	/**
+	 * An artifact to remap, along with all the dependencies that resolved to it.
+	 */
+	private record RemapInput(List<ModDependency> dependencies) {
+		ModDependency primary() {
+			return dependencies.get(0);
+		}
+	}
 }
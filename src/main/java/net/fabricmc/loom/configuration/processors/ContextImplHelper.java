@@ -24,33 +24,20 @@
 
 package net.fabricmc.loom.configuration.processors;
 
-import java.io.IOException;
-import java.io.UncheckedIOException;
-import java.nio.file.Path;
-
 import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
 import net.fabricmc.loom.configuration.ConfigContext;
 import net.fabricmc.loom.util.LazyCloseable;
-import net.fabricmc.loom.util.TinyRemapperHelper;
 import net.fabricmc.tinyremapper.TinyRemapper;
 
 public final class ContextImplHelper {
 	private ContextImplHelper() {
 	}
 
+	/**
+	 * Returns the remapper shared by all processors, closing the returned {@link LazyCloseable} does not close the remapper.
+	 */
 	public static LazyCloseable<TinyRemapper> createRemapper(ConfigContext configContext, MappingsNamespace from, MappingsNamespace to) {
-		return new LazyCloseable<>(() -> {
-			try {
-				TinyRemapper tinyRemapper = TinyRemapperHelper.getTinyRemapper(configContext.project(), configContext.serviceManager(), from.toString(), to.toString());
-
-				for (Path minecraftJar : configContext.extension().getMinecraftJars(MappingsNamespace.INTERMEDIARY)) {
-					tinyRemapper.readClassPath(minecraftJar);
-				}
-
-				return tinyRemapper;
-			} catch (IOException e) {
-				throw new UncheckedIOException("Failed to create tiny remapper", e);
-			}
-		}, TinyRemapper::finish);
+		final ProcessorRemapperService service = ProcessorRemapperService.get(configContext, from, to);
+		return new LazyCloseable<>(service::getTinyRemapper, tinyRemapper -> { });
 	}
 }
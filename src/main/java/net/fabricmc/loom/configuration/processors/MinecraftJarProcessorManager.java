@@ -28,14 +28,19 @@ import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.StringJoiner;
 import java.util.stream.Collectors;
 
+import dev.architectury.loom.util.TempFiles;
 import org.gradle.api.Project;
 import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
@@ -47,15 +52,21 @@ import net.fabricmc.loom.api.processor.MinecraftJarProcessor;
 import net.fabricmc.loom.api.processor.ProcessorContext;
 import net.fabricmc.loom.api.processor.SpecContext;
 import net.fabricmc.loom.util.Checksum;
+import net.fabricmc.loom.util.FileSystemUtil;
+import net.fabricmc.loom.util.telemetry.Telemetry;
+import net.fabricmc.loom.util.telemetry.TelemetryReportService;
+import net.fabricmc.loom.util.telemetry.TelemetrySpan;
 import net.fabricmc.mappingio.tree.MemoryMappingTree;
 
 public final class MinecraftJarProcessorManager {
 	private static final Logger LOGGER = LoggerFactory.getLogger(MinecraftJarProcessorManager.class);
 
 	private final List<ProcessorEntry<?>> jarProcessors;
+	private final @Nullable TelemetryReportService telemetryReport;
 
-	private MinecraftJarProcessorManager(List<ProcessorEntry<?>> jarProcessors) {
+	private MinecraftJarProcessorManager(List<ProcessorEntry<?>> jarProcessors, @Nullable TelemetryReportService telemetryReport) {
 		this.jarProcessors = Collections.unmodifiableList(jarProcessors);
+		this.telemetryReport = telemetryReport;
 	}
 
 	@Nullable
@@ -67,11 +78,16 @@ public final class MinecraftJarProcessorManager {
 			processors.add(project.getObjects().newInstance(LegacyJarProcessorWrapper.class, legacyProcessor));
 		}
 
-		return MinecraftJarProcessorManager.create(processors, SpecContextImpl.create(project));
+		return MinecraftJarProcessorManager.create(processors, SpecContextImpl.create(project), TelemetryReportService.find(project));
 	}
 
 	@Nullable
 	public static MinecraftJarProcessorManager create(List<MinecraftJarProcessor<?>> processors, SpecContext context) {
+		return create(processors, context, null);
+	}
+
+	@Nullable
+	private static MinecraftJarProcessorManager create(List<MinecraftJarProcessor<?>> processors, SpecContext context, @Nullable TelemetryReportService telemetryReport) {
 		List<ProcessorEntry<?>> entries = new ArrayList<>();
 
 		for (MinecraftJarProcessor<?> processor : processors) {
@@ -89,7 +105,7 @@ public final class MinecraftJarProcessorManager {
 			return null;
 		}
 
-		return new MinecraftJarProcessorManager(entries);
+		return new MinecraftJarProcessorManager(entries, telemetryReport);
 	}
 
 	private String getCacheValue() {
@@ -129,7 +145,8 @@ public final class MinecraftJarProcessorManager {
 
 	public void processJar(Path jar, ProcessorContext context) throws IOException {
 		for (ProcessorEntry<?> entry : jarProcessors) {
-			try {
+			try (TelemetrySpan span = Telemetry.span("processor." + entry.name(), telemetryReport)) {
+				span.bytes(Files.size(jar));
 				entry.processJar(jar, context);
 			} catch (IOException e) {
 				throw new IOException("Failed to process jar when running jar processor: %s".formatted(entry.name()), e);
@@ -137,6 +154,113 @@ public final class MinecraftJarProcessorManager {
 		}
 	}
 
+	/**
+	 * Returns the classes modified by each processor, in the order that they are applied.
+	 *
+	 * @return the processed classes, or {@code null} if any of the processors does not know which classes it modifies
+	 * @see MinecraftJarProcessor#getProcessedClasses
+	 */
+	@Nullable
+	public List<ProcessedClasses> getProcessedClasses(ProcessorContext context) throws IOException {
+		final List<ProcessedClasses> processedClasses = new ArrayList<>();
+
+		for (ProcessorEntry<?> entry : jarProcessors) {
+			final Map<String, String> classes = entry.processedClasses(context);
+
+			if (classes == null) {
+				LOGGER.debug("Jar processor {} does not support incremental processing", entry.name());
+				return null;
+			}
+
+			processedClasses.add(new ProcessedClasses(entry.name(), classes));
+		}
+
+		return processedClasses;
+	}
+
+	/**
+	 * Compares the classes modified by two sets of processors.
+	 *
+	 * @return the names of the classes that are processed differently, or {@code null} if the processors themselves differ
+	 */
+	@Nullable
+	public static Set<String> getChangedClasses(List<ProcessedClasses> previous, List<ProcessedClasses> current) {
+		if (previous.size() != current.size()) {
+			return null;
+		}
+
+		final Set<String> changedClasses = new HashSet<>();
+
+		for (int i = 0; i < current.size(); i++) {
+			final ProcessedClasses previousClasses = previous.get(i);
+			final ProcessedClasses currentClasses = current.get(i);
+
+			if (!previousClasses.processor().equals(currentClasses.processor())) {
+				return null;
+			}
+
+			addChangedClasses(previousClasses.classes(), currentClasses.classes(), changedClasses);
+			addChangedClasses(currentClasses.classes(), previousClasses.classes(), changedClasses);
+		}
+
+		return changedClasses;
+	}
+
+	private static void addChangedClasses(Map<String, String> classes, Map<String, String> other, Set<String> changedClasses) {
+		for (Map.Entry<String, String> entry : classes.entrySet()) {
+			if (!entry.getValue().equals(other.get(entry.getKey()))) {
+				changedClasses.add(entry.getKey());
+			}
+		}
+	}
+
+	/**
+	 * Processes the changed classes of a previously processed jar again, in place.
+	 * The changed classes are taken from the unprocessed jar, which must be the jar that the processed jar was created from.
+	 *
+	 * @param changedClasses the classes returned by {@link #getChangedClasses}
+	 */
+	public void processChangedClasses(Path inputJar, Path processedJar, Set<String> changedClasses, ProcessorContext context) throws IOException {
+		try (var tempFiles = new TempFiles()) {
+			// Collect the unprocessed changed classes, and process them on their own
+			final Path changedJar = tempFiles.file("loom-processed-changed", ".jar");
+			Files.delete(changedJar);
+
+			try (FileSystemUtil.Delegate inputFs = FileSystemUtil.getJarFileSystem(inputJar, false);
+					FileSystemUtil.Delegate changedFs = FileSystemUtil.getJarFileSystem(changedJar, true)) {
+				for (String changedClass : changedClasses) {
+					final Path inputPath = inputFs.getRoot().resolve(changedClass + ".class");
+
+					if (Files.notExists(inputPath)) {
+						continue;
+					}
+
+					final Path changedPath = changedFs.getRoot().resolve(changedClass + ".class");
+					Files.createDirectories(changedPath.getParent());
+					Files.copy(inputPath, changedPath);
+				}
+			}
+
+			processJar(changedJar, context);
+
+			// Then replace them in the processed jar, removing the classes that are no longer output
+			try (FileSystemUtil.Delegate changedFs = FileSystemUtil.getJarFileSystem(changedJar, false);
+					FileSystemUtil.Delegate processedFs = FileSystemUtil.getJarFileSystem(processedJar, false)) {
+				for (String changedClass : changedClasses) {
+					final Path changedPath = changedFs.getRoot().resolve(changedClass + ".class");
+					final Path processedPath = processedFs.getRoot().resolve(changedClass + ".class");
+
+					if (Files.exists(changedPath)) {
+						Files.createDirectories(processedPath.getParent());
+						Files.copy(changedPath, processedPath, StandardCopyOption.REPLACE_EXISTING);
+					} else {
+						Files.deleteIfExists(processedPath);
+					}
+				}
+			}
+		}
+	}
+
 	public boolean processMappings(MemoryMappingTree mappings, MappingProcessorContext context) {
 		boolean transformed = false;
 
@@ -159,6 +283,11 @@ public final class MinecraftJarProcessorManager {
 			processor().processJar(jar, spec, context);
 		}
 
+		@Nullable
+		private Map<String, String> processedClasses(ProcessorContext context) throws IOException {
+			return processor().getProcessedClasses(spec, context);
+		}
+
 		private boolean processMappings(MemoryMappingTree mappings, MappingProcessorContext context) {
 			if (mappingsProcessor() == null) {
 				return false;
@@ -175,4 +304,13 @@ public final class MinecraftJarProcessorManager {
 			return processor.getName() + ":" + spec.hashCode();
 		}
 	}
+
+	/**
+	 * The classes modified by a processor.
+	 *
+	 * @param processor the name of the processor
+	 * @param classes   a map of internal class names to values that change with the way the class is modified
+	 */
+	public record ProcessedClasses(String processor, Map<String, String> classes) {
+	}
 }
@@ -34,6 +34,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 import javax.inject.Inject;
@@ -97,6 +98,11 @@ public abstract class ModJavadocProcessor implements MinecraftJarProcessor<ModJa
 		// Nothing to do for the jar
 	}
 
+	@Override
+	public Map<String, String> getProcessedClasses(Spec spec, ProcessorContext context) {
+		return Collections.emptyMap();
+	}
+
 	@Override
 	public @Nullable MappingsProcessor<Spec> processMappings() {
 		return (mappings, spec, context) -> {
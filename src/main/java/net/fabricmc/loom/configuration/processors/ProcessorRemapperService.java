@@ -0,0 +1,82 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.configuration.processors;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+
+import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
+import net.fabricmc.loom.configuration.ConfigContext;
+import net.fabricmc.loom.util.TinyRemapperHelper;
+import net.fabricmc.loom.util.service.SharedService;
+import net.fabricmc.tinyremapper.TinyRemapper;
+
+/**
+ * A {@link TinyRemapper} with the intermediary Minecraft jars on its classpath, shared by all the jar and mapping processors of a project.
+ *
+ * <p>The remapper is only built when first used, and is only used to remap names, so it can be shared until the service manager is closed.
+ */
+final class ProcessorRemapperService implements SharedService {
+	private final ConfigContext configContext;
+	private final MappingsNamespace from;
+	private final MappingsNamespace to;
+	private TinyRemapper tinyRemapper;
+
+	private ProcessorRemapperService(ConfigContext configContext, MappingsNamespace from, MappingsNamespace to) {
+		this.configContext = configContext;
+		this.from = from;
+		this.to = to;
+	}
+
+	static ProcessorRemapperService get(ConfigContext configContext, MappingsNamespace from, MappingsNamespace to) {
+		final String id = configContext.extension().getMappingConfiguration().getBuildServiceName("ProcessorRemapperService", from.toString(), to.toString());
+		return configContext.serviceManager().getOrCreateService(id + ":" + configContext.project().getPath(), () -> new ProcessorRemapperService(configContext, from, to));
+	}
+
+	synchronized TinyRemapper getTinyRemapper() {
+		if (tinyRemapper == null) {
+			try {
+				tinyRemapper = TinyRemapperHelper.getTinyRemapper(configContext.project(), configContext.serviceManager(), from.toString(), to.toString());
+
+				for (Path minecraftJar : configContext.extension().getMinecraftJars(MappingsNamespace.INTERMEDIARY)) {
+					tinyRemapper.readClassPath(minecraftJar);
+				}
+			} catch (IOException e) {
+				throw new UncheckedIOException("Failed to create tiny remapper", e);
+			}
+		}
+
+		return tinyRemapper;
+	}
+
+	@Override
+	public synchronized void close() {
+		if (tinyRemapper != null) {
+			tinyRemapper.finish();
+			tinyRemapper = null;
+		}
+	}
+}
@@ -0,0 +1,322 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.configuration.providers.forge;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.zip.Adler32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.VisibleForTesting;
+import org.tukaani.xz.LZMAInputStream;
+
+import net.fabricmc.loom.util.ThreadingUtils;
+
+/**
+ * Applies Forge's binary patches, producing the same classes as {@code net.minecraftforge.binarypatcher.ConsoleTool}.
+ *
+ * <p>The patches are read from an LZMA compressed archive of {@code .binpatch} files,
+ * each containing a GDIFF patch for a single class. The patches are applied in parallel,
+ * optionally followed by a {@link ClassStage} that is run on every class written to the output.
+ */
+public final class BinaryPatcher {
+	private static final int PATCH_FORMAT_VERSION = 1;
+	private static final int GDIFF_MAGIC = 0xD1FFD1FF;
+	private static final int GDIFF_VERSION = 4;
+	private static final long ZIP_TIME = new GregorianCalendar(1980, Calendar.JANUARY, 1, 0, 0, 0).getTimeInMillis();
+
+	private BinaryPatcher() {
+	}
+
+	public static void patch(Options options) throws IOException {
+		patch(options, ClassStage.IDENTITY);
+	}
+
+	public static void patch(Options options, ClassStage stage) throws IOException {
+		final Map<String, Patch> patches = new TreeMap<>();
+
+		for (Path patchArchive : options.patches()) {
+			readPatches(patchArchive, options.prefix(), patches);
+		}
+
+		final List<CleanEntry> entries = new ArrayList<>();
+
+		try (ZipInputStream zis = new ZipInputStream(Files.newInputStream(options.clean()))) {
+			ZipEntry entry;
+
+			while ((entry = zis.getNextEntry()) != null) {
+				if (entry.isDirectory()) {
+					continue;
+				}
+
+				final String name = entry.getName();
+				final Patch patch = name.endsWith(".class") ? patches.get(name.substring(0, name.length() - ".class".length())) : null;
+
+				if (patch != null || (name.endsWith(".class") ? options.keepUnpatched() : options.keepData())) {
+					entries.add(new CleanEntry(name, zis.readAllBytes(), patch));
+				}
+			}
+		}
+
+		final Set<String> patched = new HashSet<>();
+		final List<ThreadingUtils.UnsafeCallable<byte[]>> jobs = new ArrayList<>();
+
+		for (CleanEntry entry : entries) {
+			if (entry.patch() != null) {
+				patched.add(entry.patch().obf());
+				jobs.add(() -> stage.apply(entry.patch().apply(entry.data())));
+			} else if (entry.name().endsWith(".class")) {
+				jobs.add(() -> stage.apply(entry.data()));
+			} else {
+				jobs.add(entry::data);
+			}
+		}
+
+		// Patches for classes that don't exist in the clean jar add new classes
+		final List<Patch> added = patches.values().stream().filter(patch -> !patched.contains(patch.obf())).toList();
+
+		for (Patch patch : added) {
+			jobs.add(() -> stage.apply(patch.apply(new byte[0])));
+		}
+
+		final List<byte[]> results = ThreadingUtils.get(jobs);
+
+		Files.deleteIfExists(options.output());
+
+		try (ZipOutputStream zos = new ZipOutputStream(Files.newOutputStream(options.output()))) {
+			for (int i = 0; i < entries.size(); i++) {
+				writeEntry(zos, entries.get(i).name(), results.get(i));
+			}
+
+			for (int i = 0; i < added.size(); i++) {
+				writeEntry(zos, added.get(i).obf() + ".class", results.get(entries.size() + i));
+			}
+		}
+	}
+
+	private static void readPatches(Path patchArchive, @Nullable String prefix, Map<String, Patch> patches) throws IOException {
+		try (InputStream is = Files.newInputStream(patchArchive);
+				ZipInputStream zis = new ZipInputStream(new LZMAInputStream(is))) {
+			ZipEntry entry;
+
+			while ((entry = zis.getNextEntry()) != null) {
+				final String name = entry.getName();
+
+				if (!name.endsWith(".binpatch") || (prefix != null && !name.startsWith(prefix + '/'))) {
+					continue;
+				}
+
+				final Patch patch = Patch.read(zis);
+
+				if (patches.putIfAbsent(patch.obf(), patch) != null) {
+					throw new IOException("Duplicate patches for class " + patch.obf() + " in " + patchArchive);
+				}
+			}
+		}
+	}
+
+	static void writeEntry(ZipOutputStream zos, String name, byte[] data) throws IOException {
+		final ZipEntry entry = new ZipEntry(name);
+		entry.setTime(ZIP_TIME);
+		zos.putNextEntry(entry);
+		zos.write(data);
+		zos.closeEntry();
+	}
+
+	/**
+	 * Applies a GDIFF patch to the source data.
+	 */
+	@VisibleForTesting
+	public static byte[] applyGDiff(byte[] source, byte[] patch) throws IOException {
+		final DataInputStream in = new DataInputStream(new ByteArrayInputStream(patch));
+
+		if (in.readInt() != GDIFF_MAGIC) {
+			throw new IOException("Invalid GDIFF patch header");
+		}
+
+		final int version = in.readUnsignedByte();
+
+		if (version != GDIFF_VERSION) {
+			throw new IOException("Unsupported GDIFF version: " + version);
+		}
+
+		final ByteArrayOutputStream out = new ByteArrayOutputStream(source.length + patch.length);
+
+		while (true) {
+			final int command = in.readUnsignedByte();
+
+			switch (command) {
+			case 0 -> {
+				return out.toByteArray();
+			}
+			case 247 -> copyData(in, out, in.readUnsignedShort());
+			case 248 -> copyData(in, out, in.readInt());
+			case 249 -> copySource(source, out, in.readUnsignedShort(), in.readUnsignedByte());
+			case 250 -> copySource(source, out, in.readUnsignedShort(), in.readUnsignedShort());
+			case 251 -> copySource(source, out, in.readUnsignedShort(), in.readInt());
+			case 252 -> copySource(source, out, Integer.toUnsignedLong(in.readInt()), in.readUnsignedByte());
+			case 253 -> copySource(source, out, Integer.toUnsignedLong(in.readInt()), in.readUnsignedShort());
+			case 254 -> copySource(source, out, Integer.toUnsignedLong(in.readInt()), in.readInt());
+			case 255 -> copySource(source, out, in.readLong(), in.readInt());
+			// 1-246: the command is the length of the data that follows
+			default -> copyData(in, out, command);
+			}
+		}
+	}
+
+	private static void copyData(DataInputStream in, OutputStream out, int length) throws IOException {
+		if (length < 0) {
+			throw new IOException("Invalid GDIFF data length: " + length);
+		}
+
+		final byte[] data = new byte[length];
+		in.readFully(data);
+		out.write(data);
+	}
+
+	private static void copySource(byte[] source, ByteArrayOutputStream out, long offset, int length) throws IOException {
+		if (offset < 0 || length < 0 || offset + length > source.length) {
+			throw new EOFException("GDIFF copy (offset %d, length %d) is out of bounds of the source (%d bytes)".formatted(offset, length, source.length));
+		}
+
+		out.write(source, (int) offset, length);
+	}
+
+	/**
+	 * The options of a ConsoleTool invocation.
+	 *
+	 * @param clean         the jar to patch
+	 * @param output        the output jar
+	 * @param patches       the LZMA patch archives
+	 * @param prefix        if not null, only the patches in this directory of the archives are applied
+	 * @param keepData      whether the non-class files of the clean jar are copied to the output
+	 * @param keepUnpatched whether the unpatched classes of the clean jar are copied to the output
+	 */
+	public record Options(Path clean, Path output, List<Path> patches, @Nullable String prefix, boolean keepData, boolean keepUnpatched) {
+		/**
+		 * Parses the arguments passed to ConsoleTool.
+		 *
+		 * @return the options, or {@code null} if the arguments use a feature that is not supported
+		 */
+		public static @Nullable Options parse(List<String> args) {
+			Path clean = null;
+			Path output = null;
+			final List<Path> patches = new ArrayList<>();
+			String prefix = null;
+			boolean keepData = false;
+			boolean keepUnpatched = false;
+
+			for (int i = 0; i < args.size(); i++) {
+				final String arg = args.get(i);
+
+				switch (arg) {
+				case "--data" -> keepData = true;
+				case "--unpatched" -> keepUnpatched = true;
+				case "--clean", "--output", "--apply", "--prefix" -> {
+					if (++i >= args.size()) {
+						return null;
+					}
+
+					final String value = args.get(i);
+
+					switch (arg) {
+					case "--clean" -> clean = Path.of(value);
+					case "--output" -> output = Path.of(value);
+					case "--apply" -> patches.add(Path.of(value));
+					default -> prefix = value;
+					}
+				}
+				default -> {
+					return null;
+				}
+				}
+			}
+
+			if (clean == null || output == null || patches.isEmpty()) {
+				return null;
+			}
+
+			return new Options(clean, output, List.copyOf(patches), prefix, keepData, keepUnpatched);
+		}
+	}
+
+	private record Patch(String obf, String srg, boolean exists, int checksum, byte[] data) {
+		static Patch read(InputStream is) throws IOException {
+			final DataInputStream in = new DataInputStream(is);
+			final int version = in.readUnsignedByte();
+
+			if (version != PATCH_FORMAT_VERSION) {
+				throw new IOException("Unsupported binary patch format: " + version);
+			}
+
+			final String obf = in.readUTF();
+			final String srg = in.readUTF();
+			final boolean exists = in.readBoolean();
+			final int checksum = exists ? in.readInt() : 0;
+			final byte[] data = new byte[in.readInt()];
+			in.readFully(data);
+			return new Patch(obf, srg, exists, checksum, data);
+		}
+
+		byte[] apply(byte[] clean) throws IOException {
+			if (!exists && clean.length != 0) {
+				throw new IOException("Patch expected %s to not exist, but received %d bytes".formatted(obf, clean.length));
+			}
+
+			if (exists) {
+				final Adler32 adler32 = new Adler32();
+				adler32.update(clean);
+				final int actual = (int) adler32.getValue();
+
+				if (actual != checksum) {
+					throw new IOException("Patch expected %s to have the checksum %08X, but it was %08X".formatted(obf, checksum, actual));
+				}
+			}
+
+			return applyGDiff(clean, data);
+		}
+	}
+
+	private record CleanEntry(String name, byte[] data, @Nullable Patch patch) {
+	}
+}
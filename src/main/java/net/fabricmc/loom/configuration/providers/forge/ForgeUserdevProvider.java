@@ -25,6 +25,7 @@
 package net.fabricmc.loom.configuration.providers.forge;
 
 import java.io.File;
+import java.io.IOException;
 import java.io.Reader;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -38,6 +39,7 @@ import org.gradle.api.Project;
 
 import net.fabricmc.loom.configuration.DependencyInfo;
 import net.fabricmc.loom.util.Constants;
+import net.fabricmc.loom.util.ParsedFileCache;
 import net.fabricmc.loom.util.ZipUtils;
 
 public class ForgeUserdevProvider extends DependencyProvider {
@@ -57,17 +59,23 @@ public class ForgeUserdevProvider extends DependencyProvider {
 		Path configJson = getExtension().getForgeProvider().getGlobalCache().toPath().resolve("forge-config.json");
 
 		if (!userdevJar.exists() || Files.notExists(configJson) || refreshDeps()) {
-			File resolved = dependency.resolveFile().orElseThrow(() -> new RuntimeException("Could not resolve Forge userdev"));
-			Files.copy(resolved.toPath(), userdevJar.toPath(), StandardCopyOption.REPLACE_EXISTING);
-			Files.write(configJson, ZipUtils.unpack(resolved.toPath(), "config.json"));
+			extract(dependency, configJson);
 		}
 
-		try (Reader reader = Files.newBufferedReader(configJson)) {
-			json = new Gson().fromJson(reader, JsonObject.class);
-			config = UserdevConfig.CODEC.parse(JsonOps.INSTANCE, json)
-					.getOrThrow(false, msg -> getProject().getLogger().error("Couldn't read userdev config, {}", msg));
+		ParsedUserdevConfig parsed;
+
+		try {
+			parsed = parse(configJson);
+		} catch (IOException | RuntimeException e) {
+			// The cached config is corrupt, extract it again
+			getProject().getLogger().warn("Failed to read cached userdev config, extracting it again", e);
+			extract(dependency, configJson);
+			parsed = parse(configJson);
 		}
 
+		json = parsed.json();
+		config = parsed.config();
+
 		addDependency(config.mcp(), Constants.Configurations.MCP_CONFIG);
 
 		if (!getExtension().isNeoForge()) {
@@ -81,6 +89,24 @@ public class ForgeUserdevProvider extends DependencyProvider {
 		}
 	}
 
+	private void extract(DependencyInfo dependency, Path configJson) throws IOException {
+		File resolved = dependency.resolveFile().orElseThrow(() -> new RuntimeException("Could not resolve Forge userdev"));
+		Files.copy(resolved.toPath(), userdevJar.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		Files.write(configJson, ZipUtils.unpack(resolved.toPath(), "config.json"));
+	}
+
+	// The parsed config is shared across projects, it must not be modified.
+	private ParsedUserdevConfig parse(Path configJson) throws IOException {
+		return ParsedFileCache.INSTANCE.get(configJson, ParsedUserdevConfig.class, path -> {
+			try (Reader reader = Files.newBufferedReader(path)) {
+				final JsonObject json = new Gson().fromJson(reader, JsonObject.class);
+				final UserdevConfig config = UserdevConfig.CODEC.parse(JsonOps.INSTANCE, json)
+						.getOrThrow(false, msg -> getProject().getLogger().error("Couldn't read userdev config, {}", msg));
+				return new ParsedUserdevConfig(json, config);
+			}
+		});
+	}
+
 	public File getUserdevJar() {
 		return userdevJar;
 	}
@@ -90,11 +116,17 @@ public class ForgeUserdevProvider extends DependencyProvider {
 		return Constants.Configurations.FORGE_USERDEV;
 	}
 
+	/**
+	 * Returns a copy of the userdev config json, the parsed json is shared across projects.
+	 */
 	public JsonObject getJson() {
-		return json;
+		return json.deepCopy();
 	}
 
 	public UserdevConfig getConfig() {
 		return config;
 	}
+
+	private record ParsedUserdevConfig(JsonObject json, UserdevConfig config) {
+	}
 }
@@ -36,9 +36,10 @@ import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
 import java.util.function.BiFunction;
@@ -48,6 +49,9 @@ import java.util.jar.Attributes;
 import java.util.jar.Manifest;
 import java.util.regex.Pattern;
 import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
 
 import com.google.common.base.Preconditions;
 import com.google.common.base.Stopwatch;
@@ -87,7 +91,8 @@ import net.fabricmc.loom.util.service.ScopedSharedServiceManager;
 import net.fabricmc.loom.util.service.SharedServiceManager;
 import net.fabricmc.loom.util.srg.CoreModClassRemapper;
 import net.fabricmc.loom.util.srg.InnerClassRemapper;
-import net.fabricmc.mappingio.tree.MappingTree;
+import net.fabricmc.loom.util.telemetry.Telemetry;
+import net.fabricmc.loom.util.telemetry.TelemetrySpan;
 import net.fabricmc.mappingio.tree.MemoryMappingTree;
 import net.fabricmc.tinyremapper.extension.mixin.MixinExtension;
 import net.fabricmc.tinyremapper.InputTag;
@@ -221,9 +226,10 @@ public class MinecraftPatchedProvider {
 
 	private void fillClientExtraJar() throws IOException {
 		Files.deleteIfExists(minecraftClientExtra);
-		FileSystemUtil.getJarFileSystem(minecraftClientExtra, true).close();
 
-		copyNonClassFiles(minecraftProvider.getMinecraftClientJar().toPath(), minecraftClientExtra);
+		try (FileSystemUtil.Delegate fs = FileSystemUtil.getJarFileSystem(minecraftClientExtra, true)) {
+			copyNonClassFiles(minecraftProvider.getMinecraftClientJar().toPath(), minecraftClientExtra);
+		}
 	}
 
 	private TinyRemapper buildRemapper(SharedServiceManager serviceManager, Path input) throws IOException {
@@ -251,92 +257,51 @@ public class MinecraftPatchedProvider {
 		return remapper;
 	}
 
-	private void fixParameterAnnotation(Path jarFile) throws Exception {
-		logger.info(":fixing parameter annotations for " + jarFile.toAbsolutePath());
-		Stopwatch stopwatch = Stopwatch.createStarted();
-
-		try (FileSystemUtil.Delegate fs = FileSystemUtil.getJarFileSystem(jarFile, false)) {
-			ThreadingUtils.TaskCompleter completer = ThreadingUtils.taskCompleter();
-
-			for (Path file : (Iterable<? extends Path>) Files.walk(fs.getPath("/"))::iterator) {
-				if (!file.toString().endsWith(".class")) continue;
-
-				completer.add(() -> {
-					byte[] bytes = Files.readAllBytes(file);
-					ClassReader reader = new ClassReader(bytes);
-					ClassNode node = new ClassNode();
-					ClassVisitor visitor = new ParameterAnnotationFixer(node, null);
-					reader.accept(visitor, 0);
+	private static ClassStage fixParameterAnnotation() {
+		return bytes -> {
+			ClassReader reader = new ClassReader(bytes);
+			ClassNode node = new ClassNode();
+			ClassVisitor visitor = new ParameterAnnotationFixer(node, null);
+			reader.accept(visitor, 0);
 
-					ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
-					node.accept(writer);
-					byte[] out = writer.toByteArray();
-
-					if (!Arrays.equals(bytes, out)) {
-						Files.delete(file);
-						Files.write(file, out);
-					}
-				});
-			}
-
-			completer.complete();
-		}
-
-		logger.info(":fixed parameter annotations for " + jarFile.toAbsolutePath() + " in " + stopwatch);
+			ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+			node.accept(writer);
+			return writer.toByteArray();
+		};
 	}
 
-	private void deleteParameterNames(Path jarFile) throws Exception {
-		logger.info(":deleting parameter names for " + jarFile.toAbsolutePath());
-		Stopwatch stopwatch = Stopwatch.createStarted();
-
-		try (FileSystemUtil.Delegate fs = FileSystemUtil.getJarFileSystem(jarFile, false)) {
-			ThreadingUtils.TaskCompleter completer = ThreadingUtils.taskCompleter();
-			Pattern vignetteParameters = Pattern.compile("p_[0-9a-zA-Z]+_(?:[0-9a-zA-Z]+_)?");
-
-			for (Path file : (Iterable<? extends Path>) Files.walk(fs.getPath("/"))::iterator) {
-				if (!file.toString().endsWith(".class")) continue;
+	private static ClassStage deleteParameterNames() {
+		Pattern vignetteParameters = Pattern.compile("p_[0-9a-zA-Z]+_(?:[0-9a-zA-Z]+_)?");
 
-				completer.add(() -> {
-					byte[] bytes = Files.readAllBytes(file);
-					ClassReader reader = new ClassReader(bytes);
-					ClassWriter writer = new ClassWriter(0);
+		return bytes -> {
+			ClassReader reader = new ClassReader(bytes);
+			ClassWriter writer = new ClassWriter(0);
 
-					reader.accept(new ClassVisitor(Opcodes.ASM9, writer) {
+			reader.accept(new ClassVisitor(Opcodes.ASM9, writer) {
+				@Override
+				public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+					return new MethodVisitor(Opcodes.ASM9, super.visitMethod(access, name, descriptor, signature, exceptions)) {
 						@Override
-						public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
-							return new MethodVisitor(Opcodes.ASM9, super.visitMethod(access, name, descriptor, signature, exceptions)) {
-								@Override
-								public void visitParameter(String name, int access) {
-									if (name != null && vignetteParameters.matcher(name).matches()) {
-										super.visitParameter(null, access);
-									} else {
-										super.visitParameter(name, access);
-									}
-								}
-
-								@Override
-								public void visitLocalVariable(String name, String descriptor, String signature, Label start, Label end, int index) {
-									if (!vignetteParameters.matcher(name).matches()) {
-										super.visitLocalVariable(name, descriptor, signature, start, end, index);
-									}
-								}
-							};
+						public void visitParameter(String name, int access) {
+							if (name != null && vignetteParameters.matcher(name).matches()) {
+								super.visitParameter(null, access);
+							} else {
+								super.visitParameter(name, access);
+							}
 						}
-					}, 0);
-
-					byte[] out = writer.toByteArray();
-
-					if (!Arrays.equals(bytes, out)) {
-						Files.delete(file);
-						Files.write(file, out);
-					}
-				});
-			}
 
-			completer.complete();
-		}
+						@Override
+						public void visitLocalVariable(String name, String descriptor, String signature, Label start, Label end, int index) {
+							if (!vignetteParameters.matcher(name).matches()) {
+								super.visitLocalVariable(name, descriptor, signature, start, end, index);
+							}
+						}
+					};
+				}
+			}, 0);
 
-		logger.info(":deleted parameter names for " + jarFile.toAbsolutePath() + " in " + stopwatch);
+			return writer.toByteArray();
+		};
 	}
 
 	private File getForgeJar() {
@@ -416,6 +381,16 @@ public class MinecraftPatchedProvider {
 		Path forgeUserdevJar = getForgeUserdevJar().toPath();
 		Files.deleteIfExists(mcOutput);
 
+		// Hold the output jar open until all steps are done, so that it's only written once.
+		try (FileSystemUtil.Delegate outputFs = FileSystemUtil.getJarFileSystem(mcOutput, true)) {
+			remapPatchedJar(serviceManager, mcInput, mcOutput, forgeJar, forgeUserdevJar);
+			copyUserdevFiles(forgeUserdevJar, mcOutput);
+			remapCoreMods(mcOutput, serviceManager);
+			applyLoomPatchVersion(mcOutput);
+		}
+	}
+
+	private void remapPatchedJar(SharedServiceManager serviceManager, Path mcInput, Path mcOutput, Path forgeJar, Path forgeUserdevJar) throws Exception {
 		TinyRemapper remapper = buildRemapper(serviceManager, mcInput);
 
 		try (OutputConsumerPath outputConsumer = new OutputConsumerPath.Builder(mcOutput).build()) {
@@ -433,50 +408,118 @@ public class MinecraftPatchedProvider {
 		} finally {
 			remapper.finish();
 		}
-
-		copyUserdevFiles(forgeUserdevJar, mcOutput);
-		remapCoreMods(mcOutput, serviceManager);
-		applyLoomPatchVersion(mcOutput);
 	}
 
 	private void remapCoreMods(Path patchedJar, SharedServiceManager serviceManager) throws Exception {
 		final MappingOption mappingOption = MappingOption.forPlatform(getExtension());
 		final TinyMappingsService mappingsService = getExtension().getMappingConfiguration().getMappingsService(serviceManager, mappingOption);
-		final MappingTree mappings = mappingsService.getMappingTree();
-		CoreModClassRemapper.remapJar(project, getExtension().getPlatform().get(), patchedJar, mappings);
+		CoreModClassRemapper.remapJar(project, getExtension().getPlatform().get(), patchedJar, mappingsService.getMappingTreeIndex());
 	}
 
 	private void patchJars() throws Exception {
 		Stopwatch stopwatch = Stopwatch.createStarted();
 		logger.lifecycle(":patching jars");
-		patchJars(minecraftIntermediateJar, minecraftPatchedIntermediateJar, type.patches.apply(getExtension().getPatchProvider(), getExtension().getForgeUserdevProvider()));
 
-		copyMissingClasses(minecraftIntermediateJar, minecraftPatchedIntermediateJar);
-		deleteParameterNames(minecraftPatchedIntermediateJar);
+		try (TelemetrySpan span = Telemetry.span("forge.patch", project)) {
+			span.bytes(Files.size(minecraftIntermediateJar));
+			patchJars(minecraftIntermediateJar, minecraftPatchedIntermediateJar, type.patches.apply(getExtension().getPatchProvider(), getExtension().getForgeUserdevProvider()), createPatchedClassStage());
+		}
+
+		logger.lifecycle(":patched jars in " + stopwatch.stop());
+	}
+
+	// The stages run on every class of the patched jar, in the same pass that writes it.
+	private ClassStage createPatchedClassStage() {
+		ClassStage stage = deleteParameterNames();
 
 		if (getExtension().isForgeLikeAndNotOfficial()) {
-			fixParameterAnnotation(minecraftPatchedIntermediateJar);
+			stage = stage.andThen(fixParameterAnnotation());
 		}
 
-		logger.lifecycle(":patched jars in " + stopwatch.stop());
+		return stage;
 	}
 
-	private void patchJars(Path clean, Path output, Path patches) {
-		ForgeToolExecutor.exec(project, spec -> {
-			UserdevConfig.BinaryPatcherConfig config = getExtension().getForgeUserdevProvider().getConfig().binpatcher();
-			spec.classpath(DependencyDownloader.download(project, config.dependency()));
-			spec.getMainClass().set("net.minecraftforge.binarypatcher.ConsoleTool");
-
-			for (String arg : config.args()) {
-				String actual = switch (arg) {
-				case "{clean}" -> clean.toAbsolutePath().toString();
-				case "{output}" -> output.toAbsolutePath().toString();
-				case "{patch}" -> patches.toAbsolutePath().toString();
-				default -> arg;
-				};
-				spec.args(actual);
+	private void patchJars(Path clean, Path output, Path patches, ClassStage stage) throws IOException {
+		UserdevConfig.BinaryPatcherConfig config = getExtension().getForgeUserdevProvider().getConfig().binpatcher();
+		BinaryPatcher.Options options = BinaryPatcher.Options.parse(getBinaryPatcherArgs(config, clean, output, patches));
+
+		if (options != null) {
+			// Keep the unpatched classes, the patched jar contains every class of the clean jar.
+			options = new BinaryPatcher.Options(options.clean(), options.output(), options.patches(), options.prefix(), options.keepData(), true);
+			BinaryPatcher.patch(options, stage);
+			return;
+		}
+
+		try (var tempFiles = new TempFiles()) {
+			// Fall back to the binary patcher tool for arguments we don't understand.
+			Path toolOutput = tempFiles.file("loom-binpatched", ".jar");
+			List<String> args = getBinaryPatcherArgs(config, clean, toolOutput, patches);
+			logger.info("Unsupported binary patcher arguments {}, running {}", args, config.dependency());
+
+			ForgeToolExecutor.exec(project, spec -> {
+				spec.classpath(DependencyDownloader.download(project, config.dependency()));
+				spec.getMainClass().set("net.minecraftforge.binarypatcher.ConsoleTool");
+				spec.args(args);
+			});
+
+			transformPatchedJar(toolOutput, clean, output, stage);
+		}
+	}
+
+	private static List<String> getBinaryPatcherArgs(UserdevConfig.BinaryPatcherConfig config, Path clean, Path output, Path patches) {
+		List<String> args = new ArrayList<>();
+
+		for (String arg : config.args()) {
+			String actual = switch (arg) {
+			case "{clean}" -> clean.toAbsolutePath().toString();
+			case "{output}" -> output.toAbsolutePath().toString();
+			case "{patch}" -> patches.toAbsolutePath().toString();
+			default -> arg;
+			};
+			args.add(actual);
+		}
+
+		return args;
+	}
+
+	// Writes the binary patcher output and the unpatched classes of the clean jar, running the stages on every class.
+	private static void transformPatchedJar(Path patched, Path clean, Path output, ClassStage stage) throws IOException {
+		Map<String, byte[]> entries = new LinkedHashMap<>();
+		readEntries(patched, name -> true, entries);
+		readEntries(clean, name -> name.endsWith(".class"), entries);
+
+		List<ThreadingUtils.UnsafeCallable<byte[]>> jobs = new ArrayList<>();
+
+		for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+			if (entry.getKey().endsWith(".class")) {
+				jobs.add(() -> stage.apply(entry.getValue()));
+			} else {
+				jobs.add(entry::getValue);
 			}
-		});
+		}
+
+		List<byte[]> results = ThreadingUtils.get(jobs);
+		Files.deleteIfExists(output);
+
+		try (ZipOutputStream zos = new ZipOutputStream(Files.newOutputStream(output))) {
+			int i = 0;
+
+			for (String name : entries.keySet()) {
+				BinaryPatcher.writeEntry(zos, name, results.get(i++));
+			}
+		}
+	}
+
+	private static void readEntries(Path jar, Predicate<String> filter, Map<String, byte[]> entries) throws IOException {
+		try (ZipInputStream zis = new ZipInputStream(Files.newInputStream(jar))) {
+			ZipEntry entry;
+
+			while ((entry = zis.getNextEntry()) != null) {
+				if (!entry.isDirectory() && filter.test(entry.getName()) && !entries.containsKey(entry.getName())) {
+					entries.put(entry.getName(), zis.readAllBytes());
+				}
+			}
+		}
 	}
 
 	private void walkFileSystems(Path source, Path target, Predicate<Path> filter, Function<FileSystem, Iterable<Path>> toWalk, FsPathConsumer action)
@@ -508,19 +551,6 @@ public class MinecraftPatchedProvider {
 		walkFileSystems(source, target, filter, FileSystem::getRootDirectories, action);
 	}
 
-	private void copyMissingClasses(Path source, Path target) throws IOException {
-		walkFileSystems(source, target, it -> it.toString().endsWith(".class"), (sourceFs, targetFs, sourcePath, targetPath) -> {
-			if (Files.exists(targetPath)) return;
-			Path parent = targetPath.getParent();
-
-			if (parent != null) {
-				Files.createDirectories(parent);
-			}
-
-			Files.copy(sourcePath, targetPath);
-		});
-	}
-
 	private void copyNonClassFiles(Path source, Path target) throws IOException {
 		Predicate<Path> filter = file -> {
 			String s = file.toString();
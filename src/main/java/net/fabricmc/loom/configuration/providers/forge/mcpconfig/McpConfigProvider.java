@@ -37,6 +37,7 @@ import net.fabricmc.loom.configuration.DependencyInfo;
 import net.fabricmc.loom.configuration.providers.forge.DependencyProvider;
 import net.fabricmc.loom.util.Constants;
 import net.fabricmc.loom.util.DeletingFileVisitor;
+import net.fabricmc.loom.util.ParsedFileCache;
 import net.fabricmc.loom.util.ZipUtils;
 
 public class McpConfigProvider extends DependencyProvider {
@@ -67,13 +68,12 @@ public class McpConfigProvider extends DependencyProvider {
 			ZipUtils.unpackAll(mcp, unpacked);
 		}
 
-		JsonObject json;
-
-		try (Reader reader = Files.newBufferedReader(configJson)) {
-			json = new Gson().fromJson(reader, JsonObject.class);
-		}
-
-		data = McpConfigData.fromJson(json);
+		// The parsed config is shared across projects
+		data = ParsedFileCache.INSTANCE.get(configJson, McpConfigData.class, path -> {
+			try (Reader reader = Files.newBufferedReader(path)) {
+				return McpConfigData.fromJson(new Gson().fromJson(reader, JsonObject.class));
+			}
+		});
 	}
 
 	private void init(String version) {
@@ -155,6 +155,15 @@ public final class McpExecutor {
 		config.put(key, value);
 	}
 
+	/**
+	 * {@return the value of a config variable that is not produced by a step, or {@code null} if it has not been set}
+	 *
+	 * @param key the name of the variable
+	 */
+	public @Nullable String getConfig(String key) {
+		return config.get(key);
+	}
+
 	private Path getDownloadCache() throws IOException {
 		Path downloadCache = cache.resolve("downloads");
 		Files.createDirectories(downloadCache);
@@ -28,11 +28,29 @@ import java.io.File;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
 
 /**
  * Lists the Minecraft libraries into the output file.
  */
 public final class ListLibrariesLogic implements StepLogic {
+	private final List<Path> extraLibraries;
+
+	public ListLibrariesLogic() {
+		this(List.of());
+	}
+
+	/**
+	 * Creates a library listing step that also lists additional files,
+	 * such as jars containing classes that aren't part of the step input.
+	 *
+	 * @param extraLibraries the additional files to list
+	 */
+	public ListLibrariesLogic(List<Path> extraLibraries) {
+		this.extraLibraries = extraLibraries;
+	}
+
 	@Override
 	public void execute(ExecutionContext context) throws IOException {
 		context.logger().lifecycle(":downloading minecraft libraries, this may take a while...");
@@ -41,6 +59,10 @@ public final class ListLibrariesLogic implements StepLogic {
 			for (File lib : context.getMinecraftLibraries()) {
 				writer.println("-e=" + lib.getAbsolutePath());
 			}
+
+			for (Path lib : extraLibraries) {
+				writer.println("-e=" + lib.toAbsolutePath());
+			}
 		}
 	}
 }
@@ -25,21 +25,47 @@
 package net.fabricmc.loom.configuration.providers.forge.mcpconfig.steplogic;
 
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
 
 import codechicken.diffpatch.cli.CliOperation;
 import codechicken.diffpatch.cli.PatchOperation;
 import codechicken.diffpatch.util.LoggingOutputStream;
 import codechicken.diffpatch.util.PatchMode;
 import org.gradle.api.logging.LogLevel;
+import org.jetbrains.annotations.Nullable;
 
 import net.fabricmc.loom.configuration.providers.forge.ConfigValue;
 
 public final class PatchLogic implements StepLogic {
+	private final @Nullable Predicate<String> patchFilter;
+
+	public PatchLogic() {
+		this(null);
+	}
+
+	/**
+	 * Creates a patch step that only applies some of the patches.
+	 *
+	 * @param patchFilter a filter for the relative paths of the patched files (eg. {@code net/minecraft/Foo.java}),
+	 *                    or {@code null} to apply all patches
+	 */
+	public PatchLogic(@Nullable Predicate<String> patchFilter) {
+		this.patchFilter = patchFilter;
+	}
+
 	@Override
 	public void execute(ExecutionContext context) throws IOException {
 		Path input = Path.of(context.resolve(new ConfigValue.Variable("input")));
 		Path patches = Path.of(context.resolve(new ConfigValue.Variable("patches")));
+
+		if (patchFilter != null) {
+			patches = filterPatches(patches, context.cache().resolve("filtered-patches"), patchFilter);
+		}
+
 		Path output = context.setOutput("output.jar");
 		Path rejects = context.cache().resolve("rejects");
 
@@ -57,4 +83,37 @@ public final class PatchLogic implements StepLogic {
 			throw new RuntimeException("Could not patch " + input + "; rejects saved to " + rejects.toAbsolutePath());
 		}
 	}
+
+	/**
+	 * Copies the patches accepted by a filter to a new directory.
+	 *
+	 * @param patches the root directory of the patches
+	 * @param target  the target directory
+	 * @param filter  a filter for the relative paths of the patched files
+	 * @return the target directory
+	 */
+	public static Path filterPatches(Path patches, Path target, Predicate<String> filter) throws IOException {
+		Files.createDirectories(target);
+
+		try (Stream<Path> walk = Files.walk(patches)) {
+			Iterator<Path> iterator = walk.iterator();
+
+			while (iterator.hasNext()) {
+				final Path patch = iterator.next();
+				final String name = patches.relativize(patch).toString().replace('\\', '/');
+
+				if (!Files.isRegularFile(patch) || !name.endsWith(".patch")) {
+					continue;
+				}
+
+				if (filter.test(name.substring(0, name.length() - ".patch".length()))) {
+					final Path targetPath = target.resolve(name);
+					Files.createDirectories(targetPath.getParent());
+					Files.copy(patch, targetPath);
+				}
+			}
+		}
+
+		return target;
+	}
 }
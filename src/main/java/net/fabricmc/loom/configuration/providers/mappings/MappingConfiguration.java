@@ -35,7 +35,6 @@ import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
-import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.EnumMap;
 import java.util.HashMap;
@@ -72,10 +71,11 @@ import net.fabricmc.loom.util.service.ScopedSharedServiceManager;
 import net.fabricmc.loom.util.service.SharedServiceManager;
 import net.fabricmc.loom.util.srg.ForgeMappingsMerger;
 import net.fabricmc.loom.util.srg.MCPReader;
+import net.fabricmc.loom.util.srg.MergedMappingsCache;
 import net.fabricmc.loom.util.srg.SrgNamedWriter;
 import net.fabricmc.mappingio.MappingReader;
 import net.fabricmc.mappingio.format.MappingFormat;
-import net.fabricmc.mappingio.format.tiny.Tiny2FileWriter;
+import net.fabricmc.mappingio.tree.MemoryMappingTree;
 import net.fabricmc.stitch.Command;
 import net.fabricmc.stitch.commands.CommandProposeFieldNames;
 import net.fabricmc.stitch.commands.tinyv2.TinyFile;
@@ -286,25 +286,39 @@ public class MappingConfiguration {
 	private static void mergeMojang(Project project, Path source, Path target) throws IOException {
 		final Stopwatch stopwatch = Stopwatch.createStarted();
 		final MappingContext context = new GradleMappingContext(project, "tmp-mojang");
+		final List<Path> inputs = List.of(source, getMojmapSrgFileIfPossible(project));
 
-		try (Tiny2FileWriter writer = new Tiny2FileWriter(Files.newBufferedWriter(target, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING), false)) {
-			ForgeMappingsMerger.mergeMojang(context, source, null, true).accept(writer);
-		}
+		writeMergedMappings(project, "mojang", inputs, target, () -> ForgeMappingsMerger.mergeMojang(context, source, null, true));
 
 		project.getLogger().info(":merged mojang mappings in {}", stopwatch.stop());
 	}
 
 	private static void mergeSrg(Project project, Path source, Path target) throws IOException {
 		Stopwatch stopwatch = Stopwatch.createStarted();
-		ForgeMappingsMerger.ExtraMappings extraMappings = ForgeMappingsMerger.ExtraMappings.ofMojmapTsrg(getMojmapSrgFileIfPossible(project));
+		final Path mojmapSrg = getMojmapSrgFileIfPossible(project);
+		final Path rawSrg = getRawSrgFile(project);
+		ForgeMappingsMerger.ExtraMappings extraMappings = ForgeMappingsMerger.ExtraMappings.ofMojmapTsrg(mojmapSrg);
 
-		try (Tiny2FileWriter writer = new Tiny2FileWriter(Files.newBufferedWriter(target, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING), false)) {
-			ForgeMappingsMerger.mergeSrg(getRawSrgFile(project), source, extraMappings, true).accept(writer);
-		}
+		writeMergedMappings(project, "srg", List.of(source, rawSrg, mojmapSrg), target, () -> ForgeMappingsMerger.mergeSrg(rawSrg, source, extraMappings, true));
 
 		project.getLogger().info(":merged srg mappings in " + stopwatch.stop());
 	}
 
+	/**
+	 * Writes merged mappings to the target, reusing a previous merge of the same input files when possible.
+	 * The merged mappings are stored in the user cache by a hash of the inputs, so they survive the mappings working directory being rebuilt.
+	 */
+	private static void writeMergedMappings(Project project, String kind, List<Path> inputs, Path target, MergedMappingsCache.Merge merge) throws IOException {
+		final LoomGradleExtension extension = LoomGradleExtension.get(project);
+		final MergedMappingsCache cache = new MergedMappingsCache(extension.getFiles().getUserCache().toPath().resolve("merged-forge-mappings"));
+
+		if (cache.write(kind, inputs, target, extension.refreshDeps(), merge)) {
+			LOGGER.info(":using cached {} merged mappings", kind);
+		}
+
+		cache.prune();
+	}
+
 	protected void manipulateMappings(Project project, Path mappingsJar) throws IOException {
 	}
 
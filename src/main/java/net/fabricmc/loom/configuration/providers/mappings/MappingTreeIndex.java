@@ -0,0 +1,172 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.configuration.providers.mappings;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import org.jetbrains.annotations.Nullable;
+
+import net.fabricmc.mappingio.tree.MappingTreeView;
+
+/**
+ * A read-only view over a mapping tree with hash lookups of classes, fields and methods by their name in any namespace.
+ *
+ * <p>The index of each namespace is built lazily on first use, and the tree must not be modified afterwards.
+ */
+public final class MappingTreeIndex {
+	private final MappingTreeView tree;
+	private final Map<Integer, NamespaceIndex> namespaces = new ConcurrentHashMap<>();
+
+	public MappingTreeIndex(MappingTreeView tree) {
+		this.tree = tree;
+	}
+
+	public MappingTreeView getTree() {
+		return tree;
+	}
+
+	public int getNamespaceId(String namespace) {
+		final int id = tree.getNamespaceId(namespace);
+
+		if (id == MappingTreeView.NULL_NAMESPACE_ID) {
+			throw new IllegalArgumentException("Unknown namespace: " + namespace);
+		}
+
+		return id;
+	}
+
+	public @Nullable MappingTreeView.ClassMappingView getClass(String name, String namespace) {
+		return getClass(name, getNamespaceId(namespace));
+	}
+
+	public @Nullable MappingTreeView.ClassMappingView getClass(String name, int namespace) {
+		return getNamespace(namespace).classes.get(name);
+	}
+
+	/**
+	 * Maps a class name between two namespaces, returning the original name if it is not mapped.
+	 */
+	public String mapClassName(String name, String fromNamespace, String toNamespace) {
+		return mapClassName(name, getNamespaceId(fromNamespace), getNamespaceId(toNamespace));
+	}
+
+	public String mapClassName(String name, int fromNamespace, int toNamespace) {
+		final MappingTreeView.ClassMappingView mapping = getClass(name, fromNamespace);
+
+		if (mapping == null) {
+			return name;
+		}
+
+		return Objects.requireNonNullElse(mapping.getName(toNamespace), name);
+	}
+
+	/**
+	 * Finds a field of a class by its name, and optionally descriptor, in a namespace.
+	 * When there are multiple matches, the first one in the tree is returned.
+	 */
+	public @Nullable MappingTreeView.FieldMappingView getField(MappingTreeView.ClassMappingView owner, String name, @Nullable String desc, int namespace) {
+		return findMember(getNamespace(namespace).fields.get(new MemberKey(owner.getSrcName(), name)), desc, namespace);
+	}
+
+	/**
+	 * Finds a method of a class by its name, and optionally descriptor, in a namespace.
+	 * When there are multiple matches, the first one in the tree is returned.
+	 */
+	public @Nullable MappingTreeView.MethodMappingView getMethod(MappingTreeView.ClassMappingView owner, String name, @Nullable String desc, int namespace) {
+		return findMember(getNamespace(namespace).methods.get(new MemberKey(owner.getSrcName(), name)), desc, namespace);
+	}
+
+	private static <T extends MappingTreeView.MemberMappingView> @Nullable T findMember(@Nullable List<T> members, @Nullable String desc, int namespace) {
+		if (members == null) {
+			return null;
+		}
+
+		for (T member : members) {
+			if (desc == null || desc.equals(member.getDesc(namespace))) {
+				return member;
+			}
+		}
+
+		return null;
+	}
+
+	private NamespaceIndex getNamespace(int namespace) {
+		if (namespace < MappingTreeView.SRC_NAMESPACE_ID || namespace >= tree.getMaxNamespaceId()) {
+			throw new IllegalArgumentException("Invalid namespace id: " + namespace);
+		}
+
+		return namespaces.computeIfAbsent(namespace, this::createNamespaceIndex);
+	}
+
+	private NamespaceIndex createNamespaceIndex(int namespace) {
+		final Collection<? extends MappingTreeView.ClassMappingView> classes = tree.getClasses();
+		final Map<String, MappingTreeView.ClassMappingView> classesByName = new HashMap<>(classes.size() * 2);
+		final Map<MemberKey, List<MappingTreeView.FieldMappingView>> fields = new HashMap<>();
+		final Map<MemberKey, List<MappingTreeView.MethodMappingView>> methods = new HashMap<>();
+
+		for (MappingTreeView.ClassMappingView classMapping : classes) {
+			final String className = classMapping.getName(namespace);
+
+			if (className != null) {
+				classesByName.putIfAbsent(className, classMapping);
+			}
+
+			indexMembers(classMapping, classMapping.getFields(), namespace, fields);
+			indexMembers(classMapping, classMapping.getMethods(), namespace, methods);
+		}
+
+		return new NamespaceIndex(Collections.unmodifiableMap(classesByName), Collections.unmodifiableMap(fields), Collections.unmodifiableMap(methods));
+	}
+
+	private static <T extends MappingTreeView.MemberMappingView> void indexMembers(MappingTreeView.ClassMappingView owner, Collection<? extends T> members, int namespace, Map<MemberKey, List<T>> index) {
+		final Function<MemberKey, List<T>> factory = key -> new ArrayList<>(1);
+
+		for (T member : members) {
+			final String memberName = member.getName(namespace);
+
+			if (memberName != null) {
+				index.computeIfAbsent(new MemberKey(owner.getSrcName(), memberName), factory).add(member);
+			}
+		}
+	}
+
+	private record NamespaceIndex(
+			Map<String, MappingTreeView.ClassMappingView> classes,
+			Map<MemberKey, List<MappingTreeView.FieldMappingView>> fields,
+			Map<MemberKey, List<MappingTreeView.MethodMappingView>> methods
+	) {
+	}
+
+	private record MemberKey(String ownerSrcName, String name) {
+	}
+}
@@ -35,6 +35,7 @@ import net.fabricmc.mappingio.tree.MemoryMappingTree;
 
 public final class TinyMappingsService implements SharedService {
 	private final MemoryMappingTree mappingTree;
+	private volatile MappingTreeIndex mappingTreeIndex;
 
 	public TinyMappingsService(Path tinyMappings) {
 		try {
@@ -52,4 +53,19 @@ public final class TinyMappingsService implements SharedService {
 	public MemoryMappingTree getMappingTree() {
 		return mappingTree;
 	}
+
+	/**
+	 * Returns an index of the mapping tree for fast lookups by name, the tree must not be modified after calling this.
+	 */
+	public MappingTreeIndex getMappingTreeIndex() {
+		if (mappingTreeIndex == null) {
+			synchronized (this) {
+				if (mappingTreeIndex == null) {
+					mappingTreeIndex = new MappingTreeIndex(mappingTree);
+				}
+			}
+		}
+
+		return mappingTreeIndex;
+	}
 }
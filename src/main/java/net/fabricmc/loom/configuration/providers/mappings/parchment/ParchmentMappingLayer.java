@@ -29,7 +29,6 @@ import java.nio.file.Path;
 
 import net.fabricmc.loom.api.mappings.layered.MappingLayer;
 import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
-import net.fabricmc.loom.util.ZipUtils;
 import net.fabricmc.mappingio.MappingVisitor;
 
 public record ParchmentMappingLayer(Path parchmentFile, boolean removePrefix) implements MappingLayer {
@@ -37,16 +36,10 @@ public record ParchmentMappingLayer(Path parchmentFile, boolean removePrefix) im
 
 	@Override
 	public void visit(MappingVisitor mappingVisitor) throws IOException {
-		ParchmentTreeV1 parchmentData = getParchmentData();
-
 		if (removePrefix()) {
 			mappingVisitor = new ParchmentPrefixStripingMappingVisitor(mappingVisitor);
 		}
 
-		parchmentData.visit(mappingVisitor, MappingsNamespace.NAMED.toString());
-	}
-
-	private ParchmentTreeV1 getParchmentData() throws IOException {
-		return ZipUtils.unpackJson(parchmentFile, PARCHMENT_DATA_FILE_NAME, ParchmentTreeV1.class);
+		ParchmentReader.read(parchmentFile, PARCHMENT_DATA_FILE_NAME, mappingVisitor, MappingsNamespace.NAMED.toString());
 	}
 }
@@ -0,0 +1,91 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.configuration.providers.mappings.parchment;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import net.fabricmc.loom.LoomGradlePlugin;
+import net.fabricmc.loom.util.FileSystemUtil;
+import net.fabricmc.mappingio.MappingVisitor;
+
+/**
+ * Reads a Parchment export as a stream, visiting each class as soon as it has been parsed.
+ *
+ * <p>Unlike reading the whole export into a {@link ParchmentTreeV1}, only a single class is held in memory at a time.
+ * Visitors that require multiple passes cause the export to be read again.
+ */
+public final class ParchmentReader {
+	private ParchmentReader() {
+	}
+
+	public static void read(Path parchmentFile, String dataFileName, MappingVisitor visitor, String srcNamespace) throws IOException {
+		while (true) {
+			if (visitor.visitHeader()) {
+				visitor.visitNamespaces(srcNamespace, Collections.emptyList());
+			}
+
+			if (visitor.visitContent()) {
+				try (FileSystemUtil.Delegate fs = FileSystemUtil.getJarFileSystem(parchmentFile, false);
+						JsonReader reader = new JsonReader(Files.newBufferedReader(fs.getPath(dataFileName), StandardCharsets.UTF_8))) {
+					readClasses(reader, visitor);
+				}
+			}
+
+			if (visitor.visitEnd()) {
+				break;
+			}
+		}
+	}
+
+	private static void readClasses(JsonReader reader, MappingVisitor visitor) throws IOException {
+		reader.beginObject();
+
+		while (reader.hasNext()) {
+			if (!reader.nextName().equals("classes") || reader.peek() == JsonToken.NULL) {
+				// The version and packages are not used
+				reader.skipValue();
+				continue;
+			}
+
+			reader.beginArray();
+
+			while (reader.hasNext()) {
+				final ParchmentTreeV1.Class parchmentClass = LoomGradlePlugin.GSON.fromJson(reader, ParchmentTreeV1.Class.class);
+				parchmentClass.visit(visitor);
+			}
+
+			reader.endArray();
+		}
+
+		reader.endObject();
+	}
+}
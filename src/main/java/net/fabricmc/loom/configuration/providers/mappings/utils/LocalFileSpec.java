@@ -25,13 +25,14 @@
 package net.fabricmc.loom.configuration.providers.mappings.utils;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Path;
-import java.util.Arrays;
 import java.util.Objects;
 
 import net.fabricmc.loom.api.mappings.layered.spec.FileSpec;
 import net.fabricmc.loom.api.mappings.layered.MappingContext;
-import net.fabricmc.loom.util.Checksum;
+import net.fabricmc.loom.util.FileDigestService;
 
 public class LocalFileSpec implements FileSpec {
 	private final File file;
@@ -48,7 +49,11 @@ public class LocalFileSpec implements FileSpec {
 		}
 
 		// Use the file hash as part of the spec, this means if the input file changes the mappings will be re-generated.
-		return Objects.hash(Arrays.hashCode(Checksum.sha256(file)), file.getAbsolutePath());
+		try {
+			return Objects.hash(FileDigestService.INSTANCE.digest(file.toPath(), FileDigestService.Algorithm.FAST).asInt(), file.getAbsolutePath());
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to get file hash of " + file, e);
+		}
 	}
 
 	@Override
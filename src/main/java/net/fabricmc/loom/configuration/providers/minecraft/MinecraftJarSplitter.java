@@ -28,19 +28,20 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
+import java.util.Collections;
 import java.util.HashSet;
-import java.util.Iterator;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.jar.Attributes;
 import java.util.jar.Manifest;
-import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 import com.google.common.collect.Sets;
 
 import net.fabricmc.loom.util.Constants;
-import net.fabricmc.loom.util.FileSystemUtil;
+import net.fabricmc.loom.util.ZipReprocessorUtil;
 
 public class MinecraftJarSplitter implements AutoCloseable {
 	private final Path clientInputJar;
@@ -78,65 +79,36 @@ public class MinecraftJarSplitter implements AutoCloseable {
 		this.forcedClientEntries.add(path);
 	}
 
+	// Only reads the central directory of the jar
 	private Set<String> getJarEntries(Path input) throws IOException {
 		Set<String> entries = Sets.newHashSet();
 
-		try (FileSystemUtil.Delegate fs = FileSystemUtil.getJarFileSystem(input);
-				Stream<Path> walk = Files.walk(fs.get().getPath("/"))) {
-			Iterator<Path> iterator = walk.iterator();
-
-			while (iterator.hasNext()) {
-				Path fsPath = iterator.next();
-
-				if (!Files.isRegularFile(fsPath)) {
-					continue;
-				}
-
-				String entryPath = fs.get().getPath("/").relativize(fsPath).toString();
-
-				if (entryPath.startsWith("META-INF/")) {
+		try (var zipFile = new ZipFile(input.toFile())) {
+			for (ZipEntry entry : Collections.list(zipFile.entries())) {
+				if (entry.isDirectory() || entry.getName().startsWith("META-INF/")) {
 					continue;
 				}
 
-				entries.add(entryPath);
+				entries.add(entry.getName());
 			}
 		}
 
 		return entries;
 	}
 
+	// Copies the entries in a single sequential pass over the input jar, without inflating and deflating them again
 	private void copyEntriesToJar(Set<String> entries, Path inputJar, Path outputJar, String env) throws IOException {
 		Files.deleteIfExists(outputJar);
-
-		try (FileSystemUtil.Delegate inputFs = FileSystemUtil.getJarFileSystem(inputJar);
-				FileSystemUtil.Delegate outputFs = FileSystemUtil.getJarFileSystem(outputJar, true)) {
-			for (String entry : entries) {
-				Path inputPath = inputFs.get().getPath(entry);
-				Path outputPath = outputFs.get().getPath(entry);
-
-				assert Files.isRegularFile(inputPath);
-
-				Path outputPathParent = outputPath.getParent();
-
-				if (outputPathParent != null) {
-					Files.createDirectories(outputPathParent);
-				}
-
-				Files.copy(inputPath, outputPath, StandardCopyOption.COPY_ATTRIBUTES);
-			}
-
-			writeManifest(outputFs, env);
-		}
+		ZipReprocessorUtil.filterZipEntries(inputJar, outputJar, entries::contains, Map.of(Constants.Manifest.PATH, createManifest(env)));
 	}
 
-	private void writeManifest(FileSystemUtil.Delegate outputFs, String env) throws IOException {
+	private byte[] createManifest(String env) throws IOException {
 		final Manifest manifest = new Manifest();
 		manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
 		manifest.getMainAttributes().putValue(Constants.Manifest.SPLIT_ENV_NAME, env);
 		ByteArrayOutputStream out = new ByteArrayOutputStream();
 		manifest.write(out);
-		Files.createDirectories(outputFs.get().getPath("META-INF"));
-		Files.write(outputFs.get().getPath(Constants.Manifest.PATH), out.toByteArray());
+		return out.toByteArray();
 	}
 
 	@Override
@@ -25,7 +25,10 @@
 package net.fabricmc.loom.configuration.providers.minecraft;
 
 import java.io.IOException;
+import java.io.Reader;
 import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
@@ -41,7 +44,9 @@ import net.fabricmc.loom.configuration.ConfigContext;
 import net.fabricmc.loom.configuration.DependencyInfo;
 import net.fabricmc.loom.configuration.providers.minecraft.ManifestLocations.ManifestLocation;
 import net.fabricmc.loom.util.Constants;
+import net.fabricmc.loom.util.ParsedFileCache;
 import net.fabricmc.loom.util.download.DownloadBuilder;
+import net.fabricmc.loom.util.download.DownloadExecutor;
 
 public final class MinecraftMetadataProvider {
 	private final Options options;
@@ -67,6 +72,10 @@ public final class MinecraftMetadataProvider {
 		);
 	}
 
+	public static MinecraftMetadataProvider create(Options options, Function<String, DownloadBuilder> download) {
+		return new MinecraftMetadataProvider(options, download);
+	}
+
 	private static String resolveMinecraftVersion(Project project) {
 		final DependencyInfo dependency = DependencyInfo.create(project, Constants.Configurations.MINECRAFT);
 		return dependency.getDependency().getVersion();
@@ -134,8 +143,7 @@ public final class MinecraftMetadataProvider {
 		}
 
 		final Path cacheFile = location.cacheFile(options.userCache());
-		final String versionManifest = builder.downloadString(cacheFile);
-		final VersionsManifest manifest = LoomGradlePlugin.GSON.fromJson(versionManifest, VersionsManifest.class);
+		final VersionsManifest manifest = builder.downloadAndRead(cacheFile, path -> readJson(path, VersionsManifest.class));
 		final VersionsManifest.Version version = manifest.getVersion(options.minecraftVersion());
 
 		if (version != null) {
@@ -145,7 +153,27 @@ public final class MinecraftMetadataProvider {
 		return null;
 	}
 
+	/**
+	 * Downloads the version metadata on the given executor, {@link #getVersionMeta()} then reads the downloaded file.
+	 * The versions manifest is still read on the calling thread, as it is shared by all versions.
+	 */
+	public void downloadVersionMetaAsync(DownloadExecutor executor) {
+		try {
+			if (versionEntry == null) {
+				versionEntry = getVersionEntry();
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e.getMessage(), e);
+		}
+
+		versionMetaDownload().downloadPathAsync(getVersionMetaCacheFile(), executor);
+	}
+
 	private MinecraftVersionMeta readVersionMeta() throws IOException {
+		return versionMetaDownload().downloadAndRead(getVersionMetaCacheFile(), path -> readJson(path, MinecraftVersionMeta.class));
+	}
+
+	private DownloadBuilder versionMetaDownload() {
 		final DownloadBuilder builder = download.apply(versionEntry.entry.url);
 
 		if (versionEntry.entry.sha1 != null) {
@@ -154,10 +182,26 @@ public final class MinecraftMetadataProvider {
 			builder.defaultCache();
 		}
 
-		final String fileName = getVersionMetaFileName();
-		final Path cacheFile = options.workingDir().resolve(fileName);
-		final String json = builder.downloadString(cacheFile);
-		return LoomGradlePlugin.GSON.fromJson(json, MinecraftVersionMeta.class);
+		return builder;
+	}
+
+	private Path getVersionMetaCacheFile() {
+		return options.workingDir().resolve(getVersionMetaFileName());
+	}
+
+	// The parsed documents are shared across projects, they must not be modified.
+	private static <T> T readJson(Path path, Class<T> type) throws IOException {
+		return ParsedFileCache.INSTANCE.get(path, type, p -> {
+			try (Reader reader = Files.newBufferedReader(p, StandardCharsets.UTF_8)) {
+				final T value = LoomGradlePlugin.GSON.fromJson(reader, type);
+
+				if (value == null) {
+					throw new IOException("Empty json file: " + p);
+				}
+
+				return value;
+			}
+		});
 	}
 
 	private String getVersionMetaFileName() {
@@ -121,6 +121,7 @@ public abstract class MinecraftProvider {
 				final MinecraftVersionMeta.Download client = getVersionInfo().download("client");
 				getExtension().download(client.url())
 						.sha1(client.sha1())
+						.segments(4)
 						.progress(new GradleDownloadProgressListener("Minecraft client", progressGroup::createProgressLogger))
 						.downloadPathAsync(minecraftClientJar.toPath(), executor);
 			}
@@ -129,6 +130,7 @@ public abstract class MinecraftProvider {
 				final MinecraftVersionMeta.Download server = getVersionInfo().download("server");
 				getExtension().download(server.url())
 						.sha1(server.sha1())
+						.segments(4)
 						.progress(new GradleDownloadProgressListener("Minecraft server", progressGroup::createProgressLogger))
 						.downloadPathAsync(minecraftServerJar.toPath(), executor);
 			}
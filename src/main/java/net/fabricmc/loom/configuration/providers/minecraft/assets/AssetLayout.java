@@ -0,0 +1,184 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.configuration.providers.minecraft.assets;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.google.gson.JsonParseException;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.fabricmc.loom.LoomGradlePlugin;
+
+/**
+ * Populates a legacy or virtual asset directory, where the assets are laid out by their path,
+ * from the shared hash-addressed object store.
+ *
+ * <p>Each asset is hard linked to its object where possible, and copied otherwise.
+ * A manifest of the populated files is kept in the directory, so that later runs can verify the layout
+ * by the size and last modified time of each file rather than by hashing it.
+ */
+public final class AssetLayout {
+	private static final Logger LOGGER = LoggerFactory.getLogger(AssetLayout.class);
+	private static final String MANIFEST_NAME = ".loom-assets.json";
+
+	private AssetLayout() {
+	}
+
+	public static Path getObjectPath(Path objectsDirectory, String hash) {
+		return objectsDirectory.resolve(hash.substring(0, 2)).resolve(hash);
+	}
+
+	/**
+	 * Links every object of the asset index into the layout directory.
+	 *
+	 * @param index             the asset index
+	 * @param indexHash         the hash of the asset index
+	 * @param objectsDirectory  the object store, which must already contain every object of the index
+	 * @param layoutDirectory   the directory to populate
+	 */
+	public static void populate(AssetIndex index, String indexHash, Path objectsDirectory, Path layoutDirectory) throws IOException {
+		final Path manifestPath = layoutDirectory.resolve(MANIFEST_NAME);
+		final @Nullable Manifest previousManifest = readManifest(manifestPath);
+		final Map<String, FileRecord> previous = previousManifest != null ? previousManifest.files() : Map.of();
+		// Only trust the recorded hashes when the index is unchanged
+		final Map<String, FileRecord> reusable = previousManifest != null && indexHash.equals(previousManifest.index()) ? previous : Map.of();
+		final Map<String, FileRecord> files = new LinkedHashMap<>();
+		int linked = 0;
+		int copied = 0;
+
+		for (AssetIndex.Object object : index.getObjects()) {
+			final Path target = layoutDirectory.resolve(object.path());
+			final FileRecord previousRecord = reusable.get(object.path());
+
+			if (previousRecord != null && previousRecord.hash().equals(object.hash()) && previousRecord.matches(target)) {
+				files.put(object.path(), previousRecord);
+				continue;
+			}
+
+			final Path source = getObjectPath(objectsDirectory, object.hash());
+			Files.createDirectories(target.getParent());
+			Files.deleteIfExists(target);
+
+			try {
+				Files.createLink(target, source);
+				linked++;
+			} catch (UnsupportedOperationException | IOException e) {
+				// Hard links are not supported by the file system, or across file systems
+				Files.copy(source, target, StandardCopyOption.COPY_ATTRIBUTES);
+				copied++;
+			}
+
+			files.put(object.path(), FileRecord.of(object.hash(), target));
+		}
+
+		final int deleted = deleteStaleFiles(previous, files, layoutDirectory);
+
+		if (linked + copied > 0) {
+			LOGGER.info("Populated {} assets in {} ({} linked, {} copied)", linked + copied, layoutDirectory, linked, copied);
+		}
+
+		if (deleted > 0) {
+			LOGGER.info("Deleted {} stale assets from {}", deleted, layoutDirectory);
+		}
+
+		if (linked + copied > 0 || !files.equals(previous)) {
+			Files.createDirectories(layoutDirectory);
+
+			try (Writer writer = Files.newBufferedWriter(manifestPath)) {
+				LoomGradlePlugin.GSON.toJson(new Manifest(indexHash, files), writer);
+			}
+		}
+	}
+
+	/**
+	 * Deletes the files of the previous manifest that are no longer in the index, leaving any other files in the directory alone.
+	 */
+	private static int deleteStaleFiles(Map<String, FileRecord> previous, Map<String, FileRecord> files, Path layoutDirectory) throws IOException {
+		final Path root = layoutDirectory.toAbsolutePath().normalize();
+		int deleted = 0;
+
+		for (String path : previous.keySet()) {
+			final Path target = root.resolve(path).normalize();
+
+			if (files.containsKey(path) || !target.startsWith(root)) {
+				continue;
+			}
+
+			if (Files.deleteIfExists(target)) {
+				deleted++;
+			}
+		}
+
+		return deleted;
+	}
+
+	@Nullable
+	private static Manifest readManifest(Path path) {
+		if (Files.notExists(path)) {
+			return null;
+		}
+
+		try (Reader reader = Files.newBufferedReader(path)) {
+			final Manifest manifest = LoomGradlePlugin.GSON.fromJson(reader, Manifest.class);
+
+			if (manifest == null || manifest.files() == null) {
+				return null;
+			}
+
+			return manifest;
+		} catch (IOException | JsonParseException e) {
+			LOGGER.info("Failed to read asset layout manifest {}", path, e);
+			return null;
+		}
+	}
+
+	private record Manifest(String index, Map<String, FileRecord> files) {
+	}
+
+	private record FileRecord(String hash, long size, long lastModified) {
+		static FileRecord of(String hash, Path path) throws IOException {
+			final BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+			return new FileRecord(hash, attributes.size(), attributes.lastModifiedTime().toMillis());
+		}
+
+		boolean matches(Path path) {
+			try {
+				return equals(of(hash, path));
+			} catch (IOException e) {
+				return false;
+			}
+		}
+	}
+}
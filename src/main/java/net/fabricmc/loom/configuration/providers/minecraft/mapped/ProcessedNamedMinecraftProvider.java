@@ -30,9 +30,16 @@ import java.nio.file.Path;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
+import com.google.gson.JsonParseException;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.fabricmc.loom.LoomGradlePlugin;
 import net.fabricmc.loom.configuration.ConfigContext;
 import net.fabricmc.loom.configuration.mods.dependency.LocalMavenHelper;
 import net.fabricmc.loom.configuration.processors.MinecraftJarProcessorManager;
@@ -45,8 +52,11 @@ import net.fabricmc.loom.configuration.providers.minecraft.MinecraftSourceSets;
 import net.fabricmc.loom.configuration.providers.minecraft.SingleJarEnvType;
 import net.fabricmc.loom.configuration.providers.minecraft.SingleJarMinecraftProvider;
 import net.fabricmc.loom.configuration.providers.minecraft.SplitMinecraftProvider;
+import net.fabricmc.loom.util.FileDigestService;
 
 public abstract class ProcessedNamedMinecraftProvider<M extends MinecraftProvider, P extends NamedMinecraftProvider<M>> extends NamedMinecraftProvider<M> {
+	private static final Logger LOGGER = LoggerFactory.getLogger(ProcessedNamedMinecraftProvider.class);
+
 	private final P parentMinecraftProvider;
 	private final MinecraftJarProcessorManager jarProcessorManager;
 
@@ -68,7 +78,7 @@ public abstract class ProcessedNamedMinecraftProvider<M extends MinecraftProvide
 				.collect(Collectors.toMap(Function.identity(), this::getProcessedJar));
 
 		if (requiresProcessing) {
-			processJars(minecraftJarOutputMap, context.configContext());
+			processJars(minecraftJarOutputMap, context.configContext(), context.refreshOutputs());
 		}
 
 		if (context.applyDependencies()) {
@@ -83,19 +93,66 @@ public abstract class ProcessedNamedMinecraftProvider<M extends MinecraftProvide
 		return MavenScope.LOCAL;
 	}
 
-	private void processJars(Map<MinecraftJar, MinecraftJar> minecraftJarMap, ConfigContext configContext) throws IOException {
+	private void processJars(Map<MinecraftJar, MinecraftJar> minecraftJarMap, ConfigContext configContext, boolean refreshOutputs) throws IOException {
 		for (Map.Entry<MinecraftJar, MinecraftJar> entry : minecraftJarMap.entrySet()) {
 			final MinecraftJar minecraftJar = entry.getKey();
 			final MinecraftJar outputJar = entry.getValue();
 			deleteSimilarJars(outputJar.getPath());
 
+			final ProcessorContextImpl processorContext = new ProcessorContextImpl(configContext, minecraftJar);
+			final Path statePath = getProcessedStatePath(minecraftJar.getType());
+			final @Nullable List<MinecraftJarProcessorManager.ProcessedClasses> processedClasses = jarProcessorManager.getProcessedClasses(processorContext);
+			final String inputHash = FileDigestService.INSTANCE.digestHex(minecraftJar.getPath(), FileDigestService.Algorithm.FAST);
+			final @Nullable ProcessedJarState previousState = refreshOutputs || processedClasses == null ? null : ProcessedJarState.read(statePath);
+
 			final LocalMavenHelper mavenHelper = getMavenHelper(minecraftJar.getType());
-			final Path outputPath = mavenHelper.copyToMaven(minecraftJar.getPath(), null);
 
-			assert outputJar.getPath().equals(outputPath);
+			if (previousState == null || !processIncrementally(previousState, inputHash, processedClasses, minecraftJar, mavenHelper, processorContext)) {
+				final Path outputPath = mavenHelper.copyToMaven(minecraftJar.getPath(), null);
+
+				assert outputJar.getPath().equals(outputPath);
+
+				jarProcessorManager.processJar(outputPath, processorContext);
+			}
+
+			if (processedClasses != null) {
+				new ProcessedJarState(LoomGradlePlugin.LOOM_VERSION, inputHash, outputJar.getPath().toAbsolutePath().toString(), processedClasses).write(statePath);
+			} else {
+				Files.deleteIfExists(statePath);
+			}
+		}
+	}
+
+	/**
+	 * Creates the processed jar from a previously processed jar, by only processing the classes that the processors handle differently.
+	 *
+	 * @return {@code false} if the previously processed jar cannot be reused
+	 */
+	private boolean processIncrementally(ProcessedJarState previousState, String inputHash, List<MinecraftJarProcessorManager.ProcessedClasses> processedClasses, MinecraftJar minecraftJar, LocalMavenHelper mavenHelper, ProcessorContextImpl processorContext) throws IOException {
+		final Path previousJar = Path.of(previousState.processedJar());
+
+		if (!previousState.loomVersion().equals(LoomGradlePlugin.LOOM_VERSION) || !previousState.inputHash().equals(inputHash)
+				|| previousJar.equals(mavenHelper.getOutputFile(null).toAbsolutePath()) || Files.notExists(previousJar)) {
+			return false;
+		}
+
+		final @Nullable Set<String> changedClasses = MinecraftJarProcessorManager.getChangedClasses(previousState.processors(), processedClasses);
 
-			jarProcessorManager.processJar(outputPath, new ProcessorContextImpl(configContext, minecraftJar));
+		if (changedClasses == null) {
+			return false;
 		}
+
+		LOGGER.info("Processing {} changed classes of {}", changedClasses.size(), minecraftJar.getPath().getFileName());
+
+		final Path outputPath = mavenHelper.copyToMaven(previousJar, null);
+		jarProcessorManager.processChangedClasses(minecraftJar.getPath(), outputPath, changedClasses, processorContext);
+
+		return true;
+	}
+
+	private Path getProcessedStatePath(MinecraftJar.Type type) {
+		final String jarPrefix = parentMinecraftProvider.getMinecraftProvider().getJarPrefix();
+		return getMavenScope().getRoot(extension).resolve("net/minecraft/%sminecraft-%s-processed.json".formatted(jarPrefix, type.toString()));
 	}
 
 	@Override
@@ -232,4 +289,33 @@ public abstract class ProcessedNamedMinecraftProvider<M extends MinecraftProvide
 			return env;
 		}
 	}
+
+	/**
+	 * Describes the last processed jar, so that it can be reused when only some of the processed classes change.
+	 *
+	 * @param loomVersion  the Loom version that processed the jar
+	 * @param inputHash    the hash of the unprocessed jar
+	 * @param processedJar the absolute path of the processed jar
+	 * @param processors   the classes modified by each processor
+	 */
+	private record ProcessedJarState(String loomVersion, String inputHash, String processedJar, List<MinecraftJarProcessorManager.ProcessedClasses> processors) {
+		@Nullable
+		static ProcessedJarState read(Path path) {
+			if (Files.notExists(path)) {
+				return null;
+			}
+
+			try {
+				return LoomGradlePlugin.GSON.fromJson(Files.readString(path), ProcessedJarState.class);
+			} catch (IOException | JsonParseException e) {
+				LOGGER.warn("Failed to read processed jar state from {}", path, e);
+				return null;
+			}
+		}
+
+		void write(Path path) throws IOException {
+			Files.createDirectories(path.getParent());
+			Files.writeString(path, LoomGradlePlugin.GSON.toJson(this));
+		}
+	}
 }
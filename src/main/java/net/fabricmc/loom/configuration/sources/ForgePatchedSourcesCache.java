@@ -0,0 +1,291 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.configuration.sources;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.fabricmc.loom.decompilers.cache.CachedData;
+import net.fabricmc.loom.decompilers.cache.CachedFileStore;
+import net.fabricmc.loom.decompilers.cache.ClassEntry;
+import net.fabricmc.loom.decompilers.cache.JarWalker;
+import net.fabricmc.loom.util.Checksum;
+import net.fabricmc.loom.util.FileSystemUtil;
+
+/**
+ * A per-file cache for Forge's patched and remapped Minecraft sources.
+ *
+ * <p>Each source file is keyed by the hash of its input classes (including the super hierarchy),
+ * the MCP patch and the Forge patch applied to it, on top of a base hash covering the decompiler and the mappings.
+ * Only the source files that are missing from the cache need to be decompiled, patched and remapped.
+ *
+ * @param fileStore    the cache store
+ * @param baseHash     a hash of the inputs shared by all source files
+ * @param mcpPatches   a map of source file names to MCP patch hashes
+ * @param forgePatches a map of source file names to Forge patch hashes
+ */
+public record ForgePatchedSourcesCache(CachedFileStore<CachedData> fileStore, String baseHash, Map<String, String> mcpPatches, Map<String, String> forgePatches) {
+	private static final Logger LOGGER = LoggerFactory.getLogger(ForgePatchedSourcesCache.class);
+	private static final String NO_PATCH = "none";
+
+	public Job prepareJob(Path inputJar) throws IOException {
+		Path incompleteJar = Files.createTempFile("loom-forge-sources-incomplete", ".jar");
+		Path existingClassesJar = Files.createTempFile("loom-forge-sources-existingClasses", ".jar");
+
+		// We must delete the empty files, so they can be created as a zip
+		Files.delete(incompleteJar);
+		Files.delete(existingClassesJar);
+
+		// Sources name -> hash
+		Map<String, String> outputNameMap = new HashMap<>();
+		Map<String, CachedData> existing = new HashMap<>();
+
+		try (FileSystemUtil.Delegate inputFs = FileSystemUtil.getJarFileSystem(inputJar, false);
+				FileSystemUtil.Delegate incompleteFs = FileSystemUtil.getJarFileSystem(incompleteJar, true);
+				FileSystemUtil.Delegate existingClassesFs = FileSystemUtil.getJarFileSystem(existingClassesJar, true)) {
+			final List<ClassEntry> inputClasses = JarWalker.findClasses(inputFs);
+			final Map<String, String> rawEntryHashes = getEntryHashes(inputClasses, inputFs.getRoot());
+
+			for (ClassEntry entry : inputClasses) {
+				final String sourcesFileName = entry.sourcesFileName();
+				final String fullHash = baseHash + "/" + hashEntry(entry.hashSuperHierarchy(rawEntryHashes), sourcesFileName);
+				final CachedData entryData = fileStore.getEntry(fullHash);
+
+				if (entryData == null) {
+					entry.copyTo(inputFs.getRoot(), incompleteFs.getRoot());
+					outputNameMap.put(sourcesFileName, fullHash);
+					LOGGER.debug("Cached entry ({}) not found, going to process {}", fullHash, sourcesFileName);
+				} else {
+					entry.copyTo(inputFs.getRoot(), existingClassesFs.getRoot());
+					existing.put(sourcesFileName, entryData);
+					LOGGER.debug("Cached entry ({}) found: {}", fullHash, sourcesFileName);
+				}
+			}
+		}
+
+		if (outputNameMap.isEmpty()) {
+			Files.delete(incompleteJar);
+			incompleteJar = null;
+		}
+
+		if (existing.isEmpty()) {
+			Files.delete(existingClassesJar);
+			existingClassesJar = null;
+		}
+
+		return new Job(inputJar, incompleteJar, existingClassesJar, Collections.unmodifiableMap(outputNameMap), Collections.unmodifiableMap(existing));
+	}
+
+	private String hashEntry(String classHash, String sourcesFileName) throws IOException {
+		final String key = String.join(",",
+				classHash,
+				mcpPatches.getOrDefault(sourcesFileName, NO_PATCH),
+				forgePatches.getOrDefault(sourcesFileName, NO_PATCH)
+		);
+		return Checksum.sha256Hex(key.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static Map<String, String> getEntryHashes(List<ClassEntry> entries, Path root) throws IOException {
+		final Map<String, String> rawEntryHashes = new HashMap<>();
+
+		for (ClassEntry entry : entries) {
+			String hash = entry.hash(root);
+			rawEntryHashes.put(entry.name(), hash);
+
+			for (String s : entry.innerClasses()) {
+				rawEntryHashes.put(s, hash);
+			}
+		}
+
+		return Collections.unmodifiableMap(rawEntryHashes);
+	}
+
+	/**
+	 * Writes the output sources jar from the cached entries and the freshly processed sources,
+	 * and stores the fresh sources in the cache.
+	 *
+	 * @param job             the job returned by {@link #prepareJob}
+	 * @param processed       the patched and remapped sources of the incomplete jar, or {@code null} if there were none
+	 * @param output          the output sources jar
+	 * @param sourceNameMapper a function mapping input source file names to the remapped source file names
+	 */
+	public void completeJob(Job job, @Nullable Path processed, Path output, UnaryOperator<String> sourceNameMapper) throws IOException {
+		Files.deleteIfExists(output);
+
+		try (FileSystemUtil.Delegate outputFs = FileSystemUtil.getJarFileSystem(output, true)) {
+			for (CachedData entry : job.existing().values()) {
+				final Path outputPath = outputFs.getRoot().resolve(entry.className() + ".java");
+				createParentDirectories(outputPath);
+				Files.writeString(outputPath, entry.sources());
+			}
+
+			copyResources(job.input(), outputFs);
+
+			if (processed == null) {
+				return;
+			}
+
+			try (FileSystemUtil.Delegate processedFs = FileSystemUtil.getJarFileSystem(processed, false)) {
+				for (Map.Entry<String, String> entry : job.outputNameMap().entrySet()) {
+					Path processedPath = processedFs.getRoot().resolve(sourceNameMapper.apply(entry.getKey()));
+
+					if (Files.notExists(processedPath)) {
+						// Fall back to the original name, in case the file was not moved while remapping
+						processedPath = processedFs.getRoot().resolve(entry.getKey());
+					}
+
+					if (Files.notExists(processedPath)) {
+						LOGGER.info("No processed sources found for {}", entry.getKey());
+						continue;
+					}
+
+					final String fileName = processedPath.toString().substring(1);
+					final String className = fileName.substring(0, fileName.length() - ".java".length());
+					final var cachedData = new CachedData(className, Files.readString(processedPath), null);
+					fileStore.putEntry(entry.getValue(), cachedData);
+					LOGGER.debug("Saving processed entry ({}) to cache: {}", entry.getValue(), fileName);
+				}
+
+				// Copy everything in the processed jar, including any non-java files
+				try (Stream<Path> walk = Files.walk(processedFs.getRoot())) {
+					Iterator<Path> iterator = walk.iterator();
+
+					while (iterator.hasNext()) {
+						final Path processedPath = iterator.next();
+
+						if (!Files.isRegularFile(processedPath)) {
+							continue;
+						}
+
+						final Path outputPath = outputFs.getPath(processedPath.toString());
+						createParentDirectories(outputPath);
+						Files.copy(processedPath, outputPath, StandardCopyOption.REPLACE_EXISTING);
+					}
+				}
+			}
+		} finally {
+			if (job.incomplete() != null) {
+				Files.deleteIfExists(job.incomplete());
+			}
+
+			if (job.existingClasses() != null) {
+				Files.deleteIfExists(job.existingClasses());
+			}
+		}
+	}
+
+	/**
+	 * Copies the non-class files of the input jar, which the decompiler would otherwise have copied to the sources jar.
+	 */
+	private static void copyResources(Path inputJar, FileSystemUtil.Delegate outputFs) throws IOException {
+		try (FileSystemUtil.Delegate inputFs = FileSystemUtil.getJarFileSystem(inputJar, false);
+				Stream<Path> walk = Files.walk(inputFs.getRoot())) {
+			Iterator<Path> iterator = walk.iterator();
+
+			while (iterator.hasNext()) {
+				final Path inputPath = iterator.next();
+
+				if (!Files.isRegularFile(inputPath) || inputPath.toString().endsWith(".class")) {
+					continue;
+				}
+
+				final Path outputPath = outputFs.getPath(inputPath.toString());
+				createParentDirectories(outputPath);
+				Files.copy(inputPath, outputPath, StandardCopyOption.REPLACE_EXISTING);
+			}
+		}
+	}
+
+	/**
+	 * Hashes every patch file in a directory.
+	 *
+	 * @param patches the root directory of the patches
+	 * @return a map of patched file names (eg. {@code net/minecraft/Foo.java}) to patch hashes
+	 */
+	public static Map<String, String> hashPatches(Path patches) throws IOException {
+		final Map<String, String> hashes = new HashMap<>();
+
+		if (Files.notExists(patches)) {
+			return hashes;
+		}
+
+		try (Stream<Path> walk = Files.walk(patches)) {
+			Iterator<Path> iterator = walk.iterator();
+
+			while (iterator.hasNext()) {
+				final Path patch = iterator.next();
+				final String name = patches.relativize(patch).toString().replace('\\', '/');
+
+				if (!Files.isRegularFile(patch) || !name.endsWith(".patch")) {
+					continue;
+				}
+
+				hashes.put(name.substring(0, name.length() - ".patch".length()), Checksum.sha256Hex(Files.readAllBytes(patch)));
+			}
+		}
+
+		return Collections.unmodifiableMap(hashes);
+	}
+
+	private static void createParentDirectories(Path path) throws IOException {
+		final Path parent = path.getParent();
+
+		if (parent == null) {
+			return;
+		}
+
+		Files.createDirectories(parent);
+	}
+
+	/**
+	 * The work that needs to be done to produce the sources jar.
+	 *
+	 * @param input           the input jar, whose resources are copied to the sources jar
+	 * @param incomplete      a jar containing the classes that need to be processed, or {@code null} if everything was cached
+	 * @param existingClasses a jar containing the classes that were found in the cache, or {@code null} if there were none
+	 * @param outputNameMap   a map of input source file names to cache keys for the classes that need processing
+	 * @param existing        a map of input source file names to their cached entries
+	 */
+	public record Job(Path input, @Nullable Path incomplete, @Nullable Path existingClasses, Map<String, String> outputNameMap, Map<String, CachedData> existing) {
+		public Set<String> missingSources() {
+			return outputNameMap.keySet();
+		}
+	}
+}
@@ -46,10 +46,10 @@ public interface LoomFiles {
 	File getNativesDirectory(Project project);
 	File getDefaultLog4jConfigFile();
 	File getDevLauncherConfig();
-	File getUnpickLoggingConfigFile();
 	File getRemapClasspathFile();
 	File getGlobalMinecraftRepo();
 	File getLocalMinecraftRepo();
 	File getDecompileCache(String version);
+	File getForgePatchedSourcesCache(String version);
 	File getForgeDependencyRepo();
 }
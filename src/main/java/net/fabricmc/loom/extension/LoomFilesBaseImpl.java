@@ -88,11 +88,6 @@ public abstract class LoomFilesBaseImpl implements LoomFiles {
 		return new File(getProjectPersistentCache(), "launch.cfg");
 	}
 
-	@Override
-	public File getUnpickLoggingConfigFile() {
-		return new File(getProjectPersistentCache(), "unpick-logging.properties");
-	}
-
 	@Override
 	public File getRemapClasspathFile() {
 		return new File(getProjectPersistentCache(), "remapClasspath.txt");
@@ -113,6 +108,11 @@ public abstract class LoomFilesBaseImpl implements LoomFiles {
 		return new File(getUserCache(), "decompile/" + version + ".zip");
 	}
 
+	@Override
+	public File getForgePatchedSourcesCache(String version) {
+		return new File(getUserCache(), "forge-patched-sources/" + version + ".zip");
+	}
+
 	@Override
 	public File getForgeDependencyRepo() {
 		return new File(getUserCache(), "forge/transformed-dependencies-v1");
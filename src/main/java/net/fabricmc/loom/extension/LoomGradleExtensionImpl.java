@@ -132,11 +132,7 @@ public abstract class LoomGradleExtensionImpl extends LoomGradleExtensionApiImpl
 		configurationCacheActive = getBuildFeatures().getConfigurationCache().getActive().get();
 		isolatedProjectsActive = getBuildFeatures().getIsolatedProjects().getActive().get();
 
-		// Fundamentally impossible to support multi-project optimisation with the configuration cache and/or isolated projects.
-		if (multiProjectOptimisation.get() && configurationCacheActive) {
-			throw new UnsupportedOperationException("Multi-project optimisation is not supported with the configuration cache");
-		}
-
+		// The prepare remap tasks are ordered against the tasks of all other projects, which is not possible with isolated projects.
 		if (multiProjectOptimisation.get() && isolatedProjectsActive) {
 			throw new UnsupportedOperationException("Isolated projects are not supported with multi-project optimisation");
 		}
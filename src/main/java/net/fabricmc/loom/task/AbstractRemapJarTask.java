@@ -42,6 +42,7 @@ import javax.inject.Inject;
 import com.google.common.base.Preconditions;
 import org.gradle.api.Action;
 import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.file.FileCollection;
 import org.gradle.api.file.RegularFileProperty;
 import org.gradle.api.provider.ListProperty;
 import org.gradle.api.provider.MapProperty;
@@ -111,6 +112,20 @@ public abstract class AbstractRemapJarTask extends Jar {
 	@ApiStatus.Internal
 	public abstract Property<String> getJarType();
 
+	/**
+	 * The files of the client only source set, the file tree is only resolved when the task runs.
+	 */
+	@Internal
+	@ApiStatus.Internal
+	protected abstract ConfigurableFileCollection getClientOnlyFiles();
+
+	/**
+	 * The root paths of the client only source set, the client only entries are the paths of {@link #getClientOnlyFiles()} relative to them.
+	 */
+	@Internal
+	@ApiStatus.Internal
+	protected abstract ListProperty<String> getClientOnlyRootPaths();
+
 	private final Provider<JarManifestService> jarManifestServiceProvider;
 
 	@Inject
@@ -121,6 +136,10 @@ public abstract class AbstractRemapJarTask extends Jar {
 		getIncludesClientOnlyClasses().convention(false).finalizeValueOnRead();
 		getJarType().finalizeValueOnRead();
 
+		// Find the client source set while configuring, so that the task does not use the project when it runs
+		getClientOnlyFiles().from(getProject().provider(() -> getIncludesClientOnlyClasses().get() ? getClientOnlyFileTree(getClientSourceSet()) : List.of()));
+		getClientOnlyRootPaths().set(getProject().provider(() -> getIncludesClientOnlyClasses().get() ? getRootPaths(getClientOnlyRoots(getClientSourceSet())) : List.of()));
+
 		jarManifestServiceProvider = JarManifestService.get(getProject());
 		usesService(jarManifestServiceProvider);
 	}
@@ -142,7 +161,7 @@ public abstract class AbstractRemapJarTask extends Jar {
 			params.getEntryCompression().set(getEntryCompression());
 
 			if (getIncludesClientOnlyClasses().get()) {
-				final List<String> clientOnlyEntries = new ArrayList<>(getClientOnlyEntries(getClientSourceSet()));
+				final List<String> clientOnlyEntries = new ArrayList<>(getClientOnlyEntries());
 				clientOnlyEntries.addAll(getAdditionalClientOnlyEntries().get());
 				Collections.sort(clientOnlyEntries);
 				applyClientOnlyManifestAttributes(params, clientOnlyEntries);
@@ -157,7 +176,21 @@ public abstract class AbstractRemapJarTask extends Jar {
 		});
 	}
 
-	protected abstract List<String> getClientOnlyEntries(SourceSet sourceSet);
+	private List<String> getClientOnlyEntries() {
+		return getClientOnlyFiles().getFiles().stream()
+				.map(relativePath(getClientOnlyRootPaths().get()))
+				.toList();
+	}
+
+	/**
+	 * Returns the files of the client only source set that are included in the jar.
+	 */
+	protected abstract FileCollection getClientOnlyFileTree(SourceSet sourceSet);
+
+	/**
+	 * Returns the root directories of {@link #getClientOnlyFileTree(SourceSet)}.
+	 */
+	protected abstract Set<File> getClientOnlyRoots(SourceSet sourceSet);
 
 	public interface AbstractRemapParams extends WorkParameters {
 		RegularFileProperty getInputFile();
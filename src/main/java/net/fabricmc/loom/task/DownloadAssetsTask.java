@@ -27,6 +27,8 @@ package net.fabricmc.loom.task;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
 
 import javax.inject.Inject;
 
@@ -42,6 +44,7 @@ import net.fabricmc.loom.LoomGradlePlugin;
 import net.fabricmc.loom.configuration.ide.RunConfigSettings;
 import net.fabricmc.loom.configuration.providers.minecraft.MinecraftVersionMeta;
 import net.fabricmc.loom.configuration.providers.minecraft.assets.AssetIndex;
+import net.fabricmc.loom.configuration.providers.minecraft.assets.AssetLayout;
 import net.fabricmc.loom.util.MirrorUtil;
 import net.fabricmc.loom.util.download.DownloadExecutor;
 import net.fabricmc.loom.util.download.DownloadFactory;
@@ -111,19 +114,34 @@ public abstract class DownloadAssetsTask extends AbstractLoomTask {
 	public void downloadAssets() throws IOException {
 		final AssetIndex assetIndex = getAssetIndex();
 
+		final Path objectsDirectory = getObjectsDirectory();
+
 		try (ProgressGroup progressGroup = new ProgressGroup("Download Assets", getProgressLoggerFactory());
 				DownloadExecutor executor = new DownloadExecutor(getDownloadThreads().get())) {
+			final Set<String> downloaded = new HashSet<>();
+
 			for (AssetIndex.Object object : assetIndex.getObjects()) {
 				final String sha1 = object.hash();
+
+				if (!downloaded.add(sha1)) {
+					// The same object may be used by multiple paths
+					continue;
+				}
+
 				final String url = getResourcesBaseUrl().get() + sha1.substring(0, 2) + "/" + sha1;
 
 				getDownloadFactory()
 						.download(url)
 						.sha1(sha1)
 						.progress(new GradleDownloadProgressListener(object.name(), progressGroup::createProgressLogger))
-						.downloadPathAsync(getAssetsPath(object, assetIndex), executor);
+						.downloadPathAsync(AssetLayout.getObjectPath(objectsDirectory, sha1), executor);
 			}
 		}
+
+		if (assetIndex.mapToResources() || assetIndex.virtual()) {
+			// Legacy and virtual assets are laid out by path, link them from the shared object store
+			AssetLayout.populate(assetIndex, getAssetsHash().get(), objectsDirectory, getLegacyResourcesDirectory().get().getAsFile().toPath());
+		}
 	}
 
 	private AssetIndex getAssetIndex() throws IOException {
@@ -137,12 +155,7 @@ public abstract class DownloadAssetsTask extends AbstractLoomTask {
 		return LoomGradlePlugin.GSON.fromJson(json, AssetIndex.class);
 	}
 
-	private Path getAssetsPath(AssetIndex.Object object, AssetIndex index) {
-		if (index.mapToResources() || index.virtual()) {
-			return new File(getLegacyResourcesDirectory().get().getAsFile(), object.path()).toPath();
-		}
-
-		final String filename = "objects" + File.separator + object.hash().substring(0, 2) + File.separator + object.hash();
-		return new File(getAssetsDirectory().get().getAsFile(), filename).toPath();
+	private Path getObjectsDirectory() {
+		return getAssetsDirectory().get().getAsFile().toPath().resolve("objects");
 	}
 }
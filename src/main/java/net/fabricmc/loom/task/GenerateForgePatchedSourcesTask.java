@@ -28,9 +28,14 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
 
 import codechicken.diffpatch.cli.CliOperation;
 import codechicken.diffpatch.cli.PatchOperation;
@@ -38,30 +43,49 @@ import codechicken.diffpatch.util.LoggingOutputStream;
 import codechicken.diffpatch.util.PatchMode;
 import com.google.common.base.Stopwatch;
 import dev.architectury.loom.forge.ForgeTools;
+import dev.architectury.loom.util.MappingOption;
 import dev.architectury.loom.util.TempFiles;
 import org.gradle.api.file.FileCollection;
 import org.gradle.api.file.RegularFileProperty;
 import org.gradle.api.logging.LogLevel;
+import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.Input;
 import org.gradle.api.tasks.InputFile;
+import org.gradle.api.tasks.Internal;
 import org.gradle.api.tasks.OutputFile;
 import org.gradle.api.tasks.TaskAction;
+import org.gradle.api.tasks.options.Option;
+import org.jetbrains.annotations.ApiStatus;
 import org.jetbrains.annotations.Nullable;
 
 import net.fabricmc.loom.configuration.processors.MinecraftJarProcessorManager;
 import net.fabricmc.loom.configuration.providers.forge.ForgeUserdevProvider;
 import net.fabricmc.loom.configuration.providers.forge.MinecraftPatchedProvider;
+import net.fabricmc.loom.configuration.providers.forge.mcpconfig.McpConfigFunction;
 import net.fabricmc.loom.configuration.providers.forge.mcpconfig.McpExecutor;
 import net.fabricmc.loom.configuration.providers.forge.mcpconfig.steplogic.ConstantLogic;
+import net.fabricmc.loom.configuration.providers.forge.mcpconfig.steplogic.ListLibrariesLogic;
+import net.fabricmc.loom.configuration.providers.forge.mcpconfig.steplogic.PatchLogic;
+import net.fabricmc.loom.configuration.providers.mappings.MappingConfiguration;
+import net.fabricmc.loom.configuration.sources.ForgePatchedSourcesCache;
 import net.fabricmc.loom.configuration.sources.ForgeSourcesRemapper;
+import net.fabricmc.loom.decompilers.cache.CachedData;
+import net.fabricmc.loom.decompilers.cache.CachedFileStoreImpl;
+import net.fabricmc.loom.util.Checksum;
 import net.fabricmc.loom.util.DependencyDownloader;
 import net.fabricmc.loom.util.FileSystemUtil;
 import net.fabricmc.loom.util.ForgeToolExecutor;
 import net.fabricmc.loom.util.SourceRemapper;
+import net.fabricmc.loom.util.ZipReprocessorUtil;
 import net.fabricmc.loom.util.service.ScopedSharedServiceManager;
 import net.fabricmc.loom.util.service.SharedServiceManager;
+import net.fabricmc.mappingio.tree.MappingTree;
 
 // TODO: NeoForge support
 public abstract class GenerateForgePatchedSourcesTask extends AbstractLoomTask {
+	// Increment when the cached data or the way the cache keys are computed changes
+	private static final String CACHE_VERSION = "v1";
+
 	/**
 	 * The SRG Minecraft file produced by the MCP executor.
 	 */
@@ -80,9 +104,27 @@ public abstract class GenerateForgePatchedSourcesTask extends AbstractLoomTask {
 	@OutputFile
 	public abstract RegularFileProperty getOutputJar();
 
+	@Input
+	@Option(option = "use-cache", description = "Use the patched sources cache")
+	@ApiStatus.Experimental
+	public abstract Property<Boolean> getUseCache();
+
+	@Input
+	@Option(option = "reset-cache", description = "When set the cache will be reset")
+	@ApiStatus.Experimental
+	public abstract Property<Boolean> getResetCache();
+
+	// Internal outputs
+	@ApiStatus.Internal
+	@Internal
+	protected abstract RegularFileProperty getCacheFile();
+
 	public GenerateForgePatchedSourcesTask() {
 		getOutputs().upToDateWhen((o) -> false);
 		getOutputJar().fileProvider(getProject().provider(() -> GenerateSourcesTask.getJarFileWithSuffix(getRuntimeJar(), "-sources.jar")));
+		getCacheFile().set(getExtension().getFiles().getForgePatchedSourcesCache(CACHE_VERSION));
+		getUseCache().convention(true);
+		getResetCache().convention(getExtension().refreshDeps());
 	}
 
 	@TaskAction
@@ -103,19 +145,110 @@ public abstract class GenerateForgePatchedSourcesTask extends AbstractLoomTask {
 			Path sideAnnotationStripped = cache.resolve("side-annotation-stripped.jar");
 			stripSideAnnotations(accessTransformed, sideAnnotationStripped);
 
-			// Step 1: decompile and patch with MCP patches
-			Path rawDecompiled = decompileAndPatch(cache, sideAnnotationStripped);
-			// Step 2: patch with Forge patches
-			getLogger().lifecycle(":applying Forge patches");
-			Path patched = sourcePatch(cache, rawDecompiled);
-			// Step 3: remap
-			remap(patched, serviceManager);
+			if (getUseCache().get()) {
+				// Steps 1-3 for the classes missing from the cache
+				runWithCache(cache, sideAnnotationStripped, serviceManager);
+			} else {
+				// Step 1: decompile and patch with MCP patches
+				Path rawDecompiled = decompileAndPatch(cache, sideAnnotationStripped, null, null);
+				// Step 2: patch with Forge patches
+				getLogger().lifecycle(":applying Forge patches");
+				Path patched = sourcePatch(cache, rawDecompiled, null);
+				// Step 3: remap
+				remap(patched, getOutputJar().get().getAsFile().toPath(), serviceManager);
+			}
+
 			// Step 4: add Forge's own sources
 			ForgeSourcesRemapper.addForgeSources(getProject(), serviceManager, null, getOutputJar().get().getAsFile().toPath());
 		}
 	}
 
-	private Path decompileAndPatch(Path cache, Path gameJar) throws IOException {
+	private void runWithCache(Path cache, Path gameJar, SharedServiceManager serviceManager) throws IOException {
+		final Path cacheFile = getCacheFile().get().getAsFile().toPath();
+
+		if (getResetCache().get()) {
+			getLogger().warn("Resetting Forge patched sources cache");
+			Files.deleteIfExists(cacheFile);
+		}
+
+		Files.createDirectories(cacheFile.getParent());
+
+		try (FileSystemUtil.Delegate fs = FileSystemUtil.getJarFileSystem(cacheFile, true)) {
+			final var cacheRules = new CachedFileStoreImpl.CacheRules(50_000, Duration.ofDays(90));
+			final var fileStore = new CachedFileStoreImpl<>(fs.getRoot(), CachedData.SERIALIZER, cacheRules);
+			final ForgePatchedSourcesCache sourcesCache = createCache(cache, fileStore);
+			final ForgePatchedSourcesCache.Job job = sourcesCache.prepareJob(gameJar);
+
+			getLogger().lifecycle("Forge patched sources cache stats: {} hits, {} misses", job.existing().size(), job.outputNameMap().size());
+
+			Path processed = null;
+
+			if (job.incomplete() != null) {
+				final Set<String> missing = job.missingSources();
+				// Step 1: decompile and patch with MCP patches
+				Path rawDecompiled = decompileAndPatch(cache, job.incomplete(), job.existingClasses(), missing::contains);
+				// Step 2: patch with Forge patches
+				getLogger().lifecycle(":applying Forge patches");
+				Path patched = sourcePatch(cache, rawDecompiled, missing::contains);
+				// Step 3: remap
+				processed = cache.resolve("remapped.jar");
+				remap(patched, processed, serviceManager);
+			}
+
+			final Path output = getOutputJar().get().getAsFile().toPath();
+			sourcesCache.completeJob(job, processed, output, getSourceNameMapper(serviceManager));
+			ZipReprocessorUtil.reprocessZip(output, false, true);
+			fileStore.prune();
+		}
+	}
+
+	private ForgePatchedSourcesCache createCache(Path cache, CachedFileStoreImpl<CachedData> fileStore) throws IOException {
+		final MinecraftPatchedProvider patchedProvider = MinecraftPatchedProvider.get(getProject());
+		final ForgeUserdevProvider userdev = getExtension().getForgeUserdevProvider();
+		final MappingConfiguration mappingConfiguration = getExtension().getMappingConfiguration();
+
+		// The decompiler, its arguments and the mappings affect every source file
+		final McpExecutor mcp = patchedProvider.createMcpExecutor(cache.resolve("mcp-hash"));
+		final McpConfigFunction decompiler = getExtension().getMcpConfigProvider().getData().functions().get("decompile");
+		final String baseKey = String.join(",",
+				CACHE_VERSION,
+				decompiler != null ? decompiler.version() + decompiler.args() : "",
+				userdev.getConfig().patchesOriginalPrefix().orElse(""),
+				userdev.getConfig().patchesModifiedPrefix().orElse(""),
+				mappingConfiguration.mappingsIdentifier()
+		);
+		final String baseHash = Checksum.toHex(Checksum.sha256(baseKey)).substring(0, 16);
+
+		final @Nullable String mcpPatchesPath = mcp.getConfig("patches");
+		final Map<String, String> mcpPatches = mcpPatchesPath != null ? ForgePatchedSourcesCache.hashPatches(Path.of(mcpPatchesPath)) : Map.of();
+		final Map<String, String> forgePatches;
+
+		try (FileSystemUtil.Delegate fs = FileSystemUtil.getJarFileSystem(userdev.getUserdevJar(), false)) {
+			forgePatches = ForgePatchedSourcesCache.hashPatches(fs.getPath(userdev.getConfig().patches()));
+		}
+
+		getLogger().info("Forge patched sources cache key: {}", baseHash);
+		return new ForgePatchedSourcesCache(fileStore, baseHash, mcpPatches, forgePatches);
+	}
+
+	private UnaryOperator<String> getSourceNameMapper(SharedServiceManager serviceManager) {
+		final MappingTree mappings = getExtension().getMappingConfiguration().getMappingsService(serviceManager, MappingOption.WITH_SRG).getMappingTree();
+		final int srg = mappings.getNamespaceId("srg");
+		final int named = mappings.getNamespaceId("named");
+
+		return sourcesName -> {
+			final String className = sourcesName.substring(0, sourcesName.length() - ".java".length());
+			final MappingTree.ClassMapping mapping = mappings.getClass(className, srg);
+
+			if (mapping == null || mapping.getName(named) == null) {
+				return sourcesName;
+			}
+
+			return mapping.getName(named) + ".java";
+		};
+	}
+
+	private Path decompileAndPatch(Path cache, Path gameJar, @Nullable Path extraLibrary, @Nullable Predicate<String> patchFilter) throws IOException {
 		Path mcpCache = cache.resolve("mcp");
 		Files.createDirectory(mcpCache);
 
@@ -124,6 +257,11 @@ public abstract class GenerateForgePatchedSourcesTask extends AbstractLoomTask {
 		mcp.setStepLogicProvider((name, type) -> {
 			if (name.equals("rename")) {
 				return Optional.of(new ConstantLogic(() -> gameJar));
+			} else if (type.equals("listLibraries") && extraLibrary != null) {
+				// Let the decompiler see the classes that were restored from the cache
+				return Optional.of(new ListLibrariesLogic(List.of(extraLibrary)));
+			} else if (type.equals("patch") && patchFilter != null) {
+				return Optional.of(new PatchLogic(patchFilter));
 			}
 
 			return Optional.empty();
@@ -133,35 +271,41 @@ public abstract class GenerateForgePatchedSourcesTask extends AbstractLoomTask {
 		return mcp.execute();
 	}
 
-	private Path sourcePatch(Path cache, Path rawDecompiled) throws IOException {
+	private Path sourcePatch(Path cache, Path rawDecompiled, @Nullable Predicate<String> patchFilter) throws IOException {
 		ForgeUserdevProvider userdev = getExtension().getForgeUserdevProvider();
 		String patchPathInZip = userdev.getConfig().patches();
 		Path output = cache.resolve("patched.jar");
 		Path rejects = cache.resolve("rejects");
 
-		CliOperation.Result<PatchOperation.PatchesSummary> result = PatchOperation.builder()
-				.logTo(new LoggingOutputStream(getLogger(), LogLevel.INFO))
-				.basePath(rawDecompiled)
-				.patchesPath(userdev.getUserdevJar().toPath())
-				.patchesPrefix(patchPathInZip)
-				.outputPath(output)
-				.mode(PatchMode.ACCESS)
-				.rejectsPath(rejects)
-				.aPrefix(userdev.getConfig().patchesOriginalPrefix().orElseThrow())
-				.bPrefix(userdev.getConfig().patchesModifiedPrefix().orElseThrow())
-				.build()
-				.operate();
-
-		if (result.exit != 0) {
-			throw new RuntimeException("Could not patch " + rawDecompiled + "; rejects saved to " + rejects.toAbsolutePath());
+		try (FileSystemUtil.Delegate userdevFs = FileSystemUtil.getJarFileSystem(userdev.getUserdevJar(), false)) {
+			PatchOperation.Builder builder = PatchOperation.builder()
+					.logTo(new LoggingOutputStream(getLogger(), LogLevel.INFO))
+					.basePath(rawDecompiled)
+					.outputPath(output)
+					.mode(PatchMode.ACCESS)
+					.rejectsPath(rejects)
+					.aPrefix(userdev.getConfig().patchesOriginalPrefix().orElseThrow())
+					.bPrefix(userdev.getConfig().patchesModifiedPrefix().orElseThrow());
+
+			if (patchFilter != null) {
+				builder.patchesPath(PatchLogic.filterPatches(userdevFs.getPath(patchPathInZip), cache.resolve("forge-patches"), patchFilter));
+			} else {
+				builder.patchesPath(userdev.getUserdevJar().toPath()).patchesPrefix(patchPathInZip);
+			}
+
+			CliOperation.Result<PatchOperation.PatchesSummary> result = builder.build().operate();
+
+			if (result.exit != 0) {
+				throw new RuntimeException("Could not patch " + rawDecompiled + "; rejects saved to " + rejects.toAbsolutePath());
+			}
 		}
 
 		return output;
 	}
 
-	private void remap(Path input, SharedServiceManager serviceManager) {
+	private void remap(Path input, Path output, SharedServiceManager serviceManager) {
 		SourceRemapper remapper = new SourceRemapper(getProject(), serviceManager, "srg", "named");
-		remapper.scheduleRemapSources(input.toFile(), getOutputJar().get().getAsFile(), false, true, () -> {
+		remapper.scheduleRemapSources(input.toFile(), output.toFile(), false, true, () -> {
 		});
 		remapper.remapAll();
 	}
@@ -28,12 +28,18 @@ import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.Reader;
 import java.io.UncheckedIOException;
 import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryUsage;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -50,6 +56,7 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.StringJoiner;
 import java.util.UUID;
+import java.util.logging.Level;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -68,8 +75,6 @@ import org.gradle.api.tasks.Optional;
 import org.gradle.api.tasks.OutputFile;
 import org.gradle.api.tasks.TaskAction;
 import org.gradle.api.tasks.options.Option;
-import org.gradle.process.ExecOperations;
-import org.gradle.process.ExecResult;
 import org.gradle.work.DisableCachingByDefault;
 import org.gradle.workers.WorkAction;
 import org.gradle.workers.WorkParameters;
@@ -82,6 +87,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import net.fabricmc.loom.LoomGradleExtension;
+import net.fabricmc.loom.LoomGradlePlugin;
 import net.fabricmc.loom.api.decompilers.DecompilationMetadata;
 import net.fabricmc.loom.api.decompilers.DecompilerOptions;
 import net.fabricmc.loom.api.decompilers.LoomDecompiler;
@@ -103,6 +109,8 @@ import net.fabricmc.loom.util.ExceptionUtil;
 import net.fabricmc.loom.util.FileSystemUtil;
 import net.fabricmc.loom.util.IOStringConsumer;
 import net.fabricmc.loom.util.Platform;
+import net.fabricmc.loom.util.gradle.GradleUtils;
+import net.fabricmc.loom.util.gradle.PersistentWorkerDaemons;
 import net.fabricmc.loom.util.gradle.SyncTaskBuildService;
 import net.fabricmc.loom.util.gradle.ThreadedProgressLoggerConsumer;
 import net.fabricmc.loom.util.gradle.ThreadedSimpleProgressLogger;
@@ -110,6 +118,9 @@ import net.fabricmc.loom.util.gradle.WorkerDaemonClientsManagerHelper;
 import net.fabricmc.loom.util.ipc.IPCClient;
 import net.fabricmc.loom.util.ipc.IPCServer;
 import net.fabricmc.loom.util.service.ScopedSharedServiceManager;
+import net.fabricmc.loom.util.telemetry.Telemetry;
+import net.fabricmc.loom.util.telemetry.TelemetryReportService;
+import net.fabricmc.loom.util.telemetry.TelemetrySpan;
 import net.fabricmc.mappingio.MappingReader;
 import net.fabricmc.mappingio.adapter.MappingSourceNsSwitch;
 import net.fabricmc.mappingio.format.tiny.Tiny2FileWriter;
@@ -119,6 +130,8 @@ import net.fabricmc.mappingio.tree.MemoryMappingTree;
 public abstract class GenerateSourcesTask extends AbstractLoomTask {
 	private static final Logger LOGGER = LoggerFactory.getLogger(GenerateSourcesTask.class);
 	private static final String CACHE_VERSION = "v1";
+	// Persistent workers that still use more than this fraction of their heap after decompiling are stopped
+	private static final double MAX_PERSISTENT_WORKER_HEAP_USAGE = 0.5;
 	private final DecompilerOptions decompilerOptions;
 
 	/**
@@ -165,6 +178,21 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 	@ApiStatus.Experimental
 	public abstract Property<Boolean> getResetCache();
 
+	/**
+	 * When enabled, the decompiler worker JVM is kept alive after decompiling, so that it can be reused by later tasks and builds.
+	 * Defaults to the {@value Constants.Properties#PERSISTENT_DECOMPILE_WORKER} Gradle property.
+	 */
+	@Internal
+	@ApiStatus.Experimental
+	public abstract Property<Boolean> getPersistentWorker();
+
+	/**
+	 * How long an idle persistent decompiler worker is kept alive for.
+	 */
+	@Internal
+	@ApiStatus.Experimental
+	public abstract Property<Duration> getPersistentWorkerIdleTimeout();
+
 	// Internal outputs
 	@ApiStatus.Internal
 	@Internal
@@ -174,9 +202,6 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 	@Inject
 	public abstract WorkerExecutor getWorkerExecutor();
 
-	@Inject
-	public abstract ExecOperations getExecOperations();
-
 	@Inject
 	public abstract WorkerDaemonClientsManager getWorkerDaemonClientsManager();
 
@@ -184,6 +209,13 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 	@ServiceReference(SyncTaskBuildService.NAME)
 	abstract Property<SyncTaskBuildService> getSyncTask();
 
+	@ServiceReference(PersistentWorkerDaemons.NAME)
+	abstract Property<PersistentWorkerDaemons> getPersistentWorkerDaemons();
+
+	@ServiceReference(TelemetryReportService.NAME)
+	@Optional
+	abstract Property<TelemetryReportService> getTelemetryReport();
+
 	@Inject
 	public GenerateSourcesTask(DecompilerOptions decompilerOptions) {
 		this.decompilerOptions = decompilerOptions;
@@ -198,6 +230,19 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 
 		getUseCache().convention(true);
 		getResetCache().convention(extension.refreshDeps());
+		getPersistentWorker().convention(GradleUtils.getBooleanPropertyProvider(getProject(), Constants.Properties.PERSISTENT_DECOMPILE_WORKER));
+		getPersistentWorkerIdleTimeout().convention(getProject().getProviders().gradleProperty(Constants.Properties.PERSISTENT_DECOMPILE_WORKER_IDLE_TIMEOUT)
+				.map(GenerateSourcesTask::parseIdleTimeout)
+				.orElse(Duration.ofMinutes(30)));
+		PersistentWorkerDaemons.register(getProject());
+	}
+
+	private static Duration parseIdleTimeout(String value) {
+		try {
+			return Duration.ofMinutes(Long.parseLong(value.trim()));
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Invalid value '%s' for %s, expected a number of minutes".formatted(value, Constants.Properties.PERSISTENT_DECOMPILE_WORKER_IDLE_TIMEOUT), e);
+		}
 	}
 
 	@TaskAction
@@ -254,6 +299,11 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 
 		try (var timer = new Timer("Prepare job")) {
 			workRequest = cachedJarProcessor.prepareJob(minecraftJar.getPath());
+			timer.span()
+					.bytes(Files.size(minecraftJar.getPath()))
+					.classes(workRequest.stats().hits() + workRequest.stats().misses())
+					.cacheHits(workRequest.stats().hits())
+					.cacheMisses(workRequest.stats().misses());
 		}
 
 		final CachedJarProcessor.WorkJob job = workRequest.job();
@@ -264,17 +314,12 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 		ClassLineNumbers outputLineNumbers = null;
 
 		if (job instanceof CachedJarProcessor.WorkToDoJob workToDoJob) {
-			Path inputJar = workToDoJob.incomplete();
+			final Path inputJar = workToDoJob.incomplete();
 			@Nullable Path existingClasses = (job instanceof CachedJarProcessor.PartialWorkJob partialWorkJob) ? partialWorkJob.existingClasses() : null;
 
-			if (getUnpickDefinitions().isPresent()) {
-				try (var timer = new Timer("Unpick")) {
-					inputJar = unpickJar(inputJar, existingClasses);
-				}
-			}
-
 			try (var timer = new Timer("Decompile")) {
-				outputLineNumbers = runDecompileJob(inputJar, workToDoJob.output(), existingClasses);
+				timer.span().classes(cacheStats.misses());
+				outputLineNumbers = runDecompileJob(minecraftJar.getPath(), inputJar, workToDoJob.output(), existingClasses);
 				removeForgeInnerClassSources(workToDoJob.output());
 				outputLineNumbers = filterForgeLineNumbers(outputLineNumbers);
 			}
@@ -325,20 +370,14 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 	private void runWithoutCache() throws IOException {
 		final MinecraftJar minecraftJar = rebuildInputJar();
 
-		Path inputJar = minecraftJar.getPath();
+		final Path inputJar = minecraftJar.getPath();
 		// The final output sources jar
 		final Path sourcesJar = getOutputJar().get().getAsFile().toPath();
 
-		if (getUnpickDefinitions().isPresent()) {
-			try (var timer = new Timer("Unpick")) {
-				inputJar = unpickJar(inputJar, null);
-			}
-		}
-
 		ClassLineNumbers lineNumbers;
 
 		try (var timer = new Timer("Decompile")) {
-			lineNumbers = runDecompileJob(inputJar, sourcesJar, null);
+			lineNumbers = runDecompileJob(inputJar, inputJar, sourcesJar, null);
 			removeForgeInnerClassSources(sourcesJar);
 			lineNumbers = filterForgeLineNumbers(lineNumbers);
 		}
@@ -405,8 +444,16 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 		return sj.toString();
 	}
 
+	/**
+	 * Unpicks and decompiles a jar in the decompile worker.
+	 *
+	 * @param minecraftJar the minecraft jar that the input jar was created from
+	 * @param inputJar     the jar containing the classes to decompile
+	 * @param outputJar    the sources jar to write
+	 * @param existingJar  a jar containing the rest of the classes from the minecraft jar, or {@code null} if there are none
+	 */
 	@Nullable
-	private ClassLineNumbers runDecompileJob(Path inputJar, Path outputJar, @Nullable Path existingJar) throws IOException {
+	private ClassLineNumbers runDecompileJob(Path minecraftJar, Path inputJar, Path outputJar, @Nullable Path existingJar) throws IOException {
 		final Platform platform = Platform.CURRENT;
 		final Path lineMapFile = File.createTempFile("loom", "linemap").toPath();
 		Files.delete(lineMapFile);
@@ -414,12 +461,12 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 		if (!platform.supportsUnixDomainSockets()) {
 			getProject().getLogger().warn("Decompile worker logging disabled as Unix Domain Sockets is not supported on your operating system.");
 
-			doWork(null, inputJar, outputJar, lineMapFile, existingJar);
+			doWork(null, minecraftJar, inputJar, outputJar, lineMapFile, existingJar);
 
 			// Inject Forge's own sources
 			if (getExtension().isForgeLike()) {
 				try (var serviceManager = new ScopedSharedServiceManager()) {
-					ForgeSourcesRemapper.addForgeSources(getProject(), serviceManager, inputJar, outputJar);
+					ForgeSourcesRemapper.addForgeSources(getProject(), serviceManager, getDecompiledJar(inputJar), outputJar);
 				}
 			}
 
@@ -432,7 +479,7 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 
 		try (ThreadedProgressLoggerConsumer loggerConsumer = new ThreadedProgressLoggerConsumer(getProject(), decompilerOptions.getName(), "Decompiling minecraft sources");
 				IPCServer logReceiver = new IPCServer(ipcPath, loggerConsumer)) {
-			doWork(logReceiver, inputJar, outputJar, lineMapFile, existingJar);
+			doWork(logReceiver, minecraftJar, inputJar, outputJar, lineMapFile, existingJar);
 		} catch (InterruptedException e) {
 			throw new RuntimeException("Failed to shutdown log receiver", e);
 		} finally {
@@ -442,13 +489,22 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 		// Inject Forge's own sources
 		if (getExtension().isForgeLike()) {
 			try (var serviceManager = new ScopedSharedServiceManager()) {
-				ForgeSourcesRemapper.addForgeSources(getProject(), serviceManager, inputJar, outputJar);
+				ForgeSourcesRemapper.addForgeSources(getProject(), serviceManager, getDecompiledJar(inputJar), outputJar);
 			}
 		}
 
 		return readLineNumbers(lineMapFile);
 	}
 
+	// The decompile worker decompiles the unpicked jar when unpick is enabled
+	private Path getDecompiledJar(Path inputJar) {
+		if (!getUnpickDefinitions().isPresent()) {
+			return inputJar;
+		}
+
+		return getUnpickOutputJar().get().getAsFile().toPath();
+	}
+
 	@Nullable
 	private ClassLineNumbers filterForgeLineNumbers(@Nullable ClassLineNumbers lineNumbers) {
 		if (lineNumbers == null) {
@@ -529,59 +585,23 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 		);
 	}
 
-	private Path unpickJar(Path inputJar, @Nullable Path existingClasses) {
-		final Path outputJar = getUnpickOutputJar().get().getAsFile().toPath();
-		final List<String> args = getUnpickArgs(inputJar, outputJar, existingClasses);
-
-		ExecResult result = getExecOperations().javaexec(spec -> {
-			spec.getMainClass().set("daomephsta.unpick.cli.Main");
-			spec.classpath(getUnpickRuntimeClasspath());
-			spec.args(args);
-			spec.systemProperty("java.util.logging.config.file", writeUnpickLogConfig().getAbsolutePath());
-		});
-
-		result.rethrowFailure();
-
-		return outputJar;
-	}
-
-	private List<String> getUnpickArgs(Path inputJar, Path outputJar, @Nullable Path existingClasses) {
-		var fileArgs = new ArrayList<File>();
-
-		fileArgs.add(inputJar.toFile());
-		fileArgs.add(outputJar.toFile());
-		fileArgs.add(getUnpickDefinitions().get().getAsFile());
-		fileArgs.add(getUnpickConstantJar().getSingleFile());
+	private List<File> collectUnpickClasspath(Path minecraftJar, @Nullable Path existingClasses) {
+		final var classpath = new ArrayList<File>();
 
-		// Classpath
-		for (Path minecraftJar : getExtension().getMinecraftJars(MappingsNamespace.NAMED)) {
-			fileArgs.add(minecraftJar.toFile());
+		// The classes of the input minecraft jar are already in the unpick input and the existing classes
+		for (Path namedJar : getExtension().getMinecraftJars(MappingsNamespace.NAMED)) {
+			if (!namedJar.equals(minecraftJar)) {
+				classpath.add(namedJar.toFile());
+			}
 		}
 
-		for (File file : getUnpickClasspath()) {
-			fileArgs.add(file);
-		}
+		classpath.addAll(getUnpickClasspath().getFiles());
 
 		if (existingClasses != null) {
-			fileArgs.add(existingClasses.toFile());
-		}
-
-		return fileArgs.stream()
-				.map(File::getAbsolutePath)
-				.toList();
-	}
-
-	private File writeUnpickLogConfig() {
-		final File unpickLoggingConfigFile = getExtension().getFiles().getUnpickLoggingConfigFile();
-
-		try (InputStream is = GenerateSourcesTask.class.getClassLoader().getResourceAsStream("unpick-logging.properties")) {
-			Files.deleteIfExists(unpickLoggingConfigFile.toPath());
-			Files.copy(Objects.requireNonNull(is), unpickLoggingConfigFile.toPath());
-		} catch (IOException e) {
-			throw new org.gradle.api.UncheckedIOException("Failed to copy unpick logging config", e);
+			classpath.add(existingClasses.toFile());
 		}
 
-		return unpickLoggingConfigFile;
+		return classpath;
 	}
 
 	private void remapLineNumbers(ClassLineNumbers lineNumbers, Path inputJar, Path outputJar) throws IOException {
@@ -598,10 +618,16 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 		LOGGER.info("Wrote linemap to {}", lineMap);
 	}
 
-	private void doWork(@Nullable IPCServer ipcServer, Path inputJar, Path outputJar, Path linemapFile, @Nullable Path existingClasses) {
-		final String jvmMarkerValue = UUID.randomUUID().toString();
+	private void doWork(@Nullable IPCServer ipcServer, Path minecraftJar, Path inputJar, Path outputJar, Path linemapFile, @Nullable Path existingClasses) throws IOException {
+		final boolean persistentWorker = useProcessIsolation() && getPersistentWorker().get();
+		final String jvmMarkerValue = persistentWorker ? getPersistentWorkerMarker() : UUID.randomUUID().toString();
+		final Path heapUsageFile = persistentWorker ? Files.createTempFile("loom", "heap-usage") : null;
 		final WorkQueue workQueue = createWorkQueue(jvmMarkerValue);
 
+		if (persistentWorker) {
+			getPersistentWorkerDaemons().get().acquire(jvmMarkerValue);
+		}
+
 		ConfigurableFileCollection classpath = getProject().files();
 		classpath.from(getProject().getConfigurations().getByName(Constants.Configurations.MINECRAFT_COMPILE_LIBRARIES));
 
@@ -623,6 +649,18 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 
 			params.getClassPath().setFrom(classpath);
 
+			if (getUnpickDefinitions().isPresent()) {
+				params.getUnpickDefinitions().set(getUnpickDefinitions());
+				params.getUnpickConstantJar().setFrom(getUnpickConstantJar());
+				params.getUnpickClasspath().setFrom(collectUnpickClasspath(minecraftJar, existingClasses));
+				params.getUnpickRuntimeClasspath().setFrom(getUnpickRuntimeClasspath());
+				params.getUnpickOutputJar().set(getUnpickOutputJar());
+			}
+
+			if (heapUsageFile != null) {
+				params.getHeapUsageFile().set(heapUsageFile.toFile());
+			}
+
 			// Architectury
 			params.getForge().set(getExtension().isForgeLike());
 		});
@@ -630,7 +668,9 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 		try {
 			workQueue.await();
 		} finally {
-			if (ipcServer != null) {
+			if (persistentWorker) {
+				releasePersistentWorker(jvmMarkerValue, heapUsageFile);
+			} else if (ipcServer != null) {
 				boolean stopped = WorkerDaemonClientsManagerHelper.stopIdleJVM(getWorkerDaemonClientsManager(), jvmMarkerValue);
 
 				if (!stopped && ipcServer.hasReceivedMessage()) {
@@ -657,6 +697,34 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 		});
 	}
 
+	// Gradle only reuses a worker with the same fork options, so the marker must only change with them
+	private String getPersistentWorkerMarker() throws IOException {
+		final var sj = new StringJoiner(",");
+		sj.add(LoomGradlePlugin.LOOM_VERSION);
+		sj.add(decompilerOptions.getMemory().get().toString());
+		sj.add(fileCollectionHash(getClasspath()));
+
+		return "persistent-" + Checksum.sha256Hex(sj.toString().getBytes(StandardCharsets.UTF_8)).substring(0, 16);
+	}
+
+	private void releasePersistentWorker(String jvmMarkerValue, Path heapUsageFile) throws IOException {
+		final double heapUsage;
+
+		try {
+			heapUsage = Files.notExists(heapUsageFile) || Files.size(heapUsageFile) == 0 ? 0 : Double.parseDouble(Files.readString(heapUsageFile).trim());
+		} finally {
+			Files.deleteIfExists(heapUsageFile);
+		}
+
+		if (heapUsage > MAX_PERSISTENT_WORKER_HEAP_USAGE) {
+			LOGGER.info("Stopping persistent decompile worker as it is using {}% of its heap", Math.round(heapUsage * 100));
+			getPersistentWorkerDaemons().get().stop(getWorkerDaemonClientsManager(), jvmMarkerValue);
+			return;
+		}
+
+		getPersistentWorkerDaemons().get().release(getWorkerDaemonClientsManager(), jvmMarkerValue, getPersistentWorkerIdleTimeout().get());
+	}
+
 	private boolean useProcessIsolation() {
 		// Useful if you want to debug the decompiler, make sure you run gradle with enough memory.
 		return !Boolean.getBoolean("fabric.loom.genSources.debug");
@@ -672,13 +740,28 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 
 		RegularFileProperty getIPCPath();
 
+		/**
+		 * When present, the heap usage of the worker after a full GC is written to this file, as a fraction of the max heap size.
+		 */
+		RegularFileProperty getHeapUsageFile();
+
 		ConfigurableFileCollection getClassPath();
 
+		// Unpick
+		RegularFileProperty getUnpickDefinitions();
+		ConfigurableFileCollection getUnpickConstantJar();
+		ConfigurableFileCollection getUnpickClasspath();
+		ConfigurableFileCollection getUnpickRuntimeClasspath();
+		RegularFileProperty getUnpickOutputJar();
+
 		// Architectury
 		Property<Boolean> getForge();
 	}
 
 	public abstract static class DecompileAction implements WorkAction<DecompileParams> {
+		// Held in a field, as the log manager only keeps a weak reference to the logger and its level
+		private static final java.util.logging.Logger UNPICK_LOGGER = java.util.logging.Logger.getLogger("unpick");
+
 		@Override
 		public void execute() {
 			if (!getParameters().getIPCPath().isPresent() || !Platform.CURRENT.supportsUnixDomainSockets()) {
@@ -697,12 +780,16 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 		}
 
 		private void doDecompile(IOStringConsumer logger) {
-			final Path inputJar = getParameters().getInputJar().get().getAsFile().toPath();
+			Path inputJar = getParameters().getInputJar().get().getAsFile().toPath();
 			final Path linemap = getParameters().getLinemapFile().get().getAsFile().toPath();
 			final Path outputJar = getParameters().getOutputJar().get().getAsFile().toPath();
 
 			final DecompilerOptions.Dto decompilerOptions = getParameters().getDecompilerOptions().get();
 
+			if (getParameters().getUnpickDefinitions().isPresent()) {
+				inputJar = unpickJar(inputJar);
+			}
+
 			final LoomDecompiler decompiler;
 
 			try {
@@ -736,12 +823,85 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 			} catch (IOException e) {
 				throw new UncheckedIOException("Failed to close loggers", e);
 			}
+
+			if (getParameters().getHeapUsageFile().isPresent()) {
+				writeHeapUsage(getParameters().getHeapUsageFile().get().getAsFile().toPath());
+			}
+		}
+
+		private static void writeHeapUsage(Path heapUsageFile) {
+			final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+			memory.gc();
+
+			final MemoryUsage heap = memory.getHeapMemoryUsage();
+			final long max = heap.getMax() > 0 ? heap.getMax() : heap.getCommitted();
+
+			try {
+				Files.writeString(heapUsageFile, Double.toString((double) heap.getUsed() / max));
+			} catch (IOException e) {
+				throw new UncheckedIOException("Failed to write heap usage", e);
+			}
 		}
 
 		private Collection<Path> getLibraries() {
 			return toPaths(getParameters().getClassPath());
 		}
 
+		/**
+		 * Runs unpick in this worker, rather than in another forked JVM.
+		 * Unpick is loaded in its own class loader, as its version is chosen by the mappings.
+		 */
+		private Path unpickJar(Path inputJar) {
+			final Path outputJar = getParameters().getUnpickOutputJar().get().getAsFile().toPath();
+			final List<String> args = new ArrayList<>();
+
+			args.add(inputJar.toAbsolutePath().toString());
+			args.add(outputJar.toAbsolutePath().toString());
+			args.add(getParameters().getUnpickDefinitions().get().getAsFile().getAbsolutePath());
+			args.add(getParameters().getUnpickConstantJar().getSingleFile().getAbsolutePath());
+
+			for (File file : getParameters().getUnpickClasspath()) {
+				args.add(file.getAbsolutePath());
+			}
+
+			// Only log warnings from unpick, it is very verbose otherwise
+			UNPICK_LOGGER.setLevel(Level.WARNING);
+
+			final URL[] urls = getParameters().getUnpickRuntimeClasspath().getFiles().stream()
+					.map(DecompileAction::toUrl)
+					.toArray(URL[]::new);
+			final Thread thread = Thread.currentThread();
+			final ClassLoader contextClassLoader = thread.getContextClassLoader();
+
+			try (URLClassLoader classLoader = new URLClassLoader(urls, ClassLoader.getPlatformClassLoader())) {
+				Files.deleteIfExists(outputJar);
+				thread.setContextClassLoader(classLoader);
+
+				final Method main = classLoader.loadClass("daomephsta.unpick.cli.Main").getMethod("main", String[].class);
+				main.invoke(null, (Object) args.toArray(String[]::new));
+			} catch (InvocationTargetException e) {
+				throw ExceptionUtil.createDescriptiveWrapper(RuntimeException::new, "Failed to unpick " + inputJar, e.getCause());
+			} catch (IOException | ReflectiveOperationException e) {
+				throw new RuntimeException("Failed to run unpick", e);
+			} finally {
+				thread.setContextClassLoader(contextClassLoader);
+			}
+
+			if (Files.notExists(outputJar)) {
+				throw new RuntimeException("Unpick did not write " + outputJar);
+			}
+
+			return outputJar;
+		}
+
+		private static URL toUrl(File file) {
+			try {
+				return file.toURI().toURL();
+			} catch (MalformedURLException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+
 		static Collection<Path> toPaths(FileCollection files) {
 			return files.getFiles().stream().map(File::toPath).collect(Collectors.toSet());
 		}
@@ -843,7 +1003,7 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 
 	private static String fileHash(File file) {
 		try {
-			return Checksum.sha256Hex(Files.readAllBytes(file.toPath()));
+			return Checksum.sha256Hex(file.toPath());
 		} catch (IOException e) {
 			throw new UncheckedIOException(e);
 		}
@@ -868,14 +1028,21 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 	private final class Timer implements AutoCloseable {
 		private final String name;
 		private final long start;
+		private final TelemetrySpan span;
 
 		Timer(String name) {
 			this.name = name;
 			this.start = System.currentTimeMillis();
+			this.span = Telemetry.span(getName() + ": " + name, getTelemetryReport().getOrNull()).project(getProject());
+		}
+
+		TelemetrySpan span() {
+			return span;
 		}
 
 		@Override
 		public void close() {
+			span.close();
 			getProject().getLogger().info("{} took {}ms", name, System.currentTimeMillis() - start);
 		}
 	}
@@ -57,6 +57,10 @@ public abstract class LoomTasks implements Runnable {
 			t.getOutputs().upToDateWhen(o -> false);
 		});
 
+		getTasks().register("prefetchMinecraftDownloads", PrefetchMinecraftDownloadsTask.class, t -> {
+			t.setDescription("Downloads the files Loom needs for the given Minecraft versions into the global caches.");
+		});
+
 		var generateLog4jConfig = getTasks().register("generateLog4jConfig", GenerateLog4jConfigTask.class, t -> {
 			t.setDescription("Generate the log4j config file");
 		});
@@ -0,0 +1,271 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.task;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.inject.Inject;
+
+import org.gradle.api.artifacts.Configuration;
+import org.gradle.api.artifacts.dsl.DependencyHandler;
+import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.provider.ListProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.Nested;
+import org.gradle.api.tasks.TaskAction;
+import org.gradle.api.tasks.options.Option;
+import org.gradle.internal.logging.progress.ProgressLoggerFactory;
+
+import net.fabricmc.loom.LoomGradlePlugin;
+import net.fabricmc.loom.configuration.providers.minecraft.ManifestLocations;
+import net.fabricmc.loom.configuration.providers.minecraft.MinecraftMetadataProvider;
+import net.fabricmc.loom.configuration.providers.minecraft.MinecraftVersionMeta;
+import net.fabricmc.loom.configuration.providers.minecraft.assets.AssetIndex;
+import net.fabricmc.loom.configuration.providers.minecraft.assets.AssetLayout;
+import net.fabricmc.loom.util.MirrorUtil;
+import net.fabricmc.loom.util.Platform;
+import net.fabricmc.loom.util.download.DownloadExecutor;
+import net.fabricmc.loom.util.download.DownloadFactory;
+import net.fabricmc.loom.util.download.GradleDownloadProgressListener;
+import net.fabricmc.loom.util.gradle.ProgressGroup;
+
+/**
+ * Downloads the files Loom needs for a list of Minecraft versions into the global Loom and Gradle caches, without the project having to be set up for them.
+ * This is intended to be used when building CI images, so that the first build of each version does not have to download anything.
+ *
+ * <p>For each version the metadata, the client and server jars, the libraries and optionally the assets are downloaded.
+ * Other artifacts, such as mappings or Forge userdev jars, can be resolved into the Gradle cache with {@link #getDependencies()}.
+ *
+ * <p>Only downloads are prefetched. The jars and mappings derived from them, such as the merged, remapped or patched jars
+ * and layered mappings, depend on the platform, mappings and jar processors of a project, so they are still produced by
+ * the first build of each project. To also bake those into an image, build a project for each combination that is needed.
+ */
+public abstract class PrefetchMinecraftDownloadsTask extends AbstractLoomTask {
+	@Input
+	@Option(option = "minecraft-version", description = "A Minecraft version to prefetch, can be passed multiple times")
+	public abstract ListProperty<String> getMinecraftVersions();
+
+	/**
+	 * Dependency notations to resolve into the Gradle cache, for example the mappings or Forge userdev of each version.
+	 */
+	@Input
+	@Option(option = "dependency", description = "A dependency notation to resolve, can be passed multiple times")
+	public abstract ListProperty<String> getDependencies();
+
+	@Input
+	@Option(option = "include-assets", description = "Also prefetch the game assets")
+	public abstract Property<Boolean> getIncludeAssets();
+
+	/**
+	 * The maximum number of files downloaded at the same time, across all versions.
+	 */
+	@Input
+	public abstract Property<Integer> getDownloadThreads();
+
+	@Input
+	public abstract Property<String> getResourcesBaseUrl();
+
+	@Internal
+	protected abstract DirectoryProperty getUserCache();
+
+	@Internal
+	protected abstract Property<ManifestLocations> getVersionsManifests();
+
+	/**
+	 * The libraries of the Minecraft versions and the {@linkplain #getDependencies() extra dependencies},
+	 * resolved from detached configurations into the Gradle cache.
+	 */
+	@Internal
+	protected abstract ConfigurableFileCollection getResolvedDependencies();
+
+	@Nested
+	protected abstract DownloadFactory getDownloadFactory();
+
+	@Inject
+	protected abstract ProgressLoggerFactory getProgressLoggerFactory();
+
+	@Inject
+	public PrefetchMinecraftDownloadsTask() {
+		getIncludeAssets().convention(true);
+		getDownloadThreads().convention(Math.min(Runtime.getRuntime().availableProcessors(), 10));
+		getResourcesBaseUrl().set(MirrorUtil.getResourcesBase(getProject()));
+		getUserCache().set(getExtension().getFiles().getUserCache());
+		getVersionsManifests().set(getExtension().getVersionsManifests());
+		getOutputs().upToDateWhen(o -> false);
+
+		final DependencyHandler dependencyHandler = getProject().getDependencies();
+
+		final Configuration libraries = getProject().getConfigurations().detachedConfiguration();
+		libraries.setTransitive(false);
+		libraries.getDependencies().addAllLater(getProject().provider(() -> getLibraryNotations().stream().map(dependencyHandler::create).toList()));
+
+		final Configuration dependencies = getProject().getConfigurations().detachedConfiguration();
+		dependencies.getDependencies().addAllLater(getDependencies().map(notations -> notations.stream().map(dependencyHandler::create).toList()));
+
+		getResolvedDependencies().from(libraries, dependencies);
+	}
+
+	@TaskAction
+	public void prefetch() throws IOException {
+		final List<String> versions = getMinecraftVersions().get();
+
+		if (versions.isEmpty() && getDependencies().get().isEmpty()) {
+			getLogger().lifecycle("Nothing to prefetch, pass --minecraft-version or --dependency");
+			return;
+		}
+
+		final List<MinecraftMetadataProvider> metadataProviders = new ArrayList<>();
+
+		try (DownloadExecutor executor = new DownloadExecutor(getDownloadThreads().get())) {
+			for (String version : versions) {
+				final MinecraftMetadataProvider metadataProvider = createMetadataProvider(version);
+				metadataProvider.downloadVersionMetaAsync(executor);
+				metadataProviders.add(metadataProvider);
+			}
+		}
+
+		final List<MinecraftVersionMeta> versionMetas = metadataProviders.stream()
+				.map(MinecraftMetadataProvider::getVersionMeta)
+				.toList();
+
+		final Set<String> assetHashes = new HashSet<>();
+		final List<LegacyAssetLayout> legacyLayouts = new ArrayList<>();
+
+		try (ProgressGroup progressGroup = new ProgressGroup("Prefetch Minecraft", getProgressLoggerFactory());
+				DownloadExecutor executor = new DownloadExecutor(getDownloadThreads().get())) {
+			for (MinecraftVersionMeta versionMeta : versionMetas) {
+				final File workingDir = getWorkingDirectory(versionMeta.id());
+				downloadJar(versionMeta, "client", new File(workingDir, "minecraft-client.jar"), progressGroup, executor);
+				downloadJar(versionMeta, "server", new File(workingDir, "minecraft-server.jar"), progressGroup, executor);
+
+				if (getIncludeAssets().get()) {
+					downloadAssets(versionMeta, assetHashes, legacyLayouts, progressGroup, executor);
+				}
+			}
+		}
+
+		for (LegacyAssetLayout layout : legacyLayouts) {
+			AssetLayout.populate(layout.index(), layout.indexHash(), getObjectsDirectory(), layout.directory());
+		}
+
+		// Gradle downloads the dependencies in parallel on its own.
+		getLogger().info("Resolved {} files", getResolvedDependencies().getFiles().size());
+		getLogger().lifecycle("Prefetched {} Minecraft versions and {} dependencies", versionMetas.size(), getDependencies().get().size());
+	}
+
+	private MinecraftMetadataProvider createMetadataProvider(String version) {
+		// The custom metadata url of the project is ignored, as it only applies to the version used by the project.
+		final var options = new MinecraftMetadataProvider.Options(
+				version,
+				getVersionsManifests().get(),
+				null,
+				getUserCache().get().getAsFile().toPath(),
+				getWorkingDirectory(version).toPath()
+		);
+		return MinecraftMetadataProvider.create(options, getDownloadFactory()::download);
+	}
+
+	private File getWorkingDirectory(String version) {
+		final File workingDir = getUserCache().dir(version).get().getAsFile();
+		workingDir.mkdirs();
+		return workingDir;
+	}
+
+	// Reads the version metadata, which is downloaded first if needed, as the libraries are only known from it.
+	private List<String> getLibraryNotations() {
+		final List<String> notations = new ArrayList<>();
+
+		for (String version : getMinecraftVersions().get()) {
+			for (MinecraftVersionMeta.Library library : createMetadataProvider(version).getVersionMeta().libraries()) {
+				if (library.artifact() != null && library.isValidForOS(Platform.CURRENT)) {
+					notations.add(library.name());
+				}
+			}
+		}
+
+		return notations;
+	}
+
+	private void downloadJar(MinecraftVersionMeta versionMeta, String side, File output, ProgressGroup progressGroup, DownloadExecutor executor) {
+		final MinecraftVersionMeta.Download download = versionMeta.download(side);
+
+		if (download == null) {
+			// Old versions do not have a server jar
+			return;
+		}
+
+		getDownloadFactory().download(download.url())
+				.sha1(download.sha1())
+				.progress(new GradleDownloadProgressListener("Minecraft %s %s".formatted(versionMeta.id(), side), progressGroup::createProgressLogger))
+				.downloadPathAsync(output.toPath(), executor);
+	}
+
+	private void downloadAssets(MinecraftVersionMeta versionMeta, Set<String> assetHashes, List<LegacyAssetLayout> legacyLayouts, ProgressGroup progressGroup, DownloadExecutor executor) throws IOException {
+		final MinecraftVersionMeta.AssetIndex assetIndexMeta = versionMeta.assetIndex();
+		final File assetsDir = getUserCache().dir("assets").get().getAsFile();
+		final Path indexFile = new File(assetsDir, "indexes" + File.separator + assetIndexMeta.fabricId(versionMeta.id()) + ".json").toPath();
+
+		final String json = getDownloadFactory().download(assetIndexMeta.url())
+				.sha1(assetIndexMeta.sha1())
+				.downloadString(indexFile);
+		final AssetIndex assetIndex = LoomGradlePlugin.GSON.fromJson(json, AssetIndex.class);
+
+		if (versionMeta.assets().equals("legacy")) {
+			// The shared legacy directory is populated from the objects once they have been downloaded.
+			// Older versions use a directory in each project's run directory, only their objects are prefetched.
+			legacyLayouts.add(new LegacyAssetLayout(assetIndex, assetIndexMeta.sha1(), new File(assetsDir, "legacy" + File.separator + versionMeta.id()).toPath()));
+		}
+
+		for (AssetIndex.Object object : assetIndex.getObjects()) {
+			final String sha1 = object.hash();
+
+			// Versions share most of their assets, only download each one once.
+			if (!assetHashes.add(sha1)) {
+				continue;
+			}
+
+			getDownloadFactory().download(getResourcesBaseUrl().get() + sha1.substring(0, 2) + "/" + sha1)
+					.sha1(sha1)
+					.progress(new GradleDownloadProgressListener(object.name(), progressGroup::createProgressLogger))
+					.downloadPathAsync(AssetLayout.getObjectPath(getObjectsDirectory(), sha1), executor);
+		}
+	}
+
+	private Path getObjectsDirectory() {
+		return getUserCache().get().getAsFile().toPath().resolve("assets").resolve("objects");
+	}
+
+	private record LegacyAssetLayout(AssetIndex index, String indexHash, Path directory) {
+	}
+}
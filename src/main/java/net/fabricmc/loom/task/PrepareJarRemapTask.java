@@ -28,31 +28,60 @@ import java.nio.file.Path;
 
 import javax.inject.Inject;
 
+import org.gradle.api.file.ConfigurableFileCollection;
 import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.model.ObjectFactory;
+import org.gradle.api.provider.ListProperty;
 import org.gradle.api.provider.Property;
 import org.gradle.api.tasks.InputFile;
+import org.gradle.api.tasks.Internal;
 import org.gradle.api.tasks.TaskAction;
 import org.gradle.workers.WorkAction;
 import org.gradle.workers.WorkParameters;
 import org.gradle.workers.WorkQueue;
 import org.gradle.workers.WorkerExecutor;
 
+import net.fabricmc.loom.extension.RemapperExtensionHolder;
+import net.fabricmc.loom.task.service.SharedRemapperBuildService;
 import net.fabricmc.loom.task.service.TinyRemapperService;
-import net.fabricmc.loom.util.service.UnsafeWorkQueueHelper;
+import net.fabricmc.loom.util.kotlin.KotlinRemapperClassloaderService;
 
 /**
  * The prepare remap task runs before all other jar remap tasks, should be used to setup tiny remapper.
  */
 public abstract class PrepareJarRemapTask extends AbstractLoomTask {
-	private final RemapJarTask remapJarTask;
 	@InputFile
 	public abstract RegularFileProperty getInputFile();
 
+	@Internal
+	protected abstract Property<TinyRemapperService.Options> getRemapperOptions();
+
+	@Internal
+	protected abstract ConfigurableFileCollection getRemapperClasspath();
+
+	@Internal
+	protected abstract ListProperty<RemapperExtensionHolder> getRemapperExtensions();
+
+	@Internal
+	protected abstract Property<SharedRemapperBuildService> getSharedRemappers();
+
+	@Internal
+	protected abstract Property<KotlinRemapperClassloaderService> getKotlinRemapperClassloaderService();
+
 	@Inject
-	public PrepareJarRemapTask(RemapJarTask remapJarTask) {
-		this.remapJarTask = remapJarTask;
+	protected abstract ObjectFactory getObjectFactory();
 
+	@Inject
+	public PrepareJarRemapTask(RemapJarTask remapJarTask) {
+		// Copy the remapper state rather than keeping a reference to the remap jar task, so that this task can be stored in the configuration cache.
 		getInputFile().set(remapJarTask.getInputFile());
+		getRemapperOptions().set(remapJarTask.getRemapperOptions());
+		getRemapperClasspath().from(remapJarTask.getRemapperClasspath());
+		getRemapperExtensions().set(remapJarTask.getRemapperExtensions());
+		getSharedRemappers().set(remapJarTask.getSharedRemappers());
+		getKotlinRemapperClassloaderService().set(remapJarTask.getKotlinRemapperClassloaderService());
+		usesService(getSharedRemappers());
+		usesService(getKotlinRemapperClassloaderService());
 		// TODO can this be up-to-date when the main task is up-to date?
 		getOutputs().upToDateWhen((o) -> false);
 
@@ -74,14 +103,30 @@ public abstract class PrepareJarRemapTask extends AbstractLoomTask {
 	public void run() {
 		final WorkQueue workQueue = getWorkerExecutor().noIsolation();
 
+		// Creates the shared remapper and reads the classpath, the work action looks the remapper up by its id
+		getTinyRemapperService();
+
 		workQueue.submit(ReadInputsAction.class, params -> {
-			params.getTinyRemapperBuildServiceUuid().set(UnsafeWorkQueueHelper.create(remapJarTask.getTinyRemapperService()));
+			params.getSharedRemappers().set(getSharedRemappers());
+			params.getRemapperId().set(getRemapperOptions().get().id());
 			params.getInputFile().set(getInputFile());
 		});
 	}
 
+	private TinyRemapperService getTinyRemapperService() {
+		return getSharedRemappers().get().getOrCreate(
+				getRemapperOptions().get(),
+				true,
+				getRemapperClasspath(),
+				getRemapperExtensions().get(),
+				getKotlinRemapperClassloaderService().get(),
+				getObjectFactory()
+		);
+	}
+
 	public interface ReadInputsParams extends WorkParameters {
-		Property<String> getTinyRemapperBuildServiceUuid();
+		Property<SharedRemapperBuildService> getSharedRemappers();
+		Property<String> getRemapperId();
 		RegularFileProperty getInputFile();
 	}
 
@@ -89,7 +134,7 @@ public abstract class PrepareJarRemapTask extends AbstractLoomTask {
 		private final TinyRemapperService tinyRemapperService;
 
 		public ReadInputsAction() {
-			this.tinyRemapperService = UnsafeWorkQueueHelper.get(getParameters().getTinyRemapperBuildServiceUuid(), TinyRemapperService.class);
+			this.tinyRemapperService = getParameters().getSharedRemappers().get().get(getParameters().getRemapperId().get());
 		}
 
 		@Override
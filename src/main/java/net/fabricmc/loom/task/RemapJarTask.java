@@ -24,8 +24,11 @@
 
 package net.fabricmc.loom.task;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
@@ -45,19 +48,25 @@ import com.google.gson.JsonObject;
 import dev.architectury.loom.extensions.ModBuildExtensions;
 import org.gradle.api.artifacts.ConfigurationContainer;
 import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.file.DirectoryProperty;
 import org.gradle.api.file.FileCollection;
 import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.model.ObjectFactory;
 import org.gradle.api.plugins.JavaPlugin;
 import org.gradle.api.provider.ListProperty;
 import org.gradle.api.provider.Property;
 import org.gradle.api.provider.Provider;
 import org.gradle.api.provider.SetProperty;
+import org.gradle.api.services.ServiceReference;
 import org.gradle.api.tasks.Input;
 import org.gradle.api.tasks.InputFiles;
 import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.LocalState;
+import org.gradle.api.tasks.Optional;
 import org.gradle.api.tasks.SourceSet;
 import org.gradle.api.tasks.TaskAction;
 import org.gradle.api.tasks.TaskProvider;
+import org.gradle.api.tasks.options.Option;
 import org.jetbrains.annotations.ApiStatus;
 import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
@@ -67,13 +76,18 @@ import net.fabricmc.accesswidener.AccessWidenerReader;
 import net.fabricmc.accesswidener.AccessWidenerRemapper;
 import net.fabricmc.accesswidener.AccessWidenerWriter;
 import net.fabricmc.loom.LoomGradleExtension;
+import net.fabricmc.loom.LoomGradlePlugin;
 import net.fabricmc.loom.build.nesting.JarNester;
 import net.fabricmc.loom.build.nesting.NestableJarGenerationTask;
+import net.fabricmc.loom.build.remap.IncrementalRemapCache;
 import net.fabricmc.loom.configuration.accesswidener.AccessWidenerFile;
 import net.fabricmc.loom.configuration.mods.ArtifactMetadata;
 import net.fabricmc.loom.extension.MixinExtension;
+import net.fabricmc.loom.extension.RemapperExtensionHolder;
 import net.fabricmc.loom.task.service.MappingsService;
+import net.fabricmc.loom.task.service.SharedRemapperBuildService;
 import net.fabricmc.loom.task.service.TinyRemapperService;
+import net.fabricmc.loom.util.Checksum;
 import net.fabricmc.loom.util.Constants;
 import net.fabricmc.loom.util.ExceptionUtil;
 import net.fabricmc.loom.util.ModPlatform;
@@ -83,8 +97,11 @@ import net.fabricmc.loom.util.ZipUtils;
 import net.fabricmc.loom.util.fmj.FabricModJson;
 import net.fabricmc.loom.util.fmj.FabricModJsonFactory;
 import net.fabricmc.loom.util.fmj.FabricModJsonUtils;
+import net.fabricmc.loom.util.kotlin.KotlinRemapperClassloaderService;
 import net.fabricmc.loom.util.service.BuildSharedServiceManager;
-import net.fabricmc.loom.util.service.UnsafeWorkQueueHelper;
+import net.fabricmc.loom.util.telemetry.Telemetry;
+import net.fabricmc.loom.util.telemetry.TelemetryReportService;
+import net.fabricmc.loom.util.telemetry.TelemetrySpan;
 import net.fabricmc.tinyremapper.OutputConsumerPath;
 import net.fabricmc.tinyremapper.TinyRemapper;
 
@@ -138,6 +155,80 @@ public abstract class RemapJarTask extends AbstractRemapJarTask {
 	@ApiStatus.Internal
 	public abstract Property<Boolean> getUseMixinAP();
 
+	/**
+	 * When enabled, the remapped classes are cached between builds and only the classes that changed are remapped again.
+	 * The cache is only reused while the mappings, the classpath and the structure of the other classes are unchanged.
+	 *
+	 * <p>This is not supported with the multi project optimisation or remapper extensions, or when the jar is not reproducible.
+	 */
+	@Input
+	@Option(option = "incremental-remap", description = "Only remap the classes that changed since the last build")
+	@ApiStatus.Experimental
+	public abstract Property<Boolean> getIncrementalRemap();
+
+	@LocalState
+	@ApiStatus.Internal
+	public abstract DirectoryProperty getIncrementalRemapCacheDirectory();
+
+	/**
+	 * The mod platform, read at configuration time so that the task does not use the project when it runs.
+	 */
+	@Internal
+	@ApiStatus.Internal
+	public abstract Property<ModPlatform> getPlatform();
+
+	/**
+	 * The access widener of the project, that is injected into the mod json when {@link #getInjectAccessWidener()} is enabled.
+	 */
+	@Internal
+	@ApiStatus.Internal
+	public abstract RegularFileProperty getAccessWidener();
+
+	/**
+	 * The refmap and mixin configs of each mixin source set, used when remapping with the legacy mixin annotation processor.
+	 */
+	@Internal
+	@ApiStatus.Internal
+	public abstract ListProperty<MixinRefmapSource> getMixinRefmapSources();
+
+	/**
+	 * The options used to create the remapper, computed at configuration time so that they can be stored in the configuration cache.
+	 */
+	@Input
+	@ApiStatus.Internal
+	public abstract Property<TinyRemapperService.Options> getRemapperOptions();
+
+	@Internal
+	@ApiStatus.Internal
+	public abstract ConfigurableFileCollection getRemapperClasspath();
+
+	@Internal
+	@ApiStatus.Internal
+	public abstract ListProperty<RemapperExtensionHolder> getRemapperExtensions();
+
+	/**
+	 * Whether the remapper is shared with the remap jar tasks of other projects.
+	 */
+	@Internal
+	@ApiStatus.Internal
+	public abstract Property<Boolean> getShareRemapper();
+
+	@Internal
+	@ApiStatus.Internal
+	protected abstract Property<SharedRemapperBuildService> getSharedRemappers();
+
+	@Internal
+	@ApiStatus.Internal
+	protected abstract Property<KotlinRemapperClassloaderService> getKotlinRemapperClassloaderService();
+
+	@ServiceReference(TelemetryReportService.NAME)
+	@Optional
+	@ApiStatus.Internal
+	protected abstract Property<TelemetryReportService> getTelemetryReport();
+
+	@Inject
+	protected abstract ObjectFactory getObjectFactory();
+
 	private final Provider<BuildSharedServiceManager> serviceManagerProvider;
 
 	@Inject
@@ -150,6 +241,26 @@ public abstract class RemapJarTask extends AbstractRemapJarTask {
 		getOptimizeFabricModJson().convention(false).finalizeValueOnRead();
 		getReadMixinConfigsFromManifest().convention(LoomGradleExtension.get(getProject()).isForgeLike()).finalizeValueOnRead();
 		getInjectAccessWidener().convention(false);
+		getIncrementalRemap().convention(false);
+		getIncrementalRemapCacheDirectory().convention(getProject().getLayout().getBuildDirectory().dir("loom-cache/incremental-remap/" + getName()));
+
+		final LoomGradleExtension extension = LoomGradleExtension.get(getProject());
+		getPlatform().set(extension.getPlatform());
+		getPlatform().finalizeValueOnRead();
+		getAccessWidener().set(extension.getAccessWidenerPath());
+		getMixinRefmapSources().set(getProject().provider(this::createMixinRefmapSources));
+		getRemapperOptions().set(getProject().provider(() -> TinyRemapperService.createOptions(serviceManagerProvider.get().get(), this)));
+		getRemapperOptions().finalizeValueOnRead();
+		getRemapperClasspath().from(getProject().provider(() -> TinyRemapperService.getRemapClasspath(this)));
+		getRemapperExtensions().set(extension.getRemapperExtensions());
+		getShareRemapper().convention(extension.multiProjectOptimisation()).finalizeValueOnRead();
+
+		final Provider<SharedRemapperBuildService> sharedRemappers = SharedRemapperBuildService.register(getProject());
+		final Provider<KotlinRemapperClassloaderService> kotlinRemapperClassloaderService = KotlinRemapperClassloaderService.register(getProject());
+		getSharedRemappers().set(sharedRemappers);
+		getKotlinRemapperClassloaderService().set(kotlinRemapperClassloaderService);
+		usesService(sharedRemappers);
+		usesService(kotlinRemapperClassloaderService);
 
 		TaskProvider<NestableJarGenerationTask> processIncludeJars = getProject().getTasks().named(Constants.Task.PROCESS_INCLUDE_JARS, NestableJarGenerationTask.class);
 		getNestedJars().from(getProject().fileTree(processIncludeJars.get().getOutputDirectory()));
@@ -183,18 +294,21 @@ public abstract class RemapJarTask extends AbstractRemapJarTask {
 
 	@TaskAction
 	public void run() {
-		final LoomGradleExtension extension = LoomGradleExtension.get(getProject());
-
 		submitWork(RemapAction.class, params -> {
 			if (getAddNestedDependencies().get()) {
 				params.getNestedJars().from(getNestedJars());
 			}
 
+			params.getTelemetryReport().set(getTelemetryReport());
+
 			if (!params.namespacesMatch()) {
-				params.getTinyRemapperBuildServiceUuid().set(UnsafeWorkQueueHelper.create(getTinyRemapperService()));
+				// Creates the remapper and reads the classpath, the work action looks the remapper up by its id
+				getTinyRemapperService();
+				params.getSharedRemappers().set(getSharedRemappers());
+				params.getRemapperId().set(getRemapperOptions().get().id());
 				params.getRemapClasspath().from(getClasspath());
 
-				params.getMultiProjectOptimisation().set(getLoomExtension().multiProjectOptimisation());
+				params.getMultiProjectOptimisation().set(getShareRemapper());
 
 				final boolean mixinAp = getUseMixinAP().get();
 				params.getUseMixinExtension().set(!mixinAp);
@@ -208,21 +322,24 @@ public abstract class RemapJarTask extends AbstractRemapJarTask {
 				// or if the refmap should be remapped by mixin at runtime.
 				final var refmapRemapType = mixinAp ? ArtifactMetadata.MixinRemapType.MIXIN : ArtifactMetadata.MixinRemapType.STATIC;
 				params.getManifestAttributes().put(Constants.Manifest.MIXIN_REMAP_TYPE, refmapRemapType.manifestValue());
-			} else if (extension.isForge()) {
+
+				if (getIncrementalRemap().get()) {
+					setupIncrementalRemap(params);
+				}
+			} else if (getPlatform().get() == ModPlatform.FORGE) {
 				throw new RuntimeException("Forge must have useLegacyMixinAp enabled");
 			}
 
-			params.getPlatform().set(extension.getPlatform());
+			params.getPlatform().set(getPlatform());
 
-			if (getInjectAccessWidener().get() && extension.getAccessWidenerPath().isPresent()) {
-				params.getInjectAccessWidener().set(extension.getAccessWidenerPath());
+			if (getInjectAccessWidener().get() && getAccessWidener().isPresent()) {
+				params.getInjectAccessWidener().set(getAccessWidener());
 			}
 
-			params.getMappingBuildServiceUuid().convention("this should be unavailable!");
 			params.getAtAccessWideners().set(getAtAccessWideners());
 
 			if (!getAtAccessWideners().get().isEmpty()) {
-				params.getMappingBuildServiceUuid().set(UnsafeWorkQueueHelper.create(MappingsService.createDefault(getProject(), serviceManagerProvider.get().get(), getSourceNamespace().get(), getTargetNamespace().get())));
+				params.getMappingsFile().set(getRemapperOptions().get().mappingsFile());
 			}
 
 			params.getOptimizeFmj().set(getOptimizeFabricModJson().get());
@@ -230,9 +347,6 @@ public abstract class RemapJarTask extends AbstractRemapJarTask {
 	}
 
 	private void setupLegacyMixinRefmapRemapping(RemapParams params) {
-		final LoomGradleExtension extension = LoomGradleExtension.get(getProject());
-		final MixinExtension mixinExtension = extension.getMixin();
-
 		final Collection<String> allMixinConfigs = new LinkedHashSet<>();
 		final FabricModJson fabricModJson = FabricModJsonFactory.createFromZipNullable(getInputFile().getAsFile().get().toPath());
 
@@ -248,23 +362,103 @@ public abstract class RemapJarTask extends AbstractRemapJarTask {
 			return;
 		}
 
+		for (MixinRefmapSource source : getMixinRefmapSources().get()) {
+			final List<String> mixinConfigs = source.getMixinConfigs().getFiles()
+					.stream()
+					.map(relativePath(source.getRootPaths().get()))
+					.filter(allMixinConfigs::contains)
+					.toList();
+
+			params.getMixinData().add(new RemapParams.RefmapData(mixinConfigs, source.getRefmapName().get()));
+		}
+	}
+
+	private List<MixinRefmapSource> createMixinRefmapSources() {
+		final MixinExtension mixinExtension = getLoomExtension().getMixin();
+		final List<MixinRefmapSource> sources = new ArrayList<>();
+
 		for (SourceSet sourceSet : mixinExtension.getMixinSourceSets()) {
 			MixinExtension.MixinInformationContainer container = Objects.requireNonNull(
 					MixinExtension.getMixinInformationContainer(sourceSet)
 			);
 
-			final List<String> rootPaths = getRootPaths(sourceSet.getResources().getSrcDirs());
+			final MixinRefmapSource source = getObjectFactory().newInstance(MixinRefmapSource.class);
+			source.getRefmapName().set(container.refmapNameProvider());
+			source.getRootPaths().set(getRootPaths(sourceSet.getResources().getSrcDirs()));
+			source.getMixinConfigs().from(container.sourceSet().getResources().matching(container.mixinConfigPattern()));
+			sources.add(source);
+		}
 
-			final String refmapName = container.refmapNameProvider().get();
-			final List<String> mixinConfigs = container.sourceSet().getResources()
-					.matching(container.mixinConfigPattern())
-					.getFiles()
-					.stream()
-					.map(relativePath(rootPaths))
-					.filter(allMixinConfigs::contains)
-					.toList();
+		return sources;
+	}
+
+	/**
+	 * The mixin configs of a mixin source set, the files are only resolved when the task runs.
+	 */
+	public interface MixinRefmapSource {
+		Property<String> getRefmapName();
+
+		ListProperty<String> getRootPaths();
+
+		ConfigurableFileCollection getMixinConfigs();
+	}
+
+	private void setupIncrementalRemap(RemapParams params) {
+		if (getShareRemapper().get()) {
+			getLogger().info("Incremental remapping is not supported with the multi project optimisation");
+			return;
+		} else if (!getRemapperExtensions().get().isEmpty()) {
+			getLogger().info("Incremental remapping is not supported with remapper extensions");
+			return;
+		} else if (!isReproducibleFileOrder() || isPreserveFileTimestamps()) {
+			getLogger().info("Incremental remapping is only supported for reproducible jars");
+			return;
+		}
+
+		try {
+			params.getIncrementalRemapCacheKey().set(createIncrementalRemapCacheKey());
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to create incremental remap cache key", e);
+		}
+
+		params.getIncrementalRemapCacheDirectory().set(getIncrementalRemapCacheDirectory());
+	}
+
+	// Covers everything that the remapped classes depend on, other than the input classes
+	private String createIncrementalRemapCacheKey() throws IOException {
+		final TinyRemapperService.Options options = getRemapperOptions().get();
+		final List<String> parts = new ArrayList<>();
+
+		parts.add(LoomGradlePlugin.LOOM_VERSION);
+		parts.add(IncrementalRemapCache.VERSION);
+		parts.add(options.from());
+		parts.add(options.to());
+		parts.add(getPlatform().get().id());
+		parts.add("mixinAp=" + !options.useMixinExtension());
+		parts.add("kotlin=" + (options.kotlinVersion() != null ? options.kotlinVersion() : "none"));
+		options.knownIndyBsms().stream().sorted().forEach(parts::add);
+		parts.add("mappings=" + Checksum.fastHex(options.mappingsFile().toPath()));
+
+		for (File file : getClasspath().getFiles()) {
+			hashFileForKey(file.toPath(), parts);
+		}
+
+		for (TinyRemapperService.MixinMappings mixinMappings : options.mixinMappings()) {
+			hashFileForKey(mixinMappings.file().toPath(), parts);
+		}
 
-			params.getMixinData().add(new RemapParams.RefmapData(mixinConfigs, refmapName));
+		return Checksum.sha256Hex(String.join("\n", parts).getBytes(StandardCharsets.UTF_8));
+	}
+
+	static void hashFileForKey(Path path, List<String> parts) throws IOException {
+		if (Files.isRegularFile(path)) {
+			parts.add(path.toAbsolutePath() + "=" + Checksum.fastHex(path));
+		} else if (Files.isDirectory(path)) {
+			try (Stream<Path> walk = Files.walk(path)) {
+				for (Path file : walk.filter(Files::isRegularFile).sorted().toList()) {
+					parts.add(file.toAbsolutePath() + "=" + Checksum.fastHex(file));
+				}
+			}
 		}
 	}
 
@@ -286,8 +480,14 @@ public abstract class RemapJarTask extends AbstractRemapJarTask {
 		record RefmapData(List<String> mixinConfigs, String refmapName) implements Serializable { }
 		ListProperty<RefmapData> getMixinData();
 
-		Property<String> getTinyRemapperBuildServiceUuid();
-		Property<String> getMappingBuildServiceUuid();
+		Property<SharedRemapperBuildService> getSharedRemappers();
+		Property<String> getRemapperId();
+		RegularFileProperty getMappingsFile();
+
+		Property<TelemetryReportService> getTelemetryReport();
+
+		Property<String> getIncrementalRemapCacheKey();
+		DirectoryProperty getIncrementalRemapCacheDirectory();
 	}
 
 	public abstract static class RemapAction extends AbstractRemapAction<RemapParams> {
@@ -297,21 +497,28 @@ public abstract class RemapJarTask extends AbstractRemapJarTask {
 		private @Nullable TinyRemapper tinyRemapper;
 
 		public RemapAction() {
-			this.tinyRemapperService = getParameters().getTinyRemapperBuildServiceUuid().isPresent()
-					? UnsafeWorkQueueHelper.get(getParameters().getTinyRemapperBuildServiceUuid(), TinyRemapperService.class)
+			this.tinyRemapperService = getParameters().getRemapperId().isPresent()
+					? getParameters().getSharedRemappers().get().get(getParameters().getRemapperId().get())
 					: null;
 		}
 
 		@Override
 		public void execute() {
-			try {
+			try (TelemetrySpan span = Telemetry.span("remapJar", getParameters().getTelemetryReport().getOrNull())) {
 				LOGGER.info("Remapping {} to {}", inputFile, outputFile);
+				span.bytes(Files.size(inputFile));
+
+				final @Nullable IncrementalRemapCache incrementalRemapCache = getIncrementalRemapCache();
 
-				if (!getParameters().getMultiProjectOptimisation().getOrElse(false)) {
+				if (!getParameters().getMultiProjectOptimisation().getOrElse(false) && incrementalRemapCache == null) {
 					prepare();
 				}
 
-				if (tinyRemapperService != null) {
+				if (tinyRemapperService != null && incrementalRemapCache != null) {
+					final IncrementalRemapCache.Stats stats = incrementalRemapCache.remap(tinyRemapperService, inputFile, outputFile);
+					span.classes(stats.reused() + stats.remapped()).cacheHits(stats.reused()).cacheMisses(stats.remapped());
+					tinyRemapper = tinyRemapperService.getTinyRemapperForRemapping();
+				} else if (tinyRemapperService != null) {
 					tinyRemapper = tinyRemapperService.getTinyRemapperForRemapping();
 
 					remap();
@@ -329,7 +536,7 @@ public abstract class RemapJarTask extends AbstractRemapJarTask {
 
 				addRefmaps();
 				addNestedJars();
-				ModBuildExtensions.convertAwToAt(getParameters().getAtAccessWideners(), outputFile, getParameters().getMappingBuildServiceUuid());
+				ModBuildExtensions.convertAwToAt(getParameters().getAtAccessWideners(), outputFile, this::createMappingsService);
 
 				if (!getParameters().getPlatform().get().isForgeLike()) {
 					modifyJarManifest();
@@ -342,7 +549,7 @@ public abstract class RemapJarTask extends AbstractRemapJarTask {
 				}
 
 				if (tinyRemapperService != null && !getParameters().getMultiProjectOptimisation().get()) {
-					tinyRemapperService.close();
+					getParameters().getSharedRemappers().get().release(getParameters().getRemapperId().get());
 				}
 
 				LOGGER.debug("Finished remapping {}", inputFile);
@@ -357,6 +564,25 @@ public abstract class RemapJarTask extends AbstractRemapJarTask {
 			}
 		}
 
+		private @Nullable IncrementalRemapCache getIncrementalRemapCache() throws IOException {
+			if (tinyRemapperService == null || !getParameters().getIncrementalRemapCacheKey().isPresent()) {
+				return null;
+			}
+
+			if (!IncrementalRemapCache.supports(inputFile)) {
+				LOGGER.info("Incremental remapping is not supported for multi-release jars");
+				return null;
+			}
+
+			final Path directory = getParameters().getIncrementalRemapCacheDirectory().get().getAsFile().toPath();
+			return new IncrementalRemapCache(directory, getParameters().getIncrementalRemapCacheKey().get());
+		}
+
+		private MappingsService createMappingsService() {
+			final Path mappingsFile = getParameters().getMappingsFile().get().getAsFile().toPath();
+			return MappingsService.create(mappingsFile, getParameters().getSourceNamespace().get(), getParameters().getTargetNamespace().get(), false);
+		}
+
 		private void prepare() {
 			final Path inputFile = getParameters().getInputFile().getAsFile().get().toPath();
 
@@ -483,23 +709,29 @@ public abstract class RemapJarTask extends AbstractRemapJarTask {
 	}
 
 	@Override
-	protected List<String> getClientOnlyEntries(SourceSet clientSourceSet) {
-		final ConfigurableFileCollection output = getProject().getObjects().fileCollection();
+	protected FileCollection getClientOnlyFileTree(SourceSet clientSourceSet) {
+		final ConfigurableFileCollection output = getObjectFactory().fileCollection();
 		output.from(clientSourceSet.getOutput().getClassesDirs());
 		output.from(clientSourceSet.getOutput().getResourcesDir());
+		return output.getAsFileTree();
+	}
 
-		final List<String> rootPaths = new ArrayList<>();
-
-		rootPaths.addAll(getRootPaths(clientSourceSet.getOutput().getClassesDirs().getFiles()));
-		rootPaths.addAll(getRootPaths(Set.of(Objects.requireNonNull(clientSourceSet.getOutput().getResourcesDir()))));
-
-		return output.getAsFileTree().getFiles().stream()
-				.map(relativePath(rootPaths))
-				.toList();
+	@Override
+	protected Set<File> getClientOnlyRoots(SourceSet clientSourceSet) {
+		final Set<File> roots = new LinkedHashSet<>(clientSourceSet.getOutput().getClassesDirs().getFiles());
+		roots.add(Objects.requireNonNull(clientSourceSet.getOutput().getResourcesDir()));
+		return roots;
 	}
 
 	@Internal
 	public TinyRemapperService getTinyRemapperService() {
-		return TinyRemapperService.getOrCreate(serviceManagerProvider.get().get(), this);
+		return getSharedRemappers().get().getOrCreate(
+				getRemapperOptions().get(),
+				getShareRemapper().get(),
+				getRemapperClasspath(),
+				getRemapperExtensions().get(),
+				getKotlinRemapperClassloaderService().get(),
+				getObjectFactory()
+		);
 	}
 }
@@ -24,27 +24,58 @@
 
 package net.fabricmc.loom.task;
 
+import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 import javax.inject.Inject;
 
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.file.FileCollection;
 import org.gradle.api.plugins.JavaPlugin;
 import org.gradle.api.provider.Property;
 import org.gradle.api.provider.Provider;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.LocalState;
 import org.gradle.api.tasks.SourceSet;
 import org.gradle.api.tasks.TaskAction;
+import org.gradle.api.tasks.options.Option;
+import org.jetbrains.annotations.ApiStatus;
 import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import net.fabricmc.loom.LoomGradleExtension;
+import net.fabricmc.loom.LoomGradlePlugin;
+import net.fabricmc.loom.build.remap.IncrementalSourceRemapCache;
 import net.fabricmc.loom.task.service.SourceRemapperService;
+import net.fabricmc.loom.util.Checksum;
+import net.fabricmc.loom.util.SourceRemapper;
 import net.fabricmc.loom.util.service.BuildSharedServiceManager;
 import net.fabricmc.loom.util.service.UnsafeWorkQueueHelper;
 
 public abstract class RemapSourcesJarTask extends AbstractRemapJarTask {
+	/**
+	 * When enabled, the remapped source files are cached between builds and only the source files that changed,
+	 * or that reference a changed source file, are remapped again.
+	 * The cache is only reused while the mappings and the classpath are unchanged.
+	 */
+	@Input
+	@Option(option = "incremental-remap", description = "Only remap the source files that changed since the last build")
+	@ApiStatus.Experimental
+	public abstract Property<Boolean> getIncrementalRemap();
+
+	@LocalState
+	@ApiStatus.Internal
+	public abstract DirectoryProperty getIncrementalRemapCacheDirectory();
+
 	private final Provider<BuildSharedServiceManager> serviceManagerProvider;
 
 	@Inject
@@ -54,6 +85,8 @@ public abstract class RemapSourcesJarTask extends AbstractRemapJarTask {
 
 		getClasspath().from(getProject().getConfigurations().getByName(JavaPlugin.COMPILE_CLASSPATH_CONFIGURATION_NAME));
 		getJarType().set("sources");
+		getIncrementalRemap().convention(false);
+		getIncrementalRemapCacheDirectory().convention(getProject().getLayout().getBuildDirectory().dir("loom-cache/incremental-remap/" + getName()));
 	}
 
 	@TaskAction
@@ -61,19 +94,58 @@ public abstract class RemapSourcesJarTask extends AbstractRemapJarTask {
 		submitWork(RemapSourcesAction.class, params -> {
 			if (!params.namespacesMatch()) {
 				params.getSourcesRemapperServiceUuid().set(UnsafeWorkQueueHelper.create(SourceRemapperService.create(serviceManagerProvider.get().get(), this)));
+
+				if (getIncrementalRemap().get()) {
+					setupIncrementalRemap(params);
+				}
 			}
 		});
 	}
 
+	private void setupIncrementalRemap(RemapSourcesParams params) {
+		try {
+			params.getIncrementalRemapCacheKey().set(createIncrementalRemapCacheKey());
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to create incremental remap cache key", e);
+		}
+
+		params.getIncrementalRemapCacheDirectory().set(getIncrementalRemapCacheDirectory());
+	}
+
+	// Covers everything that the remapped sources depend on, other than the input sources
+	private String createIncrementalRemapCacheKey() throws IOException {
+		final LoomGradleExtension extension = LoomGradleExtension.get(getProject());
+		final List<String> parts = new ArrayList<>();
+
+		parts.add(LoomGradlePlugin.LOOM_VERSION);
+		parts.add(IncrementalSourceRemapCache.VERSION);
+		parts.add(getSourceNamespace().get());
+		parts.add(getTargetNamespace().get());
+		parts.add("release=" + SourceRemapper.getJavaCompileRelease(getProject()));
+		parts.add("mappings=" + Checksum.fastHex(extension.getPlatformMappingFile()));
+
+		for (File file : getClasspath().getFiles()) {
+			RemapJarTask.hashFileForKey(file.toPath(), parts);
+		}
+
+		return Checksum.sha256Hex(String.join("\n", parts).getBytes(StandardCharsets.UTF_8));
+	}
+
+	@Override
+	protected FileCollection getClientOnlyFileTree(SourceSet clientSourceSet) {
+		return clientSourceSet.getAllSource();
+	}
+
 	@Override
-	protected List<String> getClientOnlyEntries(SourceSet clientSourceSet) {
-		return clientSourceSet.getAllSource().getFiles().stream()
-				.map(relativePath(getRootPaths(clientSourceSet.getAllSource().getSrcDirs())))
-				.toList();
+	protected Set<File> getClientOnlyRoots(SourceSet clientSourceSet) {
+		return clientSourceSet.getAllSource().getSrcDirs();
 	}
 
 	public interface RemapSourcesParams extends AbstractRemapParams {
 		Property<String> getSourcesRemapperServiceUuid();
+
+		Property<String> getIncrementalRemapCacheKey();
+		DirectoryProperty getIncrementalRemapCacheDirectory();
 	}
 
 	public abstract static class RemapSourcesAction extends AbstractRemapAction<RemapSourcesParams> {
@@ -93,7 +165,7 @@ public abstract class RemapSourcesJarTask extends AbstractRemapJarTask {
 		public void execute() {
 			try {
 				if (sourceRemapperService != null) {
-					sourceRemapperService.remapSourcesJar(inputFile, outputFile);
+					sourceRemapperService.remapSourcesJar(inputFile, outputFile, getIncrementalRemapCache());
 				} else {
 					Files.copy(inputFile, outputFile, StandardCopyOption.REPLACE_EXISTING);
 				}
@@ -110,5 +182,14 @@ public abstract class RemapSourcesJarTask extends AbstractRemapJarTask {
 				throw new RuntimeException("Failed to remap sources", e);
 			}
 		}
+
+		private @Nullable IncrementalSourceRemapCache getIncrementalRemapCache() {
+			if (!getParameters().getIncrementalRemapCacheKey().isPresent()) {
+				return null;
+			}
+
+			final Path directory = getParameters().getIncrementalRemapCacheDirectory().get().getAsFile().toPath();
+			return new IncrementalSourceRemapCache(directory, getParameters().getIncrementalRemapCacheKey().get());
+		}
 	}
 }
@@ -48,6 +48,13 @@ public final class MappingsService implements SharedService {
 		return sharedServiceManager.getOrCreateService(id, () -> new MappingsService(options));
 	}
 
+	/**
+	 * Creates a service that is not shared, for use in a work action.
+	 */
+	public static MappingsService create(Path mappingsFile, String from, String to, boolean remapLocals) {
+		return new MappingsService(new Options(mappingsFile, from, to, remapLocals));
+	}
+
 	public static MappingsService createDefault(Project project, SharedServiceManager serviceManager, String from, String to) {
 		final MappingConfiguration mappingConfiguration = LoomGradleExtension.get(project).getMappingConfiguration();
 
@@ -0,0 +1,130 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.task.service;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.gradle.api.Project;
+import org.gradle.api.file.FileCollection;
+import org.gradle.api.model.ObjectFactory;
+import org.gradle.api.provider.Provider;
+import org.gradle.api.services.BuildService;
+import org.gradle.api.services.BuildServiceParameters;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.fabricmc.loom.extension.RemapperExtensionHolder;
+import net.fabricmc.loom.util.kotlin.KotlinRemapperClassloaderService;
+
+/**
+ * Owns the remappers of the remap jar tasks, the remappers are shared by the tasks of all projects when the multi project optimisation is enabled.
+ *
+ * <p>The remappers are keyed by {@link TinyRemapperService.Options#id()}, the options are computed at configuration time
+ * so that every project with the same remapper setup finds the same remapper.
+ * The tasks create the remapper, and pass this service and the id to their work actions, which look the remapper up with {@link #get(String)}.
+ */
+public abstract class SharedRemapperBuildService implements BuildService<BuildServiceParameters.None>, AutoCloseable {
+	public static final String NAME = "loomSharedRemappers";
+	private static final Logger LOGGER = LoggerFactory.getLogger(SharedRemapperBuildService.class);
+
+	private final Map<String, TinyRemapperService> remappers = new ConcurrentHashMap<>();
+
+	public static Provider<SharedRemapperBuildService> register(Project project) {
+		return project.getGradle().getSharedServices().registerIfAbsent(NAME, SharedRemapperBuildService.class, spec -> {
+		});
+	}
+
+	/**
+	 * Returns the remapper for the options, when shared the remapper is created by the first task to request it
+	 * and is closed at the end of the build. Otherwise, a new remapper is created that must be released with {@link #release(String)}.
+	 */
+	public TinyRemapperService getOrCreate(TinyRemapperService.Options options, boolean shared, FileCollection classpath, List<RemapperExtensionHolder> remapperExtensions, KotlinRemapperClassloaderService kotlinRemapperClassloaderService, ObjectFactory objectFactory) {
+		final TinyRemapperService service;
+
+		if (shared) {
+			service = remappers.computeIfAbsent(options.id(), id -> {
+				LOGGER.info("Creating shared remapper {}", id);
+				return TinyRemapperService.create(options, remapperExtensions, kotlinRemapperClassloaderService, objectFactory);
+			});
+		} else {
+			service = TinyRemapperService.create(options, remapperExtensions, kotlinRemapperClassloaderService, objectFactory);
+			// The id of a remapper that is not shared includes the project path, so is only replaced when a previous run of the task failed
+			closeRemapper(remappers.put(options.id(), service));
+		}
+
+		service.readClasspath(classpath.getFiles().stream()
+				.filter(File::exists)
+				.map(File::toPath)
+				.toList());
+		return service;
+	}
+
+	/**
+	 * Returns the remapper created by {@link #getOrCreate} for the id.
+	 */
+	public TinyRemapperService get(String id) {
+		final TinyRemapperService service = remappers.get(id);
+
+		if (service == null) {
+			throw new IllegalStateException("No remapper has been created for " + id);
+		}
+
+		return service;
+	}
+
+	/**
+	 * Closes a remapper that is not shared, once its task has finished remapping.
+	 */
+	public void release(String id) {
+		closeRemapper(remappers.remove(id));
+	}
+
+	@Override
+	public void close() {
+		for (TinyRemapperService service : remappers.values()) {
+			closeRemapper(service);
+		}
+
+		remappers.clear();
+	}
+
+	private static void closeRemapper(@Nullable TinyRemapperService service) {
+		if (service == null) {
+			return;
+		}
+
+		try {
+			service.close();
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to close remapper", e);
+		}
+	}
+}
@@ -37,10 +37,12 @@ import org.cadixdev.mercury.Mercury;
 import org.cadixdev.mercury.remapper.MercuryRemapper;
 import org.gradle.api.Project;
 import org.gradle.api.file.ConfigurableFileCollection;
+import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import net.fabricmc.loom.LoomGradleExtension;
+import net.fabricmc.loom.build.remap.IncrementalSourceRemapCache;
 import net.fabricmc.loom.task.RemapSourcesJarTask;
 import net.fabricmc.loom.util.DeletingFileVisitor;
 import net.fabricmc.loom.util.FileSystemUtil;
@@ -78,6 +80,13 @@ public final class SourceRemapperService implements SharedService {
 	}
 
 	public void remapSourcesJar(Path source, Path destination) throws IOException {
+		remapSourcesJar(source, destination, null);
+	}
+
+	/**
+	 * @param incrementalCache the cache of previously remapped source files to reuse, or {@code null} to remap all of them
+	 */
+	public void remapSourcesJar(Path source, Path destination, @Nullable IncrementalSourceRemapCache incrementalCache) throws IOException {
 		if (source.equals(destination)) {
 			throw new UnsupportedOperationException("Cannot remap in place");
 		}
@@ -99,7 +108,7 @@ public final class SourceRemapperService implements SharedService {
 		try (FileSystemUtil.Delegate dstFs = Files.isDirectory(destination) ? null : FileSystemUtil.getJarFileSystem(destination, true)) {
 			Path dstPath = dstFs != null ? dstFs.get().getPath("/") : destination;
 
-			doRemap(srcPath, dstPath, source);
+			doRemap(srcPath, dstPath, source, incrementalCache);
 			SourceRemapper.copyNonJavaFiles(srcPath, dstPath, LOGGER, source);
 		} finally {
 			if (isSrcTmp) {
@@ -108,14 +117,35 @@ public final class SourceRemapperService implements SharedService {
 		}
 	}
 
-	private synchronized void doRemap(Path srcPath, Path dstPath, Path source) {
+	private void doRemap(Path srcPath, Path dstPath, Path source, @Nullable IncrementalSourceRemapCache incrementalCache) {
 		try {
-			mercury.get().rewrite(srcPath, dstPath);
+			if (incrementalCache != null) {
+				incrementalCache.remap(this::rewrite, srcPath, dstPath);
+			} else {
+				rewrite(srcPath, dstPath, null);
+			}
 		} catch (Exception e) {
 			LOGGER.warn("Could not remap " + source + " fully!", e);
 		}
 	}
 
+	private synchronized void rewrite(Path srcPath, Path dstPath, @Nullable Path sourcePath) throws Exception {
+		final Mercury mercury = this.mercury.get();
+
+		if (sourcePath != null) {
+			// Resolves references to the sources that are not being remapped
+			mercury.getSourcePath().add(sourcePath);
+		}
+
+		try {
+			mercury.rewrite(srcPath, dstPath);
+		} finally {
+			if (sourcePath != null) {
+				mercury.getSourcePath().remove(sourcePath);
+			}
+		}
+	}
+
 	private MappingSet getMappings() throws IOException {
 		return new TinyMappingsReader(mappingsService.getMemoryMappingTree(), mappingsService.getFromNamespace(), mappingsService.getToNamespace()).read();
 	}
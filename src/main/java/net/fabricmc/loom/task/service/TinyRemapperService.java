@@ -26,7 +26,9 @@ package net.fabricmc.loom.task.service;
 
 import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.net.URL;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -40,10 +42,13 @@ import java.util.StringJoiner;
 import org.gradle.api.Project;
 import org.gradle.api.artifacts.ConfigurationContainer;
 import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.file.FileCollection;
 import org.gradle.api.invocation.Gradle;
 import org.gradle.api.model.ObjectFactory;
 import org.gradle.api.tasks.SourceSet;
 import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import net.fabricmc.loom.LoomGradleExtension;
 import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
@@ -52,11 +57,12 @@ import net.fabricmc.loom.build.mixin.AnnotationProcessorInvoker;
 import net.fabricmc.loom.extension.RemapperExtensionHolder;
 import net.fabricmc.loom.task.AbstractRemapJarTask;
 import net.fabricmc.loom.util.Constants;
+import net.fabricmc.loom.util.TinyRemapperHelper;
 import net.fabricmc.loom.util.gradle.GradleUtils;
 import net.fabricmc.loom.util.gradle.SourceSetHelper;
-import net.fabricmc.loom.util.kotlin.KotlinClasspath;
 import net.fabricmc.loom.util.kotlin.KotlinClasspathService;
-import net.fabricmc.loom.util.kotlin.KotlinRemapperClassloader;
+import net.fabricmc.loom.util.kotlin.KotlinMetadataRemappingSession;
+import net.fabricmc.loom.util.kotlin.KotlinRemapperClassloaderService;
 import net.fabricmc.loom.util.service.SharedService;
 import net.fabricmc.loom.util.service.SharedServiceManager;
 import net.fabricmc.tinyremapper.IMappingProvider;
@@ -64,16 +70,63 @@ import net.fabricmc.tinyremapper.InputTag;
 import net.fabricmc.tinyremapper.TinyRemapper;
 
 public class TinyRemapperService implements SharedService {
-	public static synchronized TinyRemapperService getOrCreate(SharedServiceManager serviceManager, AbstractRemapJarTask remapJarTask) {
+	private static final Logger LOGGER = LoggerFactory.getLogger(TinyRemapperService.class);
+
+	/**
+	 * Creates the options used to setup the remapper for a remap jar task.
+	 *
+	 * <p>The options only contain serializable state that is computed at configuration time.
+	 */
+	public static Options createOptions(SharedServiceManager serviceManager, AbstractRemapJarTask remapJarTask) {
 		final Project project = remapJarTask.getProject();
 		final String to = remapJarTask.getTargetNamespace().get();
 		final String from = remapJarTask.getSourceNamespace().get();
 		final LoomGradleExtension extension = LoomGradleExtension.get(project);
 		final boolean legacyMixin = extension.getMixin().getUseLegacyMixinAp().get();
 		final @Nullable KotlinClasspathService kotlinClasspathService = KotlinClasspathService.getOrCreateIfRequired(serviceManager, project);
-		boolean multiProjectOptimisation = extension.multiProjectOptimisation();
 
-		// Generates an id that is used to share the remapper across projects. This tasks in the remap jar task name to handle custom remap jar tasks separately.
+		return new Options(
+				createId(remapJarTask, kotlinClasspathService),
+				extension.getPlatformMappingFile().toFile(),
+				from,
+				to,
+				!legacyMixin,
+				legacyMixin ? getMixinMappings(project.getGradle(), extension.getMappingConfiguration().mappingsIdentifier, to) : List.of(),
+				Set.copyOf(extension.getKnownIndyBsms().get()),
+				kotlinClasspathService != null ? kotlinClasspathService.version() : null,
+				kotlinClasspathService != null ? Set.copyOf(kotlinClasspathService.classpath()) : Set.of()
+		);
+	}
+
+	public static TinyRemapperService create(Options options, List<RemapperExtensionHolder> remapperExtensions, KotlinRemapperClassloaderService kotlinRemapperClassloaderService, ObjectFactory objectFactory) {
+		List<IMappingProvider> mappings = new ArrayList<>();
+
+		try {
+			mappings.add(TinyRemapperHelper.create(options.mappingsFile().toPath(), options.from(), options.to(), false));
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to read mappings from: " + options.mappingsFile(), e);
+		}
+
+		if (!options.mixinMappings().isEmpty()) {
+			mappings.add(mixinMappingProvider(options.mixinMappings(), options.from()));
+		}
+
+		final @Nullable KotlinMetadataRemappingSession kotlinSession = options.kotlinVersion() != null
+				? kotlinRemapperClassloaderService.createSession(new KotlinClasspathService(options.kotlinClasspath(), options.kotlinVersion()))
+				: null;
+		return new TinyRemapperService(mappings, options.useMixinExtension(), kotlinSession, options.knownIndyBsms(), remapperExtensions, options.from(), options.to(), objectFactory);
+	}
+
+	/**
+	 * Generates an id that is used to share the remapper across projects.
+	 */
+	static String createId(AbstractRemapJarTask remapJarTask, @Nullable KotlinClasspathService kotlinClasspathService) {
+		final Project project = remapJarTask.getProject();
+		final LoomGradleExtension extension = LoomGradleExtension.get(project);
+		final String to = remapJarTask.getTargetNamespace().get();
+		final String from = remapJarTask.getSourceNamespace().get();
+
+		// This tasks in the remap jar task name to handle custom remap jar tasks separately.
 		final var joiner = new StringJoiner(":");
 		joiner.add(extension.getMappingConfiguration().getBuildServiceName("remapJarService", from, to));
 		joiner.add(remapJarTask.getName());
@@ -82,7 +135,7 @@ public class TinyRemapperService implements SharedService {
 			joiner.add("kotlin-" + kotlinClasspathService.version());
 		}
 
-		if (remapJarTask.getRemapperIsolation().get() || !multiProjectOptimisation) {
+		if (remapJarTask.getRemapperIsolation().get() || !extension.multiProjectOptimisation()) {
 			joiner.add(project.getPath());
 		}
 
@@ -92,25 +145,22 @@ public class TinyRemapperService implements SharedService {
 			joiner.add(extension.getPlatform().get().id());
 		}
 
-		final String id = joiner.toString();
-
-		TinyRemapperService service = serviceManager.getOrCreateService(id, () -> {
-			List<IMappingProvider> mappings = new ArrayList<>();
-			mappings.add(MappingsService.createDefault(project, serviceManager, from, to).getMappingsProvider());
-
-			if (legacyMixin) {
-				mappings.add(gradleMixinMappingProvider(serviceManager, project.getGradle(), extension.getMappingConfiguration().mappingsIdentifier, from, to));
-			}
-
-			return new TinyRemapperService(mappings, !legacyMixin, kotlinClasspathService, extension.getKnownIndyBsms().get(), extension.getRemapperExtensions().get(), from, to, project.getObjects());
-		});
+		return joiner.toString();
+	}
 
+	/**
+	 * Returns the classpath to read into the remapper for a remap jar task, excluding the Minecraft libraries
+	 * and the Minecraft jars that are already read by the root project.
+	 */
+	public static FileCollection getRemapClasspath(AbstractRemapJarTask remapJarTask) {
+		final Project project = remapJarTask.getProject();
+		final LoomGradleExtension extension = LoomGradleExtension.get(project);
 		final ConfigurationContainer configurations = project.getConfigurations();
 		ConfigurableFileCollection excludedMinecraftJars = project.files();
 
 		// Exclude none root minecraft jars.
-		if (multiProjectOptimisation && !extension.isRootProject()) {
-			MappingsNamespace mappingsNamespace = MappingsNamespace.of(from);
+		if (extension.multiProjectOptimisation() && !extension.isRootProject()) {
+			MappingsNamespace mappingsNamespace = MappingsNamespace.of(remapJarTask.getSourceNamespace().get());
 
 			if (mappingsNamespace != null) {
 				for (Path minecraftJar : extension.getMinecraftJars(mappingsNamespace)) {
@@ -118,27 +168,21 @@ public class TinyRemapperService implements SharedService {
 				}
 			} else {
 				// None fatal as this is a performance optimisation.
-				project.getLogger().warn("Unable to find minecraft jar for namespace {}", from);
+				project.getLogger().warn("Unable to find minecraft jar for namespace {}", remapJarTask.getSourceNamespace().get());
 			}
 		}
 
-		List<Path> classPath = remapJarTask.getClasspath()
+		return remapJarTask.getClasspath()
 				.minus(configurations.getByName(Constants.Configurations.MINECRAFT_COMPILE_LIBRARIES))
 				.minus(configurations.getByName(Constants.Configurations.MINECRAFT_RUNTIME_LIBRARIES))
-				.minus(excludedMinecraftJars)
-				.getFiles()
-				.stream()
-				.map(File::toPath)
-				.filter(Files::exists)
-				.toList();
-
-		service.readClasspath(classPath);
-		return service;
+				.minus(excludedMinecraftJars);
 	}
 
-	// Add all of the mixin mappings from all loom projects.
-	private static IMappingProvider gradleMixinMappingProvider(SharedServiceManager serviceManager, Gradle gradle, String mappingId, String from, String to) {
-		return out -> GradleUtils.allLoomProjects(gradle, project -> {
+	// Find the mixin mappings from all loom projects, they are only read once remapping starts as they are created by compiling the projects.
+	private static List<MixinMappings> getMixinMappings(Gradle gradle, String mappingId, String to) {
+		final List<MixinMappings> mixinMappings = new ArrayList<>();
+
+		GradleUtils.allLoomProjects(gradle, project -> {
 			final LoomGradleExtension extension = LoomGradleExtension.get(project);
 
 			if (!mappingId.equals(extension.getMappingConfiguration().mappingsIdentifier)) {
@@ -146,29 +190,60 @@ public class TinyRemapperService implements SharedService {
 				return;
 			}
 
+			final String newTo = IntermediaryNamespaces.replaceMixinIntermediaryNamespace(project, to);
+
 			for (SourceSet sourceSet : SourceSetHelper.getSourceSets(project)) {
-				final File mixinMappings = AnnotationProcessorInvoker.getMixinMappingsForSourceSet(project, sourceSet);
+				mixinMappings.add(new MixinMappings(AnnotationProcessorInvoker.getMixinMappingsForSourceSet(project, sourceSet), newTo));
+			}
+		});
 
-				if (!mixinMappings.exists()) {
+		return List.copyOf(mixinMappings);
+	}
+
+	private static IMappingProvider mixinMappingProvider(List<MixinMappings> mixinMappings, String from) {
+		return out -> {
+			for (MixinMappings mixinMapping : mixinMappings) {
+				if (!mixinMapping.file().exists()) {
 					continue;
 				}
 
-				final String newTo = IntermediaryNamespaces.replaceMixinIntermediaryNamespace(project, to);
-				MappingsService service = MappingsService.create(serviceManager, mixinMappings.getAbsolutePath(), mixinMappings.toPath(), from, newTo, false);
-				service.getMappingsProvider().load(out);
+				try {
+					TinyRemapperHelper.create(mixinMapping.file().toPath(), from, mixinMapping.to(), false).load(out);
+				} catch (IOException e) {
+					throw new UncheckedIOException("Failed to read mixin mappings from: " + mixinMapping.file(), e);
+				}
 			}
-		});
+		};
+	}
+
+	/**
+	 * The serializable state required to create a remapper.
+	 *
+	 * @param id                the id used to share the remapper, see {@link #createId}
+	 * @param mappingsFile      the mappings to remap with
+	 * @param from              the source namespace
+	 * @param to                the target namespace
+	 * @param useMixinExtension whether to remap mixins with the tiny remapper mixin extension, rather than the mixin mappings
+	 * @param mixinMappings     the mixin mappings of all loom projects, when not using the mixin extension
+	 * @param knownIndyBsms     the known invokedynamic bootstrap methods
+	 * @param kotlinVersion     the Kotlin version, or {@code null} when Kotlin metadata is not remapped
+	 * @param kotlinClasspath   the classpath of the Kotlin metadata remapper
+	 */
+	public record Options(String id, File mappingsFile, String from, String to, boolean useMixinExtension, List<MixinMappings> mixinMappings, Set<String> knownIndyBsms, @Nullable String kotlinVersion, Set<URL> kotlinClasspath) implements Serializable {
+	}
+
+	public record MixinMappings(File file, String to) implements Serializable {
 	}
 
 	private TinyRemapper tinyRemapper;
 	@Nullable
-	private KotlinRemapperClassloader kotlinRemapperClassloader;
+	private final KotlinMetadataRemappingSession kotlinSession;
 	private final Map<String, InputTag> inputTagMap = new HashMap<>();
 	private final HashSet<Path> classpath = new HashSet<>();
 	// Set to true once remapping has started, once set no inputs can be read.
 	private boolean isRemapping = false;
 
-	private TinyRemapperService(List<IMappingProvider> mappings, boolean useMixinExtension, @Nullable KotlinClasspath kotlinClasspath, Set<String> knownIndyBsms, List<RemapperExtensionHolder> remapperExtensions, String sourceNamespace, String targetNamespace, ObjectFactory objectFactory) {
+	private TinyRemapperService(List<IMappingProvider> mappings, boolean useMixinExtension, @Nullable KotlinMetadataRemappingSession kotlinSession, Set<String> knownIndyBsms, List<RemapperExtensionHolder> remapperExtensions, String sourceNamespace, String targetNamespace, ObjectFactory objectFactory) {
 		TinyRemapper.Builder builder = TinyRemapper.newRemapper().withKnownIndyBsm(knownIndyBsms);
 
 		for (IMappingProvider provider : mappings) {
@@ -179,9 +254,10 @@ public class TinyRemapperService implements SharedService {
 			builder.extension(new net.fabricmc.tinyremapper.extension.mixin.MixinExtension());
 		}
 
-		if (kotlinClasspath != null) {
-			kotlinRemapperClassloader = KotlinRemapperClassloader.create(kotlinClasspath);
-			builder.extension(kotlinRemapperClassloader.getTinyRemapperExtension());
+		this.kotlinSession = kotlinSession;
+
+		if (kotlinSession != null) {
+			builder.extension(kotlinSession);
 		}
 
 		for (RemapperExtensionHolder holder : remapperExtensions) {
@@ -247,8 +323,9 @@ public class TinyRemapperService implements SharedService {
 			tinyRemapper = null;
 		}
 
-		if (kotlinRemapperClassloader != null) {
-			kotlinRemapperClassloader.close();
+		if (kotlinSession != null) {
+			// The classloader is owned by KotlinRemapperClassloaderService and shared for the rest of the build
+			LOGGER.info("Remapped Kotlin metadata of {} classes", kotlinSession.getRemappedClassCount());
 		}
 	}
 }
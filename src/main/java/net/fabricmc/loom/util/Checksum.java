@@ -34,7 +34,6 @@ import com.google.common.hash.HashCode;
 import com.google.common.hash.Hashing;
 import com.google.common.io.BaseEncoding;
 import com.google.common.io.ByteSource;
-import com.google.common.io.Files;
 import org.gradle.api.Project;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
@@ -48,8 +47,7 @@ public class Checksum {
 		}
 
 		try {
-			HashCode hash = Files.asByteSource(file).hash(Hashing.sha1());
-			String hashString = hash.toString();
+			String hashString = FileDigestService.INSTANCE.digestHex(file.toPath(), FileDigestService.Algorithm.SHA1);
 			log.debug("Checksum check: '" + hashString + "' == '" + checksum + "'?");
 			return hashString.equals(checksum);
 		} catch (IOException e) {
@@ -61,8 +59,7 @@ public class Checksum {
 
 	public static byte[] sha256(File file) {
 		try {
-			HashCode hash = Files.asByteSource(file).hash(Hashing.sha256());
-			return hash.asBytes();
+			return FileDigestService.INSTANCE.digest(file.toPath(), FileDigestService.Algorithm.SHA256).asBytes();
 		} catch (IOException e) {
 			throw new UncheckedIOException("Failed to get file hash", e);
 		}
@@ -74,8 +71,18 @@ public class Checksum {
 	}
 
 	public static String sha1Hex(Path path) throws IOException {
-		HashCode hash = Files.asByteSource(path.toFile()).hash(Hashing.sha1());
-		return toHex(hash.asBytes());
+		return FileDigestService.INSTANCE.digestHex(path, FileDigestService.Algorithm.SHA1);
+	}
+
+	public static String sha256Hex(Path path) throws IOException {
+		return FileDigestService.INSTANCE.digestHex(path, FileDigestService.Algorithm.SHA256);
+	}
+
+	/**
+	 * Hashes a file with a fast non-cryptographic hash function, only use this for internal cache keys.
+	 */
+	public static String fastHex(Path path) throws IOException {
+		return FileDigestService.INSTANCE.digestHex(path, FileDigestService.Algorithm.FAST);
 	}
 
 	public static String sha1Hex(byte[] input) {
@@ -89,8 +96,7 @@ public class Checksum {
 
 	public static String truncatedSha256(File file) {
 		try {
-			HashCode hash = Files.asByteSource(file).hash(Hashing.sha256());
-			return hash.toString().substring(0, 12);
+			return FileDigestService.INSTANCE.digestHex(file.toPath(), FileDigestService.Algorithm.SHA256).substring(0, 12);
 		} catch (IOException e) {
 			throw new UncheckedIOException("Failed to get file hash of " + file, e);
 		}
@@ -160,6 +160,20 @@ public class Constants {
 		public static final String DISABLE_REMAPPED_VARIANTS = "fabric.loom.disableRemappedVariants";
 		public static final String DISABLE_PROJECT_DEPENDENT_MODS = "fabric.loom.disableProjectDependentMods";
 		public static final String LIBRARY_PROCESSORS = "fabric.loom.libraryProcessors";
+		/**
+		 * When set, a JSON report of the time spent in each phase of Loom is written to {@code build/loom-telemetry}.
+		 */
+		public static final String TELEMETRY = "fabric.loom.telemetry";
+		/**
+		 * When set, the genSources decompiler worker is kept alive and reused across tasks and builds.
+		 */
+		@ApiStatus.Experimental
+		public static final String PERSISTENT_DECOMPILE_WORKER = "fabric.loom.genSources.persistentWorker";
+		/**
+		 * The number of minutes that an idle persistent decompiler worker is kept alive for, defaults to 30.
+		 */
+		@ApiStatus.Experimental
+		public static final String PERSISTENT_DECOMPILE_WORKER_IDLE_TIMEOUT = "fabric.loom.genSources.persistentWorkerIdleTimeout";
 		@ApiStatus.Experimental
 		public static final String SANDBOX = "fabric.loom.experimental.sandbox";
 		public static final String ALLOW_MISMATCHED_PLATFORM_VERSION = "loom.allowMismatchedPlatformVersion";
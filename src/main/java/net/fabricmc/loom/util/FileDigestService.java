@@ -0,0 +1,154 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Computes and memoizes file digests for the lifetime of the Gradle daemon.
+ *
+ * <p>Digests are keyed by the file path and algorithm, and are only reused while the size, last modified time
+ * and file key of the file are unchanged. Files that were modified very recently are not memoized,
+ * as a further change within the timestamp granularity of the file system would go unnoticed.
+ */
+public final class FileDigestService {
+	public static final FileDigestService INSTANCE = new FileDigestService();
+
+	// Files larger than this are streamed through a direct buffer, rather than read into memory.
+	// Memory mapping is avoided as the mapping outlives the channel, preventing the file from being replaced on Windows.
+	private static final long STREAMED_THRESHOLD = 1024 * 1024;
+	private static final int BUFFER_SIZE = 1024 * 1024;
+	private static final ThreadLocal<ByteBuffer> BUFFER = ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(BUFFER_SIZE));
+
+	private final Cache<Key, Entry> digests = CacheBuilder.newBuilder()
+			.maximumSize(10_000)
+			.build();
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+
+	private FileDigestService() {
+	}
+
+	public HashCode digest(Path path, Algorithm algorithm) throws IOException {
+		final Key key = new Key(path.toAbsolutePath().normalize(), algorithm);
+		final FileStamp stamp = FileStamp.of(key.path());
+		final @Nullable Entry entry = digests.getIfPresent(key);
+
+		if (entry != null && entry.stamp().equals(stamp)) {
+			hits.incrementAndGet();
+			return entry.hash();
+		}
+
+		misses.incrementAndGet();
+		final HashCode hash = hash(key.path(), stamp.size(), algorithm.function);
+
+		if (!stamp.isRacy() && stamp.equals(FileStamp.of(key.path()))) {
+			digests.put(key, new Entry(stamp, hash));
+		} else {
+			digests.invalidate(key);
+		}
+
+		return hash;
+	}
+
+	public String digestHex(Path path, Algorithm algorithm) throws IOException {
+		return Checksum.toHex(digest(path, algorithm).asBytes());
+	}
+
+	/**
+	 * Forgets any memoized digests of a file, for use after it has been rewritten in place.
+	 */
+	public void invalidate(Path path) {
+		final Path absolutePath = path.toAbsolutePath().normalize();
+
+		for (Algorithm algorithm : Algorithm.values()) {
+			digests.invalidate(new Key(absolutePath, algorithm));
+		}
+	}
+
+	public long hits() {
+		return hits.get();
+	}
+
+	public long misses() {
+		return misses.get();
+	}
+
+	private static HashCode hash(Path path, long size, HashFunction function) throws IOException {
+		if (size < STREAMED_THRESHOLD) {
+			return function.hashBytes(Files.readAllBytes(path));
+		}
+
+		final Hasher hasher = function.newHasher();
+		final ByteBuffer buffer = BUFFER.get();
+
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			buffer.clear();
+
+			while (channel.read(buffer) >= 0) {
+				buffer.flip();
+				hasher.putBytes(buffer);
+				buffer.clear();
+			}
+		}
+
+		return hasher.hash();
+	}
+
+	public enum Algorithm {
+		SHA1(Hashing.sha1()),
+		SHA256(Hashing.sha256()),
+		/**
+		 * A fast non-cryptographic hash, only to be used for internal cache keys.
+		 */
+		FAST(Hashing.murmur3_128());
+
+		private final HashFunction function;
+
+		Algorithm(HashFunction function) {
+			this.function = function;
+		}
+	}
+
+	private record Key(Path path, Algorithm algorithm) {
+	}
+
+	private record Entry(FileStamp stamp, HashCode hash) {
+	}
+}
@@ -0,0 +1,103 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.util;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Memoizes documents parsed from files, such as the Minecraft version metadata, for the lifetime of the Gradle daemon.
+ *
+ * <p>Values are keyed by the file path and the parsed type, and are only reused while the size, last modified time
+ * and file key of the file are unchanged. This allows projects and builds that read the same file to share the parsed value.
+ * The parsed values must not be modified by the caller, as they are shared.
+ */
+public final class ParsedFileCache {
+	public static final ParsedFileCache INSTANCE = new ParsedFileCache();
+
+	private final Cache<Key, Entry> values = CacheBuilder.newBuilder()
+			.maximumSize(256)
+			.softValues()
+			.build();
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+
+	private ParsedFileCache() {
+	}
+
+	public <T> T get(Path path, Class<T> type, Parser<T> parser) throws IOException {
+		final Key key = new Key(path.toAbsolutePath().normalize(), type);
+		final FileStamp stamp = FileStamp.of(key.path());
+		final @Nullable Entry entry = values.getIfPresent(key);
+
+		if (entry != null && entry.stamp().equals(stamp)) {
+			hits.incrementAndGet();
+			return type.cast(entry.value());
+		}
+
+		misses.incrementAndGet();
+		final T value;
+
+		try {
+			value = parser.parse(key.path());
+		} catch (IOException | RuntimeException e) {
+			// Don't keep serving a previous value for a file that can no longer be parsed
+			values.invalidate(key);
+			throw e;
+		}
+
+		if (!stamp.isRacy() && stamp.equals(FileStamp.of(key.path()))) {
+			values.put(key, new Entry(stamp, value));
+		} else {
+			values.invalidate(key);
+		}
+
+		return value;
+	}
+
+	public long hits() {
+		return hits.get();
+	}
+
+	public long misses() {
+		return misses.get();
+	}
+
+	@FunctionalInterface
+	public interface Parser<T> {
+		T parse(Path path) throws IOException;
+	}
+
+	private record Key(Path path, Class<?> type) {
+	}
+
+	private record Entry(FileStamp stamp, Object value) {
+	}
+}
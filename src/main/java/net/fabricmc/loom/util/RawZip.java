@@ -0,0 +1,586 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Reads and writes the raw records of a zip file, so that entries can be reordered, re-timestamped
+ * or appended to without inflating and deflating them again.
+ *
+ * <p>Entries are written with the same layout as {@link java.util.zip.ZipOutputStream} uses,
+ * so copying a zip file entry by entry through either produces the same bytes.
+ * Zip64, multi-disk and encrypted archives, compression methods other than STORED and DEFLATED
+ * and non-ASCII entry names that are not flagged as UTF-8 are not supported:
+ * {@link #read} returns {@code null} for them and the {@link Writer} throws an {@link UnsupportedZipException}
+ * when an archive would need zip64, so that the caller can fall back to {@link java.util.zip}.
+ */
+final class RawZip {
+	private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+	private static final int DATA_DESCRIPTOR_SIGNATURE = 0x08074b50;
+	private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+	private static final int END_SIGNATURE = 0x06054b50;
+	private static final int ZIP64_LOCATOR_SIGNATURE = 0x07064b50;
+
+	private static final int LOCAL_HEADER_SIZE = 30;
+	private static final int DATA_DESCRIPTOR_SIZE = 16;
+	private static final int CENTRAL_HEADER_SIZE = 46;
+	private static final int END_SIZE = 22;
+	private static final int ZIP64_LOCATOR_SIZE = 20;
+	private static final int MAX_COMMENT_SIZE = 0xFFFF;
+
+	private static final int FLAG_ENCRYPTED = 0x1;
+	private static final int FLAG_DATA_DESCRIPTOR = 0x8;
+	private static final int FLAG_UTF8 = 0x800;
+
+	private static final long MAX_SIZE = 0xFFFFFFFFL;
+	private static final int MAX_ENTRIES = 0xFFFF;
+
+	/**
+	 * The DOS date and time of 1980-01-01 00:00, as written by {@link ZipEntry#setTime} for that date in any time zone.
+	 */
+	static final int CONSTANT_DOS_TIME = 0x00210000;
+
+	private RawZip() {
+	}
+
+	/**
+	 * An entry of the central directory.
+	 *
+	 * @param dosTime the DOS date (high 16 bits) and time (low 16 bits)
+	 */
+	record Entry(String name, int versionMadeBy, int method, int dosTime, long crc, long compressedSize, long size,
+				byte[] extra, byte[] comment, long externalAttributes, long localHeaderOffset) {
+		/**
+		 * Returns this entry with a constant time stamp and without any of the metadata that a new {@link ZipEntry} would not have.
+		 */
+		Entry withConstantMetadata() {
+			return new Entry(name, versionNeeded(method), method, CONSTANT_DOS_TIME, crc, compressedSize, size, new byte[0], new byte[0], 0, localHeaderOffset);
+		}
+
+		/**
+		 * Returns this entry with a different compression method, for use with {@link Writer#write}.
+		 */
+		Entry withMethod(int method) {
+			final int versionMadeBy = (this.versionMadeBy & 0xFF00) | versionNeeded(method);
+			return new Entry(name, versionMadeBy, method, dosTime, crc, compressedSize, size, extra, comment, externalAttributes, localHeaderOffset);
+		}
+
+		private Entry withData(long crc, long compressedSize, long size) {
+			return new Entry(name, versionMadeBy, method, dosTime, crc, compressedSize, size, extra, comment, externalAttributes, localHeaderOffset);
+		}
+	}
+
+	/**
+	 * @param entries                the entries in the order of the central directory
+	 * @param centralDirectoryOffset the offset of the start of the central directory
+	 * @param centralDirectorySize   the size of the central directory
+	 * @param comment                the archive comment
+	 */
+	record Archive(List<Entry> entries, long centralDirectoryOffset, long centralDirectorySize, byte[] comment) {
+	}
+
+	/**
+	 * The uncompressed size, CRC-32 and compressed data of an entry.
+	 */
+	record Data(long size, long crc, byte[] compressed) {
+	}
+
+	/**
+	 * Thrown when a zip file cannot be written without zip64.
+	 */
+	static final class UnsupportedZipException extends ZipException {
+		UnsupportedZipException(String message) {
+			super(message);
+		}
+	}
+
+	/**
+	 * Creates a new entry with a constant time stamp, to be written with {@link Writer#write}.
+	 */
+	static Entry newEntry(String name, int method) {
+		return new Entry(name, versionNeeded(method), method, CONSTANT_DOS_TIME, 0, 0, 0, new byte[0], new byte[0], 0, 0);
+	}
+
+	/**
+	 * Compresses data with the given method.
+	 */
+	static Data compress(byte[] data, int method) {
+		final var crc = new CRC32();
+		crc.update(data);
+		return new Data(data.length, crc.getValue(), method == ZipEntry.DEFLATED ? deflate(data) : data);
+	}
+
+	/**
+	 * Returns whether a zip file of the given size and number of entries can be written without zip64.
+	 */
+	static boolean fits(long size, int entryCount) {
+		return size < MAX_SIZE && entryCount < MAX_ENTRIES;
+	}
+
+	/**
+	 * Reads the central directory of a zip file.
+	 *
+	 * @return the archive, or {@code null} if the zip file uses features that are not supported
+	 */
+	static @Nullable Archive read(FileChannel channel) throws IOException {
+		final long fileSize = channel.size();
+
+		if (fileSize < END_SIZE) {
+			throw new ZipException("Zip file is too small");
+		}
+
+		// Find the end of central directory record, searching backwards as it may be followed by a comment
+		final int searchSize = (int) Math.min(fileSize, END_SIZE + MAX_COMMENT_SIZE);
+		final ByteBuffer tail = readFully(channel, fileSize - searchSize, searchSize);
+		int endPosition = -1;
+
+		for (int i = searchSize - END_SIZE; i >= 0; i--) {
+			if (tail.getInt(i) == END_SIGNATURE && i + END_SIZE + Short.toUnsignedInt(tail.getShort(i + 20)) == searchSize) {
+				endPosition = i;
+				break;
+			}
+		}
+
+		if (endPosition < 0) {
+			throw new ZipException("End of central directory not found");
+		}
+
+		final long endOffset = fileSize - searchSize + endPosition;
+
+		if (endOffset >= ZIP64_LOCATOR_SIZE && readFully(channel, endOffset - ZIP64_LOCATOR_SIZE, 4).getInt(0) == ZIP64_LOCATOR_SIGNATURE) {
+			return null;
+		}
+
+		final int disk = Short.toUnsignedInt(tail.getShort(endPosition + 4));
+		final int centralDirectoryDisk = Short.toUnsignedInt(tail.getShort(endPosition + 6));
+		final int diskEntryCount = Short.toUnsignedInt(tail.getShort(endPosition + 8));
+		final int entryCount = Short.toUnsignedInt(tail.getShort(endPosition + 10));
+		final long centralDirectorySize = Integer.toUnsignedLong(tail.getInt(endPosition + 12));
+		final long centralDirectoryOffset = Integer.toUnsignedLong(tail.getInt(endPosition + 16));
+		final byte[] comment = new byte[Short.toUnsignedInt(tail.getShort(endPosition + 20))];
+		tail.get(endPosition + END_SIZE, comment);
+
+		if (disk != 0 || centralDirectoryDisk != 0 || diskEntryCount != entryCount || entryCount == MAX_ENTRIES) {
+			return null;
+		}
+
+		if (centralDirectoryOffset + centralDirectorySize != endOffset) {
+			// Either zip64, or data has been prepended to the zip file
+			return null;
+		}
+
+		final ByteBuffer central = readFully(channel, centralDirectoryOffset, (int) centralDirectorySize);
+		final List<Entry> entries = new ArrayList<>(entryCount);
+		int position = 0;
+
+		for (int i = 0; i < entryCount; i++) {
+			if (position + CENTRAL_HEADER_SIZE > central.limit() || central.getInt(position) != CENTRAL_HEADER_SIGNATURE) {
+				throw new ZipException("Invalid central directory header");
+			}
+
+			final int versionMadeBy = Short.toUnsignedInt(central.getShort(position + 4));
+			final int flags = Short.toUnsignedInt(central.getShort(position + 8));
+			final int method = Short.toUnsignedInt(central.getShort(position + 10));
+			final int dosTime = central.getInt(position + 12);
+			final long crc = Integer.toUnsignedLong(central.getInt(position + 16));
+			final long compressedSize = Integer.toUnsignedLong(central.getInt(position + 20));
+			final long size = Integer.toUnsignedLong(central.getInt(position + 24));
+			final int nameLength = Short.toUnsignedInt(central.getShort(position + 28));
+			final int extraLength = Short.toUnsignedInt(central.getShort(position + 30));
+			final int commentLength = Short.toUnsignedInt(central.getShort(position + 32));
+			final long externalAttributes = Integer.toUnsignedLong(central.getInt(position + 38));
+			final long localHeaderOffset = Integer.toUnsignedLong(central.getInt(position + 42));
+
+			if ((flags & FLAG_ENCRYPTED) != 0 || (method != ZipEntry.STORED && method != ZipEntry.DEFLATED)) {
+				return null;
+			}
+
+			if (compressedSize == MAX_SIZE || size == MAX_SIZE || localHeaderOffset == MAX_SIZE) {
+				return null;
+			}
+
+			position += CENTRAL_HEADER_SIZE;
+			final byte[] name = new byte[nameLength];
+			final byte[] extra = new byte[extraLength];
+			final byte[] entryComment = new byte[commentLength];
+			central.get(position, name);
+			central.get(position + nameLength, extra);
+			central.get(position + nameLength + extraLength, entryComment);
+			position += nameLength + extraLength + commentLength;
+
+			if ((flags & FLAG_UTF8) == 0 && !isAscii(name)) {
+				// The name is in an unknown legacy encoding, while the writer always flags names as UTF-8
+				return null;
+			}
+
+			entries.add(new Entry(new String(name, StandardCharsets.UTF_8), versionMadeBy, method, dosTime, crc, compressedSize, size, extra, entryComment, externalAttributes, localHeaderOffset));
+		}
+
+		return new Archive(Collections.unmodifiableList(entries), centralDirectoryOffset, centralDirectorySize, comment);
+	}
+
+	/**
+	 * Reads the extra field of the local header of an entry.
+	 */
+	static byte[] readLocalExtra(FileChannel channel, Entry entry) throws IOException {
+		final ByteBuffer header = readLocalHeader(channel, entry);
+		final int nameLength = Short.toUnsignedInt(header.getShort(26));
+		final int extraLength = Short.toUnsignedInt(header.getShort(28));
+		final byte[] extra = new byte[extraLength];
+		readFully(channel, entry.localHeaderOffset() + LOCAL_HEADER_SIZE + nameLength, extraLength).get(0, extra);
+		return extra;
+	}
+
+	/**
+	 * Returns the offset of the compressed data of an entry.
+	 */
+	static long dataOffset(FileChannel channel, Entry entry) throws IOException {
+		final ByteBuffer header = readLocalHeader(channel, entry);
+		return entry.localHeaderOffset() + LOCAL_HEADER_SIZE + Short.toUnsignedInt(header.getShort(26)) + Short.toUnsignedInt(header.getShort(28));
+	}
+
+	/**
+	 * Reads the data of an entry, converting it to the given compression method.
+	 * This is thread safe, so that entries can be recompressed in parallel.
+	 */
+	static Data readData(FileChannel channel, Entry entry, int method) throws IOException {
+		final byte[] raw = new byte[Math.toIntExact(entry.compressedSize())];
+		readFully(channel, dataOffset(channel, entry), raw.length).get(0, raw);
+
+		if (entry.method() == method) {
+			return new Data(entry.size(), entry.crc(), raw);
+		}
+
+		final byte[] uncompressed = entry.method() == ZipEntry.DEFLATED ? inflate(raw, entry.size()) : raw;
+		return new Data(entry.size(), entry.crc(), method == ZipEntry.DEFLATED ? deflate(uncompressed) : uncompressed);
+	}
+
+	private static byte[] deflate(byte[] data) {
+		final var deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+
+		try {
+			deflater.setInput(data);
+			deflater.finish();
+
+			final var output = new ByteArrayOutputStream(Math.max(64, data.length / 2));
+			final byte[] buffer = new byte[8192];
+
+			while (!deflater.finished()) {
+				final int length = deflater.deflate(buffer);
+				output.write(buffer, 0, length);
+			}
+
+			return output.toByteArray();
+		} finally {
+			deflater.end();
+		}
+	}
+
+	private static byte[] inflate(byte[] data, long size) throws ZipException {
+		final var inflater = new Inflater(true);
+
+		try {
+			inflater.setInput(data);
+			final byte[] output = new byte[Math.toIntExact(size)];
+			int length = 0;
+
+			while (length < output.length && !inflater.finished()) {
+				final int read = inflater.inflate(output, length, output.length - length);
+
+				if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+					break;
+				}
+
+				length += read;
+			}
+
+			if (length != output.length) {
+				throw new ZipException("Invalid entry size (expected %d but got %d bytes)".formatted(size, length));
+			}
+
+			return output;
+		} catch (DataFormatException e) {
+			throw new ZipException("Invalid deflated data: " + e.getMessage());
+		} finally {
+			inflater.end();
+		}
+	}
+
+	private static ByteBuffer readLocalHeader(FileChannel channel, Entry entry) throws IOException {
+		final ByteBuffer header = readFully(channel, entry.localHeaderOffset(), LOCAL_HEADER_SIZE);
+
+		if (header.getInt(0) != LOCAL_HEADER_SIGNATURE) {
+			throw new ZipException("Invalid local header for " + entry.name());
+		}
+
+		return header;
+	}
+
+	private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+		final ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, position + buffer.position()) < 0) {
+				throw new ZipException("Unexpected end of zip file");
+			}
+		}
+
+		return buffer.flip();
+	}
+
+	private static boolean isAscii(byte[] bytes) {
+		for (byte b : bytes) {
+			if (b < 0) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private static int versionNeeded(int method) {
+		return method == ZipEntry.DEFLATED ? 20 : 10;
+	}
+
+	/**
+	 * Writes the entries of a zip file, followed by the central directory once {@link #finish} is called.
+	 * The channel must not be used by anything else until the writer is finished.
+	 */
+	static final class Writer {
+		private final FileChannel channel;
+		private final ByteBuffer header = ByteBuffer.allocate(LOCAL_HEADER_SIZE + MAX_COMMENT_SIZE * 2).order(ByteOrder.LITTLE_ENDIAN);
+		private final ByteBuffer central = ByteBuffer.allocate(1024 * 1024).order(ByteOrder.LITTLE_ENDIAN);
+		private final List<byte[]> centralChunks = new ArrayList<>();
+		private long position;
+		private long centralSize = 0;
+		private int entryCount = 0;
+
+		private Writer(FileChannel channel, long position) throws IOException {
+			this.channel = channel.position(position);
+			this.position = position;
+		}
+
+		/**
+		 * Creates a writer that writes a new zip file to an empty channel.
+		 */
+		static Writer create(FileChannel channel) throws IOException {
+			return new Writer(channel, 0);
+		}
+
+		/**
+		 * Creates a writer that appends entries to an existing zip file in place.
+		 * The new entries overwrite the existing central directory, which is written again after them when the writer is finished.
+		 */
+		static Writer append(FileChannel channel, Archive archive) throws IOException {
+			final byte[] existingCentral = readFully(channel, archive.centralDirectoryOffset(), Math.toIntExact(archive.centralDirectorySize())).array();
+			final var writer = new Writer(channel, archive.centralDirectoryOffset());
+			writer.centralChunks.add(existingCentral);
+			writer.centralSize = existingCentral.length;
+			writer.entryCount = archive.entries().size();
+			return writer;
+		}
+
+		/**
+		 * Copies an entry from another zip file without inflating it.
+		 *
+		 * @param entry      the entry to write, its data is read from the source at its local header offset
+		 * @param localExtra the extra field of the local header
+		 */
+		void copy(FileChannel source, Entry entry, byte[] localExtra) throws IOException {
+			final long dataOffset = dataOffset(source, entry);
+			final long localHeaderOffset = writeLocalHeader(entry, localExtra);
+			long transferred = 0;
+
+			while (transferred < entry.compressedSize()) {
+				final long count = source.transferTo(dataOffset + transferred, entry.compressedSize() - transferred, channel);
+
+				if (count <= 0) {
+					throw new ZipException("Unexpected end of zip file");
+				}
+
+				transferred += count;
+			}
+
+			position += transferred;
+			writeDataDescriptor(entry);
+			addCentralHeader(entry, localHeaderOffset);
+		}
+
+		/**
+		 * Writes an entry with the given data, which must be compressed with the entry's method.
+		 */
+		void write(Entry entry, byte[] localExtra, Data data) throws IOException {
+			final Entry dataEntry = entry.withData(data.crc(), data.compressed().length, data.size());
+			final long localHeaderOffset = writeLocalHeader(dataEntry, localExtra);
+			writeBuffer(ByteBuffer.wrap(data.compressed()));
+			writeDataDescriptor(dataEntry);
+			addCentralHeader(dataEntry, localHeaderOffset);
+		}
+
+		private long writeLocalHeader(Entry entry, byte[] localExtra) throws IOException {
+			final byte[] name = entry.name().getBytes(StandardCharsets.UTF_8);
+			final boolean dataDescriptor = entry.method() == ZipEntry.DEFLATED;
+			final long localHeaderOffset = position;
+
+			checkSize(position + LOCAL_HEADER_SIZE + name.length + localExtra.length + entry.compressedSize() + DATA_DESCRIPTOR_SIZE);
+
+			if (entryCount + 1 >= MAX_ENTRIES) {
+				throw new UnsupportedZipException("Too many zip entries");
+			}
+
+			header.clear();
+			header.putInt(LOCAL_HEADER_SIGNATURE);
+			header.putShort((short) versionNeeded(entry.method()));
+			header.putShort((short) flags(entry));
+			header.putShort((short) entry.method());
+			header.putInt(entry.dosTime());
+			// Like ZipOutputStream, the CRC and sizes of deflated entries are only written to the data descriptor
+			header.putInt(dataDescriptor ? 0 : (int) entry.crc());
+			header.putInt(dataDescriptor ? 0 : (int) entry.compressedSize());
+			header.putInt(dataDescriptor ? 0 : (int) entry.size());
+			header.putShort((short) name.length);
+			header.putShort((short) localExtra.length);
+			header.put(name);
+			header.put(localExtra);
+			writeBuffer(header.flip());
+
+			return localHeaderOffset;
+		}
+
+		private void writeDataDescriptor(Entry entry) throws IOException {
+			if (entry.method() != ZipEntry.DEFLATED) {
+				return;
+			}
+
+			header.clear();
+			header.putInt(DATA_DESCRIPTOR_SIGNATURE);
+			header.putInt((int) entry.crc());
+			header.putInt((int) entry.compressedSize());
+			header.putInt((int) entry.size());
+			writeBuffer(header.flip());
+		}
+
+		private void addCentralHeader(Entry entry, long localHeaderOffset) {
+			final byte[] name = entry.name().getBytes(StandardCharsets.UTF_8);
+			final int size = CENTRAL_HEADER_SIZE + name.length + entry.extra().length + entry.comment().length;
+
+			if (central.remaining() < size) {
+				flushCentral();
+			}
+
+			central.putInt(CENTRAL_HEADER_SIGNATURE);
+			central.putShort((short) entry.versionMadeBy());
+			central.putShort((short) versionNeeded(entry.method()));
+			central.putShort((short) flags(entry));
+			central.putShort((short) entry.method());
+			central.putInt(entry.dosTime());
+			central.putInt((int) entry.crc());
+			central.putInt((int) entry.compressedSize());
+			central.putInt((int) entry.size());
+			central.putShort((short) name.length);
+			central.putShort((short) entry.extra().length);
+			central.putShort((short) entry.comment().length);
+			central.putShort((short) 0); // Disk number
+			central.putShort((short) 0); // Internal attributes
+			central.putInt((int) entry.externalAttributes());
+			central.putInt((int) localHeaderOffset);
+			central.put(name);
+			central.put(entry.extra());
+			central.put(entry.comment());
+
+			centralSize += size;
+			entryCount++;
+		}
+
+		private void flushCentral() {
+			final byte[] chunk = new byte[central.position()];
+			central.flip().get(chunk);
+			central.clear();
+			centralChunks.add(chunk);
+		}
+
+		/**
+		 * Writes the central directory and the end of central directory record, and truncates anything after them.
+		 */
+		void finish(byte[] comment) throws IOException {
+			final long centralOffset = position;
+			flushCentral();
+
+			for (byte[] chunk : centralChunks) {
+				writeBuffer(ByteBuffer.wrap(chunk));
+			}
+
+			centralChunks.clear();
+			checkSize(position + END_SIZE + comment.length);
+
+			header.clear();
+			header.putInt(END_SIGNATURE);
+			header.putShort((short) 0); // Disk number
+			header.putShort((short) 0); // Central directory disk number
+			header.putShort((short) entryCount);
+			header.putShort((short) entryCount);
+			header.putInt((int) centralSize);
+			header.putInt((int) centralOffset);
+			header.putShort((short) comment.length);
+			header.put(comment);
+			writeBuffer(header.flip());
+
+			channel.truncate(position);
+		}
+
+		private void writeBuffer(ByteBuffer buffer) throws IOException {
+			while (buffer.hasRemaining()) {
+				position += channel.write(buffer);
+			}
+		}
+
+		private static void checkSize(long size) throws UnsupportedZipException {
+			if (size >= MAX_SIZE) {
+				throw new UnsupportedZipException("Zip file is too large");
+			}
+		}
+
+		private static int flags(Entry entry) {
+			return FLAG_UTF8 | (entry.method() == ZipEntry.DEFLATED ? FLAG_DATA_DESCRIPTOR : 0);
+		}
+	}
+}
@@ -26,14 +26,30 @@ package net.fabricmc.loom.util;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.GregorianCalendar;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Predicate;
 import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
 import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
 import java.util.zip.ZipFile;
 import java.util.zip.ZipOutputStream;
 
@@ -91,6 +107,13 @@ public class ZipReprocessorUtil {
 		reprocessZip(file, reproducibleFileOrder, preserveFileTimestamps, ZipEntryCompression.DEFLATED);
 	}
 
+	/**
+	 * Rewrites a zip file with a reproducible entry order and/or constant time stamps.
+	 *
+	 * <p>The compressed data of the entries is copied as is, only the entries that need a different compression method
+	 * are recompressed, in parallel. Zip files that cannot be copied this way (for example zip64 files) are reprocessed
+	 * by inflating and deflating every entry.
+	 */
 	public static void reprocessZip(Path file, boolean reproducibleFileOrder, boolean preserveFileTimestamps, ZipEntryCompression zipEntryCompression) throws IOException {
 		if (!reproducibleFileOrder && preserveFileTimestamps) {
 			return;
@@ -98,6 +121,117 @@ public class ZipReprocessorUtil {
 
 		final Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
 
+		try {
+			if (!reprocessZipRaw(file, tempFile, reproducibleFileOrder, preserveFileTimestamps, zipEntryCompressionMethod(zipEntryCompression))) {
+				reprocessZipStreaming(file, tempFile, reproducibleFileOrder, preserveFileTimestamps, zipEntryCompression);
+			}
+
+			Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+		} finally {
+			Files.deleteIfExists(tempFile);
+		}
+	}
+
+	/**
+	 * @return {@code false} if the zip file is not supported by {@link RawZip}
+	 */
+	private static boolean reprocessZipRaw(Path file, Path tempFile, boolean reproducibleFileOrder, boolean preserveFileTimestamps, int method) throws IOException {
+		try (FileChannel input = FileChannel.open(file, StandardOpenOption.READ);
+				FileChannel output = FileChannel.open(tempFile, StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			final RawZip.Archive archive = RawZip.read(input);
+
+			if (archive == null) {
+				return false;
+			}
+
+			List<RawZip.Entry> entries = archive.entries();
+
+			if (reproducibleFileOrder) {
+				entries = entries.stream()
+						.sorted(Comparator.comparing(RawZip.Entry::name, ZipReprocessorUtil::specialOrdering))
+						.toList();
+			}
+
+			checkDuplicateEntries(entries);
+
+			final RawZip.Writer writer = RawZip.Writer.create(output);
+			// Recompressed entries are kept in memory until they are written, so only work a few entries ahead
+			final int threads = Runtime.getRuntime().availableProcessors();
+			final int window = threads * 4;
+			final List<Future<RawZip.Data>> recompressed = new ArrayList<>(Collections.nCopies(entries.size(), null));
+			ExecutorService executor = null;
+
+			try {
+				int submitted = 0;
+
+				for (int i = 0; i < entries.size(); i++) {
+					for (; submitted < entries.size() && submitted < i + window; submitted++) {
+						final RawZip.Entry entry = entries.get(submitted);
+
+						if (entry.method() != method) {
+							if (executor == null) {
+								executor = Executors.newFixedThreadPool(threads);
+							}
+
+							recompressed.set(submitted, executor.submit(() -> RawZip.readData(input, entry, method)));
+						}
+					}
+
+					RawZip.Entry entry = entries.get(i);
+					final byte[] localExtra = preserveFileTimestamps ? RawZip.readLocalExtra(input, entry) : new byte[0];
+
+					if (!preserveFileTimestamps) {
+						entry = entry.withConstantMetadata();
+					}
+
+					final Future<RawZip.Data> data = recompressed.set(i, null);
+
+					if (data == null) {
+						writer.copy(input, entry, localExtra);
+					} else {
+						writer.write(entry.withMethod(method), localExtra, getData(data));
+					}
+				}
+
+				writer.finish(preserveFileTimestamps ? archive.comment() : new byte[0]);
+			} catch (RawZip.UnsupportedZipException e) {
+				return false;
+			} finally {
+				if (executor != null) {
+					executor.shutdownNow();
+				}
+			}
+		}
+
+		return true;
+	}
+
+	private static RawZip.Data getData(Future<RawZip.Data> future) throws IOException {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while recompressing zip entries", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException ioException) {
+				throw ioException;
+			}
+
+			throw new IOException("Failed to recompress zip entry", e.getCause());
+		}
+	}
+
+	private static void checkDuplicateEntries(List<RawZip.Entry> entries) throws ZipException {
+		final Set<String> names = new HashSet<>();
+
+		for (RawZip.Entry entry : entries) {
+			if (!names.add(entry.name())) {
+				throw new ZipException("duplicate entry: " + entry.name());
+			}
+		}
+	}
+
+	private static void reprocessZipStreaming(Path file, Path tempFile, boolean reproducibleFileOrder, boolean preserveFileTimestamps, ZipEntryCompression zipEntryCompression) throws IOException {
 		try (var zipFile = new ZipFile(file.toFile());
 				var fileOutputStream = Files.newOutputStream(tempFile)) {
 			ZipEntry[] entries;
@@ -132,8 +266,6 @@ public class ZipReprocessorUtil {
 				}
 			}
 		}
-
-		Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
 	}
 
 	/**
@@ -142,32 +274,184 @@ public class ZipReprocessorUtil {
 	 * This method should only be used when a reproducible output is required, use {@link ZipUtils#add(Path, String, byte[])} normally.
 	 */
 	public static void appendZipEntry(Path file, String path, byte[] data) throws IOException {
+		// The entry is appended to a copy, so that the zip file is never left half written
 		final Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
 
-		try (var zipFile = new ZipFile(file.toFile());
-				var fileOutputStream = Files.newOutputStream(tempFile)) {
-			ZipEntry[] entries = zipFile.stream().toArray(ZipEntry[]::new);
+		try {
+			if (!appendZipEntryRaw(file, tempFile, path, data)) {
+				appendZipEntries(file, tempFile, Map.of(path, data));
+			}
 
-			try (var zipOutputStream = new ZipOutputStream(fileOutputStream)) {
-				// Copy existing entries
-				for (ZipEntry entry : entries) {
-					if (entry.getName().equals(path)) {
-						throw new IllegalArgumentException("Zip file (%s) already contains entry (%s)".formatted(file.getFileName().toString(), path));
-					}
+			Files.move(tempFile, file, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(tempFile);
+		}
+	}
+
+	private static boolean appendZipEntryRaw(Path file, Path tempFile, String path, byte[] data) throws IOException {
+		final RawZip.Data compressed = RawZip.compress(data, ZipEntry.DEFLATED);
+		final RawZip.Archive archive;
+
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			archive = RawZip.read(channel);
+
+			// Leave plenty of room for the headers
+			if (archive == null || !RawZip.fits(channel.size() + compressed.compressed().length + path.length() * 8L + 1024, archive.entries().size() + 1)) {
+				return false;
+			}
+		}
+
+		checkNewEntries(file, archive.entries(), Map.of(path, data));
+		Files.copy(file, tempFile, StandardCopyOption.REPLACE_EXISTING);
 
-					copyZipEntry(zipOutputStream, entry, zipFile.getInputStream(entry));
+		try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			// Write the new entry over the central directory of the copy, which is then written again after it
+			final RawZip.Writer writer = RawZip.Writer.append(channel, archive);
+			writer.write(RawZip.newEntry(path, ZipEntry.DEFLATED), new byte[0], compressed);
+			writer.finish(archive.comment());
+		}
+
+		return true;
+	}
+
+	/**
+	 * Copies a zip file to a new location in a single pass, appending the given entries to the end of it.
+	 * The existing entry order and time stamps are preserved, and the new entries are added with a constant time stamp.
+	 */
+	public static void appendZipEntries(Path input, Path output, Map<String, byte[]> newEntries) throws IOException {
+		copyZipEntries(input, output, name -> true, newEntries, false);
+	}
+
+	/**
+	 * Copies the entries of a zip file that match the filter to a new location in a single pass, without inflating and deflating them again.
+	 * The order and time stamps of the copied entries are preserved. The given entries are written before them with a constant time stamp,
+	 * so that a jar manifest can be found by {@link java.util.jar.JarInputStream}.
+	 */
+	public static void filterZipEntries(Path input, Path output, Predicate<String> filter, Map<String, byte[]> leadingEntries) throws IOException {
+		copyZipEntries(input, output, filter, leadingEntries, true);
+	}
+
+	private static void copyZipEntries(Path input, Path output, Predicate<String> filter, Map<String, byte[]> newEntries, boolean newEntriesFirst) throws IOException {
+		if (copyZipEntriesRaw(input, output, filter, newEntries, newEntriesFirst)) {
+			return;
+		}
+
+		try (var zipFile = new ZipFile(input.toFile());
+				var zipOutputStream = new ZipOutputStream(Files.newOutputStream(output))) {
+			if (newEntriesFirst) {
+				writeNewEntries(zipOutputStream, newEntries);
+			}
+
+			// Copy existing entries
+			for (ZipEntry entry : Collections.list(zipFile.entries())) {
+				if (!filter.test(entry.getName())) {
+					continue;
+				}
+
+				if (newEntries.containsKey(entry.getName())) {
+					throw new IllegalArgumentException("Zip file (%s) already contains entry (%s)".formatted(input.getFileName().toString(), entry.getName()));
+				}
+
+				copyZipEntry(zipOutputStream, entry, zipFile.getInputStream(entry));
+			}
+
+			if (!newEntriesFirst) {
+				writeNewEntries(zipOutputStream, newEntries);
+			}
+		}
+	}
+
+	private static void writeNewEntries(ZipOutputStream zipOutputStream, Map<String, byte[]> newEntries) throws IOException {
+		for (Map.Entry<String, byte[]> newEntry : newEntries.entrySet()) {
+			var entry = new ZipEntry(newEntry.getKey());
+			setConstantFileTime(entry);
+			zipOutputStream.putNextEntry(entry);
+			zipOutputStream.write(newEntry.getValue());
+			zipOutputStream.closeEntry();
+		}
+	}
+
+	private static boolean copyZipEntriesRaw(Path input, Path output, Predicate<String> filter, Map<String, byte[]> newEntries, boolean newEntriesFirst) throws IOException {
+		try (FileChannel inputChannel = FileChannel.open(input, StandardOpenOption.READ);
+				FileChannel outputChannel = FileChannel.open(output, StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			final RawZip.Archive archive = RawZip.read(inputChannel);
+
+			if (archive == null) {
+				return false;
+			}
+
+			final List<RawZip.Entry> entries = archive.entries().stream()
+					.filter(entry -> filter.test(entry.name()))
+					.toList();
+			checkNewEntries(input, entries, newEntries);
+
+			try {
+				final RawZip.Writer writer = RawZip.Writer.create(outputChannel);
+
+				if (newEntriesFirst) {
+					writeNewEntries(writer, newEntries);
+				}
+
+				for (RawZip.Entry entry : entries) {
+					writer.copy(inputChannel, entry, RawZip.readLocalExtra(inputChannel, entry));
+				}
+
+				if (!newEntriesFirst) {
+					writeNewEntries(writer, newEntries);
 				}
 
-				// Append the new entry
-				var entry = new ZipEntry(path);
-				setConstantFileTime(entry);
-				zipOutputStream.putNextEntry(entry);
-				zipOutputStream.write(data, 0, data.length);
-				zipOutputStream.closeEntry();
+				writer.finish(archive.comment());
+			} catch (RawZip.UnsupportedZipException e) {
+				return false;
 			}
 		}
 
-		Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+		return true;
+	}
+
+	private static void writeNewEntries(RawZip.Writer writer, Map<String, byte[]> newEntries) throws IOException {
+		for (Map.Entry<String, byte[]> newEntry : newEntries.entrySet()) {
+			writer.write(RawZip.newEntry(newEntry.getKey(), ZipEntry.DEFLATED), new byte[0], RawZip.compress(newEntry.getValue(), ZipEntry.DEFLATED));
+		}
+	}
+
+	private static void checkNewEntries(Path file, List<RawZip.Entry> entries, Map<String, byte[]> newEntries) {
+		for (RawZip.Entry entry : entries) {
+			if (newEntries.containsKey(entry.name())) {
+				throw new IllegalArgumentException("Zip file (%s) already contains entry (%s)".formatted(file.getFileName().toString(), entry.name()));
+			}
+		}
+	}
+
+	/**
+	 * Copies an entry of a zip file to a zip output stream, keeping its name, time stamps and compression method.
+	 */
+	public static void copyZipEntry(ZipOutputStream zipOutputStream, ZipFile zipFile, ZipEntry entry) throws IOException {
+		try (InputStream inputStream = zipFile.getInputStream(entry)) {
+			copyZipEntry(zipOutputStream, entry, inputStream);
+		}
+	}
+
+	/**
+	 * Writes a file to a zip output stream as a STORED entry.
+	 * The file is streamed twice instead of being read into memory, once to compute the CRC32 checksum and once to copy it.
+	 */
+	public static void writeStoredEntry(ZipOutputStream zipOutputStream, ZipEntry entry, Path file) throws IOException {
+		final var crc = new CRC32();
+		final long size;
+
+		try (var inputStream = new CheckedInputStream(Files.newInputStream(file), crc)) {
+			size = inputStream.transferTo(OutputStream.nullOutputStream());
+		}
+
+		entry.setMethod(ZipEntry.STORED);
+		entry.setCrc(crc.getValue());
+		entry.setSize(size);
+		entry.setCompressedSize(size);
+
+		zipOutputStream.putNextEntry(entry);
+		Files.copy(file, zipOutputStream);
+		zipOutputStream.closeEntry();
 	}
 
 	private static void copyZipEntry(ZipOutputStream zipOutputStream, ZipEntry entry, InputStream inputStream) throws IOException {
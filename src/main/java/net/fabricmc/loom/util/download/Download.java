@@ -26,6 +26,7 @@ package net.fabricmc.loom.util.download;
 
 import static com.google.common.io.Files.createParentDirs;
 
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -38,6 +39,8 @@ import java.net.http.HttpClient;
 import java.net.http.HttpHeaders;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.FileSystems;
 import java.nio.file.Files;
@@ -46,12 +49,25 @@ import java.nio.file.StandardOpenOption;
 import java.nio.file.attribute.FileTime;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.IntConsumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.zip.GZIPInputStream;
 
+import com.google.common.hash.Funnels;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -62,6 +78,10 @@ public final class Download {
 	private static final String E_TAG = "ETag";
 	private static final Logger LOGGER = LoggerFactory.getLogger(Download.class);
 	private static final Duration TIMEOUT = Duration.ofMinutes(1);
+	private static final int BUFFER_SIZE = 64 * 1024;
+	// Files smaller than this are not worth splitting into segments
+	private static final long MIN_SEGMENTED_LENGTH = 4 * 1024 * 1024;
+	private static final Pattern CONTENT_RANGE_PATTERN = Pattern.compile("^bytes (\\d+)-\\d+/(?:\\d+|\\*)$");
 	private static final HttpClient HTTP_CLIENT = HttpClient.newBuilder()
 			.followRedirects(HttpClient.Redirect.ALWAYS)
 			.proxy(ProxySelector.getDefault())
@@ -80,9 +100,10 @@ public final class Download {
 	private final Duration maxAge;
 	private final DownloadProgressListener progressListener;
 	private final HttpClient.Version httpVersion;
+	private final int segments;
 	private final int downloadAttempt;
 
-	Download(URI url, String expectedHash, boolean useEtag, boolean forceDownload, boolean offline, Duration maxAge, DownloadProgressListener progressListener, HttpClient.Version httpVersion, int downloadAttempt) {
+	Download(URI url, String expectedHash, boolean useEtag, boolean forceDownload, boolean offline, Duration maxAge, DownloadProgressListener progressListener, HttpClient.Version httpVersion, int segments, int downloadAttempt) {
 		this.url = url;
 		this.expectedHash = expectedHash;
 		this.useEtag = useEtag;
@@ -91,6 +112,7 @@ public final class Download {
 		this.maxAge = maxAge;
 		this.progressListener = progressListener;
 		this.httpVersion = httpVersion;
+		this.segments = segments;
 		this.downloadAttempt = downloadAttempt;
 	}
 
@@ -112,12 +134,31 @@ public final class Download {
 				.build();
 	}
 
+	private HttpRequest getRangeRequest(long start, @Nullable Long end, @Nullable String validator) {
+		final HttpRequest.Builder builder = requestBuilder()
+				.header("Range", end != null ? "bytes=%d-%d".formatted(start, end) : "bytes=%d-".formatted(start));
+
+		if (validator != null) {
+			// Only returns the range if the resource has not changed, otherwise the whole resource is returned
+			builder.header("If-Range", validator);
+		}
+
+		return builder.build();
+	}
+
 	private <T> HttpResponse<T> send(HttpRequest httpRequest, HttpResponse.BodyHandler<T> bodyHandler) throws DownloadException {
+		return send(httpRequest, bodyHandler, true);
+	}
+
+	// Segment requests are part of a download that has already started, so they don't start the progress listener again
+	private <T> HttpResponse<T> send(HttpRequest httpRequest, HttpResponse.BodyHandler<T> bodyHandler, boolean start) throws DownloadException {
 		if (offline) {
 			throw error("Unable to download %s in offline mode", this.url);
 		}
 
-		progressListener.onStart();
+		if (start) {
+			progressListener.onStart();
+		}
 
 		try {
 			return HTTP_CLIENT.send(httpRequest, bodyHandler);
@@ -177,9 +218,17 @@ public final class Download {
 			throw error(e, "Failed to create parent directories");
 		}
 
-		final HttpRequest httpRequest = eTag
-				.map(this::getETagRequest)
-				.orElseGet(this::getRequest);
+		// Resume a previous download that was interrupted, if the output doesn't exist already
+		final PartialDownload partial = eTag.isEmpty() && !forceDownload ? findPartialDownload(output) : null;
+		final HttpRequest httpRequest;
+
+		if (partial != null) {
+			httpRequest = getRangeRequest(partial.length(), null, partial.eTag());
+		} else {
+			httpRequest = eTag
+					.map(this::getETagRequest)
+					.orElseGet(this::getRequest);
+		}
 
 		// Create a .lock file, this allows us to re-download if the download was forcefully aborted part way through.
 		createLock(output);
@@ -201,11 +250,22 @@ public final class Download {
 			return;
 		}
 
-		if (!success) {
+		final boolean resumed = partial != null && statusCode == HttpURLConnection.HTTP_PARTIAL;
+
+		if (!success || (resumed && getContentRangeStart(response) != partial.length())) {
+			if (partial != null) {
+				// The partial download could not be resumed, start again from scratch on the next attempt
+				deletePartialDownload(output);
+			}
+
 			throw statusError("HTTP request returned unsuccessful status (%d)", statusCode);
 		}
 
-		downloadToPath(output, response);
+		if (resumed) {
+			LOGGER.info("Resuming download of ({}) from {} bytes", url, partial.length());
+		}
+
+		final String downloadedHash = downloadToPath(output, response, resumed ? partial.length() : 0);
 
 		if (useEtag) {
 			final HttpHeaders headers = response.headers();
@@ -218,17 +278,17 @@ public final class Download {
 
 		if (expectedHash != null) {
 			// Ensure we downloaded the expected hash.
-			if (!isHashValid(output)) {
-				String downloadedHash;
+			if (!isHashValid(output, downloadedHash)) {
+				String actualHash;
 
 				try {
-					downloadedHash = Checksum.sha1Hex(output);
+					actualHash = downloadedHash != null ? downloadedHash : Checksum.sha1Hex(output);
 					Files.deleteIfExists(output);
 				} catch (IOException e) {
-					downloadedHash = "unknown hash";
+					actualHash = "unknown hash";
 				}
 
-				throw error("Failed to download (%s) with expected hash: %s got %s", url, expectedHash, downloadedHash);
+				throw error("Failed to download (%s) with expected hash: %s got %s", url, expectedHash, actualHash);
 			}
 
 			// Write the hash to the file attribute, saves a lot of time trying to re-compute the hash when re-visiting this file.
@@ -236,28 +296,69 @@ public final class Download {
 		}
 	}
 
-	private void downloadToPath(Path output, HttpResponse<InputStream> response) throws DownloadException {
+	/**
+	 * Writes the response to the output, through a .part file.
+	 *
+	 * @param offset the number of bytes of the .part file that are already downloaded, the response contains the rest
+	 * @return the sha1 hash of the output, computed while downloading, or {@code null} if it was not computed
+	 */
+	@Nullable
+	private String downloadToPath(Path output, HttpResponse<InputStream> response, long offset) throws DownloadException {
 		// Download the file initially to a .part file
 		final Path partFile = getPartFile(output);
 
 		try {
 			Files.deleteIfExists(output);
-			Files.deleteIfExists(partFile);
+
+			if (offset == 0) {
+				Files.deleteIfExists(partFile);
+				Files.deleteIfExists(getPartETagFile(output));
+			}
 		} catch (IOException e) {
 			throw error(e, "Failed to delete existing file");
 		}
 
-		final long length = Long.parseLong(response.headers().firstValue("Content-Length").orElse("-1"));
-		AtomicLong totalBytes = new AtomicLong(0);
+		final HttpHeaders headers = response.headers();
+		final long contentLength = headers.firstValueAsLong("Content-Length").orElse(-1);
+		final long length = contentLength < 0 ? -1 : offset + contentLength;
+		final boolean encoded = !headers.firstValue("Content-Encoding").orElse("").isEmpty();
+		final AtomicLong totalBytes = new AtomicLong(offset);
+		final IntConsumer progress = value -> {
+			if (length < 0) {
+				return;
+			}
+
+			progressListener.onProgress(totalBytes.addAndGet(value), length);
+		};
+		String sha1 = null;
+
+		try {
+			if (offset == 0 && isSegmentable(headers, length, encoded)) {
+				downloadSegments(response, partFile, length, progress);
+			} else {
+				final Optional<String> eTag = headers.firstValue(E_TAG.toLowerCase(Locale.ROOT)).filter(Download::isStrongETag);
+
+				if (offset == 0 && !encoded && eTag.isPresent()) {
+					// Remember which version of the resource is being downloaded, so that it can be resumed if interrupted.
+					Files.writeString(getPartETagFile(output), eTag.get(), StandardCharsets.UTF_8);
+				}
+
+				final Hasher hasher = expectedHash != null ? Hashing.sha1().newHasher() : null;
 
-		try (OutputStream outputStream = Files.newOutputStream(partFile, StandardOpenOption.CREATE_NEW)) {
-			copyWithCallback(decodeOutput(response), outputStream, value -> {
-				if (length < 0) {
-					return;
+				if (hasher != null && offset > 0) {
+					try (InputStream inputStream = Files.newInputStream(partFile)) {
+						ByteStreams.copy(inputStream, Funnels.asOutputStream(hasher));
+					}
 				}
 
-				progressListener.onProgress(totalBytes.addAndGet(value), length);
-			});
+				try (OutputStream outputStream = Files.newOutputStream(partFile, offset > 0 ? StandardOpenOption.APPEND : StandardOpenOption.CREATE_NEW)) {
+					copyWithCallback(decodeOutput(response), outputStream, hasher, progress);
+				}
+
+				if (hasher != null) {
+					sha1 = Checksum.toHex(hasher.hash().asBytes());
+				}
+			}
 		} catch (IOException e) {
 			throw error(e, "Failed to decode and write download output");
 		}
@@ -271,6 +372,7 @@ public final class Download {
 				final long actualLength = Files.size(partFile);
 
 				if (actualLength != length) {
+					deletePartialDownload(output);
 					throw error("Unexpected file length of %d bytes, expected %d bytes".formatted(actualLength, length));
 				}
 			} catch (IOException e) {
@@ -282,17 +384,131 @@ public final class Download {
 			// Once the file has been fully read, move it to the destination file.
 			// This ensures that the output file only exists in fully populated state.
 			Files.move(partFile, output);
+			Files.deleteIfExists(getPartETagFile(output));
 		} catch (IOException e) {
 			throw error(e, "Failed to complete download");
 		}
+
+		return sha1;
+	}
+
+	private boolean isSegmentable(HttpHeaders headers, long length, boolean encoded) {
+		return segments > 1
+				&& !encoded
+				&& length >= MIN_SEGMENTED_LENGTH
+				&& headers.firstValue("Accept-Ranges").filter("bytes"::equalsIgnoreCase).isPresent()
+				// The segments are only guaranteed to come from the same version of the file with a strong ETag
+				&& headers.firstValue(E_TAG.toLowerCase(Locale.ROOT)).filter(Download::isStrongETag).isPresent();
+	}
+
+	// Downloads the file as parallel byte ranges into a preallocated .part file.
+	// The first range is read from the initial response, the others are requested separately.
+	private void downloadSegments(HttpResponse<InputStream> response, Path partFile, long length, IntConsumer progress) throws IOException {
+		final long segmentLength = (length + segments - 1) / segments;
+		final String validator = response.headers().firstValue(E_TAG.toLowerCase(Locale.ROOT)).orElseThrow();
+		final IntConsumer syncedProgress = value -> {
+			synchronized (progress) {
+				progress.accept(value);
+			}
+		};
+
+		try (FileChannel channel = FileChannel.open(partFile, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+			channel.write(ByteBuffer.wrap(new byte[1]), length - 1);
+
+			final ExecutorService executor = Executors.newFixedThreadPool(segments - 1);
+
+			try {
+				final List<Future<?>> futures = new ArrayList<>();
+
+				for (long start = segmentLength; start < length; start += segmentLength) {
+					final long segmentStart = start;
+					final long segmentEnd = Math.min(length, start + segmentLength) - 1;
+					futures.add(executor.submit(() -> {
+						downloadSegment(channel, segmentStart, segmentEnd, validator, syncedProgress);
+						return null;
+					}));
+				}
+
+				try (InputStream inputStream = response.body()) {
+					writeRange(inputStream, channel, 0, segmentLength, syncedProgress);
+				}
+
+				for (Future<?> future : futures) {
+					try {
+						future.get();
+					} catch (ExecutionException e) {
+						if (e.getCause() instanceof IOException ioException) {
+							throw ioException;
+						}
+
+						throw new IOException("Failed to download segment", e.getCause());
+					}
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException("Interrupted while downloading segments", e);
+			} finally {
+				executor.shutdownNow();
+			}
+		}
 	}
 
-	private void copyWithCallback(InputStream is, OutputStream os, IntConsumer consumer) throws IOException {
-		byte[] buffer = new byte[1024];
+	private void downloadSegment(FileChannel channel, long start, long end, String validator, IntConsumer progress) throws IOException {
+		final HttpResponse<InputStream> response = send(getRangeRequest(start, end, validator), HttpResponse.BodyHandlers.ofInputStream(), false);
+
+		try (InputStream inputStream = response.body()) {
+			if (response.statusCode() != HttpURLConnection.HTTP_PARTIAL || getContentRangeStart(response) != start) {
+				throw statusError("Range request for bytes %d-%d returned unexpected status (%%d)".formatted(start, end), response.statusCode());
+			}
+
+			writeRange(inputStream, channel, start, end - start + 1, progress);
+		}
+	}
+
+	private static void writeRange(InputStream is, FileChannel channel, long position, long length, IntConsumer progress) throws IOException {
+		final byte[] buffer = new byte[BUFFER_SIZE];
+		long remaining = length;
+
+		while (remaining > 0) {
+			final int read = is.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+
+			if (read < 0) {
+				throw new EOFException("Unexpected end of range, %d bytes missing".formatted(remaining));
+			}
+
+			final ByteBuffer byteBuffer = ByteBuffer.wrap(buffer, 0, read);
+
+			while (byteBuffer.hasRemaining()) {
+				position += channel.write(byteBuffer, position);
+			}
+
+			remaining -= read;
+			progress.accept(read);
+		}
+	}
+
+	private static long getContentRangeStart(HttpResponse<?> response) {
+		final String contentRange = response.headers().firstValue("Content-Range").orElse("");
+		final Matcher matcher = CONTENT_RANGE_PATTERN.matcher(contentRange);
+		return matcher.matches() ? Long.parseLong(matcher.group(1)) : -1;
+	}
+
+	// Weak ETags can't be used to resume or combine byte ranges
+	private static boolean isStrongETag(String eTag) {
+		return !eTag.startsWith("W/");
+	}
+
+	private void copyWithCallback(InputStream is, OutputStream os, @Nullable Hasher hasher, IntConsumer consumer) throws IOException {
+		byte[] buffer = new byte[BUFFER_SIZE];
 		int length;
 
 		while ((length = is.read(buffer)) > 0) {
 			os.write(buffer, 0, length);
+
+			if (hasher != null) {
+				hasher.putBytes(buffer, 0, length);
+			}
+
 			consumer.accept(length);
 		}
 	}
@@ -352,13 +568,20 @@ public final class Download {
 	}
 
 	private boolean isHashValid(Path path) {
+		return isHashValid(path, null);
+	}
+
+	/**
+	 * @param sha1 the sha1 of the file if already known, otherwise it's computed from the file
+	 */
+	private boolean isHashValid(Path path, @Nullable String sha1) {
 		int i = expectedHash.indexOf(':');
 		String algorithm = expectedHash.substring(0, i);
 		String hash = expectedHash.substring(i + 1);
 
 		try {
 			String computedHash = switch (algorithm) {
-			case "sha1" -> Checksum.sha1Hex(path);
+			case "sha1" -> sha1 != null ? sha1 : Checksum.sha1Hex(path);
 			default -> throw error("Unsupported hash algorithm (%s)", algorithm);
 			};
 
@@ -423,11 +646,43 @@ public final class Download {
 			// ignored
 		}
 
+		if (findPartialDownload(output) != null) {
+			// Keep the partial download, the next attempt will try to resume it.
+			return;
+		}
+
+		deletePartialDownload(output);
+	}
+
+	@Nullable
+	private PartialDownload findPartialDownload(Path output) {
+		final Path partFile = getPartFile(output);
+		final Path eTagFile = getPartETagFile(output);
+
+		if (!exists(partFile) || !exists(eTagFile)) {
+			return null;
+		}
+
+		try {
+			final long length = Files.size(partFile);
+			return length > 0 ? new PartialDownload(length, Files.readString(eTagFile, StandardCharsets.UTF_8)) : null;
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	private void deletePartialDownload(Path output) {
 		try {
 			Files.deleteIfExists(getPartFile(output));
 		} catch (IOException ignored) {
 			// ignored
 		}
+
+		try {
+			Files.deleteIfExists(getPartETagFile(output));
+		} catch (IOException ignored) {
+			// ignored
+		}
 	}
 
 	// A faster exists check
@@ -443,6 +698,10 @@ public final class Download {
 		return output.resolveSibling(output.getFileName() + ".part");
 	}
 
+	private Path getPartETagFile(Path output) {
+		return output.resolveSibling(output.getFileName() + ".part.etag");
+	}
+
 	private boolean getAndResetLock(Path output) throws DownloadException {
 		final Path lock = getLockFile(output);
 		final boolean exists = exists(lock);
@@ -483,4 +742,7 @@ public final class Download {
 	private DownloadException error(Throwable throwable, String message, Object... args) {
 		return new DownloadException(message.formatted(args), throwable);
 	}
+
+	private record PartialDownload(long length, String eTag) {
+	}
 }
@@ -48,6 +48,7 @@ public class DownloadBuilder {
 	private int maxRetries = 3;
 	private boolean allowInsecureProtocol = false;
 	private HttpClient.Version httpVersion = HttpClient.Version.HTTP_2;
+	private int segments = 1;
 
 	private DownloadBuilder(URI url) {
 		this.url = url;
@@ -107,12 +108,24 @@ public class DownloadBuilder {
 		return this;
 	}
 
+	/**
+	 * Downloads large files as a number of parallel byte ranges, when supported by the server.
+	 */
+	public DownloadBuilder segments(int segments) {
+		if (segments < 1) {
+			throw new IllegalArgumentException("Segments must be at least 1");
+		}
+
+		this.segments = segments;
+		return this;
+	}
+
 	private Download build(int downloadAttempt) {
 		if (!allowInsecureProtocol && !isSecureUrl(url)) {
 			throw new IllegalArgumentException("Cannot create download for url (%s) with insecure protocol".formatted(url.toString()));
 		}
 
-		return new Download(this.url, this.expectedHash, this.useEtag, this.forceDownload, this.offline, maxAge, progressListener, httpVersion, downloadAttempt);
+		return new Download(this.url, this.expectedHash, this.useEtag, this.forceDownload, this.offline, maxAge, progressListener, httpVersion, segments, downloadAttempt);
 	}
 
 	public void downloadPathAsync(Path path, DownloadExecutor executor) {
@@ -131,19 +144,26 @@ public class DownloadBuilder {
 	}
 
 	public String downloadString(Path cache) throws DownloadException {
+		return downloadAndRead(cache, path -> Files.readString(path, StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Downloads to the cache file and reads it, if the file cannot be read it is deleted and downloaded again.
+	 */
+	public <T> T downloadAndRead(Path cache, CacheReader<T> reader) throws DownloadException {
 		return withRetries((download) -> {
 			download.downloadPath(cache);
 
 			try {
-				return Files.readString(cache, StandardCharsets.UTF_8);
-			} catch (IOException e) {
+				return reader.read(cache);
+			} catch (IOException | RuntimeException e) {
 				try {
 					Files.deleteIfExists(cache);
 				} catch (IOException ex) {
 					// Ignored
 				}
 
-				throw new DownloadException("Failed to download and read string", e);
+				throw new DownloadException("Failed to download and read " + cache.getFileName(), e);
 			}
 		});
 	}
@@ -182,6 +202,11 @@ public class DownloadBuilder {
 		return !"http".equalsIgnoreCase(scheme);
 	}
 
+	@FunctionalInterface
+	public interface CacheReader<T> {
+		T read(Path path) throws IOException;
+	}
+
 	@FunctionalInterface
 	private interface DownloadFunction<T> {
 		T get(Download download) throws DownloadException;
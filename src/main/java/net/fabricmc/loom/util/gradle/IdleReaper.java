@@ -0,0 +1,98 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.util.gradle;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Runs an action once a key has been idle for a timeout, unless the key is acquired or released again first.
+ *
+ * <p>The thread that runs the actions is only kept alive while an action is scheduled,
+ * so a reaper can be held in a static field for the lifetime of the Gradle daemon.
+ */
+public final class IdleReaper {
+	private final Map<String, IdleEntry> idle = new ConcurrentHashMap<>();
+	private final ScheduledThreadPoolExecutor executor;
+
+	public IdleReaper(String threadName) {
+		executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+			final Thread thread = new Thread(runnable, threadName);
+			thread.setDaemon(true);
+			return thread;
+		});
+		executor.setKeepAliveTime(1, TimeUnit.MINUTES);
+		executor.allowCoreThreadTimeOut(true);
+		executor.setRemoveOnCancelPolicy(true);
+	}
+
+	/**
+	 * Marks a key as in use, cancelling its pending action.
+	 */
+	public void acquire(String key) {
+		final @Nullable IdleEntry entry = idle.remove(key);
+
+		if (entry != null) {
+			entry.cancel();
+		}
+	}
+
+	/**
+	 * Marks a key as idle, the action runs once the timeout has passed if the key has not been acquired or released again.
+	 */
+	public void release(String key, Duration timeout, Runnable action) {
+		final IdleEntry entry = new IdleEntry();
+		final @Nullable IdleEntry previous = idle.put(key, entry);
+
+		if (previous != null) {
+			previous.cancel();
+		}
+
+		entry.future = executor.schedule(() -> {
+			if (idle.remove(key, entry)) {
+				action.run();
+			}
+		}, timeout.toMillis(), TimeUnit.MILLISECONDS);
+	}
+
+	private static final class IdleEntry {
+		// Only used to remove the scheduled action early, the action checks that its entry is still current before running.
+		private volatile @Nullable Future<?> future;
+
+		void cancel() {
+			final @Nullable Future<?> future = this.future;
+
+			if (future != null) {
+				future.cancel(false);
+			}
+		}
+	}
+}
@@ -0,0 +1,87 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.util.gradle;
+
+import java.time.Duration;
+
+import org.gradle.api.Project;
+import org.gradle.api.provider.Provider;
+import org.gradle.api.services.BuildService;
+import org.gradle.api.services.BuildServiceParameters;
+import org.gradle.workers.internal.WorkerDaemonClientsManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Tracks the worker daemons that are kept alive between tasks and builds, stopping them once they have been idle for too long.
+ *
+ * <p>Gradle reuses an idle worker daemon for any work with matching fork options, so a worker with a stable
+ * {@link WorkerDaemonClientsManagerHelper#MARKER_PROP marker} is reused until it is stopped here, the Gradle daemon exits,
+ * or Gradle stops it due to low system memory.
+ *
+ * <p>The idle workers are stopped by a reaper that lives as long as the Gradle daemon, not the build,
+ * so a worker that is still idle at the end of a build is stopped once its timeout passes, even if no other build runs.
+ */
+public abstract class PersistentWorkerDaemons implements BuildService<BuildServiceParameters.None> {
+	public static final String NAME = "loomPersistentWorkerDaemons";
+	private static final Logger LOGGER = LoggerFactory.getLogger(PersistentWorkerDaemons.class);
+	private static final IdleReaper REAPER = new IdleReaper("Loom persistent worker reaper");
+
+	public static Provider<PersistentWorkerDaemons> register(Project project) {
+		return project.getGradle().getSharedServices().registerIfAbsent(NAME, PersistentWorkerDaemons.class, spec -> { });
+	}
+
+	/**
+	 * Marks a worker as in use, cancelling any pending idle stop.
+	 */
+	public void acquire(String jvmMarkerValue) {
+		REAPER.acquire(jvmMarkerValue);
+	}
+
+	/**
+	 * Marks a worker as idle, it will be stopped if it is not acquired again within the idle timeout.
+	 */
+	public void release(WorkerDaemonClientsManager manager, String jvmMarkerValue, Duration idleTimeout) {
+		REAPER.release(jvmMarkerValue, idleTimeout, () -> stopIdle(manager, jvmMarkerValue));
+	}
+
+	/**
+	 * Stops a worker now, if it is idle.
+	 */
+	public void stop(WorkerDaemonClientsManager manager, String jvmMarkerValue) {
+		acquire(jvmMarkerValue);
+		stopIdle(manager, jvmMarkerValue);
+	}
+
+	private static void stopIdle(WorkerDaemonClientsManager manager, String jvmMarkerValue) {
+		try {
+			if (WorkerDaemonClientsManagerHelper.stopIdleJVM(manager, jvmMarkerValue)) {
+				LOGGER.info("Stopped persistent worker {}", jvmMarkerValue);
+			}
+		} catch (RuntimeException e) {
+			LOGGER.warn("Failed to stop persistent worker {}", jvmMarkerValue, e);
+		}
+	}
+}
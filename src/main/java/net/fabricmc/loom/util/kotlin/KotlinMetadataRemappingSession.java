@@ -0,0 +1,91 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.util.kotlin;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.objectweb.asm.AnnotationVisitor;
+import org.objectweb.asm.ClassVisitor;
+
+import net.fabricmc.loom.util.Constants;
+import net.fabricmc.tinyremapper.TinyRemapper;
+import net.fabricmc.tinyremapper.api.TrClass;
+
+/**
+ * Applies the Kotlin metadata remapper to a single remap session, only for the classes that have Kotlin metadata.
+ *
+ * <p>Tiny remapper already parses every class while reading its inputs, so the classes annotated with
+ * {@code kotlin.Metadata} are recorded during that pass. All other classes skip the Kotlin visitor entirely.
+ */
+public final class KotlinMetadataRemappingSession implements TinyRemapper.Extension, TinyRemapper.AnalyzeVisitorProvider, TinyRemapper.ApplyVisitorProvider {
+	private static final String METADATA_DESCRIPTOR = "Lkotlin/Metadata;";
+
+	private final KotlinMetadataTinyRemapperExtension delegate;
+	private final Set<String> kotlinClasses = ConcurrentHashMap.newKeySet();
+	private final AtomicInteger remappedClasses = new AtomicInteger();
+
+	public KotlinMetadataRemappingSession(KotlinMetadataTinyRemapperExtension delegate) {
+		this.delegate = delegate;
+	}
+
+	@Override
+	public void attach(TinyRemapper.Builder builder) {
+		builder.extraAnalyzeVisitor(this);
+		builder.extraPreApplyVisitor(this);
+	}
+
+	@Override
+	public ClassVisitor insertAnalyzeVisitor(int mrjVersion, String className, ClassVisitor next) {
+		return new ClassVisitor(Constants.ASM_VERSION, next) {
+			@Override
+			public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+				if (METADATA_DESCRIPTOR.equals(descriptor)) {
+					kotlinClasses.add(className);
+				}
+
+				return super.visitAnnotation(descriptor, visible);
+			}
+		};
+	}
+
+	@Override
+	public ClassVisitor insertApplyVisitor(TrClass cls, ClassVisitor next) {
+		if (!kotlinClasses.contains(cls.getName())) {
+			return next;
+		}
+
+		remappedClasses.incrementAndGet();
+		return delegate.insertApplyVisitor(cls, next);
+	}
+
+	/**
+	 * {@return the number of classes that had their Kotlin metadata remapped}
+	 */
+	public int getRemappedClassCount() {
+		return remappedClasses.get();
+	}
+}
@@ -0,0 +1,91 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.util.kotlin;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.gradle.api.Project;
+import org.gradle.api.provider.Provider;
+import org.gradle.api.services.BuildService;
+import org.gradle.api.services.BuildServiceParameters;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps one {@link KotlinRemapperClassloader} per Kotlin classpath for the lifetime of the build,
+ * so that mod remapping and every remap jar task can share the loaded Kotlin metadata library.
+ */
+public abstract class KotlinRemapperClassloaderService implements BuildService<BuildServiceParameters.None>, AutoCloseable {
+	public static final String NAME = "loomKotlinRemapperClassloaders";
+	private static final Logger LOGGER = LoggerFactory.getLogger(KotlinRemapperClassloaderService.class);
+
+	private final Map<String, KotlinRemapperClassloader> classloaders = new ConcurrentHashMap<>();
+
+	public static Provider<KotlinRemapperClassloaderService> register(Project project) {
+		return project.getGradle().getSharedServices()
+				.registerIfAbsent(NAME, KotlinRemapperClassloaderService.class, spec -> {
+				});
+	}
+
+	public static KotlinRemapperClassloaderService get(Project project) {
+		return register(project).get();
+	}
+
+	/**
+	 * Creates a new remapping session, backed by the shared classloader for the Kotlin classpath.
+	 */
+	public KotlinMetadataRemappingSession createSession(KotlinClasspath kotlinClasspath) {
+		return new KotlinMetadataRemappingSession(getClassloader(kotlinClasspath).getTinyRemapperExtension());
+	}
+
+	public KotlinRemapperClassloader getClassloader(KotlinClasspath kotlinClasspath) {
+		final var joiner = new StringJoiner(";");
+		joiner.add(kotlinClasspath.version());
+		kotlinClasspath.classpath().stream().map(URL::toString).sorted().forEach(joiner::add);
+
+		return classloaders.computeIfAbsent(joiner.toString(), key -> {
+			LOGGER.info("Creating Kotlin remapper classloader for Kotlin {}", kotlinClasspath.version());
+			return KotlinRemapperClassloader.create(kotlinClasspath);
+		});
+	}
+
+	@Override
+	public void close() {
+		for (KotlinRemapperClassloader classloader : classloaders.values()) {
+			try {
+				classloader.close();
+			} catch (IOException e) {
+				throw new UncheckedIOException("Failed to close Kotlin remapper classloader", e);
+			}
+		}
+
+		classloaders.clear();
+	}
+}
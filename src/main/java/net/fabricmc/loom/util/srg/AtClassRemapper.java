@@ -38,10 +38,9 @@ import org.gradle.api.Project;
 import org.gradle.api.logging.Logger;
 
 import net.fabricmc.loom.build.IntermediaryNamespaces;
+import net.fabricmc.loom.configuration.providers.mappings.MappingTreeIndex;
 import net.fabricmc.loom.util.Constants;
 import net.fabricmc.loom.util.FileSystemUtil;
-import net.fabricmc.loom.util.function.CollectionUtil;
-import net.fabricmc.mappingio.tree.MappingTree;
 
 /**
  * Remaps AT classes from SRG to Yarn.
@@ -49,9 +48,10 @@ import net.fabricmc.mappingio.tree.MappingTree;
  * @author Juuz
  */
 public final class AtClassRemapper {
-	public static void remap(Project project, Path jar, MappingTree mappings) throws IOException {
+	public static void remap(Project project, Path jar, MappingTreeIndex mappings) throws IOException {
 		final Logger logger = project.getLogger();
-		final String sourceNamespace = IntermediaryNamespaces.intermediary(project);
+		final int sourceNamespace = mappings.getNamespaceId(IntermediaryNamespaces.intermediary(project));
+		final int namedNamespace = mappings.getNamespaceId("named");
 
 		try (FileSystemUtil.Delegate fs = FileSystemUtil.getJarFileSystem(jar, false)) {
 			Path atPath = fs.getPath(Constants.Forge.ACCESS_TRANSFORMER_PATH);
@@ -79,18 +79,12 @@ public final class AtClassRemapper {
 					}
 
 					String name = parts[1].replace('.', '/');
-					parts[1] = CollectionUtil.find(
-							mappings.getClasses(),
-							def -> def.getName(sourceNamespace).equals(name)
-					).map(def -> def.getName("named")).orElse(name).replace('/', '.');
+					parts[1] = mappings.mapClassName(name, sourceNamespace, namedNamespace).replace('/', '.');
 
 					if (parts.length >= 3) {
 						if (parts[2].contains("(")) {
 							parts[2] = parts[2].substring(0, parts[2].indexOf('(')) + remapDescriptor(parts[2].substring(parts[2].indexOf('(')), s -> {
-								return CollectionUtil.find(
-										mappings.getClasses(),
-										def -> def.getName(sourceNamespace).equals(s)
-								).map(def -> def.getName("named")).orElse(s);
+								return mappings.mapClassName(s, sourceNamespace, namedNamespace);
 							});
 						}
 					}
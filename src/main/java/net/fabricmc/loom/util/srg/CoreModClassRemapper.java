@@ -45,10 +45,10 @@ import org.gradle.api.Project;
 import org.gradle.api.logging.Logger;
 
 import net.fabricmc.loom.build.IntermediaryNamespaces;
+import net.fabricmc.loom.configuration.providers.mappings.MappingTreeIndex;
 import net.fabricmc.loom.util.FileSystemUtil;
 import net.fabricmc.loom.util.ModPlatform;
-import net.fabricmc.loom.util.function.CollectionUtil;
-import net.fabricmc.mappingio.tree.MappingTree;
+import net.fabricmc.mappingio.tree.MappingTreeView;
 
 /**
  * Remaps coremod class names from SRG to Yarn.
@@ -59,7 +59,7 @@ public final class CoreModClassRemapper {
 	private static final Pattern CLASS_NAME_PATTERN = Pattern.compile("^(.*')((?:com\\.mojang\\.|net\\.minecraft\\.)[A-Za-z0-9.-_$]+)('.*)$");
 	private static final Pattern REDIRECT_FIELD_TO_METHOD_PATTERN = Pattern.compile("^(.*\\w+\\s*\\.\\s*redirectFieldToMethod\\s*\\(\\s*\\w+\\s*,\\s*')(\\w*)('\\s*,(?:\\s*'(\\w+)'\\s*|.*)\\).*)$");
 
-	public static void remapJar(Project project, ModPlatform platform, Path jar, MappingTree mappings) throws IOException {
+	public static void remapJar(Project project, ModPlatform platform, Path jar, MappingTreeIndex mappings) throws IOException {
 		final Logger logger = project.getLogger();
 		final String sourceNamespace = IntermediaryNamespaces.runtimeIntermediary(project);
 
@@ -91,7 +91,9 @@ public final class CoreModClassRemapper {
 		}
 	}
 
-	public static void remap(Path js, ModPlatform platform, MappingTree mappings, String sourceNamespace) throws IOException {
+	public static void remap(Path js, ModPlatform platform, MappingTreeIndex mappings, String sourceNamespace) throws IOException {
+		final int sourceNamespaceId = mappings.getNamespaceId(sourceNamespace);
+		final int namedNamespaceId = mappings.getNamespaceId("named");
 		List<String> lines = Files.readAllLines(js);
 		List<String> output = new ArrayList<>(lines);
 		String lastClassName = null;
@@ -102,9 +104,7 @@ public final class CoreModClassRemapper {
 
 			if (matcher.matches()) {
 				String className = matcher.group(2).replace('.', '/');
-				String remapped = CollectionUtil.find(mappings.getClasses(), def -> def.getName(sourceNamespace).equals(className))
-						.map(def -> def.getName("named"))
-						.orElse(className);
+				String remapped = mappings.mapClassName(className, sourceNamespaceId, namedNamespaceId);
 				lastClassName = remapped;
 
 				if (!className.equals(remapped)) {
@@ -115,17 +115,18 @@ public final class CoreModClassRemapper {
 
 				if (matcher.matches()) {
 					String fieldName = matcher.group(2);
-					String remapped = Optional.ofNullable(mappings.getClass(lastClassName, mappings.getNamespaceId("named")))
-							.flatMap(clazz -> Optional.ofNullable(clazz.getField(fieldName, null, mappings.getNamespaceId(sourceNamespace))))
-							.map(field -> field.getName("named"))
+					final MappingTreeView.ClassMappingView clazz = mappings.getClass(lastClassName, namedNamespaceId);
+					String remapped = Optional.ofNullable(clazz)
+							.flatMap(c -> Optional.ofNullable(mappings.getField(c, fieldName, null, sourceNamespaceId)))
+							.map(field -> field.getName(namedNamespaceId))
 							.orElse(fieldName);
 
 					if (!fieldName.equals(remapped)) {
 						String optionalMethod = matcher.group(4);
 						String remappedMethod = optionalMethod == null ? null
-								: Optional.ofNullable(mappings.getClass(lastClassName, mappings.getNamespaceId("named")))
-								.flatMap(clazz -> Optional.ofNullable(clazz.getMethod(optionalMethod, null, mappings.getNamespaceId(sourceNamespace))))
-								.map(method -> method.getName("named"))
+								: Optional.ofNullable(clazz)
+								.flatMap(c -> Optional.ofNullable(mappings.getMethod(c, optionalMethod, null, sourceNamespaceId)))
+								.map(method -> method.getName(namedNamespaceId))
 								.orElse(null);
 
 						if (remappedMethod != null) {
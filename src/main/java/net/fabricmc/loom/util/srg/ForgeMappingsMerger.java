@@ -34,15 +34,18 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ListMultimap;
 import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.VisibleForTesting;
 
 import net.fabricmc.loom.api.mappings.layered.MappingContext;
 import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
 import net.fabricmc.loom.configuration.providers.forge.SrgProvider;
+import net.fabricmc.loom.configuration.providers.mappings.MappingTreeIndex;
 import net.fabricmc.loom.util.MappingException;
 import net.fabricmc.loom.util.function.CollectionUtil;
 import net.fabricmc.mappingio.FlatMappingVisitor;
@@ -68,19 +71,23 @@ public final class ForgeMappingsMerger {
 	private static final List<String> INPUT_NAMESPACES_WITH_MOJANG = List.of("official", "mojang", "intermediary", "named");
 	private final MemoryMappingTree newNs;
 	private final MemoryMappingTree src;
+	private final MappingTreeIndex srcIndex;
 	private final MemoryMappingTree output;
 	private final FlatMappingVisitor flatOutput;
 	private final boolean lenient;
+	private final boolean parallel;
 	private final @Nullable MemoryMappingTree extra;
 	private final ListMultimap<MethodKey, MethodData> methodsByNewNs;
 
-	private ForgeMappingsMerger(MemoryMappingTree newNs, MemoryMappingTree src, @Nullable ExtraMappings extraMappings, boolean lenient) throws IOException {
+	private ForgeMappingsMerger(MemoryMappingTree newNs, MemoryMappingTree src, @Nullable ExtraMappings extraMappings, boolean lenient, boolean parallel) throws IOException {
 		this.newNs = newNs;
 		Preconditions.checkArgument(this.newNs.getDstNamespaces().size() == 1, "New namespace must have exactly one destination namespace");
 		this.src = src;
+		this.srcIndex = new MappingTreeIndex(src);
 		this.output = new MemoryMappingTree();
 		this.flatOutput = new RegularAsFlatMappingVisitor(output);
 		this.lenient = lenient;
+		this.parallel = parallel;
 		this.methodsByNewNs = ArrayListMultimap.create();
 
 		if (extraMappings != null) {
@@ -148,30 +155,20 @@ public final class ForgeMappingsMerger {
 	}
 
 	public MemoryMappingTree merge() throws IOException {
-		for (MappingTree.ClassMapping newNsClass : newNs.getClasses()) {
-			String[] dstNames = createDstNameArray(newNsClass);
-			MappingTree.ClassMapping tinyClass = src.getClass(newNsClass.getSrcName());
-			String comment = null;
-
-			if (tinyClass != null) {
-				copyDstNames(dstNames, tinyClass);
-				comment = tinyClass.getComment();
-			} else if (lenient) {
-				// Tiny class not found, we'll just use new namespace names
-				fillMappings(dstNames, newNsClass);
-			} else {
-				throw new MappingException("Could not find class " + newNsClass.getSrcName() + "|" + newNsClass.getDstName(0));
-			}
-
-			flatOutput.visitClass(newNsClass.getSrcName(), dstNames);
-			if (comment != null) flatOutput.visitClassComment(newNsClass.getSrcName(), comment);
-
-			for (MappingTree.FieldMapping field : newNsClass.getFields()) {
-				mergeField(newNsClass, field, tinyClass);
+		// The classes are merged in parallel, as they only read the input trees.
+		// The results are then written to the output in the original order, so the output does not depend on the scheduling.
+		final Stream<MappingTree.ClassMapping> classes = new ArrayList<>(newNs.getClasses()).stream();
+		final List<MergedClass> mergedClasses = (parallel ? classes.parallel() : classes)
+				.map(this::mergeClass)
+				.toList();
+
+		for (MergedClass mergedClass : mergedClasses) {
+			for (OutputAction action : mergedClass.actions()) {
+				action.accept(flatOutput);
 			}
 
-			for (MappingTree.MethodMapping method : newNsClass.getMethods()) {
-				mergeMethod(newNsClass, method, tinyClass);
+			for (Map.Entry<MethodKey, MethodData> method : mergedClass.methods()) {
+				methodsByNewNs.put(method.getKey(), method.getValue());
 			}
 		}
 
@@ -180,9 +177,40 @@ public final class ForgeMappingsMerger {
 		return output;
 	}
 
-	private void mergeField(MappingTree.ClassMapping newNsClass, MappingTree.FieldMapping newNsField, @Nullable MappingTree.ClassMapping tinyClass) throws IOException {
+	private MergedClass mergeClass(MappingTree.ClassMapping newNsClass) {
+		final MergedClass result = new MergedClass(new ArrayList<>(), new ArrayList<>());
+		String[] dstNames = createDstNameArray(newNsClass);
+		MappingTree.ClassMapping tinyClass = src.getClass(newNsClass.getSrcName());
+		String comment = null;
+
+		if (tinyClass != null) {
+			copyDstNames(dstNames, tinyClass);
+			comment = tinyClass.getComment();
+		} else if (lenient) {
+			// Tiny class not found, we'll just use new namespace names
+			fillMappings(dstNames, newNsClass);
+		} else {
+			throw new MappingException("Could not find class " + newNsClass.getSrcName() + "|" + newNsClass.getDstName(0));
+		}
+
+		final String classComment = comment;
+		result.actions().add(visitor -> visitor.visitClass(newNsClass.getSrcName(), dstNames));
+		if (classComment != null) result.actions().add(visitor -> visitor.visitClassComment(newNsClass.getSrcName(), classComment));
+
+		for (MappingTree.FieldMapping field : newNsClass.getFields()) {
+			mergeField(newNsClass, field, tinyClass, result);
+		}
+
+		for (MappingTree.MethodMapping method : newNsClass.getMethods()) {
+			mergeMethod(newNsClass, method, tinyClass, result);
+		}
+
+		return result;
+	}
+
+	private void mergeField(MappingTree.ClassMapping newNsClass, MappingTree.FieldMapping newNsField, @Nullable MappingTree.ClassMapping tinyClass, MergedClass result) {
 		String[] dstNames = createDstNameArray(newNsField);
-		MappingTree.FieldMapping tinyField = null;
+		MappingTreeView.FieldMappingView tinyField = null;
 		String srcDesc = newNsField.getSrcDesc();
 		String comment = null;
 
@@ -190,7 +218,7 @@ public final class ForgeMappingsMerger {
 			if (srcDesc != null) {
 				tinyField = tinyClass.getField(newNsField.getSrcName(), newNsField.getSrcDesc());
 			} else {
-				tinyField = CollectionUtil.find(tinyClass.getFields(), field -> field.getSrcName().equals(newNsField.getSrcName())).orElse(null);
+				tinyField = srcIndex.getField(tinyClass, newNsField.getSrcName(), null, MappingTreeView.SRC_NAMESPACE_ID);
 			}
 		} else if (!lenient) {
 			throw new MappingException("Could not find field " + newNsClass.getDstName(0) + '.' + newNsField.getDstName(0) + ' ' + newNsField.getDstDesc(0));
@@ -205,14 +233,16 @@ public final class ForgeMappingsMerger {
 		}
 
 		if (srcDesc != null) {
-			flatOutput.visitField(newNsClass.getSrcName(), newNsField.getSrcName(), srcDesc, dstNames);
-			if (comment != null) flatOutput.visitFieldComment(newNsClass.getSrcName(), newNsField.getSrcName(), srcDesc, comment);
+			final String fieldDesc = srcDesc;
+			final String fieldComment = comment;
+			result.actions().add(visitor -> visitor.visitField(newNsClass.getSrcName(), newNsField.getSrcName(), fieldDesc, dstNames));
+			if (fieldComment != null) result.actions().add(visitor -> visitor.visitFieldComment(newNsClass.getSrcName(), newNsField.getSrcName(), fieldDesc, fieldComment));
 		} else if (!lenient) {
 			throw new MappingException("Could not find descriptor for field " + newNsClass.getDstName(0) + '.' + newNsField.getDstName(0));
 		}
 	}
 
-	private void mergeMethod(MappingTree.ClassMapping newNsClass, MappingTree.MethodMapping newNsMethod, @Nullable MappingTree.ClassMapping tinyClass) throws IOException {
+	private void mergeMethod(MappingTree.ClassMapping newNsClass, MappingTree.MethodMapping newNsMethod, @Nullable MappingTree.ClassMapping tinyClass, MergedClass result) {
 		String[] dstNames = createDstNameArray(newNsMethod);
 		MappingTree.MethodMapping tinyMethod = null;
 		String intermediaryName, namedName;
@@ -258,30 +288,31 @@ public final class ForgeMappingsMerger {
 		}
 
 		if (!newNsMethod.getSrcName().equals(dstNames[0])) { // ignore <init> and the likes
-			methodsByNewNs.put(
+			result.methods().add(Map.entry(
 					new MethodKey(dstNames[0], newNsMethod.getSrcDesc()),
 					new MethodData(newNsClass.getSrcName(), newNsMethod.getSrcName(), newNsMethod.getSrcDesc(), tinyMethod != null, intermediaryName, namedName)
-			);
+			));
 		}
 
-		flatOutput.visitMethod(newNsClass.getSrcName(), newNsMethod.getSrcName(), newNsMethod.getSrcDesc(), dstNames);
-		if (comment != null) flatOutput.visitMethodComment(newNsClass.getSrcName(), newNsMethod.getSrcName(), newNsMethod.getSrcDesc(), comment);
+		final String methodComment = comment;
+		result.actions().add(visitor -> visitor.visitMethod(newNsClass.getSrcName(), newNsMethod.getSrcName(), newNsMethod.getSrcDesc(), dstNames));
+		if (methodComment != null) result.actions().add(visitor -> visitor.visitMethodComment(newNsClass.getSrcName(), newNsMethod.getSrcName(), newNsMethod.getSrcDesc(), methodComment));
 
 		if (tinyMethod != null) {
 			for (MappingTree.MethodArgMapping arg : tinyMethod.getArgs()) {
 				String[] argDstNames = new String[output.getDstNamespaces().size()];
 				copyDstNames(argDstNames, arg);
-				flatOutput.visitMethodArg(
+				result.actions().add(visitor -> visitor.visitMethodArg(
 						newNsClass.getSrcName(), newNsMethod.getSrcName(), newNsMethod.getSrcDesc(),
 						arg.getArgPosition(), arg.getLvIndex(), arg.getSrcName(), argDstNames
-				);
+				));
 
 				if (arg.getComment() != null) {
-					flatOutput.visitMethodArgComment(
+					result.actions().add(visitor -> visitor.visitMethodArgComment(
 							newNsClass.getSrcName(), newNsMethod.getSrcName(), newNsMethod.getSrcDesc(),
 							arg.getArgPosition(), arg.getLvIndex(), arg.getSrcName(),
 							arg.getComment()
-					);
+					));
 				}
 			}
 		}
@@ -388,14 +419,20 @@ public final class ForgeMappingsMerger {
 	 */
 	public static MemoryMappingTree mergeSrg(Path srg, Path tiny, @Nullable ExtraMappings extraMappings, boolean lenient)
 			throws IOException, MappingException {
-		return new ForgeMappingsMerger(readSrg(srg), readInput(tiny), extraMappings, lenient).merge();
+		return mergeSrg(srg, tiny, extraMappings, lenient, true);
+	}
+
+	@VisibleForTesting
+	public static MemoryMappingTree mergeSrg(Path srg, Path tiny, @Nullable ExtraMappings extraMappings, boolean lenient, boolean parallel)
+			throws IOException, MappingException {
+		return new ForgeMappingsMerger(readSrg(srg), readInput(tiny), extraMappings, lenient, parallel).merge();
 	}
 
 	public static MemoryMappingTree mergeMojang(MappingContext context, Path tiny, @Nullable ExtraMappings extraMappings, boolean lenient)
 			throws IOException, MappingException {
 		MemoryMappingTree mojang = new MemoryMappingTree();
 		SrgProvider.visitMojangMappings(new MappingNsRenamer(mojang, Map.of(MappingsNamespace.NAMED.toString(), MappingsNamespace.MOJANG.toString())), context);
-		return new ForgeMappingsMerger(mojang, readInput(tiny), extraMappings, lenient).merge();
+		return new ForgeMappingsMerger(mojang, readInput(tiny), extraMappings, lenient, true).merge();
 	}
 
 	private static MemoryMappingTree readSrg(Path srg) throws IOException {
@@ -424,6 +461,20 @@ public final class ForgeMappingsMerger {
 		}
 	}
 
+	/**
+	 * A deferred write to the output mappings.
+	 */
+	@FunctionalInterface
+	private interface OutputAction {
+		void accept(FlatMappingVisitor visitor) throws IOException;
+	}
+
+	/**
+	 * The merge result of a single class, in the order it should be written.
+	 */
+	private record MergedClass(List<OutputAction> actions, List<Map.Entry<MethodKey, MethodData>> methods) {
+	}
+
 	private record MethodKey(String name, String desc) {
 		@Override
 		public String toString() {
@@ -0,0 +1,132 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.util.srg;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jetbrains.annotations.Nullable;
+
+import net.fabricmc.loom.decompilers.cache.CachedFileStore;
+import net.fabricmc.loom.decompilers.cache.CachedFileStoreImpl;
+import net.fabricmc.loom.util.Checksum;
+import net.fabricmc.mappingio.format.tiny.Tiny2FileWriter;
+import net.fabricmc.mappingio.tree.MemoryMappingTree;
+
+/**
+ * Stores the output of {@link ForgeMappingsMerger} by a hash of its input files,
+ * so that a merge can be reused when the mappings working directory is rebuilt.
+ *
+ * <p>Entries that have not been used for a while are pruned, in the same way as the decompile cache.
+ */
+public final class MergedMappingsCache {
+	// Bump when the output of ForgeMappingsMerger changes
+	private static final String CACHE_VERSION = "1";
+	private static final CachedFileStoreImpl.CacheRules CACHE_RULES = new CachedFileStoreImpl.CacheRules(64, Duration.ofDays(30));
+	// The entries are stored as files, so reading an entry returns its path and writing one moves the merged file into place
+	private static final CachedFileStore.EntrySerializer<Path> SERIALIZER = new CachedFileStore.EntrySerializer<>() {
+		@Override
+		public Path read(Path path) {
+			return path;
+		}
+
+		@Override
+		public void write(Path entry, Path path) throws IOException {
+			Files.move(entry, path, StandardCopyOption.REPLACE_EXISTING);
+		}
+	};
+
+	private final Path root;
+	private final CachedFileStoreImpl<Path> store;
+
+	public MergedMappingsCache(Path root) {
+		this.root = root;
+		this.store = new CachedFileStoreImpl<>(root, SERIALIZER, CACHE_RULES);
+	}
+
+	/**
+	 * Writes the merged mappings to the target, reusing a previous merge of the same input files unless {@code refresh} is set.
+	 *
+	 * @return whether a previous merge was reused
+	 */
+	public boolean write(String kind, List<Path> inputs, Path target, boolean refresh, Merge merge) throws IOException {
+		final String key = getKey(kind, inputs);
+		final @Nullable Path cached = refresh ? null : store.getEntry(key);
+
+		if (cached != null) {
+			Files.copy(cached, target, StandardCopyOption.REPLACE_EXISTING);
+			return true;
+		}
+
+		Files.createDirectories(root);
+		final Path tmp = Files.createTempFile(root, key, ".tmp");
+
+		try {
+			try (Tiny2FileWriter writer = new Tiny2FileWriter(Files.newBufferedWriter(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING), false)) {
+				merge.merge().accept(writer);
+			}
+
+			store.putEntry(key, tmp);
+		} finally {
+			Files.deleteIfExists(tmp);
+		}
+
+		Files.copy(root.resolve(key), target, StandardCopyOption.REPLACE_EXISTING);
+		return false;
+	}
+
+	/**
+	 * Removes the entries that are too old, or the oldest entries when there are too many.
+	 */
+	public void prune() throws IOException {
+		if (Files.isDirectory(root)) {
+			store.prune();
+		}
+	}
+
+	private static String getKey(String kind, List<Path> inputs) throws IOException {
+		final List<String> parts = new ArrayList<>();
+		parts.add(CACHE_VERSION);
+		parts.add(kind);
+
+		for (Path input : inputs) {
+			parts.add(Checksum.sha256Hex(input));
+		}
+
+		return Checksum.sha256Hex(String.join("\n", parts).getBytes(StandardCharsets.UTF_8)) + ".tiny";
+	}
+
+	@FunctionalInterface
+	public interface Merge {
+		MemoryMappingTree merge() throws IOException;
+	}
+}
@@ -0,0 +1,69 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.util.telemetry;
+
+import org.gradle.api.Project;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Records timing spans for the phases of Loom's setup and tasks.
+ *
+ * <p>Every span is emitted as a {@link SpanEvent} JFR event, which is only recorded while a JFR recording is running.
+ * When the {@value net.fabricmc.loom.util.Constants.Properties#TELEMETRY} property is set,
+ * the spans are also collected by the {@link TelemetryReportService} and written to a JSON report at the end of the build.
+ * Tasks reference the service with {@link org.gradle.api.services.ServiceReference}, so that it is also present when the configuration cache is reused.
+ *
+ * <pre>{@code
+ * try (TelemetrySpan span = Telemetry.span("mods.remap", project)) {
+ *     span.bytes(Files.size(input));
+ *     ...
+ * }
+ * }</pre>
+ */
+public final class Telemetry {
+	private Telemetry() {
+	}
+
+	/**
+	 * Creates a span that is only emitted as a JFR event.
+	 */
+	public static TelemetrySpan span(String name) {
+		return new TelemetrySpan(name, null);
+	}
+
+	/**
+	 * Creates a span that is also collected by the given report service, if present.
+	 */
+	public static TelemetrySpan span(String name, @Nullable TelemetryReportService report) {
+		return new TelemetrySpan(name, report);
+	}
+
+	/**
+	 * Creates a span for the given project, collected by the report service of the build if it has been registered.
+	 */
+	public static TelemetrySpan span(String name, Project project) {
+		return span(name, TelemetryReportService.find(project)).project(project);
+	}
+}
@@ -0,0 +1,131 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.util.telemetry;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import org.gradle.api.Project;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.api.services.BuildService;
+import org.gradle.api.services.BuildServiceParameters;
+import org.gradle.api.services.BuildServiceRegistration;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.fabricmc.loom.LoomGradlePlugin;
+import net.fabricmc.loom.util.Constants;
+import net.fabricmc.loom.util.gradle.GradleUtils;
+
+/**
+ * Collects the telemetry spans of a build and writes them to a JSON report once the build has finished.
+ */
+public abstract class TelemetryReportService implements BuildService<TelemetryReportService.Params>, AutoCloseable {
+	public static final String NAME = "loomTelemetryReport";
+	private static final Logger LOGGER = LoggerFactory.getLogger(TelemetryReportService.class);
+
+	public interface Params extends BuildServiceParameters {
+		RegularFileProperty getReportFile();
+
+		Property<String> getLoomVersion();
+	}
+
+	private final long buildStartMillis = System.currentTimeMillis();
+	private final List<TelemetrySpan.Record> records = new ArrayList<>();
+
+	/**
+	 * Registers the service for this build when the {@value Constants.Properties#TELEMETRY} property is set.
+	 */
+	public static void setupIfEnabled(Project project) {
+		if (!GradleUtils.getBooleanProperty(project, Constants.Properties.TELEMETRY)) {
+			return;
+		}
+
+		final Path reportDir = project.getRootProject().getLayout().getBuildDirectory().dir("loom-telemetry").get().getAsFile().toPath();
+
+		project.getGradle().getSharedServices().registerIfAbsent(NAME, TelemetryReportService.class, spec -> {
+			spec.getParameters().getReportFile().set(reportDir.resolve("build-%d.json".formatted(System.currentTimeMillis())).toFile());
+			spec.getParameters().getLoomVersion().set(LoomGradlePlugin.LOOM_VERSION);
+		});
+	}
+
+	/**
+	 * Returns the report service of the build, or {@code null} when telemetry is not enabled.
+	 */
+	@Nullable
+	public static TelemetryReportService find(Project project) {
+		final BuildServiceRegistration<?, ?> registration = project.getGradle().getSharedServices().getRegistrations().findByName(NAME);
+		return registration != null ? (TelemetryReportService) registration.getService().get() : null;
+	}
+
+	synchronized void record(TelemetrySpan.Record record) {
+		records.add(record);
+	}
+
+	synchronized List<TelemetrySpan.Record> getRecords() {
+		return List.copyOf(records);
+	}
+
+	@Override
+	public void close() {
+		final List<TelemetrySpan.Record> records = getRecords();
+		final Path reportFile = getParameters().getReportFile().get().getAsFile().toPath();
+
+		final JsonObject report = new JsonObject();
+		report.addProperty("loomVersion", getParameters().getLoomVersion().get());
+		report.addProperty("startMillis", buildStartMillis);
+		report.addProperty("durationMillis", System.currentTimeMillis() - buildStartMillis);
+
+		final JsonArray spans = new JsonArray();
+
+		for (TelemetrySpan.Record record : records) {
+			spans.add(LoomGradlePlugin.GSON.toJsonTree(record));
+		}
+
+		report.add("spans", spans);
+
+		try {
+			Files.createDirectories(reportFile.getParent());
+
+			try (Writer writer = Files.newBufferedWriter(reportFile, StandardCharsets.UTF_8)) {
+				LoomGradlePlugin.GSON.toJson(report, writer);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to write telemetry report", e);
+		}
+
+		LOGGER.info("Wrote Loom telemetry report to {}", reportFile);
+	}
+}
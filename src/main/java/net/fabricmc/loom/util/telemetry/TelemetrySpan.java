@@ -0,0 +1,126 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.util.telemetry;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.gradle.api.Project;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A single timed phase, the counters may be updated from any thread until the span is closed.
+ */
+public final class TelemetrySpan implements AutoCloseable {
+	private static final int PROCESSORS = Runtime.getRuntime().availableProcessors();
+
+	private final String name;
+	private final SpanEvent event = new SpanEvent();
+	private final long startMillis = System.currentTimeMillis();
+	private final long startNanos = System.nanoTime();
+	private final long startCpuNanos = processCpuTime();
+	private final AtomicLong bytes = new AtomicLong();
+	private final AtomicLong classes = new AtomicLong();
+	private final AtomicLong cacheHits = new AtomicLong();
+	private final AtomicLong cacheMisses = new AtomicLong();
+	private final @Nullable TelemetryReportService report;
+	private @Nullable String project;
+	private boolean closed = false;
+
+	TelemetrySpan(String name, @Nullable TelemetryReportService report) {
+		this.name = name;
+		this.report = report;
+		event.begin();
+	}
+
+	public TelemetrySpan project(Project project) {
+		this.project = project.getPath();
+		return this;
+	}
+
+	public TelemetrySpan bytes(long bytes) {
+		this.bytes.addAndGet(bytes);
+		return this;
+	}
+
+	public TelemetrySpan classes(long classes) {
+		this.classes.addAndGet(classes);
+		return this;
+	}
+
+	public TelemetrySpan cacheHits(long hits) {
+		this.cacheHits.addAndGet(hits);
+		return this;
+	}
+
+	public TelemetrySpan cacheMisses(long misses) {
+		this.cacheMisses.addAndGet(misses);
+		return this;
+	}
+
+	@Override
+	public synchronized void close() {
+		if (closed) {
+			return;
+		}
+
+		closed = true;
+		event.end();
+
+		final long durationNanos = System.nanoTime() - startNanos;
+		final long cpuNanos = processCpuTime() - startCpuNanos;
+		final double cpuUtilization = startCpuNanos < 0 || durationNanos <= 0 ? 0 : Math.min(1, (double) cpuNanos / ((double) durationNanos * PROCESSORS));
+
+		if (event.shouldCommit()) {
+			event.name = name;
+			event.project = project;
+			event.bytes = bytes.get();
+			event.classes = classes.get();
+			event.cacheHits = cacheHits.get();
+			event.cacheMisses = cacheMisses.get();
+			event.cpuUtilization = cpuUtilization;
+			event.commit();
+		}
+
+		if (report != null) {
+			report.record(new Record(name, project, Thread.currentThread().getName(), startMillis, durationNanos / 1_000_000, bytes.get(), classes.get(), cacheHits.get(), cacheMisses.get(), cpuUtilization));
+		}
+	}
+
+	// Returns -1 when not supported by the JVM
+	private static long processCpuTime() {
+		final OperatingSystemMXBean bean = ManagementFactory.getOperatingSystemMXBean();
+
+		if (bean instanceof com.sun.management.OperatingSystemMXBean sunBean) {
+			return sunBean.getProcessCpuTime();
+		}
+
+		return -1;
+	}
+
+	record Record(String name, @Nullable String project, String thread, long startMillis, long durationMillis, long bytes, long classes, long cacheHits, long cacheMisses, double cpuUtilization) {
+	}
+}
@@ -54,10 +54,11 @@ class ConfigurationCacheTest extends Specification implements GradleProjectTestT
 		result2.task(":${task}").outcome != FAILED
 
 		where:
-		task                      | _
-		"help"                    | _
-		"configureClientLaunch"   | _
-		"jar"                     | _
-		"check"                   | _
+		task                         | _
+		"help"                       | _
+		"configureClientLaunch"      | _
+		"jar"                        | _
+		"check"                      | _
+		"prefetchMinecraftDownloads" | _
 	}
 }
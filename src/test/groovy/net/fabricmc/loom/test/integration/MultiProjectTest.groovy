@@ -29,8 +29,10 @@ import spock.lang.Unroll
 
 import net.fabricmc.loom.test.util.GradleProjectTestTrait
 
+import static net.fabricmc.loom.test.LoomTestConstants.PRE_RELEASE_GRADLE
 import static net.fabricmc.loom.test.LoomTestConstants.STANDARD_TEST_VERSIONS
 import static org.gradle.testkit.runner.TaskOutcome.SUCCESS
+import static org.gradle.testkit.runner.TaskOutcome.UP_TO_DATE
 
 class MultiProjectTest extends Specification implements GradleProjectTestTrait {
 	@Unroll
@@ -58,4 +60,25 @@ class MultiProjectTest extends Specification implements GradleProjectTestTrait {
 		where:
 		version << STANDARD_TEST_VERSIONS
 	}
+
+	def "configuration cache with multi project optimisation"() {
+		setup:
+		def gradle = gradleProject(project: "multiproject", version: PRE_RELEASE_GRADLE)
+		gradle.enableMultiProjectOptimisation()
+
+		when:
+		def result = gradle.run(task: "remapJar", configurationCache: true)
+		def result2 = gradle.run(task: "remapJar", configurationCache: true)
+
+		then:
+		result.output.contains("Configuration cache entry stored")
+		result.task(":remapJar").outcome == SUCCESS
+		result.task(":core:remapJar").outcome == SUCCESS
+		result.task(":example:remapJar").outcome == SUCCESS
+
+		result2.output.contains("Configuration cache entry reused")
+		result2.task(":remapJar").outcome == UP_TO_DATE
+
+		gradle.hasOutputZipEntry("multiproject-1.0.0.jar", "META-INF/jars/core-1.0.0.jar")
+	}
 }
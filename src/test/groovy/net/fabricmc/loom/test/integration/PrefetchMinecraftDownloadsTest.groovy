@@ -0,0 +1,76 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.integration
+
+import spock.lang.Specification
+
+import net.fabricmc.loom.test.util.GradleProjectTestTrait
+
+import static net.fabricmc.loom.test.LoomTestConstants.PRE_RELEASE_GRADLE
+import static org.gradle.testkit.runner.TaskOutcome.SUCCESS
+
+class PrefetchMinecraftDownloadsTest extends Specification implements GradleProjectTestTrait {
+	def "prefetched version builds offline"() {
+		setup:
+		def gradleHome = File.createTempDir()
+
+		// Prefetch a different version than the one used by this project.
+		// Building it caches the version independent dependencies added by Loom, such as the mixin compile extensions.
+		def prefetch = gradleProject(project: "minimalBase", version: PRE_RELEASE_GRADLE, gradleHomeDir: gradleHome)
+		prefetch.buildGradle << '''
+			dependencies {
+				minecraft 'com.mojang:minecraft:1.20.4'
+				mappings 'net.fabricmc:yarn:1.20.4+build.3:v2'
+			}
+			'''.stripIndent()
+
+		def gradle = gradleProject(project: "minimalBase", version: PRE_RELEASE_GRADLE, gradleHomeDir: gradleHome)
+		gradle.buildGradle << '''
+			dependencies {
+				minecraft 'com.mojang:minecraft:1.20.2'
+				mappings 'net.fabricmc:yarn:1.20.2+build.4:v2'
+				modImplementation 'net.fabricmc:fabric-loader:0.15.6'
+			}
+			'''.stripIndent()
+
+		when:
+		def result1 = prefetch.run(tasks: [
+			"prefetchMinecraftDownloads",
+			"--minecraft-version", "1.20.2",
+			"--dependency", "net.fabricmc:yarn:1.20.2+build.4:v2",
+			"--dependency", "net.fabricmc:intermediary:1.20.2:v2",
+			"--dependency", "net.fabricmc:fabric-loader:0.15.6",
+			"build"
+		])
+
+		// Run with --offline to ensure that nothing is downloaded.
+		def result2 = gradle.run(task: "build", args: ["--offline"])
+
+		then:
+		result1.task(":prefetchMinecraftDownloads").outcome == SUCCESS
+		result1.task(":build").outcome == SUCCESS
+		result2.task(":build").outcome == SUCCESS
+	}
+}
@@ -24,12 +24,23 @@
 
 package net.fabricmc.loom.test.unit
 
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.attribute.FileTime
+import java.time.Instant
+import java.time.temporal.ChronoUnit
+
 import org.gradle.api.Project
 import spock.lang.Specification
+import spock.lang.TempDir
 
 import net.fabricmc.loom.util.Checksum
+import net.fabricmc.loom.util.FileDigestService
 
 class ChecksumTest extends Specification {
+	@TempDir
+	Path tempDir
+
 	def "project hash"() {
 		given:
 		def project = Mock(Project)
@@ -47,4 +58,69 @@ class ChecksumTest extends Specification {
 		":"    | "C://mod"
 		":sub" | "/Users/test/Documents/modding/fabric-loom"
 	}
+
+	def "file digest"() {
+		given:
+		def file = tempDir.resolve("test.txt")
+		Files.writeString(file, "hello")
+		Files.setLastModifiedTime(file, FileTime.from(Instant.now().minus(1, ChronoUnit.HOURS)))
+
+		when:
+		def sha1 = Checksum.sha1Hex(file)
+		def hits = FileDigestService.INSTANCE.hits()
+		def memoized = Checksum.sha1Hex(file)
+
+		then:
+		sha1 == "aaf4c61ddcc5e8a2dabede0f3b482cd9aea9434d"
+		memoized == sha1
+		FileDigestService.INSTANCE.hits() > hits
+		Checksum.sha256Hex(file) == "2cf24dba5fb0a30e26e83b2ac5b9e29e1b161e5c1fa7425e73043362938b9824"
+	}
+
+	def "file digest changes with the file"() {
+		given:
+		def file = tempDir.resolve("test.txt")
+		Files.writeString(file, "hello")
+		Files.setLastModifiedTime(file, FileTime.from(Instant.now().minus(1, ChronoUnit.HOURS)))
+		def before = Checksum.fastHex(file)
+
+		when:
+		Files.writeString(file, "hello world")
+		Files.setLastModifiedTime(file, FileTime.from(Instant.now().minus(30, ChronoUnit.MINUTES)))
+		def after = Checksum.fastHex(file)
+
+		then:
+		before != after
+	}
+
+	def "large file digest"() {
+		given:
+		def file = tempDir.resolve("large.bin")
+		def bytes = new byte[3 * 1024 * 1024 + 17]
+		new Random(42).nextBytes(bytes)
+		Files.write(file, bytes)
+
+		when:
+		def hash = Checksum.sha1Hex(file)
+
+		then:
+		hash == Checksum.sha1Hex(bytes)
+	}
+
+	def "large file can be replaced after hashing"() {
+		given:
+		def file = tempDir.resolve("large.bin")
+		def bytes = new byte[3 * 1024 * 1024]
+		new Random(42).nextBytes(bytes)
+		Files.write(file, bytes)
+		Checksum.sha1Hex(file)
+
+		when:
+		// Would fail on Windows if the file was still mapped into memory
+		Files.write(file, "replaced".bytes)
+		Files.delete(file)
+
+		then:
+		Files.notExists(file)
+	}
 }
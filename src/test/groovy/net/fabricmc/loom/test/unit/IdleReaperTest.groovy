@@ -0,0 +1,81 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit
+
+import java.time.Duration
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+import spock.lang.Specification
+
+import net.fabricmc.loom.util.gradle.IdleReaper
+
+class IdleReaperTest extends Specification {
+	IdleReaper reaper = new IdleReaper("Test idle reaper")
+
+	def "an idle worker is stopped after the timeout"() {
+		given:
+		def stopped = new CountDownLatch(1)
+		def start = System.nanoTime()
+
+		when:
+		reaper.release("worker", Duration.ofMillis(100), stopped::countDown)
+
+		then:
+		stopped.await(10, TimeUnit.SECONDS)
+		System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(100)
+	}
+
+	def "an acquired worker is not stopped"() {
+		given:
+		def stops = new AtomicInteger()
+
+		when:
+		reaper.release("worker", Duration.ofMillis(100), stops::incrementAndGet)
+		reaper.acquire("worker")
+		Thread.sleep(300)
+
+		then:
+		stops.get() == 0
+	}
+
+	def "releasing a worker again restarts the timeout"() {
+		given:
+		def stops = new AtomicInteger()
+		def stopped = new CountDownLatch(1)
+
+		when:
+		reaper.release("worker", Duration.ofMillis(100), stops::incrementAndGet)
+		reaper.release("worker", Duration.ofMillis(500), stopped::countDown)
+		Thread.sleep(300)
+		def stoppedEarly = stopped.count == 0
+
+		then:
+		!stoppedEarly
+		stopped.await(10, TimeUnit.SECONDS)
+		stops.get() == 0
+	}
+}
@@ -0,0 +1,149 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit
+
+import java.nio.file.Files
+import java.nio.file.Path
+
+import org.objectweb.asm.ClassWriter
+import org.objectweb.asm.Opcodes
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import net.fabricmc.loom.build.remap.IncrementalRemapCache
+import net.fabricmc.loom.task.service.TinyRemapperService
+import net.fabricmc.loom.test.util.ZipTestUtils
+import net.fabricmc.loom.util.Checksum
+import net.fabricmc.loom.util.TinyRemapperHelper
+import net.fabricmc.loom.util.ZipReprocessorUtil
+import net.fabricmc.tinyremapper.OutputConsumerPath
+import net.fabricmc.tinyremapper.TinyRemapper
+
+class IncrementalRemapCacheTest extends Specification {
+	private static final String MAPPINGS = """
+tiny\t2\t0\tintermediary\tnamed
+c\tnet/minecraft/class_1\tnet/minecraft/Foo
+\tm\t()V\tmethod_1\ttick
+\tf\tI\tfield_1\tcount
+""".trim()
+
+	@TempDir
+	Path tempDir
+
+	Path mappings
+
+	def setup() {
+		mappings = tempDir.resolve("mappings.tiny")
+		Files.writeString(mappings, MAPPINGS)
+	}
+
+	def "incremental remap matches a full remap"() {
+		given:
+		def cache = new IncrementalRemapCache(tempDir.resolve("cache"), "key")
+		remapIncremental(cache, [A: 1, B: 1, C: 1])
+		def inputs = [
+			[A: 1, B: 2, C: 1], // Change the code of a class
+			[A: 1, B: 2, C: 1, D: 1], // Add a class
+			[A: 1, B: 2, D: 1], // Remove a class
+			[A: 3, B: 2, D: 1], // Change a class again
+		]
+
+		when:
+		def results = inputs.collect { classes ->
+			[incremental: remapIncremental(cache, classes), full: remapFull(createJar(classes))]
+		}
+
+		then:
+		results.every { Checksum.sha1Hex(it.incremental.output as Path) == Checksum.sha1Hex(it.full as Path) }
+		results[0].incremental.stats.reused() == 2
+		results[0].incremental.stats.remapped() == 1
+		results[3].incremental.stats.reused() == 2
+		results[3].incremental.stats.remapped() == 1
+	}
+
+	private Map remapIncremental(IncrementalRemapCache cache, Map<String, Integer> classes) {
+		def options = new TinyRemapperService.Options("test", mappings.toFile(), "named", "intermediary", false, [], [] as Set, null, [] as Set)
+		def service = TinyRemapperService.create(options, [], null, null)
+		def output = Files.createTempFile(tempDir, "incremental", ".jar")
+		Files.delete(output)
+
+		def stats = cache.remap(service, createJar(classes), output)
+		service.close()
+		ZipReprocessorUtil.reprocessZip(output, true, false)
+
+		return [stats: stats, output: output]
+	}
+
+	private Path remapFull(Path input) {
+		def output = Files.createTempFile(tempDir, "full", ".jar")
+		Files.delete(output)
+		def remapper = TinyRemapper.newRemapper()
+				.withMappings(TinyRemapperHelper.create(mappings, "named", "intermediary", false))
+				.build()
+
+		try {
+			new OutputConsumerPath.Builder(output).build().withCloseable { outputConsumer ->
+				outputConsumer.addNonClassFiles(input)
+				remapper.readInputs(input)
+				remapper.apply(outputConsumer)
+			}
+		} finally {
+			remapper.finish()
+		}
+
+		ZipReprocessorUtil.reprocessZip(output, true, false)
+		return output
+	}
+
+	// Each class references the mapped Minecraft class, the value only changes the method code
+	private static Path createJar(Map<String, Integer> classes) {
+		return ZipTestUtils.createZipFromBytes(classes.collectEntries { name, value ->
+			["mod/${name}.class".toString(), createClass("mod/${name}", value)]
+		}, ".jar")
+	}
+
+	private static byte[] createClass(String name, int value) {
+		def writer = new ClassWriter(ClassWriter.COMPUTE_MAXS)
+		writer.visit(Opcodes.V17, Opcodes.ACC_PUBLIC, name, null, "java/lang/Object", null)
+		writer.visitField(Opcodes.ACC_PUBLIC, "foo", "Lnet/minecraft/Foo;", null, null).visitEnd()
+
+		def method = writer.visitMethod(Opcodes.ACC_PUBLIC, "run", "()I", null, null)
+		method.visitCode()
+		method.visitVarInsn(Opcodes.ALOAD, 0)
+		method.visitFieldInsn(Opcodes.GETFIELD, name, "foo", "Lnet/minecraft/Foo;")
+		method.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "net/minecraft/Foo", "tick", "()V", false)
+		method.visitVarInsn(Opcodes.ALOAD, 0)
+		method.visitFieldInsn(Opcodes.GETFIELD, name, "foo", "Lnet/minecraft/Foo;")
+		method.visitFieldInsn(Opcodes.GETFIELD, "net/minecraft/Foo", "count", "I")
+		method.visitLdcInsn(value)
+		method.visitInsn(Opcodes.IADD)
+		method.visitInsn(Opcodes.IRETURN)
+		method.visitMaxs(0, 0)
+		method.visitEnd()
+
+		writer.visitEnd()
+		return writer.toByteArray()
+	}
+}
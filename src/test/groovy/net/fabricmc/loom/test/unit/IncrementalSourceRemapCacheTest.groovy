@@ -0,0 +1,138 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit
+
+import java.nio.file.Files
+import java.nio.file.Path
+
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import net.fabricmc.loom.build.remap.IncrementalSourceRemapCache
+
+class IncrementalSourceRemapCacheTest extends Specification {
+	@TempDir
+	Path tempDir
+
+	List<String> remapped = []
+
+	// Replaces "named" with "intermediary" in every source file
+	IncrementalSourceRemapCache.Rewriter rewriter = { Path input, Path output, Path sourcePath ->
+		Files.walk(input).withCloseable { walk ->
+			walk.filter { Files.isRegularFile(it) }.forEach {
+				def name = input.relativize(it).toString().replace('\\', '/')
+				def outputPath = output.resolve(name)
+				Files.createDirectories(outputPath.parent)
+				Files.writeString(outputPath, Files.readString(it).replace("named", "intermediary"))
+				remapped << name
+			}
+		}
+	} as IncrementalSourceRemapCache.Rewriter
+
+	def "only changed sources and their dependents are remapped"() {
+		given:
+		def sources = tempDir.resolve("sources")
+		writeSource(sources, "A", "class A { B b; named }")
+		writeSource(sources, "B", "class B { C c; }")
+		writeSource(sources, "C", "class C { }")
+		writeSource(sources, "D", "class D { named }")
+
+		when:
+		def first = remap("key", sources)
+		writeSource(sources, "C", "class C { named }")
+		def second = remap("key", sources)
+		def output = second.output
+
+		then:
+		first.stats.remapped() == 4
+		second.stats.reused() == 1
+		second.stats.remapped() == 3
+		remapped.toSorted() == ["test/A.java", "test/B.java", "test/C.java"]
+		Files.readString(output.resolve("test/A.java")) == "class A { B b; intermediary }"
+		Files.readString(output.resolve("test/C.java")) == "class C { intermediary }"
+		Files.readString(output.resolve("test/D.java")) == "class D { intermediary }"
+	}
+
+	def "sources referencing a type declared in another file are remapped"() {
+		given:
+		def sources = tempDir.resolve("sources")
+		writeSource(sources, "Foo", "public class Foo { }\nclass Helper { }")
+		writeSource(sources, "User", "class User { Helper helper; }")
+		writeSource(sources, "Other", "class Other { }")
+
+		when:
+		remap("key", sources)
+		writeSource(sources, "Foo", "public class Foo { }\nclass Helper { named }")
+		def result = remap("key", sources)
+
+		then:
+		result.stats.reused() == 1
+		result.stats.remapped() == 2
+		remapped.toSorted() == ["test/Foo.java", "test/User.java"]
+	}
+
+	def "unchanged sources are reused"() {
+		given:
+		def sources = tempDir.resolve("sources")
+		writeSource(sources, "A", "class A { named }")
+		remap("key", sources)
+
+		when:
+		def result = remap("key", sources)
+
+		then:
+		result.stats.reused() == 1
+		result.stats.remapped() == 0
+		remapped.isEmpty()
+		Files.readString(result.output.resolve("test/A.java")) == "class A { intermediary }"
+	}
+
+	def "sources are remapped when the base key changes"() {
+		given:
+		def sources = tempDir.resolve("sources")
+		writeSource(sources, "A", "class A { named }")
+		remap("key", sources)
+
+		when:
+		def result = remap("other key", sources)
+
+		then:
+		result.stats.reused() == 0
+		result.stats.remapped() == 1
+	}
+
+	private Map remap(String baseKey, Path sources) {
+		remapped.clear()
+		def output = Files.createTempDirectory(tempDir, "output")
+		def stats = new IncrementalSourceRemapCache(tempDir.resolve("cache"), baseKey).remap(rewriter, sources, output)
+		return [stats: stats, output: output]
+	}
+
+	private static void writeSource(Path sources, String name, String contents) {
+		def path = sources.resolve("test/${name}.java")
+		Files.createDirectories(path.parent)
+		Files.writeString(path, contents)
+	}
+}
@@ -0,0 +1,112 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit
+
+import java.nio.charset.StandardCharsets
+import java.nio.file.Files
+import java.nio.file.Path
+import java.util.zip.ZipEntry
+import java.util.zip.ZipFile
+
+import com.google.gson.JsonObject
+import org.slf4j.LoggerFactory
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import net.fabricmc.loom.build.nesting.JarNester
+import net.fabricmc.loom.util.ModPlatform
+import net.fabricmc.loom.util.Pair
+import net.fabricmc.loom.util.ZipUtils
+
+class JarNesterTest extends Specification {
+	@TempDir
+	Path tempDir
+
+	def "nest jars"() {
+		given:
+		def modJar = createJar("mod.jar", [
+			"fabric.mod.json": '{"schemaVersion": 1, "id": "mod"}',
+			"test.txt": "hello world"
+		])
+		def nestedA = createJar("a.jar", ["fabric.mod.json": '{"schemaVersion": 1, "id": "a"}'])
+		def nestedB = createJar("b.jar", ["fabric.mod.json": '{"schemaVersion": 1, "id": "b"}'])
+
+		when:
+		JarNester.nestJars([nestedA.toFile(), nestedB.toFile()], modJar.toFile(), ModPlatform.FABRIC, LoggerFactory.getLogger(JarNesterTest))
+		def json = ZipUtils.unpackGson(modJar, "fabric.mod.json", JsonObject)
+		def nestedMethod = new ZipFile(modJar.toFile()).withCloseable {
+			it.getEntry("META-INF/jars/a.jar").method
+		}
+
+		then:
+		json.get("id").asString == "mod"
+		json.getAsJsonArray("jars")*.asJsonObject*.get("file")*.asString == [
+			"META-INF/jars/a.jar",
+			"META-INF/jars/b.jar"
+		]
+		ZipUtils.unpack(modJar, "test.txt") == "hello world".bytes
+		ZipUtils.unpack(modJar, "META-INF/jars/a.jar") == Files.readAllBytes(nestedA)
+		ZipUtils.unpack(modJar, "META-INF/jars/b.jar") == Files.readAllBytes(nestedB)
+		nestedMethod == ZipEntry.STORED
+	}
+
+	def "nest jars into forge mod"() {
+		given:
+		def modJar = createJar("mod.jar", ["META-INF/mods.toml": ""])
+		def metadata = '{"group": "net.example", "name": "a", "version": "1.0.0"}'
+		def nested = createJar("a.jar", ["META-INF/architectury-loom-nesting-metadata.json": metadata])
+
+		when:
+		JarNester.nestJars([nested.toFile()], modJar.toFile(), ModPlatform.FORGE, LoggerFactory.getLogger(JarNesterTest))
+		def json = ZipUtils.unpackGson(modJar, "META-INF/jarjar/metadata.json", JsonObject)
+		def jar = json.getAsJsonArray("jars").get(0).asJsonObject
+
+		then:
+		jar.get("path").asString == "META-INF/jars/a.jar"
+		jar.getAsJsonObject("identifier").get("group").asString == "net.example"
+		jar.getAsJsonObject("version").get("artifactVersion").asString == "1.0.0"
+		ZipUtils.unpack(modJar, "META-INF/jars/a.jar") == Files.readAllBytes(nested)
+	}
+
+	def "cannot nest 2 jars at the same path"() {
+		given:
+		def modJar = createJar("mod.jar", ["fabric.mod.json": '{"schemaVersion": 1, "id": "mod"}'])
+		def nested = createJar("a.jar", ["fabric.mod.json": '{"schemaVersion": 1, "id": "a"}'])
+		def duplicate = createJar("other/a.jar", ["fabric.mod.json": '{"schemaVersion": 1, "id": "a"}'])
+
+		when:
+		JarNester.nestJars([nested.toFile(), duplicate.toFile()], modJar.toFile(), ModPlatform.FABRIC, LoggerFactory.getLogger(JarNesterTest))
+
+		then:
+		thrown IllegalStateException
+	}
+
+	private Path createJar(String name, Map<String, String> entries) {
+		def jar = tempDir.resolve(name)
+		Files.createDirectories(jar.parent)
+		ZipUtils.add(jar, entries.collect { new Pair<>(it.key, it.value.getBytes(StandardCharsets.UTF_8)) })
+		return jar
+	}
+}
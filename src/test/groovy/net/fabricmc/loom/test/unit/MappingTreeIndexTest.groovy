@@ -0,0 +1,97 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit
+
+import spock.lang.Specification
+
+import net.fabricmc.loom.configuration.providers.mappings.MappingTreeIndex
+import net.fabricmc.mappingio.format.tiny.Tiny2FileReader
+import net.fabricmc.mappingio.tree.MappingTreeView
+import net.fabricmc.mappingio.tree.MemoryMappingTree
+
+class MappingTreeIndexTest extends Specification {
+	private static final String MAPPINGS = """
+tiny\t2\t0\tofficial\tintermediary\tnamed
+c\ta\tclass_1\tnet/minecraft/Foo
+\tf\tI\ta\tfield_1\tcount
+\tf\tJ\tb\tfield_2\tcount
+\tm\t()V\ta\tmethod_1\ttick
+c\tb\tclass_2\tnet/minecraft/Bar
+""".trim()
+
+	MappingTreeIndex index
+
+	def setup() {
+		def tree = new MemoryMappingTree()
+		Tiny2FileReader.read(new StringReader(MAPPINGS), tree)
+		index = new MappingTreeIndex(tree)
+	}
+
+	def "map class names"() {
+		expect:
+		index.mapClassName(name, from, to) == expected
+
+		where:
+		name                | from           | to             | expected
+		"class_1"           | "intermediary" | "named"        | "net/minecraft/Foo"
+		"net/minecraft/Bar" | "named"        | "official"     | "b"
+		"a"                 | "official"     | "intermediary" | "class_1"
+		"class_3"           | "intermediary" | "named"        | "class_3"
+	}
+
+	def "find fields"() {
+		given:
+		def owner = index.getClass("net/minecraft/Foo", "named")
+		def intermediary = index.getNamespaceId("intermediary")
+		def named = index.getNamespaceId("named")
+
+		expect:
+		index.getField(owner, "field_2", null, intermediary).getName(named) == "count"
+		index.getField(owner, "count", null, named).getName(intermediary) == "field_1"
+		index.getField(owner, "count", "J", named).getName(intermediary) == "field_2"
+		index.getField(owner, "b", null, MappingTreeView.SRC_NAMESPACE_ID).getName(intermediary) == "field_2"
+		index.getField(owner, "missing", null, named) == null
+	}
+
+	def "find methods"() {
+		given:
+		def owner = index.getClass("class_1", "intermediary")
+		def named = index.getNamespaceId("named")
+
+		expect:
+		index.getMethod(owner, "tick", null, named).getName("intermediary") == "method_1"
+		index.getMethod(owner, "tick", "()V", named) != null
+		index.getMethod(owner, "tick", "()I", named) == null
+		index.getMethod(index.getClass("class_2", "intermediary"), "tick", null, named) == null
+	}
+
+	def "unknown namespace"() {
+		when:
+		index.getClass("a", "srg")
+
+		then:
+		thrown IllegalArgumentException
+	}
+}
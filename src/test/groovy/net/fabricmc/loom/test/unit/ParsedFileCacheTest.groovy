@@ -0,0 +1,126 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2023 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.attribute.FileTime
+import java.time.Instant
+import java.time.temporal.ChronoUnit
+
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import net.fabricmc.loom.util.ParsedFileCache
+
+class ParsedFileCacheTest extends Specification {
+	@TempDir
+	Path tempDir
+
+	def "parsed value is reused"() {
+		given:
+		def file = tempDir.resolve("test.txt")
+		Files.writeString(file, "hello")
+		Files.setLastModifiedTime(file, FileTime.from(Instant.now().minus(1, ChronoUnit.HOURS)))
+		def parses = 0
+		def parser = { Path path ->
+			parses++
+			return Files.readString(path)
+		} as ParsedFileCache.Parser<String>
+
+		when:
+		def first = ParsedFileCache.INSTANCE.get(file, String, parser)
+		def hits = ParsedFileCache.INSTANCE.hits()
+		def second = ParsedFileCache.INSTANCE.get(file, String, parser)
+
+		then:
+		first == "hello"
+		second.is(first)
+		parses == 1
+		ParsedFileCache.INSTANCE.hits() == hits + 1
+	}
+
+	def "parsed value changes with the file"() {
+		given:
+		def file = tempDir.resolve("test.txt")
+		Files.writeString(file, "hello")
+		Files.setLastModifiedTime(file, FileTime.from(Instant.now().minus(1, ChronoUnit.HOURS)))
+		def parser = { Path path -> Files.readString(path) } as ParsedFileCache.Parser<String>
+		def before = ParsedFileCache.INSTANCE.get(file, String, parser)
+
+		when:
+		Files.writeString(file, "hello world")
+		Files.setLastModifiedTime(file, FileTime.from(Instant.now().minus(30, ChronoUnit.MINUTES)))
+		def after = ParsedFileCache.INSTANCE.get(file, String, parser)
+
+		then:
+		before == "hello"
+		after == "hello world"
+	}
+
+	def "recently modified files are not memoized"() {
+		given:
+		def file = tempDir.resolve("test.txt")
+		Files.writeString(file, "hello")
+		def parses = 0
+		def parser = { Path path ->
+			parses++
+			return Files.readString(path)
+		} as ParsedFileCache.Parser<String>
+
+		when:
+		ParsedFileCache.INSTANCE.get(file, String, parser)
+		ParsedFileCache.INSTANCE.get(file, String, parser)
+
+		then:
+		parses == 2
+	}
+
+	def "a file that fails to parse is not served from the cache"() {
+		given:
+		def file = tempDir.resolve("test.txt")
+		Files.writeString(file, "hello")
+		Files.setLastModifiedTime(file, FileTime.from(Instant.now().minus(1, ChronoUnit.HOURS)))
+		def parser = { Path path -> Files.readString(path) } as ParsedFileCache.Parser<String>
+		def failing = { Path path -> throw new IOException("Corrupt") } as ParsedFileCache.Parser<String>
+		ParsedFileCache.INSTANCE.get(file, String, parser)
+
+		when:
+		Files.writeString(file, "corrupt")
+		Files.setLastModifiedTime(file, FileTime.from(Instant.now().minus(30, ChronoUnit.MINUTES)))
+		ParsedFileCache.INSTANCE.get(file, String, failing)
+
+		then:
+		thrown IOException
+
+		when:
+		def misses = ParsedFileCache.INSTANCE.misses()
+		def value = ParsedFileCache.INSTANCE.get(file, String, parser)
+
+		then:
+		value == "corrupt"
+		ParsedFileCache.INSTANCE.misses() == misses + 1
+	}
+}
@@ -0,0 +1,68 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2023 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit
+
+import spock.lang.Specification
+
+import net.fabricmc.loom.util.telemetry.Telemetry
+import net.fabricmc.loom.util.telemetry.TelemetryReportService
+
+class TelemetryTest extends Specification {
+	TelemetryReportService report = new TelemetryReportService() {
+		@Override
+		TelemetryReportService.Params getParameters() {
+			throw new UnsupportedOperationException()
+		}
+	}
+
+	def "spans are collected"() {
+		when:
+		def span = Telemetry.span("test", report)
+		span.bytes(100).bytes(20).classes(3).cacheHits(2).cacheMisses(1)
+		span.close()
+		span.close() // Closing twice must not record the span twice
+		def records = report.getRecords()
+
+		then:
+		records.size() == 1
+		records[0].name() == "test"
+		records[0].bytes() == 120
+		records[0].classes() == 3
+		records[0].cacheHits() == 2
+		records[0].cacheMisses() == 1
+		records[0].durationMillis() >= 0
+		records[0].cpuUtilization() >= 0
+		records[0].cpuUtilization() <= 1
+	}
+
+	def "spans are not collected without a report"() {
+		when:
+		Telemetry.span("test").close()
+		Telemetry.span("test", (TelemetryReportService) null).close()
+
+		then:
+		report.getRecords().isEmpty()
+	}
+}
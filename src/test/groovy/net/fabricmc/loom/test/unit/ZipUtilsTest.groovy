@@ -27,6 +27,10 @@ package net.fabricmc.loom.test.unit
 import java.nio.charset.StandardCharsets
 import java.nio.file.Files
 import java.time.ZoneId
+import java.util.zip.ZipEntry
+import java.util.zip.ZipException
+import java.util.zip.ZipFile
+import java.util.zip.ZipOutputStream
 
 import com.google.gson.JsonObject
 import org.gradle.api.tasks.bundling.ZipEntryCompression
@@ -192,6 +196,27 @@ class ZipUtilsTest extends Specification {
 		"Etc/GMT+9" 		| _
 	}
 
+	def "append zip entry keeps a legacy encoded name"() {
+		given:
+		// A name that is not valid UTF-8, without the UTF-8 flag
+		def zip = Files.createTempFile("loom-zip-test", ".zip")
+		new ZipOutputStream(Files.newOutputStream(zip), StandardCharsets.ISO_8859_1).withCloseable {
+			it.putNextEntry(new ZipEntry("caf\u00e9.txt"))
+			it.write("hello world".bytes)
+			it.closeEntry()
+		}
+		def original = Files.readAllBytes(zip)
+
+		when:
+		ZipReprocessorUtil.appendZipEntry(zip, "fabric.mod.json", "Some text".getBytes(StandardCharsets.UTF_8))
+
+		then:
+		// The name cannot be read as UTF-8, the zip file is left untouched rather than renaming the entry
+		thrown ZipException
+		Files.readAllBytes(zip) == original
+		Files.notExists(zip.resolveSibling(zip.fileName.toString() + ".tmp"))
+	}
+
 	def "transform json"() {
 		given:
 		def dir = File.createTempDir()
@@ -258,4 +283,50 @@ class ZipUtilsTest extends Specification {
 		ZipUtils.unpack(zip, "text.txt") == "hello world".bytes
 		Checksum.sha1Hex(zip) == "e699fa52a520553241aac798f72255ac0a912b05"
 	}
+
+	def "reprocess recompresses and sorts entries"() {
+		given:
+		def dir = Files.createTempDirectory("loom-zip-test")
+		def zip = Files.createTempFile("loom-zip-test", ".zip")
+
+		for (int i = 0; i < 100; i++) {
+			Files.writeString(dir.resolve("file" + i + ".txt"), "hello world " * i)
+		}
+
+		ZipUtils.pack(dir, zip)
+
+		when:
+		ZipReprocessorUtil.reprocessZip(zip, true, false, ZipEntryCompression.STORED)
+		def stored = Checksum.sha1Hex(zip)
+		ZipReprocessorUtil.reprocessZip(zip, true, false, ZipEntryCompression.DEFLATED)
+		def names = new ZipFile(zip.toFile()).withCloseable { it.entries().collect { it.name } }
+
+		then:
+		stored != Checksum.sha1Hex(zip)
+		names == names.toSorted()
+		(0..<100).every { ZipUtils.unpack(zip, "file" + it + ".txt") == ("hello world " * it).bytes }
+	}
+
+	def "filter zip entries"() {
+		given:
+		def dir = Files.createTempDirectory("loom-zip-test")
+		def zip = Files.createTempFile("loom-zip-test", ".zip")
+		def output = Files.createTempFile("loom-zip-test", ".zip")
+
+		for (int i = 0; i < 10; i++) {
+			Files.writeString(dir.resolve("file" + i + ".txt"), "hello world " * i)
+		}
+
+		ZipUtils.pack(dir, zip)
+
+		when:
+		ZipReprocessorUtil.filterZipEntries(zip, output, { it != "file3.txt" }, ["META-INF/MANIFEST.MF": "Manifest-Version: 1.0\r\n".bytes])
+		def names = new ZipFile(output.toFile()).withCloseable { it.entries().collect { it.name } }
+
+		then:
+		names.size() == 10
+		names.first() == "META-INF/MANIFEST.MF"
+		!names.contains("file3.txt")
+		ZipUtils.unpack(output, "file5.txt") == ("hello world " * 5).bytes
+	}
 }
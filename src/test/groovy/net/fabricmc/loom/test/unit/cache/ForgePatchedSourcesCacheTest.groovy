@@ -0,0 +1,132 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit.cache
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.time.Duration
+
+import org.objectweb.asm.ClassWriter
+import org.objectweb.asm.Opcodes
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import net.fabricmc.loom.configuration.sources.ForgePatchedSourcesCache
+import net.fabricmc.loom.decompilers.cache.CachedData
+import net.fabricmc.loom.decompilers.cache.CachedFileStoreImpl
+import net.fabricmc.loom.test.util.ZipTestUtils
+import net.fabricmc.loom.util.ZipUtils
+
+class ForgePatchedSourcesCacheTest extends Specification {
+	static Map<String, byte[]> jarEntries = [
+		"net/minecraft/Example.class": newClass("net/minecraft/Example"),
+		"net/minecraft/other/Test.class": newClass("net/minecraft/other/Test"),
+		"net/minecraft/other/Test\$Inner.class": newClass("net/minecraft/other/Test\$Inner"),
+		"assets/minecraft/lang/en_us.json": "{}".bytes,
+	]
+
+	@TempDir
+	Path testPath
+
+	def "hash patches"() {
+		given:
+		def patches = testPath.resolve("patches")
+		Files.createDirectories(patches.resolve("net/minecraft"))
+		Files.writeString(patches.resolve("net/minecraft/Example.java.patch"), "patch")
+		Files.writeString(patches.resolve("net/minecraft/readme.txt"), "not a patch")
+
+		when:
+		def hashes = ForgePatchedSourcesCache.hashPatches(patches)
+
+		then:
+		hashes.keySet() == ["net/minecraft/Example.java"] as Set
+	}
+
+	def "only changed patches are processed again"() {
+		given:
+		def jar = ZipTestUtils.createZipFromBytes(jarEntries)
+		def store = new CachedFileStoreImpl<>(testPath.resolve("cache"), CachedData.SERIALIZER, new CachedFileStoreImpl.CacheRules(50_000, Duration.ofDays(90)))
+		def cache = new ForgePatchedSourcesCache(store, "abc123", [:], ["net/minecraft/Example.java": "1"])
+
+		when:
+		def job = cache.prepareJob(jar)
+		def processed = processSources(job)
+		def output = testPath.resolve("output.jar")
+		cache.completeJob(job, processed, output, { it })
+
+		// Bump the Forge patch of Example
+		def newCache = new ForgePatchedSourcesCache(store, "abc123", [:], ["net/minecraft/Example.java": "2"])
+		def newJob = newCache.prepareJob(jar)
+		def newProcessed = processSources(newJob)
+		def newOutput = testPath.resolve("new-output.jar")
+		newCache.completeJob(newJob, newProcessed, newOutput, { it })
+
+		then:
+		job.missingSources() == ["net/minecraft/Example.java", "net/minecraft/other/Test.java"] as Set
+		newJob.missingSources() == ["net/minecraft/Example.java"] as Set
+		newJob.existing().keySet() == ["net/minecraft/other/Test.java"] as Set
+		Files.notExists(newJob.existingClasses()) // Cleaned up
+		ZipUtils.unpack(newOutput, "net/minecraft/Example.java") == "Processed net/minecraft/Example.java".bytes
+		ZipUtils.unpack(newOutput, "net/minecraft/other/Test.java") == "Processed net/minecraft/other/Test.java".bytes
+		ZipUtils.unpack(newOutput, "assets/minecraft/lang/en_us.json") == "{}".bytes
+	}
+
+	def "resources are kept when every source is cached"() {
+		given:
+		def jar = ZipTestUtils.createZipFromBytes(jarEntries)
+		def store = new CachedFileStoreImpl<>(testPath.resolve("cache"), CachedData.SERIALIZER, new CachedFileStoreImpl.CacheRules(50_000, Duration.ofDays(90)))
+		def cache = new ForgePatchedSourcesCache(store, "abc123", [:], [:])
+		def firstJob = cache.prepareJob(jar)
+		cache.completeJob(firstJob, processSources(firstJob), testPath.resolve("first-output.jar"), { it })
+
+		when:
+		def job = cache.prepareJob(jar)
+		def output = testPath.resolve("output.jar")
+		cache.completeJob(job, null, output, { it })
+
+		then:
+		job.incomplete() == null
+		ZipUtils.unpack(output, "net/minecraft/Example.java") == "Processed net/minecraft/Example.java".bytes
+		ZipUtils.unpack(output, "assets/minecraft/lang/en_us.json") == "{}".bytes
+	}
+
+	// Stands in for decompiling, patching and remapping
+	private Path processSources(ForgePatchedSourcesCache.Job job) {
+		def processed = Files.createTempFile(testPath, "processed", ".jar")
+		Files.delete(processed)
+
+		for (String name : job.missingSources()) {
+			ZipUtils.add(processed, name, "Processed " + name)
+		}
+
+		return processed
+	}
+
+	private static byte[] newClass(String name) {
+		def writer = new ClassWriter(0)
+		writer.visit(Opcodes.V17, Opcodes.ACC_PUBLIC, name, null, "java/lang/Object", null)
+		return writer.toByteArray()
+	}
+}
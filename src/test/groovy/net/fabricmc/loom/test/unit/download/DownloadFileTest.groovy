@@ -406,6 +406,140 @@ class DownloadFileTest extends DownloadTest {
 		Files.readAllBytes(output) == data
 	}
 
+	def "File: Resume partial download"() {
+		setup:
+		byte[] data = new byte[1024 * 64]
+		new Random().nextBytes(data)
+		String rangeHeader = null
+
+		server.get("/resumeFile") {
+			def range = it.req.getHeader("Range")
+			it.header("ETag", "\"v1\"")
+			it.header("Accept-Ranges", "bytes")
+
+			if (range != null && it.req.getHeader("If-Range") == "\"v1\"") {
+				rangeHeader = range
+				int start = Integer.parseInt(range.substring("bytes=".length(), range.length() - 1))
+				it.status(HttpStatus.PARTIAL_CONTENT)
+				it.header("Content-Range", "bytes $start-${data.length - 1}/${data.length}")
+				it.result(Arrays.copyOfRange(data, start, data.length))
+				return
+			}
+
+			it.result(data)
+		}
+
+		def output = new File(File.createTempDir(), "file").toPath()
+		Files.write(output.resolveSibling("file.part"), Arrays.copyOfRange(data, 0, 1000))
+		Files.writeString(output.resolveSibling("file.part.etag"), "\"v1\"")
+
+		when:
+		Download.create("$PATH/resumeFile")
+				.sha1(Checksum.sha1Hex(data))
+				.downloadPath(output)
+
+		then:
+		rangeHeader == "bytes=1000-"
+		Files.readAllBytes(output) == data
+		Files.notExists(output.resolveSibling("file.part"))
+		Files.notExists(output.resolveSibling("file.part.etag"))
+	}
+
+	def "File: Restart changed partial download"() {
+		setup:
+		byte[] data = new byte[1024 * 64]
+		new Random().nextBytes(data)
+
+		server.get("/changedResumeFile") {
+			// The ETag no longer matches the partial download, so the whole file is returned
+			it.header("ETag", "\"v2\"")
+			it.result(data)
+		}
+
+		def output = new File(File.createTempDir(), "file").toPath()
+		Files.write(output.resolveSibling("file.part"), new byte[1000])
+		Files.writeString(output.resolveSibling("file.part.etag"), "\"v1\"")
+
+		when:
+		Download.create("$PATH/changedResumeFile")
+				.sha1(Checksum.sha1Hex(data))
+				.downloadPath(output)
+
+		then:
+		Files.readAllBytes(output) == data
+	}
+
+	def "File: Segmented"() {
+		setup:
+		byte[] data = new byte[1024 * 1024 * 10] // 10MB
+		new Random().nextBytes(data)
+		int rangeRequests = 0
+
+		server.get("/segmentedFile") {
+			def range = it.req.getHeader("Range")
+			it.header("ETag", "\"segmented\"")
+			it.header("Accept-Ranges", "bytes")
+
+			if (range != null) {
+				synchronized (this) {
+					rangeRequests++
+				}
+
+				def (start, end) = range.substring("bytes=".length()).split("-").collect { Integer.parseInt(it) }
+				it.status(HttpStatus.PARTIAL_CONTENT)
+				it.header("Content-Range", "bytes $start-$end/${data.length}")
+				it.result(Arrays.copyOfRange(data, start, end + 1))
+				return
+			}
+
+			it.header("Content-Length", data.length.toString())
+			it.result(data)
+		}
+
+		def output = new File(File.createTempDir(), "file").toPath()
+
+		when:
+		Download.create("$PATH/segmentedFile")
+				.sha1(Checksum.sha1Hex(data))
+				.segments(4)
+				.downloadPath(output)
+
+		then:
+		rangeRequests == 3
+		Files.readAllBytes(output) == data
+	}
+
+	def "File: Segmented requires a strong ETag"() {
+		setup:
+		byte[] data = new byte[1024 * 1024 * 10] // 10MB
+		new Random().nextBytes(data)
+		int rangeRequests = 0
+
+		server.get("/weakETagFile") {
+			it.header("ETag", "W/\"weak\"")
+			it.header("Accept-Ranges", "bytes")
+
+			if (it.req.getHeader("Range") != null) {
+				rangeRequests++
+			}
+
+			it.header("Content-Length", data.length.toString())
+			it.result(data)
+		}
+
+		def output = new File(File.createTempDir(), "file").toPath()
+
+		when:
+		Download.create("$PATH/weakETagFile")
+				.sha1(Checksum.sha1Hex(data))
+				.segments(4)
+				.downloadPath(output)
+
+		then:
+		rangeRequests == 0
+		Files.readAllBytes(output) == data
+	}
+
 	def "File: Insecure protocol"() {
 		setup:
 		def output = new File(File.createTempDir(), "file").toPath()
@@ -24,6 +24,8 @@
 
 package net.fabricmc.loom.test.unit.download
 
+import java.nio.file.Files
+
 import io.javalin.http.HttpStatus
 
 import net.fabricmc.loom.util.download.Download
@@ -147,6 +149,36 @@ class DownloadStringTest extends DownloadTest {
 		result == "Hello World!"
 	}
 
+	def "String: Unreadable file cache is downloaded again"() {
+		setup:
+		int requests = 0
+		server.get("/downloadString3") {
+			requests ++
+			it.result("Hello World!")
+		}
+
+		def output = new File(File.createTempDir(), "file.txt").toPath()
+		Files.writeString(output, "corrupt")
+
+		when:
+		def result = Download.create("$PATH/downloadString3")
+				.defaultCache()
+				.downloadAndRead(output) {
+					def contents = Files.readString(it)
+
+					if (contents == "corrupt") {
+						throw new IOException("Corrupt")
+					}
+
+					return contents
+				}
+
+		then:
+		result == "Hello World!"
+		requests == 1
+		Files.readString(output) == "Hello World!"
+	}
+
 	def "String: Insecure protocol"() {
 		when:
 		def result = Download.create("http://fabricmc.net").downloadString()
@@ -0,0 +1,192 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024-2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit.forge
+
+import java.nio.file.Path
+import java.util.zip.Adler32
+import java.util.zip.ZipEntry
+import java.util.zip.ZipOutputStream
+
+import org.tukaani.xz.LZMA2Options
+import org.tukaani.xz.LZMAOutputStream
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import net.fabricmc.loom.configuration.providers.forge.BinaryPatcher
+import net.fabricmc.loom.configuration.providers.forge.ClassStage
+import net.fabricmc.loom.util.ZipUtils
+
+class BinaryPatcherTest extends Specification {
+	@TempDir
+	Path tempDir
+
+	def "apply gdiff"() {
+		when:
+		def result = BinaryPatcher.applyGDiff("Hello World".bytes, gdiff { out ->
+			out.writeByte(249) // Copy, ushort offset, ubyte length
+			out.writeShort(0)
+			out.writeByte(6)
+			out.writeByte(5) // 5 bytes of data
+			out.write("Loom!".bytes)
+		})
+
+		then:
+		new String(result) == "Hello Loom!"
+	}
+
+	def "patch jar"() {
+		given:
+		def clean = tempDir.resolve("clean.jar")
+		def patches = tempDir.resolve("patches.lzma")
+		def output = tempDir.resolve("output.jar")
+		def cleanA = "Hello World".bytes
+
+		zip(clean.newOutputStream(), [
+			"a/A.class": cleanA,
+			"b/B.class": "Unpatched".bytes,
+			"data.txt": "Data".bytes
+		])
+		zip(new LZMAOutputStream(patches.newOutputStream(), new LZMA2Options(), -1), [
+			"a/A.binpatch": binpatch("a/A", cleanA, gdiff { out ->
+				out.writeByte(249)
+				out.writeShort(0)
+				out.writeByte(6)
+				out.writeByte(7)
+				out.write("Patched".bytes)
+			}),
+			"c/C.binpatch": binpatch("c/C", null, gdiff { out ->
+				out.writeByte(5)
+				out.write("Added".bytes)
+			})
+		])
+
+		when:
+		def options = BinaryPatcher.Options.parse(["--clean", clean.toString(), "--output", output.toString(), "--apply", patches.toString()] + extraArgs)
+		BinaryPatcher.patch(options)
+
+		then:
+		new String(ZipUtils.unpack(output, "a/A.class")) == "Hello Patched"
+		new String(ZipUtils.unpack(output, "c/C.class")) == "Added"
+		ZipUtils.contains(output, "b/B.class") == keepAll
+		ZipUtils.contains(output, "data.txt") == keepAll
+
+		where:
+		extraArgs                  | keepAll
+		[]                         | false
+		["--data", "--unpatched"]  | true
+	}
+
+	def "patch jar with class stage"() {
+		given:
+		def clean = tempDir.resolve("clean.jar")
+		def patches = tempDir.resolve("patches.lzma")
+		def output = tempDir.resolve("output.jar")
+
+		zip(clean.newOutputStream(), [
+			"a/A.class": "A".bytes,
+			"data.txt": "Data".bytes
+		])
+		zip(new LZMAOutputStream(patches.newOutputStream(), new LZMA2Options(), -1), [
+			"b/B.binpatch": binpatch("b/B", null, gdiff { out ->
+				out.writeByte(1)
+				out.write("B".bytes)
+			})
+		])
+		def stage = { byte[] bytes -> (new String(bytes) + "1").bytes } as ClassStage
+
+		when:
+		def options = BinaryPatcher.Options.parse(["--clean", clean.toString(), "--output", output.toString(), "--apply", patches.toString(), "--data", "--unpatched"])
+		BinaryPatcher.patch(options, stage.andThen({ byte[] bytes -> (new String(bytes) + "2").bytes } as ClassStage))
+
+		then:
+		new String(ZipUtils.unpack(output, "a/A.class")) == "A12"
+		new String(ZipUtils.unpack(output, "b/B.class")) == "B12"
+		new String(ZipUtils.unpack(output, "data.txt")) == "Data"
+	}
+
+	def "unsupported arguments"() {
+		expect:
+		BinaryPatcher.Options.parse(["--clean", "clean.jar", "--output", "output.jar", "--apply", "patches.lzma", "--legacy"]) == null
+		BinaryPatcher.Options.parse(["--clean", "clean.jar", "--output", "output.jar"]) == null
+	}
+
+	def "checksum mismatch"() {
+		given:
+		def clean = tempDir.resolve("clean.jar")
+		def patches = tempDir.resolve("patches.lzma")
+		def output = tempDir.resolve("output.jar")
+
+		zip(clean.newOutputStream(), ["a/A.class": "Modified".bytes])
+		zip(new LZMAOutputStream(patches.newOutputStream(), new LZMA2Options(), -1), [
+			"a/A.binpatch": binpatch("a/A", "Original".bytes, gdiff { })
+		])
+
+		when:
+		BinaryPatcher.patch(BinaryPatcher.Options.parse(["--clean", clean.toString(), "--output", output.toString(), "--apply", patches.toString()]))
+
+		then:
+		def e = thrown(RuntimeException)
+		e.message.contains("checksum")
+	}
+
+	private static byte[] gdiff(Closure<?> commands) {
+		def bytes = new ByteArrayOutputStream()
+		def out = new DataOutputStream(bytes)
+		out.writeInt(0xD1FFD1FF)
+		out.writeByte(4)
+		commands(out)
+		out.writeByte(0) // EOF
+		return bytes.toByteArray()
+	}
+
+	private static byte[] binpatch(String name, byte[] clean, byte[] gdiff) {
+		def bytes = new ByteArrayOutputStream()
+		def out = new DataOutputStream(bytes)
+		out.writeByte(1)
+		out.writeUTF(name)
+		out.writeUTF(name)
+		out.writeBoolean(clean != null)
+
+		if (clean != null) {
+			def adler32 = new Adler32()
+			adler32.update(clean)
+			out.writeInt((int) adler32.value)
+		}
+
+		out.writeInt(gdiff.length)
+		out.write(gdiff)
+		return bytes.toByteArray()
+	}
+
+	private static void zip(OutputStream stream, Map<String, byte[]> entries) {
+		new ZipOutputStream(stream).withCloseable { zos ->
+			entries.each { name, data ->
+				zos.putNextEntry(new ZipEntry(name))
+				zos.write(data)
+				zos.closeEntry()
+			}
+		}
+	}
+}
@@ -0,0 +1,122 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit.forge
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.attribute.FileTime
+import java.time.Duration
+import java.time.Instant
+
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import net.fabricmc.loom.util.srg.MergedMappingsCache
+import net.fabricmc.mappingio.MappingReader
+import net.fabricmc.mappingio.tree.MemoryMappingTree
+
+class MergedMappingsCacheTest extends Specification {
+	@TempDir
+	Path tempDir
+
+	int merges = 0
+
+	MergedMappingsCache.Merge merge = {
+		merges++
+		def tree = new MemoryMappingTree()
+		MappingReader.read(new StringReader("tiny\t2\t0\tofficial\tnamed\nc\ta\tFoo\n"), tree)
+		return tree
+	} as MergedMappingsCache.Merge
+
+	def "merged mappings are reused"() {
+		given:
+		def cache = new MergedMappingsCache(tempDir.resolve("cache"))
+		def input = writeInput("input", "a")
+
+		when:
+		def first = cache.write("srg", [input], tempDir.resolve("first.tiny"), false, merge)
+		def second = cache.write("srg", [input], tempDir.resolve("second.tiny"), false, merge)
+
+		then:
+		!first
+		second
+		merges == 1
+		Files.readString(tempDir.resolve("second.tiny")) == Files.readString(tempDir.resolve("first.tiny"))
+		Files.readString(tempDir.resolve("second.tiny")).contains("c\ta\tFoo")
+	}
+
+	def "mappings are merged again when an input changes"() {
+		given:
+		def cache = new MergedMappingsCache(tempDir.resolve("cache"))
+		def input = writeInput("input", "a")
+
+		when:
+		cache.write("srg", [input], tempDir.resolve("output.tiny"), false, merge)
+		writeInput("input", "b")
+		def hit = cache.write("srg", [input], tempDir.resolve("output.tiny"), false, merge)
+
+		then:
+		!hit
+		merges == 2
+	}
+
+	def "mappings are merged again when refreshing"() {
+		given:
+		def cache = new MergedMappingsCache(tempDir.resolve("cache"))
+		def input = writeInput("input", "a")
+
+		when:
+		cache.write("srg", [input], tempDir.resolve("output.tiny"), false, merge)
+		def hit = cache.write("srg", [input], tempDir.resolve("output.tiny"), true, merge)
+
+		then:
+		!hit
+		merges == 2
+	}
+
+	def "old entries are pruned"() {
+		given:
+		def root = tempDir.resolve("cache")
+		def cache = new MergedMappingsCache(root)
+		cache.write("srg", [writeInput("old", "a")], tempDir.resolve("output.tiny"), false, merge)
+		def oldEntry = Files.list(root).withCloseable { it.findFirst().get() }
+		Files.setLastModifiedTime(oldEntry, FileTime.from(Instant.now() - Duration.ofDays(60)))
+		cache.write("srg", [writeInput("new", "b")], tempDir.resolve("output.tiny"), false, merge)
+
+		when:
+		cache.prune()
+		def entries = Files.list(root).withCloseable { it.toList() }
+
+		then:
+		entries.size() == 1
+		Files.notExists(oldEntry)
+	}
+
+	private Path writeInput(String name, String contents) {
+		def path = tempDir.resolve(name)
+		Files.writeString(path, contents)
+		return path
+	}
+}
@@ -34,6 +34,7 @@ import net.fabricmc.loom.util.srg.ForgeMappingsMerger
 import net.fabricmc.mappingio.MappingUtil
 import net.fabricmc.mappingio.format.MappingFormat
 import net.fabricmc.mappingio.format.tiny.Tiny2FileWriter
+import net.fabricmc.mappingio.tree.MemoryMappingTree
 
 class SrgMergerTest extends Specification {
 	@TempDir
@@ -65,6 +66,39 @@ class SrgMergerTest extends Specification {
 		Files.readAllLines(output) == expected
 	}
 
+	def "parallel merge matches sequential merge"() {
+		given:
+		def srgInput = mappingsDir.resolve("many.tsrg")
+		def tinyInput = mappingsDir.resolve("many.tiny")
+		def srg = new StringBuilder("tsrg2 left right\n")
+		def tiny = new StringBuilder("tiny\t2\t0\tofficial\tintermediary\tnamed\n")
+
+		for (i in 0..<2000) {
+			srg.append("c$i test/Class$i\n\tf I f_${i}_\n\tm (I)V m_${i}_\n\t\t0 o p_${i}_0_\n\tn ()V m_shared_\n")
+			tiny.append("c\tc$i\tclass_$i\ttest/Class$i\n")
+			tiny.append("\tf\tI\tf\tfield_$i\tfield$i\n")
+			tiny.append("\tm\t(I)V\tm\tmethod_$i\tmethod$i\n\t\tp\t0\t\t\targ$i\n")
+			tiny.append("\tm\t()V\tn\tmethod_shared\tshared\n")
+		}
+
+		Files.writeString(srgInput, srg)
+		Files.writeString(tinyInput, tiny)
+
+		when:
+		def sequential = write(ForgeMappingsMerger.mergeSrg(srgInput, tinyInput, null, true, false))
+		def parallel = (0..<5).collect { write(ForgeMappingsMerger.mergeSrg(srgInput, tinyInput, null, true, true)) }
+
+		then:
+		sequential.contains("c\tc1999\ttest/Class1999\tclass_1999\ttest/Class1999")
+		parallel.every { it == sequential }
+	}
+
+	private static String write(MemoryMappingTree mappings) {
+		def writer = new StringWriter()
+		mappings.accept(new Tiny2FileWriter(writer, false))
+		return writer.toString()
+	}
+
 	private def merge(ForgeMappingsMerger.ExtraMappings extraMappings, Path output) {
 		def srgInput = extractTempFile("srgInput.tsrg")
 		def tinyInput = extractTempFile("tinyInput.tiny")
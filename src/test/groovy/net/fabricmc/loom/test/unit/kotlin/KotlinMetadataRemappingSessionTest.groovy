@@ -0,0 +1,76 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit.kotlin
+
+import org.objectweb.asm.ClassReader
+import org.objectweb.asm.ClassWriter
+import org.objectweb.asm.Opcodes
+import org.objectweb.asm.tree.ClassNode
+import spock.lang.Specification
+
+import net.fabricmc.loom.util.kotlin.KotlinMetadataRemappingSession
+import net.fabricmc.loom.util.kotlin.KotlinMetadataTinyRemapperExtension
+import net.fabricmc.tinyremapper.api.TrClass
+
+class KotlinMetadataRemappingSessionTest extends Specification {
+	def "only Kotlin classes use the Kotlin visitor"() {
+		given:
+		def delegate = Mock(KotlinMetadataTinyRemapperExtension)
+		def session = new KotlinMetadataRemappingSession(delegate)
+		def kotlinVisitor = new ClassNode()
+
+		def kotlinClass = Mock(TrClass)
+		kotlinClass.getName() >> "TestExtensionKt"
+		def javaClass = Mock(TrClass)
+		javaClass.getName() >> "JavaClass"
+
+		// Simulate tiny remapper's read pass
+		new ClassReader(new File("src/test/resources/classes/TestExtensionKt.class").bytes)
+				.accept(session.insertAnalyzeVisitor(0, "TestExtensionKt", new ClassNode()), 0)
+		new ClassReader(javaClass("JavaClass"))
+				.accept(session.insertAnalyzeVisitor(0, "JavaClass", new ClassNode()), 0)
+
+		def next = new ClassNode()
+
+		when:
+		def kotlinResult = session.insertApplyVisitor(kotlinClass, next)
+		def javaResult = session.insertApplyVisitor(javaClass, next)
+
+		then:
+		1 * delegate.insertApplyVisitor(kotlinClass, next) >> kotlinVisitor
+		0 * delegate.insertApplyVisitor(javaClass, _)
+		kotlinResult == kotlinVisitor
+		javaResult == next
+		session.remappedClassCount == 1
+	}
+
+	private static byte[] javaClass(String name) {
+		def writer = new ClassWriter(0)
+		writer.visit(Opcodes.V17, Opcodes.ACC_PUBLIC, name, null, "java/lang/Object", null)
+		writer.visitAnnotation("Ljava/lang/Deprecated;", true).visitEnd()
+		writer.visitEnd()
+		return writer.toByteArray()
+	}
+}
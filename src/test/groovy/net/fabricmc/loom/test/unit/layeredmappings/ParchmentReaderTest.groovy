@@ -0,0 +1,93 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2021 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit.layeredmappings
+
+import java.nio.file.Files
+import java.nio.file.Path
+
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import net.fabricmc.loom.configuration.providers.mappings.parchment.ParchmentReader
+import net.fabricmc.loom.util.ZipUtils
+import net.fabricmc.mappingio.tree.MemoryMappingTree
+
+class ParchmentReaderTest extends Specification {
+	@TempDir
+	Path tempDir
+
+	def "read parchment export"() {
+		given:
+		def zip = createExport("""
+			{
+				"version": "1.1.0",
+				"packages": [{"name": "a", "javadoc": ["Package"]}],
+				"classes": [
+					{
+						"fields": [{"name": "field", "descriptor": "I", "javadoc": ["Field"]}],
+						"methods": [{"name": "method", "descriptor": "(I)V", "parameters": [{"index": 1, "name": "pValue", "javadoc": "Value"}]}],
+						"javadoc": ["Line 1", "Line 2"],
+						"name": "a/Foo"
+					},
+					{"name": "a/Bar"}
+				]
+			}
+		""")
+		def tree = new MemoryMappingTree()
+
+		when:
+		ParchmentReader.read(zip, "parchment.json", tree, "named")
+
+		then:
+		tree.srcNamespace == "named"
+		tree.classes*.srcName == ["a/Foo", "a/Bar"]
+		tree.getClass("a/Foo").comment == "Line 1\nLine 2"
+		tree.getClass("a/Foo").getField("field", "I").comment == "Field"
+		tree.getClass("a/Foo").getMethod("method", "(I)V").getArg(1, 1, null).srcName == "pValue"
+		tree.getClass("a/Foo").getMethod("method", "(I)V").getArg(1, 1, null).comment == "Value"
+	}
+
+	def "read parchment export without classes"() {
+		given:
+		def zip = createExport("""{"version": "1.1.0", "classes": null}""")
+		def tree = new MemoryMappingTree()
+
+		when:
+		ParchmentReader.read(zip, "parchment.json", tree, "named")
+
+		then:
+		tree.srcNamespace == "named"
+		tree.classes.isEmpty()
+	}
+
+	private Path createExport(String json) {
+		def dir = Files.createDirectories(tempDir.resolve("export"))
+		Files.writeString(dir.resolve("parchment.json"), json)
+
+		def zip = tempDir.resolve("parchment.zip")
+		ZipUtils.pack(dir, zip)
+		return zip
+	}
+}
@@ -24,11 +24,18 @@
 
 package net.fabricmc.loom.test.unit.processor
 
+import java.nio.file.Files
+import java.nio.file.Path
+import java.util.zip.ZipFile
+
 import spock.lang.Specification
 
+import net.fabricmc.loom.api.processor.ProcessorContext
 import net.fabricmc.loom.api.processor.SpecContext
 import net.fabricmc.loom.configuration.processors.MinecraftJarProcessorManager
+import net.fabricmc.loom.test.util.processor.TestIncrementalJarProcessor
 import net.fabricmc.loom.test.util.processor.TestMinecraftJarProcessor
+import net.fabricmc.loom.util.FileSystemUtil
 
 class MinecraftJarProcessorManagerTest extends Specification {
 	def "Cache value matches"() {
@@ -59,4 +66,81 @@ class MinecraftJarProcessorManagerTest extends Specification {
 		manager1.jarHash == "a714eb2de6"
 		manager2.jarHash == "eb6faafa72"
 	}
+
+	def "Changed classes"() {
+		when:
+		def previous = [
+			new MinecraftJarProcessorManager.ProcessedClasses("AccessWidener", ["a/A": "1", "a/B": "1", "a/C": "1"]),
+			new MinecraftJarProcessorManager.ProcessedClasses("InterfaceInjection", ["a/D": "1"])
+		]
+		def current = [
+			new MinecraftJarProcessorManager.ProcessedClasses("AccessWidener", ["a/A": "1", "a/B": "2", "a/E": "1"]),
+			new MinecraftJarProcessorManager.ProcessedClasses("InterfaceInjection", ["a/D": "1"])
+		]
+
+		then:
+		MinecraftJarProcessorManager.getChangedClasses(previous, current) == ["a/B", "a/C", "a/E"] as Set
+		MinecraftJarProcessorManager.getChangedClasses(previous, previous).isEmpty()
+	}
+
+	def "Changed processors"() {
+		when:
+		def previous = [
+			new MinecraftJarProcessorManager.ProcessedClasses("AccessWidener", ["a/A": "1"])
+		]
+		def current = [
+			new MinecraftJarProcessorManager.ProcessedClasses("InterfaceInjection", ["a/A": "1"])
+		]
+
+		then:
+		MinecraftJarProcessorManager.getChangedClasses(previous, current) == null
+		MinecraftJarProcessorManager.getChangedClasses(previous, previous + current) == null
+	}
+
+	def "Incremental processing matches full processing"() {
+		given:
+		def processorContext = Mock(ProcessorContext)
+		def tempDir = Files.createTempDirectory("loom-processor-test")
+		def input = tempDir.resolve("input.jar")
+		FileSystemUtil.getJarFileSystem(input, true).withCloseable { fs ->
+			["a/A", "a/B", "a/C", "a/D", "a/E"].each {
+				Files.createDirectories(fs.getPath(it).parent)
+				Files.write(fs.getPath(it + ".class"), it.bytes)
+			}
+		}
+
+		def previous = MinecraftJarProcessorManager.create([
+			new TestIncrementalJarProcessor(classes: ["a/A": "1", "a/B": "1", "a/C": null, "a/E": "1"])
+		], Mock(SpecContext))
+		def current = MinecraftJarProcessorManager.create([
+			// a/A is changed, a/B is no longer processed, a/C is no longer deleted and a/D is now deleted
+			new TestIncrementalJarProcessor(classes: ["a/A": "2", "a/D": null, "a/E": "1"])
+		], Mock(SpecContext))
+
+		def previousJar = tempDir.resolve("previous.jar")
+		Files.copy(input, previousJar)
+		previous.processJar(previousJar, processorContext)
+
+		def fullJar = tempDir.resolve("full.jar")
+		Files.copy(input, fullJar)
+		current.processJar(fullJar, processorContext)
+
+		when:
+		def changedClasses = MinecraftJarProcessorManager.getChangedClasses(previous.getProcessedClasses(processorContext), current.getProcessedClasses(processorContext))
+		def incrementalJar = tempDir.resolve("incremental.jar")
+		Files.copy(previousJar, incrementalJar)
+		current.processChangedClasses(input, incrementalJar, changedClasses, processorContext)
+
+		then:
+		changedClasses == ["a/A", "a/B", "a/C", "a/D"] as Set
+		readEntries(incrementalJar) == readEntries(fullJar)
+		readEntries(fullJar).keySet() == ["a/A.class", "a/B.class", "a/C.class", "a/E.class"] as Set
+		new String(readEntries(fullJar)["a/A.class"]) == "a/A2"
+	}
+
+	private static Map<String, List<Byte>> readEntries(Path jar) {
+		new ZipFile(jar.toFile()).withCloseable { zip ->
+			zip.entries().findAll { !it.directory }.collectEntries { [(it.name): zip.getInputStream(it).bytes as List<Byte>] }
+		}
+	}
 }
@@ -0,0 +1,104 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024-2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit.providers
+
+import java.nio.file.Files
+import java.nio.file.Path
+
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import net.fabricmc.loom.configuration.providers.minecraft.assets.AssetIndex
+import net.fabricmc.loom.configuration.providers.minecraft.assets.AssetLayout
+import net.fabricmc.loom.util.Checksum
+
+class AssetLayoutTest extends Specification {
+	@TempDir
+	Path tempDir
+
+	def "populate layout"() {
+		given:
+		def objects = tempDir.resolve("objects")
+		def layout = tempDir.resolve("resources")
+		def soundHash = writeObject(objects, "sound")
+		def langHash = writeObject(objects, "lang")
+		def index = new AssetIndex([
+			"sound/a.ogg": new AssetIndex.Entry(soundHash, 5),
+			"sound/b.ogg": new AssetIndex.Entry(soundHash, 5),
+			"lang/en_us.lang": new AssetIndex.Entry(langHash, 4)
+		], false, true)
+
+		when:
+		AssetLayout.populate(index, "index", objects, layout)
+
+		then:
+		layout.resolve("sound/a.ogg").text == "sound"
+		layout.resolve("sound/b.ogg").text == "sound"
+		layout.resolve("lang/en_us.lang").text == "lang"
+		Files.exists(layout.resolve(".loom-assets.json"))
+
+		when:
+		// Replace the file rather than writing to it, as it may be linked to the object
+		Files.delete(layout.resolve("lang/en_us.lang"))
+		layout.resolve("lang/en_us.lang").text = "modified"
+		AssetLayout.populate(index, "index", objects, layout)
+
+		then:
+		layout.resolve("lang/en_us.lang").text == "lang"
+		AssetLayout.getObjectPath(objects, langHash).text == "lang"
+	}
+
+	def "stale files are deleted"() {
+		given:
+		def objects = tempDir.resolve("objects")
+		def layout = tempDir.resolve("resources")
+		def soundHash = writeObject(objects, "sound")
+		def langHash = writeObject(objects, "lang")
+		AssetLayout.populate(new AssetIndex([
+			"sound/a.ogg": new AssetIndex.Entry(soundHash, 5),
+			"lang/en_us.lang": new AssetIndex.Entry(langHash, 4)
+		], false, true), "index1", objects, layout)
+		layout.resolve("options.txt").text = "not an asset"
+
+		when:
+		AssetLayout.populate(new AssetIndex([
+			"sound/a.ogg": new AssetIndex.Entry(soundHash, 5)
+		], false, true), "index2", objects, layout)
+
+		then:
+		layout.resolve("sound/a.ogg").text == "sound"
+		Files.notExists(layout.resolve("lang/en_us.lang"))
+		layout.resolve("options.txt").text == "not an asset"
+		AssetLayout.getObjectPath(objects, langHash).text == "lang"
+	}
+
+	private static String writeObject(Path objects, String content) {
+		def hash = Checksum.sha1Hex(content.bytes)
+		def path = AssetLayout.getObjectPath(objects, hash)
+		Files.createDirectories(path.parent)
+		path.text = content
+		return hash
+	}
+}
@@ -0,0 +1,79 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2024 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.util.processor
+
+import java.nio.file.Files
+import java.nio.file.Path
+
+import groovy.transform.Immutable
+
+import net.fabricmc.loom.api.processor.MinecraftJarProcessor
+import net.fabricmc.loom.api.processor.ProcessorContext
+import net.fabricmc.loom.api.processor.SpecContext
+import net.fabricmc.loom.util.FileSystemUtil
+
+/**
+ * Appends a suffix to the bytes of each class in {@link #classes}, or deletes the class when the suffix is {@code null}.
+ */
+@Immutable
+class TestIncrementalJarProcessor implements MinecraftJarProcessor<Spec> {
+	Map<String, String> classes
+
+	final String name = "TestIncrementalProcessor"
+
+	@Override
+	Spec buildSpec(SpecContext context) {
+		return new Spec(classes)
+	}
+
+	@Immutable
+	class Spec implements MinecraftJarProcessor.Spec {
+		Map<String, String> classes
+	}
+
+	@Override
+	void processJar(Path jar, Spec spec, ProcessorContext context) throws IOException {
+		FileSystemUtil.getJarFileSystem(jar, false).withCloseable { fs ->
+			spec.classes.each { name, suffix ->
+				def path = fs.getPath(name + ".class")
+
+				if (Files.notExists(path)) {
+					return
+				}
+
+				if (suffix == null) {
+					Files.delete(path)
+				} else {
+					Files.write(path, Files.readAllBytes(path) + suffix.bytes)
+				}
+			}
+		}
+	}
+
+	@Override
+	Map<String, String> getProcessedClasses(Spec spec, ProcessorContext context) throws IOException {
+		return spec.classes.collectEntries { name, suffix -> [(name): String.valueOf(suffix)] }
+	}
+}